@@ -0,0 +1,210 @@
+package org.nd4j.linalg.api.iter;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+/**
+ * Allocation free alternative to {@link NdIndexIterator}.
+ *
+ * Instead of returning a fresh int array per element
+ * the cursor updates one coordinate array in place on every
+ * {@link #advance()}. When created for an {@link INDArray}
+ * the cursor also keeps track of the buffer offset
+ * of the current element so elements can be read straight from {@link INDArray#data()}
+ * without recomputing the offset from the coordinates.
+ * The array's own offset is not included: the buffer of a view
+ * already starts at it, see {@link org.nd4j.linalg.api.buffer.DataBuffer#getDouble(long)}.
+ *
+ * Usage:
+ * <pre>
+ * NdIndexCursor cursor = new NdIndexCursor(arr);
+ * while (cursor.advance()) {
+ *     double d = arr.data().getDouble(cursor.offset());
+ *     int[] coords = cursor.coordinates();
+ * }
+ * </pre>
+ *
+ * The arrays returned by {@link #coordinates()} and {@link #longCoordinates()}
+ * are reused and must not be modified or held on to by the caller.
+ * A cursor is not thread safe.
+ */
+public class NdIndexCursor {
+    private final int[] shape;
+    private final int[] stride;
+    private final char order;
+    private final long length;
+
+    private final int[] coords;
+    private long[] longCoords;
+    private long index = -1;
+    private long offset;
+
+    /**
+     * Iterate over the given shape in c order
+     * @param shape the shape to iterate over
+     */
+    public NdIndexCursor(int... shape) {
+        this('c', shape);
+    }
+
+    /**
+     * Iterate over the given shape in the given order
+     * @param order the order of iteration ('c' means the last dimension moves fastest)
+     * @param shape the shape to iterate over
+     */
+    public NdIndexCursor(char order, int... shape) {
+        this(order, ArrayUtil.copy(shape), new int[shape.length]);
+    }
+
+    /**
+     * Iterate over every element of the given array in c order
+     * (same order as {@link NdIndexIterator}), tracking buffer offsets
+     * @param arr the array to iterate over
+     */
+    public NdIndexCursor(INDArray arr) {
+        this('c', arr);
+    }
+
+    /**
+     * Iterate over every element of the given array in the given order,
+     * tracking offsets into {@link INDArray#data()}
+     * @param order the order of iteration
+     * @param arr the array to iterate over
+     */
+    public NdIndexCursor(char order, INDArray arr) {
+        //data() of a view is already positioned at the view's offset
+        this(order, arr.shape(), arr.stride());
+        Nd4j.getCompressor().autoDecompress(arr);
+    }
+
+    private NdIndexCursor(char order, int[] shape, int[] stride) {
+        if (order != 'c' && order != 'f')
+            throw new IllegalArgumentException("Illegal ordering " + order);
+        if (stride.length != shape.length)
+            throw new IllegalArgumentException("Shape and stride must be the same length");
+
+        this.shape = shape;
+        this.stride = stride;
+        this.order = order;
+        this.length = ArrayUtil.prodLong(shape);
+        this.coords = new int[shape.length];
+        reset();
+    }
+
+    /**
+     * Move the cursor to the next element.
+     * The cursor starts before the first element,
+     * so advance has to be called before reading the first position.
+     * @return true if the cursor points at a valid element, false if iteration is done
+     */
+    public boolean advance() {
+        if (index + 1 >= length) {
+            index = length;
+            return false;
+        }
+
+        if (++index == 0)
+            return true;
+
+        if (order == 'c') {
+            for (int i = coords.length - 1; i >= 0; i--) {
+                if (step(i))
+                    return true;
+            }
+        } else {
+            for (int i = 0; i < coords.length; i++) {
+                if (step(i))
+                    return true;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Increment the given dimension, wrapping it around
+     * to zero if it overflows.
+     * @return true if the dimension didn't overflow
+     */
+    private boolean step(int dimension) {
+        if (++coords[dimension] < shape[dimension]) {
+            offset += stride[dimension];
+            return true;
+        }
+
+        offset -= (long) (shape[dimension] - 1) * stride[dimension];
+        coords[dimension] = 0;
+        return false;
+    }
+
+    /**
+     * Rewind the cursor to before the first element
+     */
+    public void reset() {
+        for (int i = 0; i < coords.length; i++)
+            coords[i] = 0;
+        index = -1;
+        offset = 0;
+    }
+
+    /**
+     * The coordinates of the current element.
+     * The returned array is updated in place by {@link #advance()}
+     * @return the current coordinates
+     */
+    public int[] coordinates() {
+        return coords;
+    }
+
+    /**
+     * The coordinates of the current element as longs.
+     * The returned array is reused across calls.
+     * @return the current coordinates
+     */
+    public long[] longCoordinates() {
+        if (longCoords == null)
+            longCoords = new long[coords.length];
+        for (int i = 0; i < coords.length; i++)
+            longCoords[i] = coords[i];
+        return longCoords;
+    }
+
+    /**
+     * The buffer offset of the current element.
+     * Only meaningful for cursors created from an {@link INDArray}
+     * @return the offset of the current element relative to the array's data buffer,
+     * to be passed to {@link INDArray#data()} as is
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * The linear index (in iteration order) of the current element
+     * @return the current linear index, -1 before the first call to {@link #advance()}
+     */
+    public long index() {
+        return index;
+    }
+
+    /**
+     * Total number of elements the cursor visits
+     * @return the number of elements
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns true if {@link #advance()} will move to another element
+     * @return true if there are more elements
+     */
+    public boolean hasNext() {
+        return index + 1 < length;
+    }
+
+    public char order() {
+        return order;
+    }
+}
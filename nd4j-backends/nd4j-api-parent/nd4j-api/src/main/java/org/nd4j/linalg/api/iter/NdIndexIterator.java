@@ -16,6 +16,9 @@ import java.util.Map;
  * the shape until each item in the "position"
  * hits the current shape
  *
+ * A new array is returned for every element,
+ * see {@link NdIndexCursor} for an allocation free alternative.
+ *
  * @author Adam Gibson
  */
 public class NdIndexIterator implements Iterator<int[]> {
@@ -1268,12 +1268,21 @@ public abstract class BaseNDArray implements INDArray, Iterable {
 
     }
 
+    /**
+     * Whether getScalar/putScalar calls should be reported to {@link OpProfiler}.
+     * HISTOGRAMS mode only times ops, and stays off the shared scalar counters.
+     */
+    private static boolean isScalarProfiling() {
+        OpExecutioner.ProfilingMode mode = Nd4j.getExecutioner().getProfilingMode();
+        return mode != OpExecutioner.ProfilingMode.DISABLED && mode != OpExecutioner.ProfilingMode.HISTOGRAMS;
+    }
+
     @Override
     public INDArray putScalar(int i, double value) {
         if (i < 0)
             i += rank();
         if (isScalar()) {
-            if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+            if (isScalarProfiling())
                 OpProfiler.getInstance().processScalarCall();
 
             data.put(i, value);
@@ -1320,7 +1329,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
         } else if (indexes.length == 4) {
             return putScalar(indexes[0], indexes[1], indexes[2], indexes[3], value);
         } else {
-            if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+            if (isScalarProfiling())
                 OpProfiler.getInstance().processScalarCall();
 
             long offset = Shape.getOffset(javaShapeInformation, indexes);
@@ -1333,7 +1342,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
     public INDArray putScalar(int row, int col, double value) {
         Nd4j.getCompressor().autoDecompress(this);
 
-        if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+        if (isScalarProfiling())
             OpProfiler.getInstance().processScalarCall();
 
         if (rank() != 2)
@@ -1346,7 +1355,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
     @Override
     public INDArray putScalar(int dim0, int dim1, int dim2, double value) {
         Nd4j.getCompressor().autoDecompress(this);
-        if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+        if (isScalarProfiling())
             OpProfiler.getInstance().processScalarCall();
 
         if (rank() != 3)
@@ -1371,7 +1380,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
     @Override
     public INDArray putScalar(int dim0, int dim1, int dim2, int dim3, double value) {
         Nd4j.getCompressor().autoDecompress(this);
-        if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+        if (isScalarProfiling())
             OpProfiler.getInstance().processScalarCall();
 
         if (rank() != 4)
@@ -1735,7 +1744,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
      */
     @Override
     public double getDouble(int... indices) {
-        if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+        if (isScalarProfiling())
             OpProfiler.getInstance().processScalarCall();
 
         Nd4j.getCompressor().autoDecompress(this);
@@ -3728,7 +3737,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
             throw new IllegalArgumentException("Unable to get linear index >= " + length());
         }
 
-        if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+        if (isScalarProfiling())
             OpProfiler.getInstance().processScalarCall();
 
         Nd4j.getCompressor().autoDecompress(this);
@@ -3848,7 +3857,7 @@ public abstract class BaseNDArray implements INDArray, Iterable {
 
     @Override
     public INDArray putScalarUnsafe(long offset, double value) {
-        if (Nd4j.getExecutioner().getProfilingMode() != OpExecutioner.ProfilingMode.DISABLED)
+        if (isScalarProfiling())
             OpProfiler.getInstance().processScalarCall();
 
         data().put(offset, value);
@@ -0,0 +1,360 @@
+package org.nd4j.linalg.api.ops.aggregates;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ops.aggregates.impl.AggregateCBOW;
+import org.nd4j.linalg.api.ops.aggregates.impl.AggregateSkipGram;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class collects {@link Aggregate}s submitted from any number of threads into {@link Batch}es,
+ * and executes them on a fixed set of worker threads.
+ *
+ * Every worker has its own pending batches (one per opNum, since a Batch can only hold one op type)
+ * and its own queue. A batch is dispatched as soon as it holds batchSize aggregates,
+ * or once its oldest aggregate waited for maxDelay, whatever comes first.
+ *
+ * Aggregates are routed to workers by a row key (see {@link RowKey}):
+ * all aggregates with the same key go to the same worker (in submission order for the same op),
+ * which keeps the rows for that key warm on one worker. Aggregates without a key
+ * are spread round robin.
+ *
+ * PLEASE NOTE: routing does NOT make updates exclusive. An aggregate usually writes more rows
+ * than its key: skipgram and CBOW both write shared syn1/syn1Neg rows, and CBOW writes the syn0 rows
+ * of all of its context words. Workers may update those rows at the same time, with the same
+ * Hogwild-style races as multi-threaded word2vec training. Aggregates that must not race
+ * have to be submitted to the same worker (same key) or through separate flushes.
+ *
+ * PLEASE NOTE: executioners keep their batch memory in thread locals,
+ * so every worker allocates its own batch surface on first use.
+ */
+@Slf4j
+public class AggregateBatchScheduler implements AutoCloseable {
+
+    /**
+     * Maps an aggregate to its routing key, or -1 to spread it round robin
+     */
+    public interface RowKey {
+        int rowOf(Aggregate aggregate);
+    }
+
+    /**
+     * Default RowKey: the syn0 row for {@link AggregateSkipGram}, the target word for {@link AggregateCBOW},
+     * -1 for anything else. These are not the only rows written, see the class javadoc.
+     */
+    public static final RowKey TARGET_ROW = new RowKey() {
+        @Override
+        public int rowOf(Aggregate aggregate) {
+            if (aggregate instanceof AggregateSkipGram)
+                return aggregate.getIndexingArguments().get(0);
+            if (aggregate instanceof AggregateCBOW)
+                return aggregate.getIndexingArguments().get(8);
+            return -1;
+        }
+    };
+
+    @Getter
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final RowKey rowKey;
+    private final OpExecutioner executioner;
+    private final Worker[] workers;
+    private final ScheduledExecutorService flusher;
+    private final AtomicInteger roundRobin = new AtomicInteger(0);
+    private final AtomicLong inFlight = new AtomicLong(0);
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong executed = new AtomicLong(0);
+    private final AtomicLong batchesExecuted = new AtomicLong(0);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Object completion = new Object();
+    private final long startTime = System.nanoTime();
+    private volatile boolean closed = false;
+
+    /**
+     * Scheduler using the current executioner and {@link #TARGET_ROW}
+     *
+     * @param numWorkers number of worker threads
+     * @param batchSize max number of aggregates per batch, at most {@link Batch#getBatchLimit()}
+     * @param maxDelayMillis max time an aggregate waits for its batch to fill up
+     */
+    public AggregateBatchScheduler(int numWorkers, int batchSize, long maxDelayMillis) {
+        this(numWorkers, batchSize, maxDelayMillis, TARGET_ROW, Nd4j.getExecutioner());
+    }
+
+    /**
+     * @param numWorkers number of worker threads
+     * @param batchSize max number of aggregates per batch, at most {@link Batch#getBatchLimit()}
+     * @param maxDelayMillis max time an aggregate waits for its batch to fill up
+     * @param rowKey routes aggregates to workers
+     * @param executioner executioner to run batches with
+     */
+    public AggregateBatchScheduler(int numWorkers, int batchSize, long maxDelayMillis, RowKey rowKey,
+                    OpExecutioner executioner) {
+        if (numWorkers < 1)
+            throw new IllegalArgumentException("Number of workers should be positive");
+        if (batchSize < 1 || batchSize > Batch.getBatchLimit())
+            throw new IllegalArgumentException("Batch size should be between 1 and " + Batch.getBatchLimit());
+        if (maxDelayMillis < 1)
+            throw new IllegalArgumentException("Max delay should be positive");
+
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.rowKey = rowKey;
+        this.executioner = executioner;
+
+        this.workers = new Worker[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "AggregateBatchScheduler flusher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        long period = Math.max(1, maxDelayMillis / 2);
+        flusher.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                long deadline = System.nanoTime() - maxDelayNanos;
+                for (Worker worker : workers)
+                    worker.flush(deadline);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Submit an aggregate for execution. This method is thread safe, and doesn't block.
+     *
+     * @param aggregate
+     */
+    public void submit(Aggregate aggregate) {
+        if (closed)
+            throw new IllegalStateException("Scheduler was closed");
+        rethrowFailure();
+
+        int row = rowKey == null ? -1 : rowKey.rowOf(aggregate);
+        int idx = row >= 0 ? row % workers.length
+                        : (roundRobin.getAndIncrement() & Integer.MAX_VALUE) % workers.length;
+        submitted.incrementAndGet();
+        workers[idx].add(aggregate);
+    }
+
+    /**
+     * Submit a list of aggregates for execution
+     *
+     * @param aggregates
+     */
+    public void submit(List<? extends Aggregate> aggregates) {
+        for (Aggregate aggregate : aggregates)
+            submit(aggregate);
+    }
+
+    /**
+     * This method dispatches all pending aggregates, and blocks until everything submitted so far was executed
+     */
+    public void flush() {
+        for (Worker worker : workers)
+            worker.flush(Long.MAX_VALUE);
+
+        synchronized (completion) {
+            while (inFlight.get() > 0) {
+                try {
+                    completion.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * This method flushes pending aggregates, and stops the workers
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        try {
+            flush();
+        } finally {
+            closed = true;
+            flusher.shutdownNow();
+            for (Worker worker : workers) {
+                worker.running = false;
+                worker.interrupt();
+            }
+            for (Worker worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            log.info("Executed {} aggregates in {} batches, fill rate: {}, aggregates/sec: {}", executed.get(),
+                            batchesExecuted.get(), fillRate(), aggregatesPerSecond());
+        }
+    }
+
+    /**
+     * @return number of aggregates submitted so far
+     */
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * @return number of aggregates executed so far
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * @return number of batches executed so far
+     */
+    public long getBatchesExecuted() {
+        return batchesExecuted.get();
+    }
+
+    /**
+     * This method returns average batch fill rate: 1.0 means every batch was full
+     *
+     * @return
+     */
+    public double fillRate() {
+        long batches = batchesExecuted.get();
+        return batches == 0 ? 0.0 : executed.get() / (double) (batches * batchSize);
+    }
+
+    /**
+     * This method returns number of aggregates executed per second since this scheduler was created
+     *
+     * @return
+     */
+    public double aggregatesPerSecond() {
+        long elapsed = System.nanoTime() - startTime;
+        return elapsed <= 0 ? 0.0 : executed.get() / (elapsed / 1e9);
+    }
+
+    private void rethrowFailure() {
+        Throwable t = failure.get();
+        if (t != null)
+            throw new RuntimeException("Batch execution failed", t);
+    }
+
+    private static class Pending {
+        private final List<Aggregate> aggregates;
+        private final long firstNanos;
+
+        private Pending(int capacity) {
+            this.aggregates = new ArrayList<>(capacity);
+            this.firstNanos = System.nanoTime();
+        }
+    }
+
+    private class Worker extends Thread {
+        private final BlockingQueue<Batch<Aggregate>> queue = new LinkedBlockingQueue<>();
+        // opNum -> aggregates waiting for their batch to fill up, guarded by this
+        private final Map<Integer, Pending> pending = new HashMap<>();
+        private volatile boolean running = true;
+
+        private Worker(int id) {
+            super("AggregateBatchScheduler worker " + id);
+            setDaemon(true);
+        }
+
+        private void add(Aggregate aggregate) {
+            List<Aggregate> full = null;
+            synchronized (this) {
+                Pending p = pending.get(aggregate.opNum());
+                if (p == null) {
+                    p = new Pending(batchSize);
+                    pending.put(aggregate.opNum(), p);
+                }
+                p.aggregates.add(aggregate);
+                if (p.aggregates.size() >= batchSize) {
+                    pending.remove(aggregate.opNum());
+                    full = p.aggregates;
+                }
+            }
+            if (full != null)
+                dispatch(full);
+        }
+
+        /**
+         * Dispatches pending batches whose first aggregate arrived before the deadline
+         */
+        private void flush(long deadline) {
+            List<List<Aggregate>> ready = new ArrayList<>();
+            synchronized (this) {
+                Iterator<Pending> iterator = pending.values().iterator();
+                while (iterator.hasNext()) {
+                    Pending p = iterator.next();
+                    if (p.firstNanos <= deadline) {
+                        ready.add(p.aggregates);
+                        iterator.remove();
+                    }
+                }
+            }
+            for (List<Aggregate> aggregates : ready)
+                dispatch(aggregates);
+        }
+
+        private void dispatch(List<Aggregate> aggregates) {
+            inFlight.incrementAndGet();
+            queue.add(new Batch<>(aggregates));
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Batch<Aggregate> batch;
+                try {
+                    batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // close() interrupts us, whatever is left in the queue still gets executed
+                    continue;
+                }
+                if (batch == null)
+                    continue;
+
+                try {
+                    executioner.exec(batch);
+                    executed.addAndGet(batch.getNumAggregates());
+                    batchesExecuted.incrementAndGet();
+                } catch (Throwable t) {
+                    log.error("Batch execution failed", t);
+                    failure.compareAndSet(null, t);
+                } finally {
+                    inFlight.decrementAndGet();
+                    synchronized (completion) {
+                        completion.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+}
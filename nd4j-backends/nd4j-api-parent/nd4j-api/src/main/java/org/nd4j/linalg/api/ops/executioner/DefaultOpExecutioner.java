@@ -100,6 +100,11 @@ public class DefaultOpExecutioner implements OpExecutioner {
             return op;
         }
 
+        if (executionMode == ExecutionMode.JAVA && JavaLoopExecutioner.canExec(op)) {
+            JavaLoopExecutioner.exec(op);
+            return op;
+        }
+
         throw new IllegalStateException("Java computation no longer supported");
     }
 
@@ -278,7 +283,7 @@ public class DefaultOpExecutioner implements OpExecutioner {
         }
         if (op instanceof ScalarOp) {
             //Scalar op along dimension should be same as on the entire NDArray
-            throw new IllegalStateException("Java computation no longer supported");
+            return exec(op);
         }
         if (op instanceof TransformOp) {
             throw new UnsupportedOperationException(
@@ -331,6 +336,9 @@ public class DefaultOpExecutioner implements OpExecutioner {
             return ret;
         }
 
+        if (executionMode == ExecutionMode.JAVA && JavaLoopExecutioner.canExec(op))
+            return JavaLoopExecutioner.exec(op, dimension);
+
         throw new UnsupportedOperationException("Java computation no longer supported");
     }
 
@@ -452,6 +460,9 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op, tadBuffers);
                 break;
+            case HISTOGRAMS:
+                // only sampled calls are timed
+                return OpProfiler.getInstance().getHistogramAggregator().sample() ? System.nanoTime() : 0L;
             case DISABLED:
             default:
                 return 0L;
@@ -470,6 +481,9 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op);
                 break;
+            case HISTOGRAMS:
+                // only sampled calls are timed
+                return OpProfiler.getInstance().getHistogramAggregator().sample() ? System.nanoTime() : 0L;
             case DISABLED:
             default:
                 return 0L;
@@ -490,6 +504,10 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().timeOpCall(op, timeStart);
                 break;
+            case HISTOGRAMS:
+                if (timeStart != 0L)
+                    OpProfiler.getInstance().histogramOpCall(op, timeStart);
+                break;
             case NAN_PANIC:
                 OpExecutionerUtil.checkForNaN(op);
                 break;
@@ -0,0 +1,648 @@
+package org.nd4j.linalg.api.ops.executioner;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.complex.IComplexNDArray;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.*;
+import org.nd4j.linalg.api.ops.impl.accum.*;
+import org.nd4j.linalg.api.ops.impl.accum.distances.EuclideanDistance;
+import org.nd4j.linalg.api.ops.impl.scalar.*;
+import org.nd4j.linalg.api.ops.impl.scalar.comparison.*;
+import org.nd4j.linalg.api.ops.impl.transforms.*;
+import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.*;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.EqualTo;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.GreaterThan;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.GreaterThanOrEqual;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.LessThan;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.LessThanOrEqual;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.NotEqualTo;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.api.shape.loop.one.RawArrayIterationInformation1;
+import org.nd4j.linalg.api.shape.loop.three.RawArrayIterationInformation3;
+import org.nd4j.linalg.api.shape.loop.two.RawArrayIterationInformation2;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Pure Java execution of transform, pairwise, scalar and reduction ops
+ * for the {@link OpExecutioner.ExecutionMode#JAVA} execution mode.
+ *
+ * Operands are described with the raw loop descriptors of
+ * {@link org.nd4j.linalg.api.shape.loop}: dimensions are ordered by the strides of the
+ * result (or input, for reductions) and coalesced
+ * (see {@link Shape#coalesceDimensions(int[], long[], int[]...)}),
+ * so any c or f ordered array, and many views, are walked as one flat run.
+ * Elements are moved block by block between the buffers and small primitive arrays,
+ * with bulk nio copies when the innermost stride is 1.
+ * The block loops of the most common ops (add, sub, mul, div, their scalar versions,
+ * sum, mean, max, min) are specialized so they're simple counted loops C2 can vectorize;
+ * the other supported ops go through {@link Op#op(double)} / {@link Op#op(double, double)}
+ * and {@link Accumulation#update(double, double)}.
+ * Ops are supported by exact class: many ops only have stub java bodies (returning 0 or 1)
+ * and are computed natively, so they would silently give wrong results here.
+ *
+ * Large ops are split into ranges on {@link ExecutorServiceProvider#getForkJoinPool()}.
+ * Reduction partial results are merged with {@link Accumulation#combineSubResults(double, double)}.
+ *
+ * Only double and float arrays are supported.
+ */
+public class JavaLoopExecutioner {
+    public static final int BLOCK_SIZE = 1024;
+    //ranges smaller than this run on the calling thread
+    public static final long ELEMENTS_PER_TASK = 32768;
+
+    //ops whose op()/update() compute the same result as the native implementation
+    private static final Set<Class<? extends Op>> SUPPORTED = new HashSet<>();
+
+    static {
+        SUPPORTED.addAll(Arrays.<Class<? extends Op>>asList(ACos.class, ACosh.class, ASin.class, ASinh.class,
+                        ATan.class, ATanh.class, Abs.class, Ceil.class, Cos.class, Cosh.class, Cube.class,
+                        CubeDerivative.class, ELU.class, ELUDerivative.class, Exp.class, Floor.class,
+                        HardSigmoid.class, HardSigmoidDerivative.class, HardTanh.class, HardTanhDerivative.class,
+                        Identity.class, LeakyReLU.class, LeakyReLUDerivative.class, Log.class, LogX.class,
+                        Negative.class, OneMinus.class, Pow.class, RectifedLinear.class, Round.class, SELU.class,
+                        SELUDerivative.class, Sigmoid.class, SigmoidDerivative.class, Sign.class, Sin.class,
+                        Sinh.class, SoftPlus.class, SoftSign.class, SoftSignDerivative.class, Sqrt.class,
+                        Stabilize.class, Step.class, Tan.class, TanDerivative.class, Tanh.class,
+                        TanhDerivative.class, TimesOneMinus.class));
+        SUPPORTED.addAll(Arrays.<Class<? extends Op>>asList(AddOp.class, SubOp.class, MulOp.class, DivOp.class,
+                        RSubOp.class, RDivOp.class, CopyOp.class, EqualTo.class, NotEqualTo.class,
+                        GreaterThan.class, GreaterThanOrEqual.class, LessThan.class, LessThanOrEqual.class,
+                        org.nd4j.linalg.api.ops.impl.transforms.comparison.Max.class,
+                        org.nd4j.linalg.api.ops.impl.transforms.comparison.Min.class));
+        SUPPORTED.addAll(Arrays.<Class<? extends Op>>asList(ScalarAdd.class, ScalarSubtraction.class,
+                        ScalarMultiplication.class, ScalarDivision.class, ScalarReverseSubtraction.class,
+                        ScalarReverseDivision.class, ScalarMax.class, ScalarMin.class, ScalarSet.class,
+                        ScalarEquals.class, ScalarNotEquals.class, ScalarGreaterThan.class,
+                        ScalarGreaterThanOrEqual.class, ScalarLessThan.class, ScalarLessThanOrEqual.class,
+                        ScalarSetValue.class));
+        SUPPORTED.addAll(Arrays.<Class<? extends Op>>asList(Sum.class, Mean.class, Max.class, Min.class,
+                        Prod.class, Norm1.class, Norm2.class, NormMax.class, AMax.class, AMin.class, Dot.class,
+                        EuclideanDistance.class));
+    }
+
+    private JavaLoopExecutioner() {}
+
+    /**
+     * Whether the given op can be run by this executioner:
+     * transform, pairwise, scalar ops and reductions with a real java implementation
+     * (no index reductions, no variance), over real double or float arrays of matching shapes
+     * @param op the op
+     * @return true if {@link #exec(Op)} supports it
+     */
+    public static boolean canExec(Op op) {
+        if (!SUPPORTED.contains(op.getClass()))
+            return false;
+        if (op.x() == null || op.x() instanceof IComplexNDArray || op.isExecSpecial())
+            return false;
+        if (!supported(op.x()) || (op.y() != null && !supported(op.y())))
+            return false;
+
+        if (op instanceof Accumulation) {
+            return op.y() == null || Arrays.equals(op.x().shape(), op.y().shape());
+        }
+
+        if (op instanceof ScalarOp || op instanceof TransformOp) {
+            if (op.z() == null || !supported(op.z()) || !Arrays.equals(op.x().shape(), op.z().shape()))
+                return false;
+            return op instanceof ScalarOp || op.y() == null || Arrays.equals(op.x().shape(), op.y().shape());
+        }
+
+        return false;
+    }
+
+    private static boolean supported(INDArray arr) {
+        DataBuffer.Type type = arr.data().dataType();
+        return type == DataBuffer.Type.DOUBLE || type == DataBuffer.Type.FLOAT;
+    }
+
+    /**
+     * Execute the op over all of its elements.
+     * Reductions set their final result (and a scalar z if any).
+     * @param op the op, see {@link #canExec(Op)}
+     */
+    public static void exec(Op op) {
+        if (!canExec(op))
+            throw new IllegalArgumentException("Op " + op.name() + " can't be executed by the java loop executioner");
+
+        if (op instanceof Accumulation) {
+            Accumulation acc = (Accumulation) op;
+            double result = acc.calculateFinalResult(reduce(acc, op.x(), op.y()), op.x().length());
+            acc.setFinalResult(result);
+            if (op.z() != null && op.z().isScalar())
+                op.z().assign(result);
+        } else {
+            transform(op);
+        }
+    }
+
+    /**
+     * Execute a reduction along the given dimensions
+     * @param op the reduction
+     * @param dimension the dimensions to reduce along,
+     *                  {@link Integer#MAX_VALUE} for all of them
+     * @return the result, also set as the op's z
+     */
+    public static INDArray exec(Accumulation op, int... dimension) {
+        if (!canExec(op))
+            throw new IllegalArgumentException("Op " + op.name() + " can't be executed by the java loop executioner");
+
+        INDArray x = op.x();
+        if (dimension.length == 0 || dimension[0] == Integer.MAX_VALUE || dimension.length == x.rank()) {
+            exec((Op) op);
+            return Nd4j.scalar(op.getFinalResult().doubleValue());
+        }
+
+        int[] retShape = ArrayUtil.removeIndex(x.shape(), dimension);
+        //ensure vector is proper shape
+        if (retShape.length == 1) {
+            if (dimension[0] == 0)
+                retShape = new int[] {1, retShape[0]};
+            else
+                retShape = new int[] {retShape[0], 1};
+        } else if (retShape.length == 0) {
+            retShape = new int[] {1, 1};
+        }
+
+        //views are created up front: tad creation isn't meant to race
+        int numTads = x.tensorssAlongDimension(dimension);
+        INDArray[] xTads = new INDArray[numTads];
+        INDArray[] yTads = op.y() == null ? null : new INDArray[numTads];
+        for (int i = 0; i < numTads; i++) {
+            xTads[i] = x.tensorAlongDimension(i, dimension);
+            if (yTads != null)
+                yTads[i] = op.y().tensorAlongDimension(i, dimension);
+        }
+
+        double[] results = new double[numTads];
+        int parallelism = ExecutorServiceProvider.getForkJoinPool().getParallelism();
+        if (numTads >= parallelism && x.length() >= ELEMENTS_PER_TASK) {
+            ExecutorServiceProvider.getForkJoinPool()
+                            .invoke(new TadReduceTask(op, xTads, yTads, results, 0, numTads));
+        } else {
+            //few long tensors: split each one instead
+            for (int i = 0; i < numTads; i++)
+                results[i] = op.calculateFinalResult(reduce(op, xTads[i], yTads == null ? null : yTads[i]),
+                                xTads[i].length());
+        }
+
+        INDArray ret = Nd4j.create(retShape);
+        for (int i = 0; i < numTads; i++)
+            ret.putScalar(i, results[i]);
+        op.setZ(ret);
+        return ret;
+    }
+
+    private static void transform(Op op) {
+        INDArray z = op.z();
+        Kernel kernel = Kernel.forOp(op);
+        Loop loop = op.y() != null && !(op instanceof ScalarOp) ? loop(Shape.prepareRawArrayIter(z, op.x(), op.y()))
+                        : loop(Shape.prepareRawArrayIter(z, op.x()));
+
+        long length = loop.length;
+        if (length >= 2 * ELEMENTS_PER_TASK)
+            ExecutorServiceProvider.getForkJoinPool().invoke(new TransformTask(loop, kernel, 0, length));
+        else
+            loop.transform(kernel, 0, length);
+    }
+
+    private static double reduce(Accumulation op, INDArray x, INDArray y) {
+        Kernel kernel = Kernel.forOp(op);
+        Loop loop = y != null ? loop(Shape.prepareRawArrayIter(x, y)) : loop(Shape.prepareRawArrayIter(x));
+
+        long length = loop.length;
+        if (length >= 2 * ELEMENTS_PER_TASK)
+            return ExecutorServiceProvider.getForkJoinPool().invoke(new ReduceTask(loop, kernel, op, 0, length));
+        return loop.reduce(kernel, op.zeroDouble(), 0, length);
+    }
+
+    private static Loop loop(RawArrayIterationInformation1 info) {
+        return new Loop(info.getShape(),
+                        new Operand[] {new Operand(info.getA(), info.getAOffset(), info.getAStrides())});
+    }
+
+    private static Loop loop(RawArrayIterationInformation2 info) {
+        return new Loop(info.getShape(),
+                        new Operand[] {new Operand(info.getA(), info.getAOffset(), info.getAStrides()),
+                                        new Operand(info.getB(), info.getBOffset(), info.getBStrides())});
+    }
+
+    private static Loop loop(RawArrayIterationInformation3 info) {
+        return new Loop(info.getShape(),
+                        new Operand[] {new Operand(info.getA(), info.getAOffset(), info.getAStrides()),
+                                        new Operand(info.getB(), info.getBOffset(), info.getBStrides()),
+                                        new Operand(info.getC(), info.getCOffset(), info.getCStrides())});
+    }
+
+    /**
+     * Strided access to one operand's buffer.
+     * Not thread safe: every task works on its own copy.
+     */
+    private static class Operand {
+        private final DataBuffer buffer;
+        private final long offset;
+        private final int[] strides;
+        private final DoubleBuffer doubles;
+        private final FloatBuffer floats;
+        private float[] floatBlock;
+
+        private Operand(DataBuffer buffer, long offset, int[] strides) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.strides = strides;
+            //not sliced: indexes are absolute in the underlying memory, the array offset is added by the loop
+            this.doubles = buffer.dataType() == DataBuffer.Type.DOUBLE ? buffer.asNioDouble() : null;
+            this.floats = buffer.dataType() == DataBuffer.Type.FLOAT ? buffer.asNioFloat() : null;
+        }
+
+        private Operand copy() {
+            return new Operand(buffer, offset, strides);
+        }
+
+        private void read(long start, int stride, double[] dst, int len) {
+            if (doubles != null) {
+                if (stride == 1) {
+                    doubles.position((int) start);
+                    doubles.get(dst, 0, len);
+                } else {
+                    for (int i = 0; i < len; i++)
+                        dst[i] = doubles.get((int) (start + (long) i * stride));
+                }
+            } else {
+                if (stride == 1) {
+                    if (floatBlock == null)
+                        floatBlock = new float[BLOCK_SIZE];
+                    floats.position((int) start);
+                    floats.get(floatBlock, 0, len);
+                    for (int i = 0; i < len; i++)
+                        dst[i] = floatBlock[i];
+                } else {
+                    for (int i = 0; i < len; i++)
+                        dst[i] = floats.get((int) (start + (long) i * stride));
+                }
+            }
+        }
+
+        private void write(long start, int stride, double[] src, int len) {
+            if (doubles != null) {
+                if (stride == 1) {
+                    doubles.position((int) start);
+                    doubles.put(src, 0, len);
+                } else {
+                    for (int i = 0; i < len; i++)
+                        doubles.put((int) (start + (long) i * stride), src[i]);
+                }
+            } else {
+                if (stride == 1) {
+                    if (floatBlock == null)
+                        floatBlock = new float[BLOCK_SIZE];
+                    for (int i = 0; i < len; i++)
+                        floatBlock[i] = (float) src[i];
+                    floats.position((int) start);
+                    floats.put(floatBlock, 0, len);
+                } else {
+                    for (int i = 0; i < len; i++)
+                        floats.put((int) (start + (long) i * stride), (float) src[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Coalesced loop nest over one to three operands.
+     * The first operand is the result for transforms.
+     * Positions are linear indices in the coalesced iteration order.
+     */
+    private static class Loop {
+        private final int[] shape;
+        private final Operand[] operands;
+        private final int inner;
+        private final long length;
+
+        private Loop(int[] shape, Operand[] operands) {
+            this.shape = shape;
+            this.operands = operands;
+            this.inner = shape[shape.length - 1];
+            this.length = ArrayUtil.prodLong(shape);
+        }
+
+        private Operand[] copyOperands() {
+            Operand[] ret = new Operand[operands.length];
+            for (int k = 0; k < ret.length; k++)
+                ret[k] = operands[k].copy();
+            return ret;
+        }
+
+        //offset of the first element of the given row, for every operand
+        private void rowOffsets(Operand[] ops, long row, long[] offsets) {
+            for (int k = 0; k < ops.length; k++)
+                offsets[k] = ops[k].offset;
+            for (int d = shape.length - 2; d >= 0 && row > 0; d--) {
+                long idx = row % shape[d];
+                row /= shape[d];
+                for (int k = 0; k < ops.length; k++)
+                    offsets[k] += idx * ops[k].strides[d];
+            }
+        }
+
+        private void transform(Kernel kernel, long start, long end) {
+            Operand[] ops = copyOperands();
+            Operand z = ops[0];
+            Operand x = ops[1];
+            Operand y = ops.length > 2 ? ops[2] : null;
+            int innerIdx = shape.length - 1;
+            double[] xBlock = new double[BLOCK_SIZE];
+            double[] yBlock = y == null ? null : new double[BLOCK_SIZE];
+            double[] zBlock = new double[BLOCK_SIZE];
+            long[] offsets = new long[ops.length];
+
+            long pos = start;
+            while (pos < end) {
+                long row = pos / inner;
+                int col = (int) (pos % inner);
+                int runLength = (int) Math.min(inner - col, end - pos);
+                rowOffsets(ops, row, offsets);
+
+                for (int done = 0; done < runLength; done += BLOCK_SIZE) {
+                    int len = Math.min(BLOCK_SIZE, runLength - done);
+                    long at = col + done;
+                    x.read(offsets[1] + at * x.strides[innerIdx], x.strides[innerIdx], xBlock, len);
+                    if (y != null)
+                        y.read(offsets[2] + at * y.strides[innerIdx], y.strides[innerIdx], yBlock, len);
+                    kernel.transform(xBlock, yBlock, zBlock, len);
+                    z.write(offsets[0] + at * z.strides[innerIdx], z.strides[innerIdx], zBlock, len);
+                }
+                pos += runLength;
+            }
+        }
+
+        private double reduce(Kernel kernel, double accum, long start, long end) {
+            Operand[] ops = copyOperands();
+            Operand x = ops[0];
+            Operand y = ops.length > 1 ? ops[1] : null;
+            int innerIdx = shape.length - 1;
+            double[] xBlock = new double[BLOCK_SIZE];
+            double[] yBlock = y == null ? null : new double[BLOCK_SIZE];
+            long[] offsets = new long[ops.length];
+
+            long pos = start;
+            while (pos < end) {
+                long row = pos / inner;
+                int col = (int) (pos % inner);
+                int runLength = (int) Math.min(inner - col, end - pos);
+                rowOffsets(ops, row, offsets);
+
+                for (int done = 0; done < runLength; done += BLOCK_SIZE) {
+                    int len = Math.min(BLOCK_SIZE, runLength - done);
+                    long at = col + done;
+                    x.read(offsets[0] + at * x.strides[innerIdx], x.strides[innerIdx], xBlock, len);
+                    if (y != null)
+                        y.read(offsets[1] + at * y.strides[innerIdx], y.strides[innerIdx], yBlock, len);
+                    accum = kernel.reduce(accum, xBlock, yBlock, len);
+                }
+                pos += runLength;
+            }
+            return accum;
+        }
+    }
+
+    /**
+     * Block computation for one op.
+     * Specialized subclasses keep the loops free of virtual calls.
+     */
+    private static class Kernel {
+        protected final Op op;
+
+        private Kernel(Op op) {
+            this.op = op;
+        }
+
+        private static Kernel forOp(final Op op) {
+            Class<?> clazz = op.getClass();
+            if (op instanceof ScalarOp) {
+                final double s = ((ScalarOp) op).scalar().doubleValue();
+                if (clazz == ScalarAdd.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] + s;
+                        }
+                    };
+                if (clazz == ScalarSubtraction.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] - s;
+                        }
+                    };
+                if (clazz == ScalarMultiplication.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] * s;
+                        }
+                    };
+                if (clazz == ScalarDivision.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] / s;
+                        }
+                    };
+                return new Kernel(op);
+            }
+
+            if (op instanceof Accumulation) {
+                if (op.y() == null && (clazz == Sum.class || clazz == Mean.class))
+                    return new Kernel(op) {
+                        @Override
+                        double reduce(double accum, double[] x, double[] y, int len) {
+                            for (int i = 0; i < len; i++)
+                                accum += x[i];
+                            return accum;
+                        }
+                    };
+                if (op.y() == null && clazz == Max.class)
+                    return new Kernel(op) {
+                        @Override
+                        double reduce(double accum, double[] x, double[] y, int len) {
+                            for (int i = 0; i < len; i++)
+                                accum = Math.max(accum, x[i]);
+                            return accum;
+                        }
+                    };
+                if (op.y() == null && clazz == Min.class)
+                    return new Kernel(op) {
+                        @Override
+                        double reduce(double accum, double[] x, double[] y, int len) {
+                            for (int i = 0; i < len; i++)
+                                accum = Math.min(accum, x[i]);
+                            return accum;
+                        }
+                    };
+                return new Kernel(op);
+            }
+
+            if (op.y() != null) {
+                if (clazz == AddOp.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] + y[i];
+                        }
+                    };
+                if (clazz == SubOp.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] - y[i];
+                        }
+                    };
+                if (clazz == MulOp.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] * y[i];
+                        }
+                    };
+                if (clazz == DivOp.class)
+                    return new Kernel(op) {
+                        @Override
+                        void transform(double[] x, double[] y, double[] z, int len) {
+                            for (int i = 0; i < len; i++)
+                                z[i] = x[i] / y[i];
+                        }
+                    };
+            }
+            return new Kernel(op);
+        }
+
+        void transform(double[] x, double[] y, double[] z, int len) {
+            if (y != null) {
+                for (int i = 0; i < len; i++)
+                    z[i] = op.op(x[i], y[i]);
+            } else {
+                for (int i = 0; i < len; i++)
+                    z[i] = op.op(x[i]);
+            }
+        }
+
+        double reduce(double accum, double[] x, double[] y, int len) {
+            Accumulation acc = (Accumulation) op;
+            if (y != null) {
+                for (int i = 0; i < len; i++)
+                    accum = acc.update(accum, acc.op(x[i], y[i]));
+            } else {
+                for (int i = 0; i < len; i++)
+                    accum = acc.update(accum, acc.op(x[i]));
+            }
+            return accum;
+        }
+    }
+
+    private static class TransformTask extends RecursiveAction {
+        private final Loop loop;
+        private final Kernel kernel;
+        private final long start;
+        private final long end;
+
+        private TransformTask(Loop loop, Kernel kernel, long start, long end) {
+            this.loop = loop;
+            this.kernel = kernel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > ELEMENTS_PER_TASK) {
+                long middle = start + (end - start) / 2;
+                invokeAll(new TransformTask(loop, kernel, start, middle), new TransformTask(loop, kernel, middle, end));
+                return;
+            }
+            loop.transform(kernel, start, end);
+        }
+    }
+
+    private static class ReduceTask extends RecursiveTask<Double> {
+        private final Loop loop;
+        private final Kernel kernel;
+        private final Accumulation op;
+        private final long start;
+        private final long end;
+
+        private ReduceTask(Loop loop, Kernel kernel, Accumulation op, long start, long end) {
+            this.loop = loop;
+            this.kernel = kernel;
+            this.op = op;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Double compute() {
+            if (end - start > ELEMENTS_PER_TASK) {
+                long middle = start + (end - start) / 2;
+                ReduceTask left = new ReduceTask(loop, kernel, op, start, middle);
+                ReduceTask right = new ReduceTask(loop, kernel, op, middle, end);
+                left.fork();
+                double rightResult = right.compute();
+                return op.combineSubResults(left.join(), rightResult);
+            }
+            return loop.reduce(kernel, op.zeroDouble(), start, end);
+        }
+    }
+
+    private static class TadReduceTask extends RecursiveAction {
+        private final Accumulation op;
+        private final INDArray[] xTads;
+        private final INDArray[] yTads;
+        private final double[] results;
+        private final int start;
+        private final int end;
+
+        private TadReduceTask(Accumulation op, INDArray[] xTads, INDArray[] yTads, double[] results, int start,
+                        int end) {
+            this.op = op;
+            this.xTads = xTads;
+            this.yTads = yTads;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1 && (long) (end - start) * xTads[start].length() > ELEMENTS_PER_TASK) {
+                int middle = start + (end - start) / 2;
+                invokeAll(new TadReduceTask(op, xTads, yTads, results, start, middle),
+                                new TadReduceTask(op, xTads, yTads, results, middle, end));
+                return;
+            }
+
+            for (int i = start; i < end; i++) {
+                INDArray x = xTads[i];
+                Loop loop = yTads != null ? loop(Shape.prepareRawArrayIter(x, yTads[i]))
+                                : loop(Shape.prepareRawArrayIter(x));
+                double accum = loop.reduce(Kernel.forOp(op), op.zeroDouble(), 0, loop.length);
+                results[i] = op.calculateFinalResult(accum, x.length());
+            }
+        }
+    }
+}
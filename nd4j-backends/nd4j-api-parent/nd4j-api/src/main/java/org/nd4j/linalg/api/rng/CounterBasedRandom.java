@@ -0,0 +1,446 @@
+package org.nd4j.linalg.api.rng;
+
+import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Counter based random number generator (Philox4x32-10, Salmon et al.,
+ * "Parallel Random Numbers: As Easy as 1, 2, 3").
+ *
+ * Every random block is a pure function of (seed, stream, counter),
+ * so there's no shared state to contend on:
+ * <ul>
+ *     <li>{@link #split(long)} gives an independent stream for each thread or op.
+ *     Streams only depend on the seed and the split ids, never on thread scheduling.</li>
+ *     <li>Array fills ({@link #nextGaussian(INDArray, double, double)},
+ *     {@link #nextUniform(INDArray, double, double)}, {@link #nextBernoulli(INDArray, double)}, ...)
+ *     address blocks by element index, so they are split over the fork join pool and still give
+ *     the same result as a sequential fill.</li>
+ * </ul>
+ *
+ * A single instance keeps its own position in its stream and is not meant to be shared
+ * between threads: split one off per thread instead.
+ *
+ * This is a pure java implementation without a native state buffer, so it can't be passed to
+ * {@link org.nd4j.linalg.api.ops.executioner.OpExecutioner#exec(org.nd4j.linalg.api.ops.RandomOp, Random)}.
+ * Use the array fills above for the equivalent of the gaussian, uniform and bernoulli random ops
+ * (dropout is a multiplication with a bernoulli mask).
+ */
+public class CounterBasedRandom implements Random {
+    private static final int M0 = 0xD2511F53;
+    private static final int M1 = 0xCD9E8D57;
+    private static final int W0 = 0x9E3779B9;
+    private static final int W1 = 0xBB67AE85;
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+    // two values are produced per philox block by the array fills
+    private static final int ELEMENTS_PER_BLOCK = 2;
+    // elements handled by a single fork join task
+    private static final long ELEMENTS_PER_TASK = 65536;
+
+    protected long seed;
+    protected final long stream;
+    protected long position;
+
+    private final int[] block = new int[4];
+    private int blockIndex = 4;
+    private double nextGaussian;
+    private boolean haveNextGaussian = false;
+
+    public CounterBasedRandom() {
+        this(System.currentTimeMillis());
+    }
+
+    public CounterBasedRandom(long seed) {
+        this(seed, 0L);
+    }
+
+    /**
+     * @param seed the seed (philox key)
+     * @param stream the stream (upper half of the philox counter)
+     */
+    public CounterBasedRandom(long seed, long stream) {
+        this.seed = seed;
+        this.stream = stream;
+    }
+
+    /**
+     * Returns a generator for an independent stream derived from this one.
+     * The result only depends on this generator's seed and stream and the given id,
+     * not on how many numbers were drawn from this generator so far.
+     *
+     * @param streamId the id of the new stream, i.e. a thread index or op id
+     * @return a new generator
+     */
+    public CounterBasedRandom split(long streamId) {
+        return new CounterBasedRandom(seed, mix(stream + mix(streamId + 0x9E3779B97F4A7C15L)));
+    }
+
+    /**
+     * The stream id of this generator
+     */
+    public long getStream() {
+        return stream;
+    }
+
+    /**
+     * The next philox block this generator is going to use
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Moves this generator to the given block of its stream
+     * @param position the block to continue from
+     */
+    public void setPosition(long position) {
+        this.position = position;
+        this.blockIndex = 4;
+        this.haveNextGaussian = false;
+    }
+
+    /**
+     * Philox4x32-10 block function
+     *
+     * @param counterLo the lower 64 bits of the counter
+     * @param counterHi the upper 64 bits of the counter
+     * @param key the 64 bit key
+     * @param out the 4 resulting words
+     */
+    public static void philox(long counterLo, long counterHi, long key, int[] out) {
+        int c0 = (int) counterLo;
+        int c1 = (int) (counterLo >>> 32);
+        int c2 = (int) counterHi;
+        int c3 = (int) (counterHi >>> 32);
+        int k0 = (int) key;
+        int k1 = (int) (key >>> 32);
+
+        for (int round = 0; round < 10; round++) {
+            if (round > 0) {
+                k0 += W0;
+                k1 += W1;
+            }
+
+            long p0 = (M0 & 0xFFFFFFFFL) * (c0 & 0xFFFFFFFFL);
+            long p1 = (M1 & 0xFFFFFFFFL) * (c2 & 0xFFFFFFFFL);
+
+            int n0 = (int) (p1 >>> 32) ^ c1 ^ k0;
+            int n2 = (int) (p0 >>> 32) ^ c3 ^ k1;
+            c1 = (int) p1;
+            c3 = (int) p0;
+            c0 = n0;
+            c2 = n2;
+        }
+
+        out[0] = c0;
+        out[1] = c1;
+        out[2] = c2;
+        out[3] = c3;
+    }
+
+    private static long mix(long z) {
+        // splitmix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double toDouble(int hi, int lo) {
+        return (((long) (hi >>> 6) << 27) + (lo >>> 5)) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        setSeed((long) seed);
+    }
+
+    @Override
+    public void setSeed(int[] seed) {
+        long sd = 0;
+        for (int em : seed)
+            sd = sd * 31 + em;
+        setSeed(sd);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+        setPosition(0);
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        for (int i = 0; i < bytes.length;) {
+            for (int rnd = nextInt(), n = Math.min(bytes.length - i, 4); n-- > 0; rnd >>= 8)
+                bytes[i++] = (byte) rnd;
+        }
+    }
+
+    @Override
+    public int nextInt() {
+        if (blockIndex >= 4) {
+            philox(position++, stream, seed, block);
+            blockIndex = 0;
+        }
+        return block[blockIndex++];
+    }
+
+    @Override
+    public int nextInt(int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Bound must be positive");
+
+        int r = nextInt() >>> 1;
+        int m = n - 1;
+        if ((n & m) == 0) // i.e., bound is a power of 2
+            r = (int) ((n * (long) r) >> 31);
+        else {
+            for (int u = r; u - (r = u % n) + m < 0; u = nextInt() >>> 1);
+        }
+        return r;
+    }
+
+    @Override
+    public long nextLong() {
+        return ((long) nextInt() << 32) + nextInt();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextInt() < 0;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextInt() >>> 8) * FLOAT_UNIT;
+    }
+
+    @Override
+    public double nextDouble() {
+        int hi = nextInt();
+        return toDouble(hi, nextInt());
+    }
+
+    @Override
+    public double nextGaussian() {
+        if (haveNextGaussian) {
+            haveNextGaussian = false;
+            return nextGaussian;
+        }
+
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextGaussian = v2 * multiplier;
+        haveNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    @Override
+    public INDArray nextGaussian(int[] shape) {
+        return nextGaussian(Nd4j.order(), shape);
+    }
+
+    @Override
+    public INDArray nextGaussian(char order, int[] shape) {
+        return nextGaussian(Nd4j.createUninitialized(shape, order), 0.0, 1.0);
+    }
+
+    @Override
+    public INDArray nextDouble(int[] shape) {
+        return nextDouble(Nd4j.order(), shape);
+    }
+
+    @Override
+    public INDArray nextDouble(char order, int[] shape) {
+        return nextUniform(Nd4j.createUninitialized(shape, order), 0.0, 1.0);
+    }
+
+    @Override
+    public INDArray nextFloat(int[] shape) {
+        return nextFloat(Nd4j.order(), shape);
+    }
+
+    @Override
+    public INDArray nextFloat(char order, int[] shape) {
+        return nextUniform(Nd4j.createUninitialized(shape, order), 0.0, 1.0);
+    }
+
+    @Override
+    public INDArray nextInt(int[] shape) {
+        return nextInt(Integer.MAX_VALUE, shape);
+    }
+
+    @Override
+    public INDArray nextInt(int n, int[] shape) {
+        INDArray ret = nextUniform(Nd4j.createUninitialized(shape, Nd4j.order()), 0.0, n);
+        return Transforms.floor(ret, false);
+    }
+
+    /**
+     * Fills the given array with samples from N(mean, stdDev^2)
+     * @return the given array
+     */
+    public INDArray nextGaussian(INDArray target, double mean, double stdDev) {
+        return fill(target, Kind.GAUSSIAN, mean, stdDev);
+    }
+
+    /**
+     * Fills the given array with samples from U[from, to)
+     * @return the given array
+     */
+    public INDArray nextUniform(INDArray target, double from, double to) {
+        return fill(target, Kind.UNIFORM, from, to);
+    }
+
+    /**
+     * Fills the given array with 1.0 with probability prob and 0.0 otherwise
+     * @return the given array
+     */
+    public INDArray nextBernoulli(INDArray target, double prob) {
+        return fill(target, Kind.BERNOULLI, prob, 0.0);
+    }
+
+    private enum Kind {
+        UNIFORM, GAUSSIAN, BERNOULLI
+    }
+
+    /**
+     * Element i (in c order) of the target gets its value from block
+     * position + i / 2, so the result doesn't depend on how the work is split.
+     */
+    private INDArray fill(INDArray target, Kind kind, double a, double b) {
+        INDArray dense = target;
+        if (target.isView() || target.ordering() != 'c' || target.data().length() != target.length())
+            dense = Nd4j.createUninitialized(target.shape(), 'c');
+
+        long length = dense.lengthLong();
+        // array fills always start on a fresh block
+        long start = position;
+        FillTask task = new FillTask(dense.data(), kind, a, b, seed, stream, start, 0, length);
+        if (length <= ELEMENTS_PER_TASK)
+            task.compute();
+        else
+            ExecutorServiceProvider.getForkJoinPool().invoke(task);
+
+        setPosition(start + (length + ELEMENTS_PER_BLOCK - 1) / ELEMENTS_PER_BLOCK);
+
+        if (dense != target)
+            target.assign(dense);
+
+        return target;
+    }
+
+    private static class FillTask extends RecursiveAction {
+        private final DataBuffer buffer;
+        private final Kind kind;
+        private final double a, b;
+        private final long key, stream, firstBlock;
+        private final long start, end;
+
+        private FillTask(DataBuffer buffer, Kind kind, double a, double b, long key, long stream, long firstBlock,
+                        long start, long end) {
+            this.buffer = buffer;
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+            this.key = key;
+            this.stream = stream;
+            this.firstBlock = firstBlock;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > ELEMENTS_PER_TASK) {
+                // split on block boundaries
+                long middle = start + ((end - start) / 2 / ELEMENTS_PER_BLOCK) * ELEMENTS_PER_BLOCK;
+                invokeAll(new FillTask(buffer, kind, a, b, key, stream, firstBlock, start, middle),
+                                new FillTask(buffer, kind, a, b, key, stream, firstBlock, middle, end));
+                return;
+            }
+
+            int[] block = new int[4];
+            for (long i = start; i < end; i += ELEMENTS_PER_BLOCK) {
+                philox(firstBlock + i / ELEMENTS_PER_BLOCK, stream, key, block);
+                double first, second;
+                switch (kind) {
+                    case GAUSSIAN: {
+                        // box-muller, u1 in (0, 1] to keep the log finite
+                        double u1 = 1.0 - toDouble(block[0], block[1]);
+                        double u2 = toDouble(block[2], block[3]);
+                        double r = Math.sqrt(-2.0 * Math.log(u1));
+                        first = a + b * r * Math.cos(2.0 * Math.PI * u2);
+                        second = a + b * r * Math.sin(2.0 * Math.PI * u2);
+                        break;
+                    }
+                    case BERNOULLI:
+                        first = toDouble(block[0], block[1]) < a ? 1.0 : 0.0;
+                        second = toDouble(block[2], block[3]) < a ? 1.0 : 0.0;
+                        break;
+                    default:
+                        first = a + (b - a) * toDouble(block[0], block[1]);
+                        second = a + (b - a) * toDouble(block[2], block[3]);
+                        break;
+                }
+
+                buffer.put(i, first);
+                if (i + 1 < end)
+                    buffer.put(i + 1, second);
+            }
+        }
+    }
+
+    /**
+     * There's no native state for counter based generators
+     * @return null
+     */
+    @Override
+    public Pointer getStatePointer() {
+        return null;
+    }
+
+    /**
+     * There's no native state for counter based generators
+     * @return null
+     */
+    @Override
+    public DataBuffer getStateBuffer() {
+        return null;
+    }
+
+    @Override
+    public void reSeed() {
+        reSeed(System.currentTimeMillis());
+    }
+
+    @Override
+    public void reSeed(long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public void close() throws Exception {
+        // nothing to release
+    }
+}
@@ -23,9 +23,12 @@ package org.nd4j.linalg.api.shape;
 import com.google.common.primitives.Ints;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.complex.IComplexNDArray;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.shape.loop.coordinatefunction.CoordinateFunction;
 import org.nd4j.linalg.api.shape.loop.one.RawArrayIterationInformation1;
+import org.nd4j.linalg.api.shape.loop.three.RawArrayIterationInformation3;
+import org.nd4j.linalg.api.shape.loop.two.RawArrayIterationInformation2;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.INDArrayIndex;
 import org.nd4j.linalg.indexing.NDArrayIndex;
@@ -268,14 +271,20 @@ public class Shape {
     }
 
     /**
-     * Iterate over 2
-     * coordinate spaces given 2 arrays
+     * Iterate over the coordinate space
+     * of the given array (in c order).
+     * The coordinates passed to the function
+     * are reused between calls, so they must not be held on to.
      * @param arr the first array
      * @param coordinateFunction the coordinate function to use
      *
      */
     public static void iterate(INDArray arr, CoordinateFunction coordinateFunction) {
-        Shape.iterate(0, arr.rank(), arr.shape(), new int[arr.rank()], coordinateFunction);
+        NdIndexCursor cursor = new NdIndexCursor(arr.shape());
+        //pass an explicit array so the varargs call doesn't allocate per element
+        int[][] coords = new int[][] {cursor.coordinates()};
+        while (cursor.advance())
+            coordinateFunction.process(coords);
     }
 
     /**
@@ -952,6 +961,114 @@ public class Shape {
                         .nDim(dst.rank()).shape(dst.shape()).build().computeOut();
     }
 
+    /**
+     * Prepares two arrays of the same shape for
+     * raw iteration in lock step through their data.
+     * Dimensions are ordered and coalesced by the strides of the first array.
+     * @param a the first array, typically the result
+     * @param b the second array
+     */
+    public static RawArrayIterationInformation2 prepareRawArrayIter(INDArray a, INDArray b) {
+        return RawArrayIterationInformation2.builder().aOffset(a.offset()).bOffset(b.offset())
+                        .a(a.data()).b(b.data()).aStrides(a.stride()).bStrides(b.stride()).nDim(a.rank())
+                        .shape(a.shape()).build().computeOut();
+    }
+
+    /**
+     * Prepares three arrays of the same shape for
+     * raw iteration in lock step through their data.
+     * Dimensions are ordered and coalesced by the strides of the first array.
+     * @param a the first array, typically the result
+     * @param b the second array
+     * @param c the third array
+     */
+    public static RawArrayIterationInformation3 prepareRawArrayIter(INDArray a, INDArray b, INDArray c) {
+        return RawArrayIterationInformation3.builder().aOffset(a.offset()).bOffset(b.offset())
+                        .cOffset(c.offset()).a(a.data()).b(b.data()).c(c.data()).aStrides(a.stride())
+                        .bStrides(b.stride()).cStrides(c.stride()).nDim(a.rank()).shape(a.shape()).build()
+                        .computeOut();
+    }
+
+    /**
+     * Reorders and merges dimensions for raw iteration over one or more
+     * arrays of the same shape, in place:
+     * <ul>
+     *     <li>dimensions of size 1 are dropped</li>
+     *     <li>negative strides of the first array are flipped (for all arrays),
+     *     moving the offsets to the other end of the dimension</li>
+     *     <li>dimensions are sorted by decreasing stride of the first array,
+     *     so the last dimension is the innermost one</li>
+     *     <li>adjacent dimensions are merged when they are contiguous
+     *     with respect to each other in every array</li>
+     * </ul>
+     * A c or f ordered array without views coalesces to a single dimension with stride 1.
+     * @param shape the shape, the first nDim entries are overwritten
+     * @param offsets the offset of each array, updated for flipped dimensions
+     * @param strides the strides of each array, the first nDim entries are overwritten
+     * @return the new number of dimensions, at least 1
+     */
+    public static int coalesceDimensions(int[] shape, long[] offsets, int[]... strides) {
+        int nDim = 0;
+        for (int d = 0; d < shape.length; d++) {
+            if (shape[d] == 1)
+                continue;
+            shape[nDim] = shape[d];
+            for (int[] stride : strides)
+                stride[nDim] = stride[d];
+            nDim++;
+        }
+
+        if (nDim == 0) {
+            shape[0] = 1;
+            for (int[] stride : strides)
+                stride[0] = 1;
+            return 1;
+        }
+
+        for (int d = 0; d < nDim; d++) {
+            if (strides[0][d] < 0) {
+                for (int k = 0; k < strides.length; k++) {
+                    offsets[k] += (long) strides[k][d] * (shape[d] - 1);
+                    strides[k][d] = -strides[k][d];
+                }
+            }
+        }
+
+        //insertion sort, stable: there are only a few dimensions
+        for (int d = 1; d < nDim; d++) {
+            for (int j = d; j > 0 && strides[0][j - 1] < strides[0][j]; j--) {
+                int tmp = shape[j];
+                shape[j] = shape[j - 1];
+                shape[j - 1] = tmp;
+                for (int[] stride : strides) {
+                    tmp = stride[j];
+                    stride[j] = stride[j - 1];
+                    stride[j - 1] = tmp;
+                }
+            }
+        }
+
+        int i = 0;
+        for (int j = 1; j < nDim; j++) {
+            boolean contiguous = true;
+            for (int[] stride : strides)
+                contiguous &= stride[i] == stride[j] * shape[j];
+
+            if (contiguous) {
+                shape[i] *= shape[j];
+                for (int[] stride : strides)
+                    stride[i] = stride[j];
+            } else {
+                i++;
+                shape[i] = shape[j];
+                for (int[] stride : strides)
+                    stride[i] = stride[j];
+            }
+        }
+
+        return i + 1;
+    }
+
 
 
     /**
@@ -6,10 +6,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.shape.Shape;
-import org.nd4j.linalg.api.shape.StridePermutation;
-import org.nd4j.linalg.util.ArrayUtil;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Raw array iteration information
@@ -30,55 +29,19 @@ public class RawArrayIterationInformation1 implements Serializable {
     private int[] shape;
     private DataBuffer a;
 
+    /**
+     * Resolve the new
+     * strides/shapes, see {@link Shape#coalesceDimensions(int[], long[], int[]...)}
+     * @return
+     */
     public RawArrayIterationInformation1 computeOut() {
-        long aOffset = this.aOffset;
-        int[] aStrides = ArrayUtil.copy(this.aStrides);
-        int[] shape = ArrayUtil.copy(this.shape);
-        int nDim = this.nDim;
-        StridePermutation[] perms = Shape.createSortedStrides(aStrides);
+        int[] shape = Arrays.copyOf(this.shape, nDim);
+        int[] aStrides = Arrays.copyOf(this.aStrides, nDim);
+        long[] offsets = {aOffset};
+        int nDim = Shape.coalesceDimensions(shape, offsets, aStrides);
 
-
-        for (int i = 0; i < nDim; i++) {
-            int iPerm = perms[nDim - i - 1].getPermutation();
-            shape[i] = this.shape[iPerm];
-            aStrides[i] = aStrides[iPerm];
-
-        }
-
-        for (int i = 0; i < nDim; i++) {
-            int outStrideA = aStrides[i];
-            int shapeI = shape[i];
-
-            if (outStrideA < 0) {
-                aOffset += outStrideA * shapeI - 1;
-                aStrides[i] -= outStrideA;
-            }
-        }
-
-        int i = 0;
-        for (int j = 1; j < nDim; j++) {
-            if (shape[i] == 1) {
-                shape[i] = shape[j];
-                aStrides[i] = aStrides[j];
-
-            } else if (shape[j] == 1) {
-                //drops axis j
-            } else if (aStrides[i] * shape[i] == aStrides[j]) {
-                shape[i] *= shape[j];
-            }
-
-            else {
-                i++;
-                shape[i] = shape[j];
-                aStrides[i] = aStrides[j];
-            }
-
-
-        }
-
-        nDim = i + 1;
-
-        return RawArrayIterationInformation1.builder().aOffset(aOffset).a(a).aStrides(aStrides).shape(shape).nDim(nDim)
+        return RawArrayIterationInformation1.builder().aOffset(offsets[0]).a(a)
+                        .aStrides(Arrays.copyOf(aStrides, nDim)).shape(Arrays.copyOf(shape, nDim)).nDim(nDim)
                         .build();
     }
 }
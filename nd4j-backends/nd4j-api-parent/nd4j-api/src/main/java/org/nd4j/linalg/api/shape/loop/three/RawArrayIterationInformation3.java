@@ -6,10 +6,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.shape.Shape;
-import org.nd4j.linalg.api.shape.StridePermutation;
-import org.nd4j.linalg.util.ArrayUtil;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Raw array iteration information
@@ -25,78 +24,31 @@ import java.io.Serializable;
 @Builder
 public class RawArrayIterationInformation3 implements Serializable {
     private int nDim;
-    private int aOffset = -1;
-    private int bOffset = -1;
-    private int cOffset = 01;
+    private long aOffset = -1;
+    private long bOffset = -1;
+    private long cOffset = -1;
     private int[] aStrides;
     private int[] bStrides;
     private int[] cStrides;
     private int[] shape;
     private DataBuffer a, b, c;
 
+    /**
+     * Resolve the new
+     * strides/shapes, see {@link Shape#coalesceDimensions(int[], long[], int[]...)}
+     * @return
+     */
     public RawArrayIterationInformation3 computeOut() {
-        int aOffset = this.aOffset;
-        int bOffset = this.bOffset;
-        int[] aStrides = ArrayUtil.copy(this.aStrides);
-        int[] bStrides = ArrayUtil.copy(this.bStrides);
-        int[] cStrides = ArrayUtil.combine(this.cStrides);
-        int[] shape = ArrayUtil.copy(this.shape);
-        int nDim = this.nDim;
-        StridePermutation[] perms = Shape.createSortedStrides(aStrides);
-
-
-        for (int i = 0; i < nDim; i++) {
-            int iPerm = perms[nDim - i - 1].getPermutation();
-            shape[i] = this.shape[iPerm];
-            aStrides[i] = aStrides[iPerm];
-            bStrides[i] = bStrides[iPerm];
-        }
-
-        for (int i = 0; i < nDim; i++) {
-            int outStrideA = aStrides[i];
-            int outStrideB = bStrides[i];
-            int outStrideC = cStrides[i];
-            int shapeI = shape[i];
-
-            if (outStrideA < 0) {
-                aOffset += outStrideA * shapeI - 1;
-                bOffset += outStrideB * shapeI - 1;
-                cOffset += outStrideC * shapeI - 1;
-
-                aStrides[i] -= outStrideA;
-                bStrides[i] -= outStrideB;
-                cStrides[i] -= outStrideC;
-            }
-        }
-
-        int i = 0;
-        for (int j = 1; j < nDim; j++) {
-            if (shape[i] == 1) {
-                shape[i] = shape[j];
-                aStrides[i] = aStrides[j];
-                bStrides[i] = aStrides[j];
-                cStrides[i] = cStrides[j];
-            } else if (shape[j] == 1) {
-                //drops axis j
-            } else if (aStrides[i] * shape[i] == aStrides[j] && bStrides[i] * shape[i] == bStrides[j]
-                            && cStrides[i] * shape[i] == cStrides[j]) {
-                shape[i] *= shape[j];
-            }
-
-            else {
-                i++;
-                shape[i] = shape[j];
-                aStrides[i] = aStrides[j];
-                bStrides[i] = bStrides[j];
-                cStrides[i] = cStrides[j];
-            }
-
-
-        }
-
-        nDim = i + 1;
-
-        return RawArrayIterationInformation3.builder().aOffset(aOffset).bOffset(bOffset).aStrides(aStrides)
-                        .bStrides(bStrides).a(a).b(b).c(c).shape(shape).nDim(nDim).build();
+        int[] shape = Arrays.copyOf(this.shape, nDim);
+        int[] aStrides = Arrays.copyOf(this.aStrides, nDim);
+        int[] bStrides = Arrays.copyOf(this.bStrides, nDim);
+        int[] cStrides = Arrays.copyOf(this.cStrides, nDim);
+        long[] offsets = {aOffset, bOffset, cOffset};
+        int nDim = Shape.coalesceDimensions(shape, offsets, aStrides, bStrides, cStrides);
+
+        return RawArrayIterationInformation3.builder().aOffset(offsets[0]).bOffset(offsets[1])
+                        .cOffset(offsets[2]).a(a).b(b).c(c).aStrides(Arrays.copyOf(aStrides, nDim))
+                        .bStrides(Arrays.copyOf(bStrides, nDim)).cStrides(Arrays.copyOf(cStrides, nDim))
+                        .shape(Arrays.copyOf(shape, nDim)).nDim(nDim).build();
     }
 }
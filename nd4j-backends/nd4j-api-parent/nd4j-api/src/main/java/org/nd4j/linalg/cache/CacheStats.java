@@ -0,0 +1,78 @@
+package org.nd4j.linalg.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit/miss counters for backend caches: TAD, constant buffers and shape info.
+ * Backend implementations of {@link TADManager}, {@link ConstantHandler} and
+ * {@link org.nd4j.linalg.api.ndarray.ShapeInfoProvider} report every lookup.
+ *
+ * Counting is off by default, since hits come from every op on every thread
+ * and would otherwise contend on the shared counters. See {@link #setEnabled(boolean)}.
+ */
+public class CacheStats {
+    public static final CacheStats TAD = new CacheStats("tad");
+    public static final CacheStats CONSTANT = new CacheStats("constant");
+    public static final CacheStats SHAPE_INFO = new CacheStats("shape_info");
+
+    private static volatile boolean enabled = false;
+
+    private final String name;
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    public CacheStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * This method enables or disables counting for all caches, ie when a metrics endpoint is started
+     *
+     * @param enabled
+     */
+    public static void setEnabled(boolean enabled) {
+        CacheStats.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void hit() {
+        if (enabled)
+            hits.incrementAndGet();
+    }
+
+    public void miss() {
+        if (enabled)
+            misses.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * This method returns fraction of lookups served from cache, or 0.0 if there were no lookups yet
+     *
+     * @return
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+
+    public void reset() {
+        hits.set(0);
+        misses.set(0);
+    }
+}
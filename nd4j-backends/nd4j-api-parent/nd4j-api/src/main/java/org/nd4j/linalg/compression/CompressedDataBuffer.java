@@ -59,10 +59,9 @@ public class CompressedDataBuffer extends BaseDataBuffer {
         out.writeLong(compressionDescriptor.getOriginalLength());
         out.writeLong(compressionDescriptor.getNumberOfElements());
         //        out.write(((BytePointer) pointer).getStringBytes());
-        for (int x = 0; x < pointer.capacity() * pointer.sizeof(); x++) {
-            byte b = pointer.asByteBuffer().get(x);
-            out.writeByte(b);
-        }
+        byte[] bytes = new byte[(int) (pointer.capacity() * pointer.sizeof())];
+        pointer.asByteBuffer().get(bytes);
+        out.write(bytes);
     }
 
     @Override
@@ -91,9 +90,7 @@ public class CompressedDataBuffer extends BaseDataBuffer {
                 long numberOfElements = s.readLong();
 
                 byte[] temp = new byte[(int) compressedLength];
-                for (int i = 0; i < compressedLength; i++) {
-                    temp[i] = s.readByte();
-                }
+                s.readFully(temp);
 
                 try (Pointer pointer = new BytePointer(temp)) {
                     CompressionDescriptor descriptor = new CompressionDescriptor();
@@ -0,0 +1,187 @@
+package org.nd4j.linalg.dataset.api.iterator;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Iterates over a subset of the examples of an in memory {@link DataSet},
+ * given by their indices, without copying the subset up front.
+ *
+ * Every minibatch is gathered on the fly with {@link Nd4j#pullRows(INDArray, int, int[])}
+ * (masks included), so it ends up in the current workspace if there is one,
+ * and only the minibatch is ever copied. Several iterators (ie the train and test
+ * parts of every fold in {@link IndexedKFold}) can share the same source data set.
+ *
+ * If created with a {@link Random}, the order of the indices is reshuffled on every {@link #reset()}.
+ */
+public class IndexedDataSetIterator implements DataSetIterator {
+    private final DataSet source;
+    private final int[] indices;
+    private final int batchSize;
+    private final Random rng;
+    private int cursor = 0;
+    private DataSetPreProcessor preProcessor;
+
+    /**
+     * @param source the data set to take the examples from
+     * @param indices the examples to iterate over, in order
+     * @param batchSize the minibatch size
+     */
+    public IndexedDataSetIterator(DataSet source, int[] indices, int batchSize) {
+        this(source, indices, batchSize, null);
+    }
+
+    /**
+     * @param source the data set to take the examples from
+     * @param indices the examples to iterate over, in order (the array is used, not copied)
+     * @param batchSize the minibatch size
+     * @param rng used to reshuffle the indices on reset, may be null
+     */
+    public IndexedDataSetIterator(DataSet source, int[] indices, int batchSize, Random rng) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive");
+        int numExamples = source.numExamples();
+        for (int index : indices) {
+            if (index < 0 || index >= numExamples)
+                throw new IllegalArgumentException(
+                                "Index " + index + " out of range for a data set of " + numExamples + " examples");
+        }
+        this.source = source;
+        this.indices = indices;
+        this.batchSize = batchSize;
+        this.rng = rng;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        int n = Math.min(num, indices.length - cursor);
+        int[] batch = new int[n];
+        System.arraycopy(indices, cursor, batch, 0, n);
+        cursor += n;
+
+        DataSet next = gather(source, batch);
+        if (preProcessor != null)
+            preProcessor.preProcess(next);
+        return next;
+    }
+
+    /**
+     * Gather the given examples of the data set into a new data set
+     * @param source the data set to gather from
+     * @param indices the examples to gather, in order
+     * @return a data set with copies of the given examples
+     */
+    public static DataSet gather(DataSet source, int[] indices) {
+        DataSet ret = new DataSet(gather(source.getFeatures(), indices), gather(source.getLabels(), indices),
+                        gather(source.getFeaturesMaskArray(), indices), gather(source.getLabelsMaskArray(), indices));
+        ret.setLabelNames(source.getLabelNamesList());
+        return ret;
+    }
+
+    private static INDArray gather(INDArray arr, int[] indices) {
+        if (arr == null)
+            return null;
+        if (arr.rank() == 2)
+            return Nd4j.pullRows(arr, 1, indices);
+
+        //time series and images: one slice per example
+        int[] shape = arr.shape().clone();
+        shape[0] = indices.length;
+        INDArray ret = Nd4j.createUninitialized(shape, arr.ordering());
+        for (int i = 0; i < indices.length; i++)
+            ret.slice(i).assign(arr.slice(indices[i]));
+        return ret;
+    }
+
+    @Override
+    public int totalExamples() {
+        return indices.length;
+    }
+
+    @Override
+    public int inputColumns() {
+        return source.getFeatures().size(1);
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return source.getLabels().size(1);
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        //every minibatch is a fresh copy
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        cursor = 0;
+        if (rng != null) {
+            for (int i = indices.length - 1; i > 0; i--) {
+                int j = rng.nextInt(i + 1);
+                int tmp = indices[i];
+                indices[i] = indices[j];
+                indices[j] = tmp;
+            }
+        }
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        return cursor;
+    }
+
+    @Override
+    public int numExamples() {
+        return totalExamples();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return source.getLabelNamesList();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < indices.length;
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
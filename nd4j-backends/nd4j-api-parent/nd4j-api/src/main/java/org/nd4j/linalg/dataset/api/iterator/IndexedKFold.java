@@ -0,0 +1,224 @@
+package org.nd4j.linalg.dataset.api.iterator;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.util.Sorting;
+
+import java.util.Random;
+
+/**
+ * Index based k-fold cross validation over an in memory {@link DataSet}.
+ *
+ * Unlike {@link KFoldIterator}, which copies the data set and merges a new
+ * training set for every fold, the folds here are just ranges of one shuffled
+ * permutation of the example indices. The train and test parts of a fold are
+ * {@link IndexedDataSetIterator}s that gather their minibatches on the fly,
+ * so the only copies of the data are the minibatches in flight.
+ *
+ * With stratification the permutation spreads the examples of every class
+ * evenly over its length, so every fold (and every contiguous minibatch of it)
+ * has roughly the class proportions of the whole data set. Classes are
+ * the argmax of the label rows.
+ *
+ * The first numExamples % k folds have one example more than the others.
+ */
+public class IndexedKFold {
+    private final DataSet data;
+    private final int k;
+    private final int[] permutation;
+    private final int[] foldStarts;
+
+    /**
+     * Randomly shuffled folds
+     * @param data the data set to split
+     * @param k the number of folds
+     * @param seed the seed for the shuffle
+     */
+    public IndexedKFold(DataSet data, int k, long seed) {
+        this(data, k, seed, false);
+    }
+
+    /**
+     * @param data the data set to split
+     * @param k the number of folds
+     * @param seed the seed for the shuffle
+     * @param stratified true to keep the class proportions in every fold
+     */
+    public IndexedKFold(DataSet data, int k, long seed, boolean stratified) {
+        int numExamples = data.numExamples();
+        if (k < 2 || k > numExamples)
+            throw new IllegalArgumentException("k must be between 2 and the number of examples (" + numExamples
+                            + "), got " + k);
+        this.data = data;
+        this.k = k;
+        Random rng = new Random(seed);
+        this.permutation = stratified ? stratifiedPermutation(classes(data.getLabels()), rng)
+                        : permutation(numExamples, rng);
+
+        this.foldStarts = new int[k + 1];
+        for (int i = 0; i < k; i++)
+            foldStarts[i + 1] = foldStarts[i] + numExamples / k + (i < numExamples % k ? 1 : 0);
+    }
+
+    /**
+     * @return the number of folds
+     */
+    public int numFolds() {
+        return k;
+    }
+
+    /**
+     * The examples held out for testing in the given fold
+     * @param fold the fold, 0 to k - 1
+     * @return the example indices
+     */
+    public int[] testIndices(int fold) {
+        checkFold(fold);
+        int[] ret = new int[foldStarts[fold + 1] - foldStarts[fold]];
+        System.arraycopy(permutation, foldStarts[fold], ret, 0, ret.length);
+        return ret;
+    }
+
+    /**
+     * The examples to train on in the given fold: all but the test ones
+     * @param fold the fold, 0 to k - 1
+     * @return the example indices
+     */
+    public int[] trainIndices(int fold) {
+        checkFold(fold);
+        int start = foldStarts[fold];
+        int end = foldStarts[fold + 1];
+        int[] ret = new int[permutation.length - (end - start)];
+        System.arraycopy(permutation, 0, ret, 0, start);
+        System.arraycopy(permutation, end, ret, start, permutation.length - end);
+        return ret;
+    }
+
+    /**
+     * Minibatches of the training examples of the given fold
+     * @param fold the fold, 0 to k - 1
+     * @param batchSize the minibatch size
+     * @return an iterator gathering the minibatches on the fly
+     */
+    public DataSetIterator trainIterator(int fold, int batchSize) {
+        return new IndexedDataSetIterator(data, trainIndices(fold), batchSize);
+    }
+
+    /**
+     * Minibatches of the test examples of the given fold
+     * @param fold the fold, 0 to k - 1
+     * @param batchSize the minibatch size
+     * @return an iterator gathering the minibatches on the fly
+     */
+    public DataSetIterator testIterator(int fold, int batchSize) {
+        return new IndexedDataSetIterator(data, testIndices(fold), batchSize);
+    }
+
+    private void checkFold(int fold) {
+        if (fold < 0 || fold >= k)
+            throw new IllegalArgumentException("Fold must be between 0 and " + (k - 1) + ", got " + fold);
+    }
+
+    /**
+     * Index based train/test split, the equivalent of {@link DataSet#splitTestAndTrain(double)}
+     * without copying the data
+     * @param data the data set to split
+     * @param fractionTrain the fraction of examples to train on
+     * @param seed the seed for the shuffle
+     * @param stratified true to keep the class proportions in both parts
+     * @return the train indices followed by the test indices
+     */
+    public static int[][] trainTestIndices(DataSet data, double fractionTrain, long seed, boolean stratified) {
+        if (fractionTrain <= 0 || fractionTrain >= 1)
+            throw new IllegalArgumentException("Fraction to train on must be in (0, 1), got " + fractionTrain);
+        Random rng = new Random(seed);
+        int[] permutation = stratified ? stratifiedPermutation(classes(data.getLabels()), rng)
+                        : permutation(data.numExamples(), rng);
+        int numTrain = (int) Math.round(fractionTrain * permutation.length);
+        int[] train = new int[numTrain];
+        int[] test = new int[permutation.length - numTrain];
+        System.arraycopy(permutation, 0, train, 0, numTrain);
+        System.arraycopy(permutation, numTrain, test, 0, test.length);
+        return new int[][] {train, test};
+    }
+
+    /**
+     * A random permutation of 0 to n - 1
+     * @param n the number of indices
+     * @param rng the random number generator to use
+     * @return the permutation
+     */
+    public static int[] permutation(int n, Random rng) {
+        int[] ret = new int[n];
+        for (int i = 0; i < n; i++)
+            ret[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int tmp = ret[i];
+            ret[i] = ret[j];
+            ret[j] = tmp;
+        }
+        return ret;
+    }
+
+    /**
+     * A random permutation of the example indices that spreads the examples of every class
+     * evenly: the j-th (shuffled) example of a class with n examples is placed at
+     * relative position (j + u) / n, with a random offset u per class.
+     * Any contiguous range of the permutation has about the overall class proportions.
+     * @param classes the class of every example
+     * @param rng the random number generator to use
+     * @return the permutation
+     */
+    public static int[] stratifiedPermutation(int[] classes, Random rng) {
+        int numClasses = 0;
+        for (int c : classes) {
+            if (c < 0)
+                throw new IllegalArgumentException("Negative class " + c);
+            numClasses = Math.max(numClasses, c + 1);
+        }
+
+        int[] counts = new int[numClasses];
+        for (int c : classes)
+            counts[c]++;
+
+        //shuffle the examples within every class by giving them random ranks
+        int[][] ranks = new int[numClasses][];
+        for (int c = 0; c < numClasses; c++)
+            ranks[c] = permutation(counts[c], rng);
+        double[] offsets = new double[numClasses];
+        for (int c = 0; c < numClasses; c++)
+            offsets[c] = rng.nextDouble();
+
+        int[] seen = new int[numClasses];
+        double[] positions = new double[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            int c = classes[i];
+            positions[i] = (ranks[c][seen[c]++] + offsets[c]) / counts[c];
+        }
+        return Sorting.argsort(positions, true);
+    }
+
+    /**
+     * The class of every example: the argmax of its label row
+     * @param labels the labels, one row per example
+     * @return the classes
+     */
+    public static int[] classes(INDArray labels) {
+        if (labels.rank() != 2)
+            throw new IllegalArgumentException("Stratification needs one label row per example, got rank "
+                            + labels.rank() + " labels");
+        int[] ret = new int[labels.rows()];
+        if (labels.columns() == 1) {
+            //single output: binary labels
+            for (int i = 0; i < ret.length; i++)
+                ret[i] = labels.getDouble(i, 0) > 0.5 ? 1 : 0;
+            return ret;
+        }
+
+        INDArray argMax = labels.argMax(1);
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = argMax.getInt(i);
+        return ret;
+    }
+}
@@ -10,6 +10,7 @@ import java.util.List;
  * Splits a dataset into k folds.
  * DataSet is duplicated in memory once
  * call .next() to get the k-1 folds to train on and call .testfold() to get the corresponding kth fold for testing
+ * For large data sets see {@link IndexedKFold}, which splits by index and never copies a whole fold
  * @author Susan Eraly
  */
 public class KFoldIterator implements DataSetIterator {
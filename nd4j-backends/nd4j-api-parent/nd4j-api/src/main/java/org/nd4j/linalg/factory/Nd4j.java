@@ -80,6 +80,9 @@ import org.nd4j.linalg.memory.MemoryManager;
 import org.nd4j.linalg.memory.provider.BasicWorkspaceManager;
 import org.nd4j.linalg.string.NDArrayStrings;
 import org.nd4j.linalg.util.ArrayUtil;
+import org.nd4j.linalg.util.Sorting;
+import org.nd4j.serde.csv.CsvSerde;
+import org.nd4j.serde.numpy.NpySerde;
 import org.nd4j.versioncheck.VersionCheck;
 
 import java.io.*;
@@ -1707,7 +1710,9 @@ public class Nd4j {
     }
 
     /**
-     * Sort an ndarray along a particular dimension
+     * Sort an ndarray along a particular dimension.
+     * Equal values keep their original order when sorting ascending,
+     * a descending sort is the exact reverse (equal values highest index first).
      *
      * @param ndarray   the ndarray to sort
      * @param dimension the dimension to sort
@@ -1715,56 +1720,37 @@ public class Nd4j {
      */
     public static INDArray[] sortWithIndices(INDArray ndarray, int dimension, boolean ascending) {
         INDArray indices = Nd4j.create(ndarray.shape());
-        INDArray[] ret = new INDArray[2];
-
-        for (int i = 0; i < ndarray.vectorsAlongDimension(dimension); i++) {
-            INDArray vec = ndarray.vectorAlongDimension(i, dimension);
-            INDArray indexVector = indices.vectorAlongDimension(i, dimension);
-            final Double[] data = new Double[vec.length()];
-            final Double[] index = new Double[vec.length()];
-
-            for (int j = 0; j < vec.length(); j++) {
-                data[j] = vec.getDouble(j);
-                index[j] = (double) j;
-            }
-
-            /**
-             * Inject a comparator that sorts indices relative to
-             * the actual values in the data.
-             * This allows us to retain the indices
-             * and how they were rearranged.
-             */
-
-            Arrays.sort(index, new Comparator<Double>() {
-                @Override
-                public int compare(Double o1, Double o2) {
-                    int o = (int) o1.doubleValue();
-                    int oo2 = (int) o2.doubleValue();
-                    return Double.compare(data[o], data[oo2]);
-                }
-            });
-
-            if (ascending)
-                for (int j = 0; j < vec.length(); j++) {
-                    vec.putScalar(j, data[(int) index[j].doubleValue()]);
-                    indexVector.putScalar(j, index[j]);
-                }
-            else {
-                int count = data.length - 1;
-                for (int j = 0; j < vec.length(); j++) {
-                    int currCount2 = count;
-                    count--;
-                    vec.putScalar(j, data[(int) index[currCount2].doubleValue()]);
-                    indexVector.putScalar(j, index[currCount2]);
-                }
-            }
-
-        }
+        Sorting.argsort(ndarray, dimension, ascending, ascending, indices, ndarray);
+        return new INDArray[] {indices, ndarray};
+    }
 
-        ret[0] = indices;
-        ret[1] = ndarray;
+    /**
+     * Argsort along a particular dimension.
+     * The input is left untouched, vectors are sorted in parallel.
+     *
+     * @param ndarray   the ndarray to sort
+     * @param dimension the dimension to sort along
+     * @param ascending true for smallest first
+     * @return the indices and the sorted values
+     * @see Sorting#argsort(INDArray, int, boolean, INDArray, INDArray) for sorting into preallocated arrays
+     */
+    public static INDArray[] argsort(INDArray ndarray, int dimension, boolean ascending) {
+        return Sorting.argsort(ndarray, dimension, ascending);
+    }
 
-        return ret;
+    /**
+     * The k largest values along a particular dimension, largest first.
+     * This is a partial selection, not a full sort, and runs in parallel
+     * over the vectors along the dimension (or over chunks of a single vector).
+     *
+     * @param ndarray   the ndarray to select from
+     * @param k         the number of values to select
+     * @param dimension the dimension to select along
+     * @return the indices and the values, with size k along the given dimension
+     * @see Sorting#topK(INDArray, int, int, boolean, INDArray, INDArray) for selecting into preallocated arrays
+     */
+    public static INDArray[] topK(INDArray ndarray, int k, int dimension) {
+        return Sorting.topK(ndarray, k, dimension);
     }
 
     /**
@@ -1871,20 +1857,9 @@ public class Nd4j {
 
         INDArray out = Nd4j.create(in.shape());
         int nRows = in.rows();
-        ArrayList<Integer> list = new ArrayList<>(nRows);
-        for (int i = 0; i < nRows; i++)
-            list.add(i);
-        Collections.sort(list, new Comparator<Integer>() {
-            @Override
-            public int compare(Integer o1, Integer o2) {
-                if (ascending)
-                    return Double.compare(in.getDouble(o1, colIdx), in.getDouble(o2, colIdx));
-                else
-                    return -Double.compare(in.getDouble(o1, colIdx), in.getDouble(o2, colIdx));
-            }
-        });
+        int[] order = Sorting.argsort(in.getColumn(colIdx).dup().data().asDouble(), ascending);
         for (int i = 0; i < nRows; i++) {
-            out.putRow(i, in.getRow(list.get(i)));
+            out.putRow(i, in.getRow(order[i]));
         }
         return out;
     }
@@ -1913,20 +1888,9 @@ public class Nd4j {
 
         INDArray out = Nd4j.create(in.shape());
         int nCols = in.columns();
-        ArrayList<Integer> list = new ArrayList<>(nCols);
-        for (int i = 0; i < nCols; i++)
-            list.add(i);
-        Collections.sort(list, new Comparator<Integer>() {
-            @Override
-            public int compare(Integer o1, Integer o2) {
-                if (ascending)
-                    return Double.compare(in.getDouble(rowIdx, o1), in.getDouble(rowIdx, o2));
-                else
-                    return -Double.compare(in.getDouble(rowIdx, o1), in.getDouble(rowIdx, o2));
-            }
-        });
+        int[] order = Sorting.argsort(in.getRow(rowIdx).dup().data().asDouble(), ascending);
         for (int i = 0; i < nCols; i++) {
-            out.putColumn(i, in.getColumn(list.get(i)));
+            out.putColumn(i, in.getColumn(order[i]));
         }
         return out;
     }
@@ -2357,6 +2321,52 @@ public class Nd4j {
         return readNumpy(filePath, "\t");
     }
 
+    /**
+     * Read a matrix from a delimited text file (one row per line)
+     * in parallel, see {@link CsvSerde}
+     *
+     * @param filePath the file to read
+     * @param delimiter the delimiter between values
+     * @return the read matrix
+     */
+    public static INDArray readCsv(String filePath, char delimiter) throws IOException {
+        return CsvSerde.read(new File(filePath), delimiter);
+    }
+
+    /**
+     * Write a matrix as delimited text (one row per line)
+     * in parallel, see {@link CsvSerde}
+     *
+     * @param write the matrix to write
+     * @param filePath the file to write to
+     * @param delimiter the delimiter between values
+     */
+    public static void writeCsv(INDArray write, String filePath, char delimiter) throws IOException {
+        CsvSerde.write(write, new File(filePath), delimiter);
+    }
+
+    /**
+     * Write an array in the numpy .npy format, see {@link NpySerde}
+     *
+     * @param write the array to write
+     * @param file the file to write to
+     */
+    public static void writeNpy(INDArray write, File file) throws IOException {
+        NpySerde.write(write, file);
+    }
+
+    /**
+     * Read an array from a numpy .npy file in java, see {@link NpySerde}
+     *
+     * @param file the file to read
+     * @param mmap true to map the file's data instead of copying it
+     *             (numpy's mmap_mode='c', the file needs the native byte order and default data type)
+     * @return the array
+     */
+    public static INDArray readNpy(File file, boolean mmap) throws IOException {
+        return mmap ? NpySerde.mmap(file) : NpySerde.read(file);
+    }
+
 
 
     /**
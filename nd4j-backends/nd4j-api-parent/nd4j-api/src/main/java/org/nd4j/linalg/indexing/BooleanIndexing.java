@@ -21,8 +21,10 @@ package org.nd4j.linalg.indexing;
 
 import com.google.common.base.Function;
 import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.complex.IComplexNDArray;
 import org.nd4j.linalg.api.complex.IComplexNumber;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.impl.accum.MatchCondition;
 import org.nd4j.linalg.api.ops.impl.indexaccum.FirstIndex;
@@ -30,12 +32,12 @@ import org.nd4j.linalg.api.ops.impl.indexaccum.LastIndex;
 import org.nd4j.linalg.api.ops.impl.transforms.comparison.CompareAndReplace;
 import org.nd4j.linalg.api.ops.impl.transforms.comparison.CompareAndSet;
 import org.nd4j.linalg.api.shape.Shape;
-import org.nd4j.linalg.api.shape.loop.coordinatefunction.CoordinateFunction;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.conditions.BaseCondition;
 import org.nd4j.linalg.indexing.conditions.Condition;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Boolean indexing
@@ -96,23 +98,23 @@ public class BooleanIndexing {
                 return false;
 
         } else {
-            boolean ret = true;
-            final AtomicBoolean a = new AtomicBoolean(ret);
-            Shape.iterate(n, new CoordinateFunction() {
-                @Override
-                public void process(int[]... coord) {
-                    if (a.get())
-                        a.compareAndSet(true, a.get() && cond.apply(n.getDouble(coord[0])));
-                }
-            });
+            NdIndexCursor cursor = new NdIndexCursor(n);
+            DataBuffer data = n.data();
+            while (cursor.advance()) {
+                if (!cond.apply(data.getDouble(cursor.offset())))
+                    return false;
+            }
 
-            return a.get();
+            return true;
         }
     }
 
     /**
      * And over the whole ndarray given some condition, with respect to dimensions
      *
+     * Static conditions ({@link BaseCondition}) are counted natively via {@link MatchCondition},
+     * dynamic conditions are evaluated in parallel over the tensors along the given dimensions.
+     *
      * @param n    the ndarray to test
      * @param condition the condition to test against
      * @return true if all of the elements meet the specified
@@ -120,20 +122,15 @@ public class BooleanIndexing {
      */
     public static boolean[] and(final INDArray n, final Condition condition, int... dimension) {
         if (!(condition instanceof BaseCondition))
-            throw new UnsupportedOperationException("Only static Conditions are supported");
+            return matchAlongDimension(n, condition, true, dimension);
 
-        MatchCondition op = new MatchCondition(n, condition);
-        INDArray arr = Nd4j.getExecutioner().exec(op, dimension);
-        boolean[] result = new boolean[arr.length()];
+        double[] counts = matchCounts(n, condition, dimension);
+        boolean[] result = new boolean[counts.length];
 
         long tadLength = Shape.getTADLength(n.shape(), dimension);
 
-        for (int i = 0; i < arr.length(); i++) {
-            if (arr.getDouble(i) == tadLength)
-                result[i] = true;
-            else
-                result[i] = false;
-        }
+        for (int i = 0; i < counts.length; i++)
+            result[i] = counts[i] == tadLength;
 
         return result;
     }
@@ -142,6 +139,9 @@ public class BooleanIndexing {
     /**
      * Or over the whole ndarray given some condition, with respect to dimensions
      *
+     * Static conditions ({@link BaseCondition}) are counted natively via {@link MatchCondition},
+     * dynamic conditions are evaluated in parallel over the tensors along the given dimensions.
+     *
      * @param n    the ndarray to test
      * @param condition the condition to test against
      * @return true if all of the elements meet the specified
@@ -149,22 +149,112 @@ public class BooleanIndexing {
      */
     public static boolean[] or(final INDArray n, final Condition condition, int... dimension) {
         if (!(condition instanceof BaseCondition))
-            throw new UnsupportedOperationException("Only static Conditions are supported");
+            return matchAlongDimension(n, condition, false, dimension);
 
-        MatchCondition op = new MatchCondition(n, condition);
-        INDArray arr = Nd4j.getExecutioner().exec(op, dimension);
-        boolean[] result = new boolean[arr.length()];
+        double[] counts = matchCounts(n, condition, dimension);
+        boolean[] result = new boolean[counts.length];
 
-        for (int i = 0; i < arr.length(); i++) {
-            if (arr.getDouble(i) > 0)
-                result[i] = true;
-            else
-                result[i] = false;
+        for (int i = 0; i < counts.length; i++)
+            result[i] = counts[i] > 0;
+
+        return result;
+    }
+
+    /**
+     * Number of elements matching the condition for each tensor along the given dimensions
+     */
+    private static double[] matchCounts(INDArray n, Condition condition, int... dimension) {
+        INDArray arr = Nd4j.getExecutioner().exec(new MatchCondition(n, condition), dimension);
+
+        // fresh dense result: read it back in bulk instead of element by element
+        if (!arr.isView() && arr.data().length() == arr.length() && arr.elementWiseStride() == 1)
+            return arr.data().asDouble();
+
+        double[] ret = new double[arr.length()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = arr.getDouble(i);
+
+        return ret;
+    }
+
+    /**
+     * Evaluates a dynamic condition for each tensor along the given dimensions.
+     * Tensors are split across the fork join pool.
+     *
+     * @param all true for and (all elements match), false for or (any element matches)
+     */
+    private static boolean[] matchAlongDimension(INDArray n, Condition condition, boolean all, int... dimension) {
+        Nd4j.getCompressor().autoDecompress(n);
+
+        for (int d : dimension) {
+            if (d == Integer.MAX_VALUE)
+                return new boolean[] {all ? and(n, condition) : or(n, condition)};
         }
 
+        int numTads = n.tensorssAlongDimension(dimension);
+        boolean[] result = new boolean[numTads];
+        long tadLength = Shape.getTADLength(n.shape(), dimension);
+
+        TadMatchTask task = new TadMatchTask(n, condition, all, dimension, result, 0, numTads,
+                        Math.max(1, TadMatchTask.ELEMENTS_PER_TASK / Math.max(1, tadLength)));
+        if (numTads * tadLength <= TadMatchTask.ELEMENTS_PER_TASK)
+            task.compute();
+        else
+            ExecutorServiceProvider.getForkJoinPool().invoke(task);
+
         return result;
     }
 
+    private static class TadMatchTask extends RecursiveAction {
+        private static final long ELEMENTS_PER_TASK = 16384;
+
+        private final INDArray n;
+        private final Condition condition;
+        private final boolean all;
+        private final int[] dimension;
+        private final boolean[] result;
+        private final int start;
+        private final int end;
+        private final long tadsPerTask;
+
+        private TadMatchTask(INDArray n, Condition condition, boolean all, int[] dimension, boolean[] result,
+                        int start, int end, long tadsPerTask) {
+            this.n = n;
+            this.condition = condition;
+            this.all = all;
+            this.dimension = dimension;
+            this.result = result;
+            this.start = start;
+            this.end = end;
+            this.tadsPerTask = tadsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > tadsPerTask) {
+                int middle = start + (end - start) / 2;
+                invokeAll(new TadMatchTask(n, condition, all, dimension, result, start, middle, tadsPerTask),
+                                new TadMatchTask(n, condition, all, dimension, result, middle, end, tadsPerTask));
+                return;
+            }
+
+            for (int i = start; i < end; i++) {
+                INDArray tad = n.tensorAlongDimension(i, dimension);
+                NdIndexCursor cursor = new NdIndexCursor(tad);
+                DataBuffer data = tad.data();
+                // and: look for the first mismatch, or: look for the first match
+                boolean matched = all;
+                while (cursor.advance()) {
+                    if (condition.apply(data.getDouble(cursor.offset())) != all) {
+                        matched = !all;
+                        break;
+                    }
+                }
+                result[i] = matched;
+            }
+        }
+    }
+
     /**
      * Or over the whole ndarray given some condition
      *
@@ -182,17 +272,14 @@ public class BooleanIndexing {
                 return false;
 
         } else {
-            boolean ret = false;
-            final AtomicBoolean a = new AtomicBoolean(ret);
-            Shape.iterate(n, new CoordinateFunction() {
-                @Override
-                public void process(int[]... coord) {
-                    if (!a.get())
-                        a.compareAndSet(false, a.get() || cond.apply(n.getDouble(coord[0])));
-                }
-            });
+            NdIndexCursor cursor = new NdIndexCursor(n);
+            DataBuffer data = n.data();
+            while (cursor.advance()) {
+                if (cond.apply(data.getDouble(cursor.offset())))
+                    return true;
+            }
 
-            return a.get();
+            return false;
         }
     }
 
@@ -207,15 +294,14 @@ public class BooleanIndexing {
     public static void applyWhere(final INDArray to, final Condition condition,
                     final Function<Number, Number> function) {
         // keep original java implementation for dynamic
-
-        Shape.iterate(to, new CoordinateFunction() {
-            @Override
-            public void process(int[]... coord) {
-                if (condition.apply(to.getDouble(coord[0])))
-                    to.putScalar(coord[0], function.apply(to.getDouble(coord[0])).doubleValue());
-
-            }
-        });
+        NdIndexCursor cursor = new NdIndexCursor(to);
+        DataBuffer data = to.data();
+        while (cursor.advance()) {
+            long offset = cursor.offset();
+            double value = data.getDouble(offset);
+            if (condition.apply(value))
+                data.put(offset, function.apply(value).doubleValue());
+        }
     }
 
     /**
@@ -232,23 +318,14 @@ public class BooleanIndexing {
             Nd4j.getExecutioner().exec(new CompareAndSet(to, number.doubleValue(), condition));
 
         } else {
-            final double value = number.doubleValue();
-
-            final Function<Number, Number> dynamic = new Function<Number, Number>() {
-                @Override
-                public Number apply(Number number) {
-                    return value;
-                }
-            };
-
-            Shape.iterate(to, new CoordinateFunction() {
-                @Override
-                public void process(int[]... coord) {
-                    if (condition.apply(to.getDouble(coord[0])))
-                        to.putScalar(coord[0], dynamic.apply(to.getDouble(coord[0])).doubleValue());
-
-                }
-            });
+            double value = number.doubleValue();
+            NdIndexCursor cursor = new NdIndexCursor(to);
+            DataBuffer data = to.data();
+            while (cursor.advance()) {
+                long offset = cursor.offset();
+                if (condition.apply(data.getDouble(offset)))
+                    data.put(offset, value);
+            }
         }
     }
 
@@ -312,16 +389,17 @@ public class BooleanIndexing {
      */
     public static void applyWhere(final INDArray to, final Condition condition, final Function<Number, Number> function,
                     final Function<Number, Number> alternativeFunction) {
-        Shape.iterate(to, new CoordinateFunction() {
-            @Override
-            public void process(int[]... coord) {
-                if (condition.apply(to.getDouble(coord[0]))) {
-                    to.putScalar(coord[0], function.apply(to.getDouble(coord[0])).doubleValue());
-                } else {
-                    to.putScalar(coord[0], alternativeFunction.apply(to.getDouble(coord[0])).doubleValue());
-                }
+        NdIndexCursor cursor = new NdIndexCursor(to);
+        DataBuffer data = to.data();
+        while (cursor.advance()) {
+            long offset = cursor.offset();
+            double value = data.getDouble(offset);
+            if (condition.apply(value)) {
+                data.put(offset, function.apply(value).doubleValue());
+            } else {
+                data.put(offset, alternativeFunction.apply(value).doubleValue());
             }
-        });
+        }
 
     }
 
@@ -0,0 +1,267 @@
+package org.nd4j.linalg.indexing;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+import org.nd4j.linalg.util.LongUtils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A pre compiled indexing operation.
+ *
+ * {@link INDArray#get(INDArrayIndex...)} resolves the indexes
+ * and runs a {@link ShapeOffsetResolution} on every call.
+ * When the same index pattern is applied over and over
+ * to arrays with the same shape and strides (think slicing
+ * a batch tensor during inference) that work is identical
+ * every time. An index plan does the resolution once
+ * and then only has to create the view on {@link #apply(INDArray)}.
+ *
+ * Plans are immutable and may be shared between threads.
+ *
+ * Usage:
+ * <pre>
+ * IndexPlan plan = IndexPlan.compile(new int[] {32, 100, 50}, NDArrayIndex.all(), NDArrayIndex.interval(0, 10));
+ * INDArray view = plan.apply(batch);
+ * </pre>
+ */
+public class IndexPlan implements Serializable {
+
+    private enum Mode {
+        /**
+         * The indexes select the whole array
+         */
+        IDENTITY,
+        /**
+         * The indexes resolve to a strided view
+         */
+        VIEW,
+        /**
+         * Specified indexes copy out the result,
+         * so they go through the regular get path
+         */
+        COPY
+    }
+
+    private final int[] inputShape;
+    private final int[] inputStride;
+    private final char inputOrder;
+    private final INDArrayIndex[] indexes;
+
+    private final Mode mode;
+    private final int[] shape;
+    private final int[] stride;
+    private final long offset;
+    private final char order;
+
+    private IndexPlan(INDArray template, INDArrayIndex... indexes) {
+        this.inputShape = template.shape().clone();
+        this.inputStride = template.stride().clone();
+        this.inputOrder = template.ordering();
+        //the caller keeps their array: copy it so the plan stays immutable
+        this.indexes = indexes.clone();
+
+        if (indexes.length > template.rank()) {
+            int numNonNewAxis = 0;
+            for (int i = 0; i < indexes.length; i++) {
+                if (!(indexes[i] instanceof NewAxis))
+                    numNonNewAxis++;
+            }
+
+            if (numNonNewAxis > template.rank())
+                throw new IllegalArgumentException("Too many indices for array. Number of indexes must be <= rank()");
+        }
+
+        //same short cut as BaseNDArray.get(..): the whole array is returned
+        if (indexes.length == 1 && indexes[0] instanceof NDArrayIndexAll || (indexes.length == 2 && (template
+                        .isRowVector() && indexes[0] instanceof PointIndex && indexes[0].offset() == 0
+                        && indexes[1] instanceof NDArrayIndexAll
+                        || template.isColumnVector() && indexes[1] instanceof PointIndex
+                                        && indexes[0].offset() == 0 && indexes[0] instanceof NDArrayIndexAll))) {
+            this.mode = Mode.IDENTITY;
+            this.shape = inputShape;
+            this.stride = inputStride;
+            this.offset = 0;
+            this.order = inputOrder;
+            return;
+        }
+
+        INDArrayIndex[] resolved = NDArrayIndex.resolve(template.shapeInfoDataBuffer(), indexes);
+        if (resolved.length < 1)
+            throw new IllegalStateException("Invalid index found of zero length");
+
+        if (anySpecified(resolved)) {
+            this.mode = Mode.COPY;
+            this.shape = null;
+            this.stride = null;
+            this.offset = 0;
+            this.order = inputOrder;
+            return;
+        }
+
+        ShapeOffsetResolution resolution = new ShapeOffsetResolution(template);
+        resolution.exec(resolved);
+
+        // FIXME: LONG
+        int[] shape = LongUtils.toInts(resolution.getShapes());
+        int[] stride = LongUtils.toInts(resolution.getStrides());
+        long[] offsets = resolution.getOffsets();
+
+        if (shape.length < 1)
+            throw new IllegalArgumentException("Indexes " + Arrays.toString(indexes) + " resolve to an empty shape");
+        if (offsets.length != shape.length)
+            throw new IllegalArgumentException("Invalid offset " + Arrays.toString(offsets));
+        if (stride.length != shape.length)
+            throw new IllegalArgumentException("Invalid stride " + Arrays.toString(stride));
+
+        if (Arrays.equals(shape, inputShape)) {
+            if (!ArrayUtil.isZero(offsets))
+                throw new IllegalArgumentException("Invalid subArray offsets");
+
+            this.mode = Mode.IDENTITY;
+            this.shape = inputShape;
+            this.stride = inputStride;
+            this.offset = 0;
+            this.order = inputOrder;
+            return;
+        }
+
+        this.mode = Mode.VIEW;
+        this.shape = shape;
+        this.stride = stride;
+        this.offset = resolution.getOffset();
+        this.order = Shape.getOrder(shape, stride, 1);
+    }
+
+    /**
+     * Compile a plan for arrays with the given shape
+     * in the default ordering ({@link Nd4j#order()})
+     * @param shape the shape of the arrays the plan will be applied to
+     * @param indexes the indexes to apply
+     * @return the compiled plan
+     */
+    public static IndexPlan compile(int[] shape, INDArrayIndex... indexes) {
+        return compile(shape, Nd4j.order(), indexes);
+    }
+
+    /**
+     * Compile a plan for freshly allocated arrays
+     * with the given shape and ordering
+     * @param shape the shape of the arrays the plan will be applied to
+     * @param order the ordering of the arrays the plan will be applied to
+     * @param indexes the indexes to apply
+     * @return the compiled plan
+     */
+    public static IndexPlan compile(int[] shape, char order, INDArrayIndex... indexes) {
+        //the resolution needs an actual array to look at, this is only done once per plan
+        return compile(Nd4j.createUninitializedDetached(shape, order), indexes);
+    }
+
+    /**
+     * Compile a plan for arrays with the same shape
+     * and strides as the given template.
+     * Use this one when the plan is meant for views.
+     * @param template the array to derive the shape and strides from
+     * @param indexes the indexes to apply
+     * @return the compiled plan
+     */
+    public static IndexPlan compile(INDArray template, INDArrayIndex... indexes) {
+        return new IndexPlan(template, indexes);
+    }
+
+    /**
+     * The shape of the arrays this plan was compiled for
+     * @return a copy of the input shape
+     */
+    public int[] getInputShape() {
+        return inputShape.clone();
+    }
+
+    /**
+     * The strides of the arrays this plan was compiled for
+     * @return a copy of the input strides
+     */
+    public int[] getInputStride() {
+        return inputStride.clone();
+    }
+
+    /**
+     * The indexes this plan was compiled with
+     * @return a copy of the indexes
+     */
+    public INDArrayIndex[] getIndexes() {
+        return indexes.clone();
+    }
+
+    /**
+     * Returns true if the plan can be applied to the given array:
+     * the shape, strides and ordering have to match the ones
+     * the plan was compiled for.
+     * @param arr the array to test
+     * @return true if the given array is compatible with this plan
+     */
+    public boolean isCompatible(INDArray arr) {
+        return arr.ordering() == inputOrder && Arrays.equals(inputShape, arr.shape())
+                        && Arrays.equals(inputStride, arr.stride());
+    }
+
+    /**
+     * Returns true if {@link #apply(INDArray)} returns a view
+     * of the passed in array, false when the result is a copy
+     * @return true if the result is a view
+     */
+    public boolean isView() {
+        return mode != Mode.COPY;
+    }
+
+    /**
+     * The shape of the result of this plan, or null
+     * if the plan copies (specified indexes)
+     * @return the result shape
+     */
+    public int[] resultShape() {
+        return shape == null ? null : Arrays.copyOf(shape, shape.length);
+    }
+
+    /**
+     * Apply this plan to the given array.
+     * This is equivalent to {@link INDArray#get(INDArrayIndex...)}
+     * with the indexes the plan was compiled with.
+     * @param arr the array to apply the plan to
+     * @return the view (or copy for specified indexes) of the given array
+     */
+    public INDArray apply(INDArray arr) {
+        if (!isCompatible(arr))
+            throw new IllegalArgumentException("Index plan compiled for shape " + Arrays.toString(inputShape)
+                            + " with stride " + Arrays.toString(inputStride) + " and order " + inputOrder
+                            + " can't be applied to array with shape " + Arrays.toString(arr.shape())
+                            + ", stride " + Arrays.toString(arr.stride()) + " and order " + arr.ordering());
+
+        switch (mode) {
+            case IDENTITY:
+                return arr;
+            case COPY:
+                return arr.get(indexes);
+            default:
+                Nd4j.getCompressor().autoDecompress(arr);
+                return Nd4j.create(arr.data(), shape, stride, arr.offset() + offset, order);
+        }
+    }
+
+    private static boolean anySpecified(INDArrayIndex... indexes) {
+        for (INDArrayIndex index : indexes)
+            if (index instanceof SpecifiedIndex)
+                return true;
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexPlan{inputShape=" + Arrays.toString(inputShape) + ", indexes=" + Arrays.toString(indexes)
+                        + ", mode=" + mode + ", shape=" + Arrays.toString(shape) + ", stride="
+                        + Arrays.toString(stride) + ", offset=" + offset + "}";
+    }
+}
@@ -0,0 +1,16 @@
+package org.nd4j.linalg.knn;
+
+/**
+ * Distance functions supported by the nearest neighbour indexes.
+ * The distances reported are the same as the corresponding
+ * {@link org.nd4j.linalg.ops.transforms.Transforms} ops:
+ * <ul>
+ *     <li>{@link #EUCLIDEAN}: {@link org.nd4j.linalg.ops.transforms.Transforms#allEuclideanDistances}</li>
+ *     <li>{@link #COSINE}: {@link org.nd4j.linalg.ops.transforms.Transforms#allCosineDistances}
+ *     (1 - cosine similarity)</li>
+ *     <li>{@link #MANHATTAN}: {@link org.nd4j.linalg.ops.transforms.Transforms#allManhattanDistances}</li>
+ * </ul>
+ */
+public enum Distance {
+    EUCLIDEAN, COSINE, MANHATTAN
+}
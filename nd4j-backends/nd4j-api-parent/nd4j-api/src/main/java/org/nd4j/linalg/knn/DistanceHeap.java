@@ -0,0 +1,93 @@
+package org.nd4j.linalg.knn;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (distance, id) pairs on primitive arrays,
+ * either closest first (min heap) or furthest first (max heap).
+ * Grows as needed. Not thread safe.
+ */
+class DistanceHeap {
+    private final boolean furthestFirst;
+    private double[] distances;
+    private int[] ids;
+    private int size = 0;
+
+    DistanceHeap(int capacity, boolean furthestFirst) {
+        this.furthestFirst = furthestFirst;
+        this.distances = new double[Math.max(capacity, 4)];
+        this.ids = new int[distances.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    double peekDistance() {
+        return distances[0];
+    }
+
+    int peekId() {
+        return ids[0];
+    }
+
+    void push(double distance, int id) {
+        if (size == distances.length) {
+            distances = Arrays.copyOf(distances, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(distance, id, distances[parent], ids[parent]))
+                break;
+            distances[i] = distances[parent];
+            ids[i] = ids[parent];
+            i = parent;
+        }
+        distances[i] = distance;
+        ids[i] = id;
+    }
+
+    /**
+     * Remove the top of the heap
+     * @return the id of the removed entry
+     */
+    int pop() {
+        int ret = ids[0];
+        size--;
+        double distance = distances[size];
+        int id = ids[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && before(distances[child + 1], ids[child + 1], distances[child], ids[child]))
+                child++;
+            if (!before(distances[child], ids[child], distance, id))
+                break;
+            distances[i] = distances[child];
+            ids[i] = ids[child];
+            i = child;
+        }
+        distances[i] = distance;
+        ids[i] = id;
+        return ret;
+    }
+
+    /**
+     * Whether the first entry belongs closer to the top of the heap.
+     * Ties are broken by id, so that lower ids are closer
+     */
+    private boolean before(double d1, int id1, double d2, int id2) {
+        int c = Double.compare(d1, d2);
+        if (c == 0)
+            c = Integer.compare(id1, id2);
+        return furthestFirst ? c > 0 : c < 0;
+    }
+}
@@ -0,0 +1,252 @@
+package org.nd4j.linalg.knn;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.BooleanIndexing;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.indexing.conditions.Conditions;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.nd4j.linalg.util.Sorting;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exact (brute force) k nearest neighbours.
+ *
+ * The vectors are stored in blocks of {@link #getBlockSize()} rows.
+ * A batch of queries is scored against one block at a time:
+ * for euclidean and cosine distance the whole block is a single gemm
+ * (queries x block^T), using |q - x|^2 = |q|^2 + |x|^2 - 2 q.x with
+ * the squared norms of the stored vectors computed once on insert, and
+ * pre normalized vectors for cosine. Manhattan distance goes through
+ * {@link Transforms#allManhattanDistances(INDArray, INDArray, int...)}.
+ * The top k of every block is selected right away with {@link Sorting#topK}
+ * and merged into the running result, so the full queries x database
+ * distance matrix is never materialized.
+ *
+ * The results are exact and serve as the ground truth
+ * for approximate indexes such as {@link HnswIndex}.
+ * Ties are broken by index, lower index first.
+ */
+public class ExactKnnIndex implements KnnIndex {
+    public final static int DEFAULT_BLOCK_SIZE = 4096;
+
+    private final Distance distance;
+    private final int blockSize;
+    private final List<INDArray> blocks = new ArrayList<>();
+    //squared norms of the rows of every block as a row vector, euclidean only
+    private final List<INDArray> blockNorms = new ArrayList<>();
+    private int size = 0;
+    private int dimension = -1;
+
+    public ExactKnnIndex(Distance distance) {
+        this(distance, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param distance the distance to use
+     * @param blockSize the number of stored vectors scored per gemm
+     */
+    public ExactKnnIndex(Distance distance, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size must be positive");
+        this.distance = distance;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized void add(INDArray vectors) {
+        INDArray rows = prepare(vectors);
+        int offset = 0;
+        while (offset < rows.rows()) {
+            INDArray last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+            if (last != null && last.rows() < blockSize) {
+                //top up the last block first so small inserts don't end up as tiny gemms
+                int n = Math.min(blockSize - last.rows(), rows.rows() - offset);
+                INDArray merged = Nd4j.vstack(last,
+                                rows.get(NDArrayIndex.interval(offset, offset + n), NDArrayIndex.all()));
+                setBlock(blocks.size() - 1, merged);
+                offset += n;
+            } else {
+                int n = Math.min(blockSize, rows.rows() - offset);
+                blocks.add(null);
+                blockNorms.add(null);
+                setBlock(blocks.size() - 1,
+                                rows.get(NDArrayIndex.interval(offset, offset + n), NDArrayIndex.all()).dup('c'));
+                offset += n;
+            }
+        }
+        size += rows.rows();
+    }
+
+    private void setBlock(int i, INDArray block) {
+        blocks.set(i, block);
+        if (distance == Distance.EUCLIDEAN)
+            blockNorms.set(i, block.mul(block).sum(1).reshape(1, block.rows()));
+    }
+
+    @Override
+    public synchronized KnnResult search(INDArray queries, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive");
+        if (size == 0)
+            throw new IllegalStateException("Index is empty");
+
+        INDArray q = prepare(queries);
+        int numQueries = q.rows();
+        int kk = Math.min(k, size);
+
+        INDArray qNorms = distance == Distance.EUCLIDEAN ? q.mul(q).sum(1).reshape(numQueries, 1) : null;
+        double[] bestDistances = new double[numQueries * kk];
+        int[] bestIndices = new int[numQueries * kk];
+        double[] mergedDistances = new double[kk];
+        int[] mergedIndices = new int[kk];
+        int found = 0;
+        int base = 0;
+
+        for (int b = 0; b < blocks.size(); b++) {
+            INDArray block = blocks.get(b);
+            INDArray distances = blockDistances(q, qNorms, b);
+            int blockK = Math.min(kk, block.rows());
+            INDArray[] top = Sorting.topK(distances, blockK, 1, false);
+
+            //both lists are sorted, the running one only holds lower indices so it wins ties
+            int total = Math.min(kk, found + blockK);
+            for (int i = 0; i < numQueries; i++) {
+                int r = 0, t = 0;
+                for (int j = 0; j < total; j++) {
+                    double topDistance = t < blockK ? top[1].getDouble(i, t) : Double.NaN;
+                    if (r < found && (t >= blockK || Double.compare(bestDistances[i * kk + r], topDistance) <= 0)) {
+                        mergedDistances[j] = bestDistances[i * kk + r];
+                        mergedIndices[j] = bestIndices[i * kk + r];
+                        r++;
+                    } else {
+                        mergedDistances[j] = topDistance;
+                        mergedIndices[j] = base + top[0].getInt(i, t);
+                        t++;
+                    }
+                }
+                System.arraycopy(mergedDistances, 0, bestDistances, i * kk, total);
+                System.arraycopy(mergedIndices, 0, bestIndices, i * kk, total);
+            }
+            found = total;
+            base += block.rows();
+        }
+
+        INDArray indices = Nd4j.create(numQueries, kk);
+        INDArray distances = Nd4j.create(numQueries, kk);
+        for (int i = 0; i < numQueries; i++) {
+            for (int j = 0; j < kk; j++) {
+                double d = bestDistances[i * kk + j];
+                if (distance == Distance.EUCLIDEAN)
+                    d = Math.sqrt(Math.max(0.0, d));
+                indices.putScalar(i, j, bestIndices[i * kk + j]);
+                distances.putScalar(i, j, d);
+            }
+        }
+        return new KnnResult(indices, distances);
+    }
+
+    /**
+     * The distances (squared for euclidean) between the queries and the rows of the given block
+     */
+    private INDArray blockDistances(INDArray queries, INDArray qNorms, int b) {
+        INDArray block = blocks.get(b);
+        switch (distance) {
+            case EUCLIDEAN:
+                return queries.mmul(block.transpose()).muli(-2.0).addiRowVector(blockNorms.get(b))
+                                .addiColumnVector(qNorms);
+            case COSINE:
+                return queries.mmul(block.transpose()).rsubi(1.0);
+            case MANHATTAN:
+                return Transforms.allManhattanDistances(queries, block, 1);
+            default:
+                throw new UnsupportedOperationException("Unknown distance " + distance);
+        }
+    }
+
+    /**
+     * Validate the given vectors and turn them into a c ordered matrix,
+     * normalized to unit length for cosine distance
+     */
+    private INDArray prepare(INDArray vectors) {
+        if (vectors.rank() != 2)
+            throw new IllegalArgumentException("Expected a matrix or row vector, got rank " + vectors.rank());
+        if (dimension >= 0 && vectors.columns() != dimension)
+            throw new IllegalArgumentException(
+                            "Expected vectors of length " + dimension + ", got " + vectors.columns());
+        if (dimension < 0)
+            dimension = vectors.columns();
+
+        INDArray ret = vectors.dup('c');
+        if (distance == Distance.COSINE)
+            normalizeRows(ret);
+        return ret;
+    }
+
+    /**
+     * Scale every row of the given matrix to unit length (in place),
+     * rows that are all zero are left alone
+     */
+    static void normalizeRows(INDArray matrix) {
+        INDArray norms = matrix.norm2(1).reshape(matrix.rows(), 1);
+        BooleanIndexing.replaceWhere(norms, 1.0, Conditions.equals(0.0));
+        matrix.diviColumnVector(norms);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Distance distance() {
+        return distance;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Writes the distance, block size and the stored (normalized for cosine)
+     * vectors with {@link Nd4j#write(INDArray, DataOutputStream)}
+     */
+    @Override
+    public synchronized void write(DataOutputStream dos) throws IOException {
+        dos.writeUTF(distance.name());
+        dos.writeInt(blockSize);
+        dos.writeInt(dimension);
+        dos.writeInt(blocks.size());
+        for (INDArray block : blocks)
+            Nd4j.write(block, dos);
+    }
+
+    /**
+     * Read an index written with {@link #write(DataOutputStream)}
+     * @param dis the stream to read from
+     * @return the index
+     */
+    public static ExactKnnIndex read(DataInputStream dis) throws IOException {
+        ExactKnnIndex ret = new ExactKnnIndex(Distance.valueOf(dis.readUTF()), dis.readInt());
+        ret.dimension = dis.readInt();
+        int numBlocks = dis.readInt();
+        for (int i = 0; i < numBlocks; i++) {
+            INDArray block = Nd4j.read(dis);
+            ret.blocks.add(null);
+            ret.blockNorms.add(null);
+            ret.setBlock(i, block);
+            ret.size += block.rows();
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,576 @@
+package org.nd4j.linalg.knn;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate k nearest neighbours with a hierarchical navigable small world graph
+ * (Malkov and Yashunin, "Efficient and robust approximate nearest neighbor search using
+ * Hierarchical Navigable Small World graphs").
+ *
+ * Every vector is a node in a stack of proximity graphs. Higher layers hold exponentially
+ * fewer nodes, a search descends greedily from the top layer and does a best first
+ * search with a candidate list of size {@link #getEfSearch()} on the bottom layer.
+ * Nodes keep up to M links per layer (2M on the bottom one), picked with the
+ * neighbour selection heuristic from the paper.
+ *
+ * Vectors can be added at any time, the graph is built incrementally.
+ * Vectors are copied into a flat float array on insert, distances
+ * are computed in plain java, so a query costs O(efSearch * M * dimension)
+ * regardless of the size of the index.
+ * Batched queries are answered in parallel on {@link ExecutorServiceProvider#getForkJoinPool()}.
+ * Searches run concurrently with each other, inserts are serialized and block searches.
+ *
+ * Recall is tuned with efSearch (higher is more accurate and slower),
+ * {@link KnnResult#recall(KnnResult)} against {@link ExactKnnIndex} measures it.
+ */
+public class HnswIndex implements KnnIndex {
+    public final static int DEFAULT_M = 16;
+    public final static int DEFAULT_EF_CONSTRUCTION = 200;
+    public final static int DEFAULT_EF_SEARCH = 64;
+    private final static int QUERIES_PER_TASK = 16;
+
+    private final Distance distance;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final long seed;
+    private final double levelMultiplier;
+    private final Random random;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int efSearch = DEFAULT_EF_SEARCH;
+
+    private float[] vectors = new float[0];
+    //links[node][level][0] is the number of links, followed by the linked nodes
+    private int[][][] links = new int[0][][];
+    private int size = 0;
+    private int dimension = -1;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ThreadLocal<Visited> visited = new ThreadLocal<Visited>() {
+        @Override
+        protected Visited initialValue() {
+            return new Visited();
+        }
+    };
+
+    public HnswIndex(Distance distance) {
+        this(distance, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, 119);
+    }
+
+    /**
+     * @param distance the distance to use
+     * @param m the number of links per node and layer, 2m on the bottom layer
+     * @param efConstruction the size of the candidate list when inserting
+     * @param seed the seed for the random layer assignment
+     */
+    public HnswIndex(Distance distance, int m, int efConstruction, long seed) {
+        if (m < 2)
+            throw new IllegalArgumentException("M must be at least 2");
+        if (efConstruction < 1)
+            throw new IllegalArgumentException("efConstruction must be positive");
+        this.distance = distance;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.seed = seed;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void add(INDArray vectors) {
+        lock.writeLock().lock();
+        try {
+            float[] data = prepare(vectors);
+            int count = data.length / dimension;
+            ensureCapacity(size + count);
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(data, i * dimension, this.vectors, size * dimension, dimension);
+                insert(size++);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public KnnResult search(INDArray queries, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive");
+
+        lock.readLock().lock();
+        try {
+            if (size == 0)
+                throw new IllegalStateException("Index is empty");
+            float[] data = prepare(queries);
+            int numQueries = data.length / dimension;
+            int kk = Math.min(k, size);
+            int[] indices = new int[numQueries * kk];
+            double[] distances = new double[numQueries * kk];
+
+            //the read lock held by this thread keeps inserts out while the pool works on the queries
+            ExecutorServiceProvider.getForkJoinPool()
+                            .invoke(new QueryTask(data, kk, Math.max(efSearch, kk), indices, distances, 0, numQueries));
+
+            INDArray retIndices = Nd4j.create(numQueries, kk);
+            INDArray retDistances = Nd4j.create(numQueries, kk);
+            for (int i = 0; i < numQueries; i++) {
+                for (int j = 0; j < kk; j++) {
+                    retIndices.putScalar(i, j, indices[i * kk + j]);
+                    retDistances.putScalar(i, j, distances[i * kk + j]);
+                }
+            }
+            return new KnnResult(retIndices, retDistances);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Answer a single query, writing the k closest nodes found (closest first) into the outputs.
+     * Slots that can't be filled get index -1 and an infinite distance.
+     */
+    private void searchOne(float[] queries, int queryOffset, int k, int ef, int[] outIndices,
+                    double[] outDistances, int outOffset) {
+        int current = entryPoint;
+        double currentDistance = distance(queries, queryOffset, vectors, current * dimension);
+        for (int level = maxLevel; level > 0; level--) {
+            current = greedyClosest(queries, queryOffset, current, currentDistance, level);
+            currentDistance = distance(queries, queryOffset, vectors, current * dimension);
+        }
+
+        DistanceHeap results = searchLayer(queries, queryOffset, new int[] {current}, 1, ef, 0);
+        while (results.size() > k)
+            results.pop();
+
+        Arrays.fill(outIndices, outOffset, outOffset + k, -1);
+        Arrays.fill(outDistances, outOffset, outOffset + k, Double.POSITIVE_INFINITY);
+        for (int i = results.size() - 1; i >= 0; i--) {
+            outDistances[outOffset + i] = reported(results.peekDistance());
+            outIndices[outOffset + i] = results.pop();
+        }
+    }
+
+    /**
+     * Insert the node whose vector was just copied into the vector storage
+     */
+    private void insert(int node) {
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++)
+            links[node][l] = new int[(l == 0 ? maxM0 : m) + 1];
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int offset = node * dimension;
+        int current = entryPoint;
+        double currentDistance = distance(vectors, offset, vectors, current * dimension);
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vectors, offset, current, currentDistance, l);
+            currentDistance = distance(vectors, offset, vectors, current * dimension);
+        }
+
+        int[] entries = {current};
+        int numEntries = 1;
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            DistanceHeap found = searchLayer(vectors, offset, entries, numEntries, efConstruction, l);
+            int[] candidates = new int[found.size()];
+            double[] candidateDistances = new double[found.size()];
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                candidateDistances[i] = found.peekDistance();
+                candidates[i] = found.pop();
+            }
+
+            int[] nodeLinks = links[node][l];
+            nodeLinks[0] = selectNeighbors(candidates, candidateDistances, candidates.length, m, nodeLinks);
+            for (int i = 1; i <= nodeLinks[0]; i++)
+                connect(nodeLinks[i], node, l);
+
+            entries = candidates;
+            numEntries = candidates.length;
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Add a link from the given node to the new node on the given level,
+     * pruning the node's links with the selection heuristic when it has too many
+     */
+    private void connect(int node, int newNode, int level) {
+        int[] nodeLinks = links[node][level];
+        int capacity = nodeLinks.length - 1;
+        if (nodeLinks[0] < capacity) {
+            nodeLinks[++nodeLinks[0]] = newNode;
+            return;
+        }
+
+        int offset = node * dimension;
+        DistanceHeap sorted = new DistanceHeap(capacity + 1, false);
+        for (int i = 1; i <= capacity; i++)
+            sorted.push(distance(vectors, offset, vectors, nodeLinks[i] * dimension), nodeLinks[i]);
+        sorted.push(distance(vectors, offset, vectors, newNode * dimension), newNode);
+
+        int[] candidates = new int[capacity + 1];
+        double[] candidateDistances = new double[capacity + 1];
+        for (int i = 0; i < candidates.length; i++) {
+            candidateDistances[i] = sorted.peekDistance();
+            candidates[i] = sorted.pop();
+        }
+        nodeLinks[0] = selectNeighbors(candidates, candidateDistances, candidates.length, capacity, nodeLinks);
+    }
+
+    /**
+     * The neighbour selection heuristic: walking the candidates closest first, a candidate is
+     * kept only if it is closer to the base node than to every neighbour kept so far,
+     * which keeps links pointing in different directions. Remaining slots are filled
+     * with the closest discarded candidates.
+     * @param candidates candidate nodes sorted by distance to the base node
+     * @param candidateDistances the distances of the candidates to the base node
+     * @param numCandidates the number of candidates
+     * @param max the maximum number of neighbours
+     * @param out the selected neighbours are written starting at index 1
+     * @return the number of selected neighbours
+     */
+    private int selectNeighbors(int[] candidates, double[] candidateDistances, int numCandidates, int max,
+                    int[] out) {
+        if (numCandidates <= max) {
+            System.arraycopy(candidates, 0, out, 1, numCandidates);
+            return numCandidates;
+        }
+
+        int selected = 0;
+        boolean[] taken = new boolean[numCandidates];
+        for (int i = 0; i < numCandidates && selected < max; i++) {
+            int candidate = candidates[i];
+            boolean keep = true;
+            for (int j = 1; j <= selected; j++) {
+                if (distance(vectors, candidate * dimension, vectors, out[j] * dimension) < candidateDistances[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                out[++selected] = candidate;
+                taken[i] = true;
+            }
+        }
+
+        for (int i = 0; i < numCandidates && selected < max; i++) {
+            if (!taken[i])
+                out[++selected] = candidates[i];
+        }
+        return selected;
+    }
+
+    /**
+     * Greedy walk towards the query on one layer
+     * @return the closest node found
+     */
+    private int greedyClosest(float[] query, int queryOffset, int current, double currentDistance, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] nodeLinks = links[current][level];
+            for (int i = 1; i <= nodeLinks[0]; i++) {
+                double d = distance(query, queryOffset, vectors, nodeLinks[i] * dimension);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = nodeLinks[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best first search on one layer
+     * @return a furthest first heap of (at most) the ef closest nodes found
+     */
+    private DistanceHeap searchLayer(float[] query, int queryOffset, int[] entries, int numEntries, int ef,
+                    int level) {
+        Visited seen = visited.get();
+        seen.next(size);
+        DistanceHeap candidates = new DistanceHeap(ef, false);
+        DistanceHeap results = new DistanceHeap(ef + 1, true);
+
+        for (int i = 0; i < numEntries; i++) {
+            int entry = entries[i];
+            if (!seen.visit(entry))
+                continue;
+            double d = distance(query, queryOffset, vectors, entry * dimension);
+            candidates.push(d, entry);
+            results.push(d, entry);
+            if (results.size() > ef)
+                results.pop();
+        }
+
+        while (candidates.size() > 0) {
+            if (results.size() >= ef && candidates.peekDistance() > results.peekDistance())
+                break;
+            int[] nodeLinks = links[candidates.pop()][level];
+            for (int i = 1; i <= nodeLinks[0]; i++) {
+                int neighbor = nodeLinks[i];
+                if (!seen.visit(neighbor))
+                    continue;
+                double d = distance(query, queryOffset, vectors, neighbor * dimension);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(d, neighbor);
+                    results.push(d, neighbor);
+                    if (results.size() > ef)
+                        results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The distance used internally: squared for euclidean, 1 - dot product of
+     * the normalized vectors for cosine
+     */
+    private double distance(float[] x, int xOffset, float[] y, int yOffset) {
+        double sum = 0;
+        switch (distance) {
+            case EUCLIDEAN:
+                for (int i = 0; i < dimension; i++) {
+                    double d = x[xOffset + i] - y[yOffset + i];
+                    sum += d * d;
+                }
+                return sum;
+            case COSINE:
+                for (int i = 0; i < dimension; i++)
+                    sum += x[xOffset + i] * y[yOffset + i];
+                return 1.0 - sum;
+            case MANHATTAN:
+                for (int i = 0; i < dimension; i++)
+                    sum += Math.abs(x[xOffset + i] - y[yOffset + i]);
+                return sum;
+            default:
+                throw new UnsupportedOperationException("Unknown distance " + distance);
+        }
+    }
+
+    /**
+     * Map an internal distance to the one reported in results
+     */
+    private double reported(double internal) {
+        return distance == Distance.EUCLIDEAN ? Math.sqrt(internal) : internal;
+    }
+
+    /**
+     * Validate the given vectors and copy them into a flat c ordered float array,
+     * normalized to unit length for cosine distance
+     */
+    private float[] prepare(INDArray vectors) {
+        if (vectors.rank() != 2)
+            throw new IllegalArgumentException("Expected a matrix or row vector, got rank " + vectors.rank());
+        if (dimension >= 0 && vectors.columns() != dimension)
+            throw new IllegalArgumentException(
+                            "Expected vectors of length " + dimension + ", got " + vectors.columns());
+
+        INDArray rows = vectors.dup('c');
+        if (distance == Distance.COSINE)
+            ExactKnnIndex.normalizeRows(rows);
+        if (dimension < 0)
+            dimension = vectors.columns();
+        return rows.data().asFloat();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (links.length >= capacity)
+            return;
+        int newCapacity = Math.max(capacity, links.length + (links.length >> 1));
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        links = Arrays.copyOf(links, newCapacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Distance distance() {
+        return distance;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * @param efSearch the size of the candidate list when searching,
+     *                 at least k is used regardless
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1)
+            throw new IllegalArgumentException("efSearch must be positive");
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * Writes the parameters, the vectors and the graph.
+     * The random state isn't part of it: an index read back draws
+     * the layers of new vectors from a fresh generator.
+     */
+    @Override
+    public void write(DataOutputStream dos) throws IOException {
+        lock.readLock().lock();
+        try {
+            dos.writeUTF(distance.name());
+            dos.writeInt(m);
+            dos.writeInt(efConstruction);
+            dos.writeInt(efSearch);
+            dos.writeLong(seed);
+            dos.writeInt(dimension);
+            dos.writeInt(size);
+            dos.writeInt(entryPoint);
+            dos.writeInt(maxLevel);
+            for (int i = 0; i < size * dimension; i++)
+                dos.writeFloat(vectors[i]);
+            for (int node = 0; node < size; node++) {
+                dos.writeInt(links[node].length);
+                for (int[] levelLinks : links[node]) {
+                    dos.writeInt(levelLinks[0]);
+                    for (int i = 1; i <= levelLinks[0]; i++)
+                        dos.writeInt(levelLinks[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read an index written with {@link #write(DataOutputStream)}
+     * @param dis the stream to read from
+     * @return the index
+     */
+    public static HnswIndex read(DataInputStream dis) throws IOException {
+        Distance distance = Distance.valueOf(dis.readUTF());
+        int m = dis.readInt();
+        int efConstruction = dis.readInt();
+        int efSearch = dis.readInt();
+        long seed = dis.readLong();
+        int dimension = dis.readInt();
+        int size = dis.readInt();
+
+        //reseed so inserts after loading don't replay the layers of the first vectors
+        HnswIndex ret = new HnswIndex(distance, m, efConstruction, seed + size);
+        ret.efSearch = efSearch;
+        ret.dimension = dimension;
+        ret.entryPoint = dis.readInt();
+        ret.maxLevel = dis.readInt();
+        if (size > 0)
+            ret.ensureCapacity(size);
+        for (int i = 0; i < size * dimension; i++)
+            ret.vectors[i] = dis.readFloat();
+        for (int node = 0; node < size; node++) {
+            int levels = dis.readInt();
+            ret.links[node] = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int[] levelLinks = new int[(l == 0 ? ret.maxM0 : m) + 1];
+                levelLinks[0] = dis.readInt();
+                for (int i = 1; i <= levelLinks[0]; i++)
+                    levelLinks[i] = dis.readInt();
+                ret.links[node][l] = levelLinks;
+            }
+        }
+        ret.size = size;
+        return ret;
+    }
+
+    /**
+     * Visited marks for one search, reused by the thread across searches:
+     * bumping the epoch clears all marks at once
+     */
+    private static class Visited {
+        private int[] marks = new int[0];
+        private int epoch = 0;
+
+        void next(int size) {
+            if (marks.length < size)
+                marks = new int[Math.max(size, marks.length + (marks.length >> 1))];
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * @return true if the node wasn't visited yet in this search
+         */
+        boolean visit(int node) {
+            if (marks[node] == epoch)
+                return false;
+            marks[node] = epoch;
+            return true;
+        }
+    }
+
+    private class QueryTask extends RecursiveAction {
+        private final float[] queries;
+        private final int k;
+        private final int ef;
+        private final int[] indices;
+        private final double[] distances;
+        private final int start;
+        private final int end;
+
+        QueryTask(float[] queries, int k, int ef, int[] indices, double[] distances, int start, int end) {
+            this.queries = queries;
+            this.k = k;
+            this.ef = ef;
+            this.indices = indices;
+            this.distances = distances;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= QUERIES_PER_TASK) {
+                for (int q = start; q < end; q++)
+                    searchOne(queries, q * dimension, k, ef, indices, distances, q * k);
+                return;
+            }
+            int middle = start + (end - start) / 2;
+            invokeAll(new QueryTask(queries, k, ef, indices, distances, start, middle),
+                            new QueryTask(queries, k, ef, indices, distances, middle, end));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.nd4j.linalg.knn;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A k nearest neighbour index over a growing set of vectors.
+ * Vectors are identified by the order they were added in:
+ * the first row ever added is 0, the next one 1, and so on.
+ */
+public interface KnnIndex {
+
+    /**
+     * Add vectors to the index
+     * @param vectors a matrix with one vector per row (or a single row vector)
+     */
+    void add(INDArray vectors);
+
+    /**
+     * Find the k nearest neighbours of every query
+     * @param queries a matrix with one query per row (or a single row vector)
+     * @param k the number of neighbours per query
+     * @return the neighbours of each query, closest first
+     */
+    KnnResult search(INDArray queries, int k);
+
+    /**
+     * @return the number of vectors in the index
+     */
+    int size();
+
+    /**
+     * @return the length of the vectors, -1 if nothing was added yet
+     */
+    int dimension();
+
+    /**
+     * @return the distance the index is built for
+     */
+    Distance distance();
+
+    /**
+     * Write the index to the given stream
+     * @param dos the stream to write to
+     */
+    void write(DataOutputStream dos) throws IOException;
+}
@@ -0,0 +1,71 @@
+package org.nd4j.linalg.knn;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * The result of a batched nearest neighbour query.
+ * Row i holds the neighbours of query i, closest first:
+ * {@link #getIndices()} are the row indices of the neighbours in the index
+ * (in insertion order) and {@link #getDistances()} the matching distances.
+ * Both are of shape [numQueries, k], or fewer columns
+ * if the index holds less than k vectors.
+ */
+public class KnnResult {
+    private final INDArray indices;
+    private final INDArray distances;
+
+    public KnnResult(INDArray indices, INDArray distances) {
+        this.indices = indices;
+        this.distances = distances;
+    }
+
+    public INDArray getIndices() {
+        return indices;
+    }
+
+    public INDArray getDistances() {
+        return distances;
+    }
+
+    /**
+     * The neighbour indices of the given query as an int array
+     * @param query the row of the query
+     * @return the indices, closest first
+     */
+    public int[] indicesOf(int query) {
+        int[] ret = new int[indices.columns()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = indices.getInt(query, i);
+        return ret;
+    }
+
+    /**
+     * Fraction of the true nearest neighbours that were found,
+     * averaged over all queries (recall@k)
+     * @param exact the exact result for the same queries, ie from {@link ExactKnnIndex}
+     * @return the recall in [0, 1]
+     */
+    public double recall(KnnResult exact) {
+        int numQueries = indices.rows();
+        if (exact.indices.rows() != numQueries)
+            throw new IllegalArgumentException("Results are for a different number of queries: " + numQueries
+                            + " vs " + exact.indices.rows());
+        if (numQueries == 0 || exact.indices.columns() == 0)
+            return 1.0;
+
+        long found = 0;
+        for (int q = 0; q < numQueries; q++) {
+            int[] expected = exact.indicesOf(q);
+            int[] actual = indicesOf(q);
+            for (int e : expected) {
+                for (int a : actual) {
+                    if (a == e) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+        }
+        return found / (double) (numQueries * exact.indices.columns());
+    }
+}
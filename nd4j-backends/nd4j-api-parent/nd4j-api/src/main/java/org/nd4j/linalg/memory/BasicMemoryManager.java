@@ -23,6 +23,8 @@ public abstract class BasicMemoryManager implements MemoryManager {
 
     protected AtomicLong lastGcTime = new AtomicLong(System.currentTimeMillis());
 
+    protected AtomicLong gcCount = new AtomicLong(0);
+
     protected AtomicBoolean periodicEnabled = new AtomicBoolean(true);
 
     protected AtomicInteger averageLoopTime = new AtomicInteger(0);
@@ -108,6 +110,7 @@ public abstract class BasicMemoryManager implements MemoryManager {
                             && currentTime > getLastGcTime() + getAutoGcWindow()) {
                 System.gc();
                 lastGcTime.set(System.currentTimeMillis());
+                gcCount.incrementAndGet();
             }
 
         if (averagingEnabled.get())
@@ -119,6 +122,17 @@ public abstract class BasicMemoryManager implements MemoryManager {
     public void invokeGc() {
         System.gc();
         lastGcTime.set(System.currentTimeMillis());
+        gcCount.incrementAndGet();
+    }
+
+    /**
+     * This method returns number of System.gc() calls issued by this memory manager,
+     * via invokeGc() or invokeGcOccasionally()
+     *
+     * @return
+     */
+    public long getGcCount() {
+        return gcCount.get();
     }
 
     @Override
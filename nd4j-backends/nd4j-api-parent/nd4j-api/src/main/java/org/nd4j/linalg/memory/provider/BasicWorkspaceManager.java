@@ -278,6 +278,22 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
         }
     }
 
+    /**
+     * This method returns all workspaces that are still alive, for all threads
+     *
+     * @return
+     */
+    public List<MemoryWorkspace> getAllWorkspaces() {
+        List<MemoryWorkspace> workspaces = new ArrayList<>();
+        for (Nd4jWorkspace.GarbageWorkspaceReference reference : referenceMap.values()) {
+            MemoryWorkspace workspace = reference.get();
+            if (workspace != null)
+                workspaces.add(workspace);
+        }
+
+        return workspaces;
+    }
+
     /**
      * This method prints out basic statistics for workspaces allocated in current thread
      */
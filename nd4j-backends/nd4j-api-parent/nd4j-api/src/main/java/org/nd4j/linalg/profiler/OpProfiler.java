@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.*;
+import org.nd4j.linalg.profiler.data.OpHistogramAggregator;
 import org.nd4j.linalg.profiler.data.StackAggregator;
 import org.nd4j.linalg.profiler.data.StringAggregator;
 import org.nd4j.linalg.profiler.data.StringCounter;
@@ -22,6 +23,8 @@ import static org.nd4j.linalg.profiler.OpProfiler.PenaltyCause.NONE;
  * sequential ops executed on the same data
  *
  * PLEASE NOTE: This isn't thread-safe implementation.
+ * The only exception is ProfilingMode.HISTOGRAMS: it records per-thread op latency histograms only,
+ * see {@link OpHistogramAggregator}, and is cheap enough to be left on with sampling.
  *
  * @author raver119@gmail.com
  */
@@ -84,6 +87,8 @@ public class OpProfiler {
     private StackAggregator blasAggregator = new StackAggregator();
     @Getter
     private StringCounter blasOrderCounter = new StringCounter();
+    @Getter
+    private OpHistogramAggregator histogramAggregator = new OpHistogramAggregator();
 
 
     private final long THRESHOLD = 100000;
@@ -141,6 +146,7 @@ public class OpProfiler {
         blasOrderCounter.reset();
 
         orderCounter.reset();
+        histogramAggregator.reset();
         listeners.clear();
     }
 
@@ -316,6 +322,25 @@ public class OpProfiler {
         }
     }
 
+    /**
+     * This method records op latency into per-thread histograms, used by ProfilingMode.HISTOGRAMS
+     *
+     * @param op
+     * @param startTime
+     */
+    public void histogramOpCall(Op op, long startTime) {
+        histogramAggregator.record(op, System.nanoTime() - startTime);
+    }
+
+    /**
+     * This method prints out merged op latency histograms
+     */
+    public void printOutHistograms() {
+        log.info("--- Op latency histograms, sampling rate {}: ---", histogramAggregator.getSamplingRate());
+        System.out.println(histogramAggregator.asString());
+        System.out.println();
+    }
+
     /**
      * This method tracks blasCalls
      */
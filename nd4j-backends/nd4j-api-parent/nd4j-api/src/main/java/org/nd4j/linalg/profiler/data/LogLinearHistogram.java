@@ -0,0 +1,184 @@
+package org.nd4j.linalg.profiler.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size latency histogram with log-linear buckets (HdrHistogram-style):
+ * every power of 2 is split into 16 linear sub-buckets, so any recorded value
+ * is reported with relative error below 1/16. Values up to 2^40 ns are covered,
+ * anything above goes into the last bucket.
+ *
+ * Memory footprint is fixed: ~600 longs, regardless of number of recorded values.
+ *
+ * PLEASE NOTE: record() is meant to be called from single thread only, but
+ * any thread can read or merge this histogram at any time.
+ */
+public class LogLinearHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 39;
+    public static final int NUM_BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    // index 0..NUM_BUCKETS-1 are buckets, then count, total, min, max
+    private static final int COUNT = NUM_BUCKETS;
+    private static final int TOTAL = NUM_BUCKETS + 1;
+    private static final int MIN = NUM_BUCKETS + 2;
+    private static final int MAX = NUM_BUCKETS + 3;
+
+    private final AtomicLongArray values = new AtomicLongArray(NUM_BUCKETS + 4);
+
+    public LogLinearHistogram() {
+        values.set(MIN, Long.MAX_VALUE);
+    }
+
+    /**
+     * This method returns bucket index for given value
+     *
+     * @param value
+     * @return
+     */
+    public static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS)
+            return value < 0 ? 0 : (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return NUM_BUCKETS - 1;
+
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * This method returns lowest value that goes into given bucket
+     *
+     * @param index
+     * @return
+     */
+    public static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        long mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * This method returns highest value that goes into given bucket
+     *
+     * @param index
+     * @return
+     */
+    public static long bucketUpperBound(int index) {
+        if (index >= NUM_BUCKETS - 1)
+            return Long.MAX_VALUE;
+
+        return bucketLowerBound(index + 1) - 1;
+    }
+
+    /**
+     * This method records single value. Single writer only.
+     *
+     * @param value
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        // single writer: no need for CAS, lazySet keeps updates ordered for readers
+        int index = bucketIndex(value);
+        values.lazySet(index, values.get(index) + 1);
+        values.lazySet(TOTAL, values.get(TOTAL) + value);
+        if (value < values.get(MIN))
+            values.lazySet(MIN, value);
+        if (value > values.get(MAX))
+            values.lazySet(MAX, value);
+        values.lazySet(COUNT, values.get(COUNT) + 1);
+    }
+
+    /**
+     * This method adds all values from other histogram into this one. Single writer only.
+     *
+     * @param other
+     */
+    public void add(LogLinearHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long c = other.values.get(i);
+            if (c != 0)
+                values.lazySet(i, values.get(i) + c);
+        }
+        values.lazySet(TOTAL, values.get(TOTAL) + other.values.get(TOTAL));
+        values.lazySet(MIN, Math.min(values.get(MIN), other.values.get(MIN)));
+        values.lazySet(MAX, Math.max(values.get(MAX), other.values.get(MAX)));
+        values.lazySet(COUNT, values.get(COUNT) + other.values.get(COUNT));
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS + 4; i++)
+            values.lazySet(i, 0);
+        values.lazySet(MIN, Long.MAX_VALUE);
+    }
+
+    public long getCount() {
+        return values.get(COUNT);
+    }
+
+    public long getTotal() {
+        return values.get(TOTAL);
+    }
+
+    public long getMin() {
+        return getCount() == 0 ? 0 : values.get(MIN);
+    }
+
+    public long getMax() {
+        return values.get(MAX);
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0.0 : getTotal() / (double) count;
+    }
+
+    /**
+     * This method returns number of values recorded into given bucket
+     *
+     * @param index
+     * @return
+     */
+    public long getBucketCount(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * This method returns value at given percentile, as highest value of the bucket holding it
+     *
+     * @param percentile in range [0, 100]
+     * @return
+     */
+    public long getPercentile(double percentile) {
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++)
+            count += values.get(i);
+
+        if (count == 0)
+            return 0;
+
+        long threshold = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += values.get(i);
+            if (seen >= threshold)
+                return Math.min(bucketUpperBound(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d; mean: %.0f ns; p50: %d ns; p99: %d ns; p99.9: %d ns; max: %d ns",
+                        getCount(), getMean(), getPercentile(50), getPercentile(99), getPercentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,256 @@
+package org.nd4j.linalg.profiler.data;
+
+import org.nd4j.linalg.api.ops.Op;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class keeps op latencies as per-thread, per-op {@link LogLinearHistogram}s.
+ *
+ * Op classes are interned to int keys once, so recording a sample is a map lookup on Class,
+ * plus a few array writes to a histogram owned by the current thread: no strings built,
+ * no shared mutable state, no locks. Per-thread histograms are merged only when stats are read.
+ *
+ * Memory is bounded: at most maxKeys distinct ops are tracked (all others share one "other" key),
+ * and each histogram has fixed size.
+ *
+ * Sampling: only every n-th call on each thread is timed, see {@link #setSamplingRate(double)}.
+ *
+ * {@link #reset()} never writes to histograms owned by other threads: it bumps a generation counter,
+ * readers skip histograms of older generations, and every thread starts over on its next sample.
+ * Histograms of threads that died are merged into one shared set and dropped.
+ */
+public class OpHistogramAggregator {
+    public static final int DEFAULT_MAX_KEYS = 1024;
+    public static final String OTHER = "Other ops";
+
+    private final int maxKeys;
+    private final Map<Class<?>, Integer> keys = new ConcurrentHashMap<>();
+    private final List<String> names = new CopyOnWriteArrayList<>();
+    private final List<ThreadHistograms> threads = new CopyOnWriteArrayList<>();
+    // merged histograms of dead threads, guarded by this
+    private LogLinearHistogram[] retired = new LogLinearHistogram[0];
+    private volatile int generation = 0;
+    private volatile int samplingInterval = 1;
+
+    private final ThreadLocal<ThreadHistograms> local = new ThreadLocal<ThreadHistograms>() {
+        @Override
+        protected ThreadHistograms initialValue() {
+            ThreadHistograms histograms = new ThreadHistograms(Thread.currentThread(), generation);
+            synchronized (OpHistogramAggregator.this) {
+                prune();
+                threads.add(histograms);
+            }
+            return histograms;
+        }
+    };
+
+    public OpHistogramAggregator() {
+        this(DEFAULT_MAX_KEYS);
+    }
+
+    public OpHistogramAggregator(int maxKeys) {
+        if (maxKeys < 1)
+            throw new IllegalArgumentException("Number of keys should be positive");
+
+        this.maxKeys = maxKeys;
+        names.add(OTHER);
+    }
+
+    /**
+     * This method sets fraction of calls to be timed, i.e. 0.01 means every 100th call on each thread
+     *
+     * @param rate value in range (0, 1]
+     */
+    public void setSamplingRate(double rate) {
+        if (rate <= 0.0 || rate > 1.0)
+            throw new IllegalArgumentException("Sampling rate should be in range (0, 1]");
+
+        samplingInterval = (int) Math.max(1, Math.round(1.0 / rate));
+    }
+
+    public double getSamplingRate() {
+        return 1.0 / samplingInterval;
+    }
+
+    /**
+     * This method decides if current call should be timed. It's cheap enough to be called for every op.
+     *
+     * @return
+     */
+    public boolean sample() {
+        int interval = samplingInterval;
+        if (interval == 1)
+            return true;
+
+        ThreadHistograms histograms = local.get();
+        if (++histograms.calls >= interval) {
+            histograms.calls = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method records time spent in given op
+     *
+     * @param op
+     * @param nanos
+     */
+    public void record(Op op, long nanos) {
+        local.get().get(keyOf(op), generation).record(nanos);
+    }
+
+    /**
+     * This method returns merged histograms for all threads, keyed by op
+     *
+     * @return
+     */
+    public Map<String, LogLinearHistogram> getHistograms() {
+        LogLinearHistogram[] merged = new LogLinearHistogram[names.size()];
+        synchronized (this) {
+            prune();
+            merge(merged, retired);
+            int current = generation;
+            for (ThreadHistograms histograms : threads)
+                if (histograms.generation == current)
+                    merge(merged, histograms.histograms);
+        }
+
+        Map<String, LogLinearHistogram> result = new LinkedHashMap<>();
+        for (int i = 0; i < merged.length; i++)
+            if (merged[i] != null)
+                result.put(names.get(i), merged[i]);
+
+        return result;
+    }
+
+    /**
+     * This method returns merged histogram for all ops and all threads
+     *
+     * @return
+     */
+    public LogLinearHistogram getTotal() {
+        LogLinearHistogram total = new LogLinearHistogram();
+        for (LogLinearHistogram histogram : getHistograms().values())
+            total.add(histogram);
+
+        return total;
+    }
+
+    /**
+     * This method resets recorded values. Interned keys are kept.
+     * Threads drop their own histograms on their next sample, so this is safe while ops are running.
+     */
+    public synchronized void reset() {
+        generation++;
+        retired = new LogLinearHistogram[0];
+        prune();
+    }
+
+    public String asString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, LogLinearHistogram> entry : getHistograms().entrySet())
+            builder.append(String.format("%-40s %s%n", entry.getKey(), entry.getValue()));
+
+        return builder.toString();
+    }
+
+    /**
+     * Merges histograms of dead threads into {@link #retired}, and forgets those threads. Called under lock.
+     */
+    private void prune() {
+        int current = generation;
+        for (ThreadHistograms histograms : threads) {
+            if (histograms.isAlive())
+                continue;
+
+            if (histograms.generation == current) {
+                LogLinearHistogram[] array = histograms.histograms;
+                if (retired.length < array.length)
+                    retired = Arrays.copyOf(retired, array.length);
+                merge(retired, array);
+            }
+            threads.remove(histograms);
+        }
+    }
+
+    private static void merge(LogLinearHistogram[] target, LogLinearHistogram[] source) {
+        for (int i = 0; i < source.length && i < target.length; i++) {
+            if (source[i] == null || source[i].getCount() == 0)
+                continue;
+
+            if (target[i] == null)
+                target[i] = new LogLinearHistogram();
+            target[i].add(source[i]);
+        }
+    }
+
+    protected int keyOf(Op op) {
+        Integer key = keys.get(op.getClass());
+        if (key != null)
+            return key;
+
+        synchronized (this) {
+            key = keys.get(op.getClass());
+            if (key != null)
+                return key;
+
+            if (names.size() >= maxKeys) {
+                key = 0;
+            } else {
+                key = names.size();
+                names.add(op.getClass().getSimpleName() + " " + op.name());
+            }
+            keys.put(op.getClass(), key);
+            return key;
+        }
+    }
+
+    private static class ThreadHistograms {
+        private final WeakReference<Thread> owner;
+        // written by owner thread only, read by anyone
+        private volatile LogLinearHistogram[] histograms = new LogLinearHistogram[16];
+        // generation of the histograms above, written by owner thread only
+        private volatile int generation;
+        private int calls;
+
+        private ThreadHistograms(Thread owner, int generation) {
+            this.owner = new WeakReference<>(owner);
+            this.generation = generation;
+        }
+
+        private boolean isAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        private LogLinearHistogram get(int key, int current) {
+            if (generation != current) {
+                // reset() happened: start over, instead of clearing histograms readers may be merging
+                histograms = new LogLinearHistogram[histograms.length];
+                generation = current;
+            }
+
+            LogLinearHistogram[] array = histograms;
+            if (key >= array.length) {
+                array = Arrays.copyOf(array, Math.max(key + 1, array.length * 2));
+                histograms = array;
+            }
+
+            if (array[key] == null) {
+                array[key] = new LogLinearHistogram();
+                // republish, so readers see new histogram
+                histograms = array;
+            }
+
+            return array[key];
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package org.nd4j.linalg.util;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Primitive argsort and top k selection.
+ *
+ * Everything here works on primitive double/int arrays:
+ * no boxing and no {@link java.util.Comparator}.
+ * Ties are broken by index (the lower index comes first unless asked otherwise),
+ * so the results are deterministic and an ascending argsort is stable.
+ * NaN is treated as larger than any other value, same as {@link Double#compare(double, double)}.
+ *
+ * The {@link INDArray} variants work on the vectors along a dimension
+ * and process the vectors in parallel on {@link ExecutorServiceProvider#getForkJoinPool()}.
+ * Top k over a single long vector (think scoring 1M items) is split into chunks
+ * that are selected in parallel and then merged.
+ * Top k is a partial selection with a bounded heap (O(n log k)), not a full sort.
+ */
+public class Sorting {
+    private static final int ELEMENTS_PER_TASK = 16384;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private Sorting() {}
+
+    /**
+     * Argsort of the given values
+     * @param values the values to sort, left untouched
+     * @param ascending true for smallest first, false for largest first
+     * @return the indices of the values in sorted order
+     */
+    public static int[] argsort(double[] values, boolean ascending) {
+        int[] indices = new int[values.length];
+        argsort(values, indices, ascending);
+        return indices;
+    }
+
+    /**
+     * Argsort of the given values into a preallocated index array
+     * @param values the values to sort, left untouched
+     * @param indices the result, has to be the same length as the values
+     * @param ascending true for smallest first, false for largest first
+     */
+    public static void argsort(double[] values, int[] indices, boolean ascending) {
+        if (indices.length != values.length)
+            throw new IllegalArgumentException("Indices length " + indices.length + " != values length "
+                            + values.length);
+        argsort(values, indices, ascending, true);
+    }
+
+    private static void argsort(double[] values, int[] indices, boolean ascending, boolean lowerIndexFirst) {
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = i;
+        sort(values, indices, 0, indices.length - 1, ascending, lowerIndexFirst);
+    }
+
+    /**
+     * Indices of the k largest (or smallest) values, best first
+     * @param values the values to select from
+     * @param k the number of values to select
+     * @param largest true to select the largest values, false for the smallest
+     * @return the indices of the selected values, min(k, values.length) long
+     */
+    public static int[] topK(double[] values, int k, boolean largest) {
+        int n = Math.min(k, values.length);
+        int[] indices = new int[n];
+        topK(values, k, largest, indices, new double[n]);
+        return indices;
+    }
+
+    /**
+     * Select the k largest (or smallest) values, best first,
+     * into preallocated arrays. Long inputs are split up and selected in parallel.
+     * @param values the values to select from
+     * @param k the number of values to select
+     * @param largest true to select the largest values, false for the smallest
+     * @param outIndices the indices of the selected values, at least min(k, values.length) long
+     * @param outValues the selected values, at least min(k, values.length) long
+     * @return the number of selected values: min(k, values.length)
+     */
+    public static int topK(double[] values, int k, boolean largest, int[] outIndices, double[] outValues) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive, got " + k);
+
+        if (values.length <= 2 * ELEMENTS_PER_TASK || values.length <= 4 * k)
+            return select(values, 0, values.length, k, largest, outIndices, outValues);
+
+        // every chunk selects its own top k, the candidates are merged at the end
+        int numChunks = Math.max(2, values.length / Math.max(ELEMENTS_PER_TASK, 4 * k));
+        int[] candidateIndices = new int[numChunks * k];
+        double[] candidateValues = new double[numChunks * k];
+        int[] counts = new int[numChunks];
+        ExecutorServiceProvider.getForkJoinPool().invoke(new ChunkSelectTask(values, k, largest, numChunks, 0,
+                        numChunks, candidateIndices, candidateValues, counts));
+
+        // compact the candidates, the indices still point into the original values
+        int numCandidates = 0;
+        for (int c = 0; c < numChunks; c++) {
+            System.arraycopy(candidateIndices, c * k, candidateIndices, numCandidates, counts[c]);
+            System.arraycopy(candidateValues, c * k, candidateValues, numCandidates, counts[c]);
+            numCandidates += counts[c];
+        }
+
+        Heap heap = new Heap(k, largest);
+        for (int i = 0; i < numCandidates; i++)
+            heap.offer(candidateValues[i], candidateIndices[i]);
+        return heap.drain(outIndices, outValues);
+    }
+
+    /**
+     * Sorted copy of the array along the given dimension, with the originating indices
+     * @param arr the array to sort, left untouched
+     * @param dimension the dimension to sort along
+     * @param ascending true for smallest first, false for largest first
+     * @return the indices (as floating point values, same as {@link Nd4j#sortWithIndices(INDArray, int, boolean)})
+     * and the sorted values
+     */
+    public static INDArray[] argsort(INDArray arr, int dimension, boolean ascending) {
+        INDArray indices = Nd4j.create(arr.shape());
+        INDArray values = Nd4j.create(arr.shape());
+        argsort(arr, dimension, ascending, indices, values);
+        return new INDArray[] {indices, values};
+    }
+
+    /**
+     * Argsort along the given dimension into preallocated arrays.
+     * The input may be one of the outputs (sorting in place).
+     * @param arr the array to sort
+     * @param dimension the dimension to sort along
+     * @param ascending true for smallest first, false for largest first
+     * @param indices the indices of the sorted values, same shape as the input (may be null)
+     * @param values the sorted values, same shape as the input (may be null)
+     */
+    public static void argsort(INDArray arr, int dimension, boolean ascending, INDArray indices, INDArray values) {
+        argsort(arr, dimension, ascending, true, indices, values);
+    }
+
+    /**
+     * Argsort along the given dimension into preallocated arrays,
+     * with the given order for equal values.
+     * The input may be one of the outputs (sorting in place).
+     * @param arr the array to sort
+     * @param dimension the dimension to sort along
+     * @param ascending true for smallest first, false for largest first
+     * @param lowerIndexFirst true to order equal values lowest index first, false for highest index first
+     *                        (a descending sort is then the exact reverse of the ascending one)
+     * @param indices the indices of the sorted values, same shape as the input (may be null)
+     * @param values the sorted values, same shape as the input (may be null)
+     */
+    public static void argsort(INDArray arr, int dimension, boolean ascending, boolean lowerIndexFirst,
+                    INDArray indices, INDArray values) {
+        dimension = normalize(arr, dimension);
+        checkShape(arr, dimension, arr.size(dimension), indices, values);
+        run(arr, dimension, -1, ascending, lowerIndexFirst, indices, values);
+    }
+
+    /**
+     * The k largest values along the given dimension, largest first
+     * @param arr the array to select from
+     * @param k the number of values to select
+     * @param dimension the dimension to select along
+     * @return the indices (as floating point values) and the values, both
+     * with the shape of the input except for k along the given dimension
+     */
+    public static INDArray[] topK(INDArray arr, int k, int dimension) {
+        return topK(arr, k, dimension, true);
+    }
+
+    /**
+     * The k largest (or smallest) values along the given dimension, best first
+     * @param arr the array to select from
+     * @param k the number of values to select
+     * @param dimension the dimension to select along
+     * @param largest true to select the largest values, false for the smallest
+     * @return the indices (as floating point values) and the values, both
+     * with the shape of the input except for min(k, size) along the given dimension
+     */
+    public static INDArray[] topK(INDArray arr, int k, int dimension, boolean largest) {
+        dimension = normalize(arr, dimension);
+        int[] shape = ArrayUtil.copy(arr.shape());
+        shape[dimension] = Math.min(k, shape[dimension]);
+        INDArray indices = Nd4j.create(shape);
+        INDArray values = Nd4j.create(shape);
+        topK(arr, k, dimension, largest, indices, values);
+        return new INDArray[] {indices, values};
+    }
+
+    /**
+     * Top k along the given dimension into preallocated arrays
+     * @param arr the array to select from
+     * @param k the number of values to select
+     * @param dimension the dimension to select along
+     * @param largest true to select the largest values, false for the smallest
+     * @param indices the indices of the selected values: shape of the input except
+     *                for min(k, size) along the given dimension (may be null)
+     * @param values the selected values, same shape as the indices (may be null)
+     */
+    public static void topK(INDArray arr, int k, int dimension, boolean largest, INDArray indices,
+                    INDArray values) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive, got " + k);
+        dimension = normalize(arr, dimension);
+        checkShape(arr, dimension, Math.min(k, arr.size(dimension)), indices, values);
+        run(arr, dimension, k, largest, true, indices, values);
+    }
+
+    private static void run(INDArray arr, int dimension, int k, boolean ascendingOrLargest,
+                    boolean lowerIndexFirst, INDArray indices, INDArray values) {
+        Nd4j.getCompressor().autoDecompress(arr);
+        int numTads = arr.tensorssAlongDimension(dimension);
+        int tadLength = arr.size(dimension);
+
+        if (numTads == 1) {
+            // a single vector: parallelize within the vector instead
+            new TadTask(arr, dimension, k, ascendingOrLargest, lowerIndexFirst, indices, values, 0, 1, 1)
+                            .compute();
+            return;
+        }
+
+        TadTask task = new TadTask(arr, dimension, k, ascendingOrLargest, lowerIndexFirst, indices, values, 0,
+                        numTads, Math.max(1, ELEMENTS_PER_TASK / Math.max(1, tadLength)));
+        if ((long) numTads * tadLength <= ELEMENTS_PER_TASK)
+            task.compute();
+        else
+            ExecutorServiceProvider.getForkJoinPool().invoke(task);
+    }
+
+    private static int normalize(INDArray arr, int dimension) {
+        if (dimension < 0)
+            dimension += arr.rank();
+        if (dimension < 0 || dimension >= arr.rank())
+            throw new IllegalArgumentException("Invalid dimension " + dimension + " for array of rank " + arr.rank());
+        return dimension;
+    }
+
+    private static void checkShape(INDArray arr, int dimension, int size, INDArray... outputs) {
+        int[] shape = ArrayUtil.copy(arr.shape());
+        shape[dimension] = size;
+        for (INDArray out : outputs) {
+            if (out != null && !Arrays.equals(shape, out.shape()))
+                throw new IllegalArgumentException("Output array has shape " + Arrays.toString(out.shape())
+                                + ", expected " + Arrays.toString(shape));
+        }
+    }
+
+    /**
+     * Sorts (or selects from) a range of vectors along a dimension
+     */
+    private static class TadTask extends RecursiveAction {
+        private final INDArray arr;
+        private final int dimension;
+        private final int k;
+        private final boolean ascendingOrLargest;
+        private final boolean lowerIndexFirst;
+        private final INDArray indices;
+        private final INDArray values;
+        private final int start;
+        private final int end;
+        private final long tadsPerTask;
+
+        private TadTask(INDArray arr, int dimension, int k, boolean ascendingOrLargest, boolean lowerIndexFirst,
+                        INDArray indices, INDArray values, int start, int end, long tadsPerTask) {
+            this.arr = arr;
+            this.dimension = dimension;
+            this.k = k;
+            this.ascendingOrLargest = ascendingOrLargest;
+            this.lowerIndexFirst = lowerIndexFirst;
+            this.indices = indices;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+            this.tadsPerTask = tadsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > tadsPerTask) {
+                int middle = start + (end - start) / 2;
+                invokeAll(new TadTask(arr, dimension, k, ascendingOrLargest, lowerIndexFirst, indices, values,
+                                start, middle, tadsPerTask),
+                                new TadTask(arr, dimension, k, ascendingOrLargest, lowerIndexFirst, indices,
+                                                values, middle, end, tadsPerTask));
+                return;
+            }
+
+            int length = arr.size(dimension);
+            double[] data = new double[length];
+            int n = k < 0 ? length : Math.min(k, length);
+            int[] outIndices = new int[k < 0 ? length : n];
+            double[] outValues = new double[outIndices.length];
+
+            for (int i = start; i < end; i++) {
+                INDArray tad = arr.tensorAlongDimension(i, dimension);
+                read(tad, data);
+
+                if (k < 0) {
+                    argsort(data, outIndices, ascendingOrLargest, lowerIndexFirst);
+                    for (int j = 0; j < length; j++)
+                        outValues[j] = data[outIndices[j]];
+                } else {
+                    Sorting.topK(data, k, ascendingOrLargest, outIndices, outValues);
+                }
+
+                // the input may be one of the outputs, it was copied out above
+                if (indices != null)
+                    write(indices.tensorAlongDimension(i, dimension), outIndices, null, n);
+                if (values != null)
+                    write(values.tensorAlongDimension(i, dimension), null, outValues, n);
+            }
+        }
+
+        private static void read(INDArray tad, double[] data) {
+            NdIndexCursor cursor = new NdIndexCursor(tad);
+            DataBuffer buffer = tad.data();
+            int j = 0;
+            while (cursor.advance())
+                data[j++] = buffer.getDouble(cursor.offset());
+        }
+
+        private static void write(INDArray tad, int[] ints, double[] doubles, int n) {
+            NdIndexCursor cursor = new NdIndexCursor(tad);
+            DataBuffer buffer = tad.data();
+            int j = 0;
+            while (cursor.advance() && j < n) {
+                buffer.put(cursor.offset(), ints != null ? ints[j] : doubles[j]);
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Selects the top k of a range of chunks of one long vector
+     */
+    private static class ChunkSelectTask extends RecursiveAction {
+        private final double[] values;
+        private final int k;
+        private final boolean largest;
+        private final int numChunks;
+        private final int start;
+        private final int end;
+        private final int[] candidateIndices;
+        private final double[] candidateValues;
+        private final int[] counts;
+
+        private ChunkSelectTask(double[] values, int k, boolean largest, int numChunks, int start, int end,
+                        int[] candidateIndices, double[] candidateValues, int[] counts) {
+            this.values = values;
+            this.k = k;
+            this.largest = largest;
+            this.numChunks = numChunks;
+            this.start = start;
+            this.end = end;
+            this.candidateIndices = candidateIndices;
+            this.candidateValues = candidateValues;
+            this.counts = counts;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = start + (end - start) / 2;
+                invokeAll(new ChunkSelectTask(values, k, largest, numChunks, start, middle, candidateIndices,
+                                candidateValues, counts),
+                                new ChunkSelectTask(values, k, largest, numChunks, middle, end, candidateIndices,
+                                                candidateValues, counts));
+                return;
+            }
+
+            long from = (long) values.length * start / numChunks;
+            long to = (long) values.length * (start + 1) / numChunks;
+            Heap heap = new Heap(k, largest);
+            for (int i = (int) from; i < to; i++)
+                heap.offer(values[i], i);
+            counts[start] = heap.drainTo(candidateIndices, candidateValues, start * k);
+        }
+    }
+
+    private static int select(double[] values, int from, int to, int k, boolean largest, int[] outIndices,
+                    double[] outValues) {
+        Heap heap = new Heap(Math.min(k, to - from), largest);
+        for (int i = from; i < to; i++)
+            heap.offer(values[i], i);
+        return heap.drain(outIndices, outValues);
+    }
+
+    /**
+     * A bounded binary heap keeping the best k (value, index) pairs seen so far,
+     * with the worst of them at the root
+     */
+    private static class Heap {
+        private final int capacity;
+        private final boolean largest;
+        private final double[] values;
+        private final int[] indices;
+        private int size;
+
+        private Heap(int capacity, boolean largest) {
+            this.capacity = capacity;
+            this.largest = largest;
+            this.values = new double[capacity];
+            this.indices = new int[capacity];
+        }
+
+        /**
+         * Returns true if (v1, i1) ranks before (v2, i2)
+         */
+        private boolean better(double v1, int i1, double v2, int i2) {
+            int c = Double.compare(v1, v2);
+            if (c == 0)
+                return i1 < i2;
+            return largest ? c > 0 : c < 0;
+        }
+
+        private void offer(double value, int index) {
+            if (size < capacity) {
+                // sift up: the root stays the worst
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!better(values[parent], indices[parent], value, index))
+                        break;
+                    values[i] = values[parent];
+                    indices[i] = indices[parent];
+                    i = parent;
+                }
+                values[i] = value;
+                indices[i] = index;
+            } else if (better(value, index, values[0], indices[0])) {
+                siftDown(value, index);
+            }
+        }
+
+        /**
+         * Replace the root and sift it down
+         */
+        private void siftDown(double value, int index) {
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && better(values[child], indices[child], values[right], indices[right]))
+                    child = right;
+                if (!better(value, index, values[child], indices[child]))
+                    break;
+                values[i] = values[child];
+                indices[i] = indices[child];
+                i = child;
+            }
+            values[i] = value;
+            indices[i] = index;
+        }
+
+        /**
+         * Empty the heap into the given arrays, best first
+         */
+        private int drain(int[] outIndices, double[] outValues) {
+            return drainTo(outIndices, outValues, 0);
+        }
+
+        private int drainTo(int[] outIndices, double[] outValues, int offset) {
+            int n = size;
+            // popping the worst repeatedly fills the result back to front
+            for (int j = n - 1; j >= 0; j--) {
+                outIndices[offset + j] = indices[0];
+                outValues[offset + j] = values[0];
+                size--;
+                if (size > 0)
+                    siftDown(values[size], indices[size]);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Quicksort of the index range [lo, hi] by the values the indices point to
+     */
+    private static void sort(double[] values, int[] indices, int lo, int hi, boolean ascending,
+                    boolean lowerIndexFirst) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            // median of three as pivot
+            int mid = (lo + hi) >>> 1;
+            if (less(values, indices[mid], indices[lo], ascending, lowerIndexFirst))
+                swap(indices, lo, mid);
+            if (less(values, indices[hi], indices[lo], ascending, lowerIndexFirst))
+                swap(indices, lo, hi);
+            if (less(values, indices[hi], indices[mid], ascending, lowerIndexFirst))
+                swap(indices, mid, hi);
+            int pivot = indices[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (less(values, indices[i], pivot, ascending, lowerIndexFirst))
+                    i++;
+                while (less(values, pivot, indices[j], ascending, lowerIndexFirst))
+                    j--;
+                if (i <= j) {
+                    swap(indices, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            // recurse into the smaller half, loop on the larger one
+            if (j - lo < hi - i) {
+                sort(values, indices, lo, j, ascending, lowerIndexFirst);
+                lo = i;
+            } else {
+                sort(values, indices, i, hi, ascending, lowerIndexFirst);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            int index = indices[i];
+            int j = i - 1;
+            while (j >= lo && less(values, index, indices[j], ascending, lowerIndexFirst)) {
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            indices[j + 1] = index;
+        }
+    }
+
+    /**
+     * Returns true if the value at index i1 ranks before the value at index i2
+     */
+    private static boolean less(double[] values, int i1, int i2, boolean ascending, boolean lowerIndexFirst) {
+        int c = Double.compare(values[i1], values[i2]);
+        if (c == 0)
+            return lowerIndexFirst ? i1 < i2 : i1 > i2;
+        return ascending ? c < 0 : c > 0;
+    }
+
+    private static void swap(int[] indices, int i, int j) {
+        int tmp = indices[i];
+        indices[i] = indices[j];
+        indices[j] = tmp;
+    }
+}
@@ -0,0 +1,515 @@
+package org.nd4j.serde.csv;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel reader and writer for matrices stored as delimited text
+ * (csv, tsv, the output of numpy.savetxt), one row per line.
+ *
+ * The reader memory maps the file and splits it into line aligned chunks
+ * that are processed in parallel on {@link ExecutorServiceProvider#getExecutorService()}:
+ * a first pass counts the rows of every chunk, then the result matrix is allocated once
+ * and every chunk parses its numbers straight from the mapped bytes into the matrix'
+ * {@link DataBuffer}, without creating a String per line or per number.
+ * Numbers with at most 18 significant digits and a small exponent are converted exactly
+ * with a single multiplication or division, everything else (NaN, Infinity, long mantissas)
+ * falls back to {@link Double#parseDouble(String)}.
+ *
+ * Blank lines are skipped. If the delimiter is a space or a tab, any run of
+ * spaces and tabs separates two values, otherwise spaces around values are ignored.
+ *
+ * The writer formats blocks of rows in parallel and writes them out in order.
+ */
+public class CsvSerde {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    //a single mapping can't exceed 2GB
+    private static final int MAX_CHUNK_BYTES = 1 << 28;
+    private static final int SCAN_BYTES = 1 << 16;
+    private static final int WRITE_BLOCK_ELEMENTS = 1 << 16;
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+    }
+
+    private CsvSerde() {}
+
+    /**
+     * Read a matrix from a delimited text file
+     * @param file the file to read
+     * @param delimiter the delimiter between values
+     * @return the matrix, with the current default data type
+     * @throws IOException
+     */
+    public static INDArray read(File file, char delimiter) throws IOException {
+        return read(file, delimiter, 0);
+    }
+
+    /**
+     * Read a matrix from a delimited text file
+     * @param file the file to read
+     * @param delimiter the delimiter between values
+     * @param skipLines the number of lines to skip at the start of the file (ie a header)
+     * @return the matrix, with the current default data type
+     * @throws IOException
+     */
+    public static INDArray read(File file, char delimiter, int skipLines) throws IOException {
+        if (delimiter > 127)
+            throw new IllegalArgumentException("Only ascii delimiters are supported");
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            long start = 0;
+            for (int i = 0; i < skipLines && start < size; i++)
+                start = nextLineStart(channel, start + 1, size);
+
+            List<Long> bounds = chunkBounds(channel, start, size);
+            final List<Chunk> chunks = new ArrayList<>();
+            for (int i = 0; i < bounds.size() - 1; i++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds.get(i),
+                                bounds.get(i + 1) - bounds.get(i));
+                chunks.add(new Chunk(buffer, (byte) delimiter));
+            }
+
+            ExecutorService executor = ExecutorServiceProvider.getExecutorService();
+            List<Callable<Void>> count = new ArrayList<>();
+            for (final Chunk chunk : chunks) {
+                count.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        chunk.count();
+                        return null;
+                    }
+                });
+            }
+            invokeAll(executor, count);
+
+            long rows = 0;
+            int columns = -1;
+            for (Chunk chunk : chunks) {
+                chunk.firstRow = rows;
+                rows += chunk.rows;
+                if (columns < 0 && chunk.rows > 0)
+                    columns = chunk.columns;
+            }
+            if (rows == 0)
+                throw new IllegalStateException("No data found in " + file);
+            if (rows * columns > Integer.MAX_VALUE)
+                throw new IllegalStateException("Too many values in " + file + ": " + rows + " x " + columns);
+
+            INDArray ret = Nd4j.createUninitialized(new int[] {(int) rows, columns}, 'c');
+            final DataBuffer data = ret.data();
+            final long offset = ret.offset();
+            final int numColumns = columns;
+            List<Callable<Void>> parse = new ArrayList<>();
+            for (final Chunk chunk : chunks) {
+                parse.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        chunk.parse(data, offset, numColumns);
+                        return null;
+                    }
+                });
+            }
+            invokeAll(executor, parse);
+            return ret;
+        }
+    }
+
+    /**
+     * Write a matrix (or vector, as a single row) as delimited text,
+     * using the shortest representation that reads back to the same value
+     * @param arr the array to write
+     * @param file the file to write to
+     * @param delimiter the delimiter between values
+     * @throws IOException
+     */
+    public static void write(INDArray arr, File file, char delimiter) throws IOException {
+        write(arr, file, delimiter, -1);
+    }
+
+    /**
+     * Write a matrix (or vector, as a single row) as delimited text
+     * @param arr the array to write
+     * @param file the file to write to
+     * @param delimiter the delimiter between values
+     * @param precision the number of digits after the decimal point,
+     *                  negative for the shortest representation that reads back to the same value
+     * @throws IOException
+     */
+    public static void write(INDArray arr, File file, final char delimiter, final int precision)
+                    throws IOException {
+        if (arr.rank() > 2)
+            throw new IllegalArgumentException("Only vectors and matrices can be written, got rank " + arr.rank());
+        Nd4j.getCompressor().autoDecompress(arr);
+        final INDArray matrix = arr.rank() == 2 ? arr : arr.reshape(1, arr.length());
+        final boolean isFloat = arr.data().dataType() != DataBuffer.Type.DOUBLE;
+        int rows = matrix.rows();
+        int rowsPerBlock = Math.max(1, WRITE_BLOCK_ELEMENTS / Math.max(1, matrix.columns()));
+        //bound the number of formatted blocks held in memory
+        int window = 2 * Runtime.getRuntime().availableProcessors();
+
+        ExecutorService executor = ExecutorServiceProvider.getExecutorService();
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file), SCAN_BYTES)) {
+            for (int start = 0; start < rows; start += rowsPerBlock) {
+                final INDArray block = matrix.get(NDArrayIndex.interval(start, Math.min(rows, start + rowsPerBlock)),
+                                NDArrayIndex.all());
+                pending.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() {
+                        return format(block, delimiter, precision, isFloat);
+                    }
+                }));
+                if (pending.size() >= window)
+                    os.write(get(pending.poll()));
+            }
+            while (!pending.isEmpty())
+                os.write(get(pending.poll()));
+        } finally {
+            for (Future<byte[]> future : pending)
+                future.cancel(true);
+        }
+    }
+
+    private static byte[] format(INDArray block, char delimiter, int precision, boolean isFloat) {
+        int columns = block.columns();
+        StringBuilder sb = new StringBuilder(block.length() * 12);
+        DataBuffer data = block.data();
+        NdIndexCursor cursor = new NdIndexCursor(block);
+        int column = 0;
+        while (cursor.advance()) {
+            double value = data.getDouble(cursor.offset());
+            if (precision >= 0)
+                appendFixed(sb, value, precision);
+            else if (isFloat)
+                sb.append((float) value);
+            else
+                sb.append(value);
+
+            if (++column == columns) {
+                sb.append('\n');
+                column = 0;
+            } else {
+                sb.append(delimiter);
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Append the value with a fixed number of digits after the decimal point (rounding half up)
+     */
+    static void appendFixed(StringBuilder sb, double value, int precision) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append(value);
+            return;
+        }
+        double scaled = Math.abs(value) * (precision < POWERS_OF_TEN.length ? POWERS_OF_TEN[precision] : 0);
+        if (precision >= POWERS_OF_TEN.length || scaled >= 1e15) {
+            sb.append(new BigDecimal(value).setScale(precision, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+
+        long rounded = Math.round(scaled);
+        long pow = (long) POWERS_OF_TEN[precision];
+        if (value < 0 && rounded != 0)
+            sb.append('-');
+        sb.append(rounded / pow);
+        if (precision > 0) {
+            sb.append('.');
+            String fraction = Long.toString(rounded % pow);
+            for (int i = fraction.length(); i < precision; i++)
+                sb.append('0');
+            sb.append(fraction);
+        }
+    }
+
+    /**
+     * Split [start, size) into chunks of roughly equal size, every chunk starting at the beginning of a line
+     */
+    private static List<Long> chunkBounds(FileChannel channel, long start, long size) throws IOException {
+        long length = size - start;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long numChunks = Math.max(1, Math.min(length / MIN_CHUNK_BYTES, 4L * threads));
+        numChunks = Math.max(numChunks, (length + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long target = Math.max(1, length / numChunks);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        long previous = start;
+        while (previous < size) {
+            long next = size - previous <= target ? size : nextLineStart(channel, previous + target, size);
+            if (next - previous > Integer.MAX_VALUE)
+                throw new IllegalStateException("Line too long at offset " + previous);
+            bounds.add(next);
+            previous = next;
+        }
+        return bounds;
+    }
+
+    /**
+     * The first position at or after the given one that starts a line
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        //position - 1 is the end of the previous line if it's a newline
+        long read = position - 1;
+        while (read < size) {
+            buffer.clear();
+            int n = channel.read(buffer, read);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n')
+                    return read + i + 1;
+            }
+            read += n;
+        }
+        return size;
+    }
+
+    private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static byte[] get(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * A line aligned part of the file
+     */
+    private static class Chunk {
+        private final ByteBuffer buffer;
+        private final byte delimiter;
+        private final boolean whitespaceDelimiter;
+        private long rows;
+        private int columns = -1;
+        private long firstRow;
+
+        Chunk(ByteBuffer buffer, byte delimiter) {
+            this.buffer = buffer;
+            this.delimiter = delimiter;
+            this.whitespaceDelimiter = delimiter == ' ' || delimiter == '\t';
+        }
+
+        /**
+         * Count the non blank lines, and the values of the first one
+         */
+        void count() {
+            int limit = buffer.limit();
+            int lineStart = 0;
+            boolean blank = true;
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    lineEnd(lineStart, i, blank);
+                    lineStart = i + 1;
+                    blank = true;
+                } else if (blank && !isBlank(b)) {
+                    blank = false;
+                }
+            }
+            if (lineStart < limit)
+                lineEnd(lineStart, limit, blank);
+        }
+
+        private void lineEnd(int start, int end, boolean blank) {
+            if (blank)
+                return;
+            if (rows++ == 0)
+                columns = parseLine(start, end, null, 0, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Parse all lines into the given buffer
+         */
+        void parse(DataBuffer data, long offset, int numColumns) {
+            int limit = buffer.limit();
+            long row = firstRow;
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                boolean blank = true;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    if (blank && !isBlank(buffer.get(lineEnd)))
+                        blank = false;
+                    lineEnd++;
+                }
+                if (!blank) {
+                    int found = parseLine(lineStart, lineEnd, data, offset + row * numColumns, numColumns);
+                    if (found != numColumns)
+                        throw new IllegalStateException("Row " + row + " has " + found + " values, expected "
+                                        + numColumns);
+                    row++;
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        /**
+         * Parse the values of one (non blank) line
+         * @param data the buffer to put the values in, null to only count them
+         * @return the number of values on the line
+         */
+        private int parseLine(int start, int end, DataBuffer data, long offset, int maxValues) {
+            while (end > start && isBlank(buffer.get(end - 1)))
+                end--;
+            int position = start;
+            while (position < end && isBlank(buffer.get(position)))
+                position++;
+
+            int count = 0;
+            while (true) {
+                int fieldEnd = position;
+                if (whitespaceDelimiter) {
+                    while (fieldEnd < end && !isBlank(buffer.get(fieldEnd)))
+                        fieldEnd++;
+                } else {
+                    while (fieldEnd < end && buffer.get(fieldEnd) != delimiter)
+                        fieldEnd++;
+                }
+
+                if (data != null) {
+                    if (count >= maxValues)
+                        return count + 1;
+                    int valueEnd = fieldEnd;
+                    while (valueEnd > position && isBlank(buffer.get(valueEnd - 1)))
+                        valueEnd--;
+                    data.put(offset + count, parseDouble(buffer, position, valueEnd));
+                }
+                count++;
+
+                if (fieldEnd >= end)
+                    return count;
+                position = fieldEnd + 1;
+                while (position < end && isBlank(buffer.get(position)))
+                    position++;
+            }
+        }
+    }
+
+    /**
+     * Parse a number from the bytes in [start, end)
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+            negative = buffer.get(position++) == '-';
+
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean exact = true;
+        byte b;
+        while (position < end && (b = buffer.get(position)) >= '0' && b <= '9') {
+            if (significant < MAX_FAST_DIGITS) {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0)
+                    significant++;
+            } else {
+                exponent++;
+                exact &= b == '0';
+            }
+            digits = true;
+            position++;
+        }
+        if (position < end && buffer.get(position) == '.') {
+            position++;
+            while (position < end && (b = buffer.get(position)) >= '0' && b <= '9') {
+                if (significant < MAX_FAST_DIGITS) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0)
+                        significant++;
+                    exponent--;
+                } else {
+                    exact &= b == '0';
+                }
+                digits = true;
+                position++;
+            }
+        }
+        if (digits && position < end && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+                negativeExponent = buffer.get(position++) == '-';
+            int value = 0;
+            boolean exponentDigits = false;
+            while (position < end && (b = buffer.get(position)) >= '0' && b <= '9') {
+                value = Math.min(value * 10 + (b - '0'), 100000);
+                exponentDigits = true;
+                position++;
+            }
+            digits = exponentDigits;
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (digits && exact && position == end && mantissa < (1L << 53) && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+
+        //NaN, Infinity, too many digits, or garbage (which throws)
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(start + i);
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+}
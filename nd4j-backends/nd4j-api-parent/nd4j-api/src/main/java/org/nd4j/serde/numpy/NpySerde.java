@@ -0,0 +1,437 @@
+package org.nd4j.serde.numpy;
+
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pure java reader and writer for the numpy .npy format
+ * (see numpy.lib.format), no native code involved.
+ *
+ * Arrays are written as float32 ('f4'), float64 ('f8') or int32 ('i4') in native byte order,
+ * c or fortran ordered depending on the array, straight from the data buffer's memory.
+ * Reading converts any float or (signed) int type in either byte order to the
+ * current default data type. Since nd4j has no rank 0 or 1 arrays,
+ * numpy scalars are read as [1, 1] and vectors of shape (n,) as [1, n] row vectors.
+ *
+ * {@link #mmap(File)} is the equivalent of numpy.load(mmap_mode='c'):
+ * the data region of the file is mapped and wrapped as a {@link DataBuffer} without copying,
+ * pages are loaded lazily by the operating system. The mapping is copy on write, so the file itself
+ * is never modified, even by in place ops on the array.
+ */
+public class NpySerde {
+    private static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    private static final int ALIGNMENT = 64;
+    private static final int CHUNK_BYTES = 1 << 16;
+    private static final Pattern DESCR = Pattern.compile("'descr'\\s*:\\s*'([^']*)'");
+    private static final Pattern FORTRAN_ORDER = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+    private static final Pattern SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+
+    private NpySerde() {}
+
+    /**
+     * Write the array as .npy
+     * @param arr the array to write
+     * @param file the file to write to
+     * @throws IOException
+     */
+    public static void write(INDArray arr, File file) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            write(arr, fos);
+        }
+    }
+
+    /**
+     * Write the array as .npy. The stream is not closed.
+     * @param arr the array to write
+     * @param os the stream to write to
+     * @throws IOException
+     */
+    public static void write(INDArray arr, OutputStream os) throws IOException {
+        Nd4j.getCompressor().autoDecompress(arr);
+        DataBuffer.Type type = arr.data().dataType();
+        if (type != DataBuffer.Type.FLOAT && type != DataBuffer.Type.DOUBLE && type != DataBuffer.Type.INT)
+            throw new UnsupportedOperationException("Unable to write arrays of type " + type + " as npy");
+        if (arr.isView() && !isDense(arr))
+            arr = arr.dup(arr.ordering());
+        Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+
+        boolean fortran = arr.ordering() == 'f' && !isDense(arr, 'c');
+        os.write(header(descr(type, ByteOrder.nativeOrder()), fortran, arr.shape()));
+
+        DataBuffer data = arr.data();
+        long bytes = arr.length() * data.getElementSize();
+        ByteBuffer content = isDense(arr) ? contentBuffer(data, bytes) : null;
+        byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_BYTES, bytes))];
+        if (content != null) {
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                os.write(chunk, 0, n);
+            }
+        } else {
+            //no direct view of the memory, go element by element in the written order
+            ByteBuffer scratch = ByteBuffer.wrap(chunk).order(ByteOrder.nativeOrder());
+            NdIndexCursor cursor = new NdIndexCursor(fortran ? 'f' : 'c', arr);
+            while (cursor.advance()) {
+                if (scratch.remaining() < data.getElementSize()) {
+                    os.write(chunk, 0, scratch.position());
+                    scratch.clear();
+                }
+                switch (type) {
+                    case DOUBLE:
+                        scratch.putDouble(data.getDouble(cursor.offset()));
+                        break;
+                    case FLOAT:
+                        scratch.putFloat(data.getFloat(cursor.offset()));
+                        break;
+                    default:
+                        scratch.putInt(data.getInt(cursor.offset()));
+                        break;
+                }
+            }
+            os.write(chunk, 0, scratch.position());
+        }
+        os.flush();
+    }
+
+    /**
+     * Read a .npy file into a new array
+     * @param file the file to read
+     * @return the array, with the current default data type
+     * @throws IOException
+     */
+    public static INDArray read(File file) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            return read(fis);
+        }
+    }
+
+    /**
+     * Read a .npy array from the stream. The data is copied from the stream
+     * into the array in chunks, there is no intermediate copy of the whole content.
+     * Exactly the bytes of the array are consumed, the stream is not closed.
+     * @param is the stream to read from
+     * @return the array, with the current default data type
+     * @throws IOException
+     */
+    public static INDArray read(InputStream is) throws IOException {
+        Header header = readHeader(new DataInputStream(is));
+        INDArray ret = Nd4j.createUninitialized(header.shape, header.fortranOrder ? 'f' : 'c');
+        DataBuffer data = ret.data();
+        long length = ret.length();
+        long bytes = length * header.elementSize;
+        byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_BYTES, bytes))];
+
+        ByteBuffer content = header.type == data.dataType() && header.order == ByteOrder.nativeOrder()
+                        ? contentBuffer(data, bytes) : null;
+        if (content != null) {
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                readFully(is, chunk, n);
+                content.put(chunk, 0, n);
+            }
+        } else {
+            //different type or byte order: convert element by element
+            ByteBuffer scratch = ByteBuffer.wrap(chunk).order(header.order);
+            scratch.limit(0);
+            for (long i = 0; i < length; i++) {
+                if (scratch.remaining() < header.elementSize) {
+                    int n = (int) Math.min(chunk.length - chunk.length % header.elementSize,
+                                    (length - i) * header.elementSize);
+                    readFully(is, chunk, n);
+                    scratch.position(0);
+                    scratch.limit(n);
+                }
+                data.put(i, header.get(scratch));
+            }
+        }
+
+        Nd4j.getAffinityManager().tagLocation(ret, AffinityManager.Location.HOST);
+        return ret;
+    }
+
+    /**
+     * Map the data of a .npy file as the buffer of an array, without copying.
+     * The file has to be in native byte order and of the current default data type,
+     * use {@link #read(File)} for anything else. Writes to the array are private
+     * to this process and never reach the file.
+     * Only backends keeping arrays in host memory can use the mapped buffer directly.
+     * @param file the file to map
+     * @return an array backed by the mapped file
+     * @throws IOException
+     */
+    public static INDArray mmap(File file) throws IOException {
+        Header header;
+        try (FileInputStream fis = new FileInputStream(file)) {
+            header = readHeader(new DataInputStream(fis));
+        }
+        if (header.order != ByteOrder.nativeOrder() && header.elementSize > 1)
+            throw new IllegalArgumentException("Unable to map " + file + ": byte order " + header.order
+                            + " differs from the native one, use read(File) instead");
+        if (header.type != Nd4j.dataType())
+            throw new IllegalArgumentException("Unable to map " + file + ": data type " + header.descr
+                            + " differs from the default data type " + Nd4j.dataType()
+                            + ", use read(File) instead");
+
+        long length = ArrayUtil.prodLong(header.shape);
+        long bytes = length * header.elementSize;
+        MappedByteBuffer mapped;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < header.dataOffset + bytes)
+                throw new EOFException("File " + file + " is truncated");
+            //copy on write: the file can only be opened for reading, and in place ops must not crash or change it
+            mapped = raf.getChannel().map(FileChannel.MapMode.PRIVATE, header.dataOffset, bytes);
+        }
+        mapped.order(ByteOrder.nativeOrder());
+
+        //the indexers hold on to the nio buffers, which keeps the mapping alive as long as the data buffer is
+        DataBuffer data;
+        switch (header.type) {
+            case DOUBLE:
+                java.nio.DoubleBuffer doubles = mapped.asDoubleBuffer();
+                data = Nd4j.createBuffer(new DoublePointer(doubles), DataBuffer.Type.DOUBLE, length,
+                                DoubleIndexer.create(doubles));
+                break;
+            case FLOAT:
+                java.nio.FloatBuffer floats = mapped.asFloatBuffer();
+                data = Nd4j.createBuffer(new FloatPointer(floats), DataBuffer.Type.FLOAT, length,
+                                FloatIndexer.create(floats));
+                break;
+            default:
+                java.nio.IntBuffer ints = mapped.asIntBuffer();
+                data = Nd4j.createBuffer(new IntPointer(ints), DataBuffer.Type.INT, length, IntIndexer.create(ints));
+                break;
+        }
+
+        char ordering = header.fortranOrder ? 'f' : 'c';
+        return Nd4j.create(data, header.shape, Nd4j.getStrides(header.shape, ordering), 0, ordering);
+    }
+
+    /**
+     * The .npy header (magic, version, header length and the header dict, padded) for the given array
+     */
+    static byte[] header(String descr, boolean fortranOrder, int[] shape) {
+        StringBuilder dict = new StringBuilder();
+        dict.append("{'descr': '").append(descr).append("', 'fortran_order': ")
+                        .append(fortranOrder ? "True" : "False").append(", 'shape': (");
+        for (int i = 0; i < shape.length; i++) {
+            dict.append(shape[i]);
+            if (shape.length == 1 || i < shape.length - 1)
+                dict.append(", ");
+        }
+        dict.append("), }");
+
+        //version 1.0: magic (6), version (2) and a 2 byte header length, followed by the dict padded to ALIGNMENT
+        int prefix = MAGIC.length + 4;
+        int total = prefix + dict.length() + 1;
+        total += (ALIGNMENT - total % ALIGNMENT) % ALIGNMENT;
+        while (dict.length() < total - prefix - 1)
+            dict.append(' ');
+        dict.append('\n');
+
+        byte[] ret = new byte[total];
+        System.arraycopy(MAGIC, 0, ret, 0, MAGIC.length);
+        ret[6] = 1;
+        ret[7] = 0;
+        int headerLength = total - prefix;
+        ret[8] = (byte) (headerLength & 0xFF);
+        ret[9] = (byte) ((headerLength >> 8) & 0xFF);
+        byte[] dictBytes = dict.toString().getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(dictBytes, 0, ret, prefix, dictBytes.length);
+        return ret;
+    }
+
+    static String descr(DataBuffer.Type type, ByteOrder order) {
+        String prefix = order == ByteOrder.LITTLE_ENDIAN ? "<" : ">";
+        switch (type) {
+            case DOUBLE:
+                return prefix + "f8";
+            case FLOAT:
+                return prefix + "f4";
+            case INT:
+                return prefix + "i4";
+            default:
+                throw new UnsupportedOperationException("No npy type for " + type);
+        }
+    }
+
+    static Header readHeader(DataInputStream dis) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        dis.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i])
+                throw new IOException("Not a npy file");
+        }
+        int major = dis.readUnsignedByte();
+        dis.readUnsignedByte();
+        long headerLength;
+        int prefix;
+        if (major == 1) {
+            headerLength = dis.readUnsignedByte() | (dis.readUnsignedByte() << 8);
+            prefix = MAGIC.length + 4;
+        } else if (major == 2 || major == 3) {
+            headerLength = Integer.reverseBytes(dis.readInt()) & 0xFFFFFFFFL;
+            prefix = MAGIC.length + 6;
+        } else {
+            throw new IOException("Unsupported npy version " + major);
+        }
+        if (headerLength > Integer.MAX_VALUE)
+            throw new IOException("Invalid npy header length " + headerLength);
+
+        byte[] dictBytes = new byte[(int) headerLength];
+        dis.readFully(dictBytes);
+        String dict = new String(dictBytes, major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        return new Header(dict, prefix + headerLength);
+    }
+
+    private static void readFully(InputStream is, byte[] b, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = is.read(b, read, length - read);
+            if (n < 0)
+                throw new EOFException("Unexpected end of npy data");
+            read += n;
+        }
+    }
+
+    /**
+     * Returns true if the array's elements are a contiguous part of its buffer,
+     * laid out with the standard strides for its ordering
+     */
+    private static boolean isDense(INDArray arr) {
+        return isDense(arr, arr.ordering());
+    }
+
+    private static boolean isDense(INDArray arr, char ordering) {
+        int[] shape = arr.shape();
+        int[] stride = arr.stride();
+        int[] expected = Nd4j.getStrides(shape, ordering);
+        for (int i = 0; i < shape.length; i++) {
+            if (shape[i] > 1 && stride[i] != expected[i])
+                return false;
+        }
+        //data() of a view starts at the view's offset
+        return arr.data().length() >= arr.length();
+    }
+
+    /**
+     * A native order view of the first bytes of the buffer
+     * (starting at {@link DataBuffer#offset()} for views),
+     * or null if the buffer memory can't be viewed directly
+     */
+    private static ByteBuffer contentBuffer(DataBuffer data, long bytes) {
+        //asNio() covers the whole underlying memory, the offset of a view is absolute
+        long start = data.offset() * data.getElementSize();
+        if (start + bytes > Integer.MAX_VALUE)
+            return null;
+        ByteBuffer buffer = data.asNio();
+        if (buffer == null || buffer.capacity() < start + bytes)
+            return null;
+        buffer = buffer.duplicate();
+        buffer.limit((int) (start + bytes));
+        buffer.position((int) start);
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * The parsed header dict of a .npy file
+     */
+    static class Header {
+        final String descr;
+        final boolean fortranOrder;
+        final int[] shape;
+        final ByteOrder order;
+        final DataBuffer.Type type;
+        final char kind;
+        final int elementSize;
+        final long dataOffset;
+
+        Header(String dict, long dataOffset) throws IOException {
+            this.dataOffset = dataOffset;
+            Matcher descrMatcher = DESCR.matcher(dict);
+            Matcher fortranMatcher = FORTRAN_ORDER.matcher(dict);
+            Matcher shapeMatcher = SHAPE.matcher(dict);
+            if (!descrMatcher.find() || !fortranMatcher.find() || !shapeMatcher.find())
+                throw new IOException("Invalid npy header " + dict.trim());
+
+            this.descr = descrMatcher.group(1);
+            this.fortranOrder = fortranMatcher.group(1).equals("True");
+            if (descr.length() < 3)
+                throw new IOException("Unsupported npy type " + descr);
+            char byteOrder = descr.charAt(0);
+            this.kind = descr.charAt(1);
+            this.elementSize = Integer.parseInt(descr.substring(2));
+            this.order = byteOrder == '>' ? ByteOrder.BIG_ENDIAN
+                            : byteOrder == '<' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.nativeOrder();
+            if (kind == 'f' && (elementSize == 4 || elementSize == 8))
+                this.type = elementSize == 4 ? DataBuffer.Type.FLOAT : DataBuffer.Type.DOUBLE;
+            else if (kind == 'i' && (elementSize == 1 || elementSize == 2 || elementSize == 4 || elementSize == 8))
+                this.type = elementSize == 4 ? DataBuffer.Type.INT : null;
+            else
+                throw new IOException("Unsupported npy type " + descr);
+
+            String[] dims = shapeMatcher.group(1).split(",");
+            int rank = 0;
+            int[] parsed = new int[dims.length];
+            for (String dim : dims) {
+                if (!dim.trim().isEmpty())
+                    parsed[rank++] = Integer.parseInt(dim.trim());
+            }
+            //no rank 0 or 1 arrays in nd4j
+            if (rank == 0)
+                this.shape = new int[] {1, 1};
+            else if (rank == 1)
+                this.shape = new int[] {1, parsed[0]};
+            else
+                this.shape = Arrays.copyOf(parsed, rank);
+            if (ArrayUtil.prodLong(shape) == 0)
+                throw new IOException("Empty arrays are not supported");
+        }
+
+        /**
+         * Read one element from the (file ordered) buffer
+         */
+        double get(ByteBuffer buffer) {
+            if (kind == 'f')
+                return elementSize == 4 ? buffer.getFloat() : buffer.getDouble();
+            switch (elementSize) {
+                case 1:
+                    return buffer.get();
+                case 2:
+                    return buffer.getShort();
+                case 4:
+                    return buffer.getInt();
+                default:
+                    return buffer.getLong();
+            }
+        }
+    }
+}
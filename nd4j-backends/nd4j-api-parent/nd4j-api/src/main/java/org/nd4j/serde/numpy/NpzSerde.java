@@ -0,0 +1,157 @@
+package org.nd4j.serde.numpy;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reader and writer for numpy .npz archives: a zip file with one .npy entry per array,
+ * as written by numpy.savez (stored) and numpy.savez_compressed (deflated).
+ *
+ * Entries are streamed: {@link NpySerde#read(InputStream)} decodes straight from the
+ * (inflating) entry stream into the array, and arrays are written straight into the zip stream,
+ * so there is never a byte[] copy of a whole entry on the heap.
+ * Stored entries need their size and crc up front, those are computed with a first pass
+ * over the array that doesn't keep the bytes around.
+ */
+public class NpzSerde {
+    private static final String SUFFIX = ".npy";
+
+    private NpzSerde() {}
+
+    /**
+     * Write the arrays as an uncompressed archive (numpy.savez)
+     * @param arrays the arrays by name, in the order they should be written
+     * @param file the file to write to
+     * @throws IOException
+     */
+    public static void write(Map<String, INDArray> arrays, File file) throws IOException {
+        write(arrays, file, false);
+    }
+
+    /**
+     * Write the arrays as an archive
+     * @param arrays the arrays by name, in the order they should be written
+     * @param file the file to write to
+     * @param compressed true to deflate the entries (numpy.savez_compressed)
+     * @throws IOException
+     */
+    public static void write(Map<String, INDArray> arrays, File file, boolean compressed) throws IOException {
+        try (ZipOutputStream zos =
+                        new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            for (Map.Entry<String, INDArray> entry : arrays.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey() + SUFFIX);
+                if (compressed) {
+                    zipEntry.setMethod(ZipEntry.DEFLATED);
+                } else {
+                    CountingCrcStream counter = new CountingCrcStream();
+                    NpySerde.write(entry.getValue(), counter);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(counter.count);
+                    zipEntry.setCompressedSize(counter.count);
+                    zipEntry.setCrc(counter.crc.getValue());
+                }
+                zos.putNextEntry(zipEntry);
+                NpySerde.write(entry.getValue(), zos);
+                zos.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Read all arrays of an archive
+     * @param file the archive to read
+     * @return the arrays by name (without the .npy suffix), in archive order
+     * @throws IOException
+     */
+    public static Map<String, INDArray> read(File file) throws IOException {
+        Map<String, INDArray> ret = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(SUFFIX))
+                    continue;
+                try (InputStream is = zip.getInputStream(entry)) {
+                    ret.put(name(entry), NpySerde.read(is));
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Read a single array of an archive, without touching the other entries
+     * @param file the archive to read
+     * @param name the name of the array (without the .npy suffix)
+     * @return the array, or null if the archive doesn't contain it
+     * @throws IOException
+     */
+    public static INDArray read(File file, String name) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry entry = zip.getEntry(name + SUFFIX);
+            if (entry == null)
+                return null;
+            try (InputStream is = zip.getInputStream(entry)) {
+                return NpySerde.read(is);
+            }
+        }
+    }
+
+    /**
+     * The names of the arrays in an archive
+     * @param file the archive
+     * @return the names (without the .npy suffix), in archive order
+     * @throws IOException
+     */
+    public static List<String> names(File file) throws IOException {
+        List<String> ret = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(SUFFIX))
+                    ret.add(name(entry));
+            }
+        }
+        return ret;
+    }
+
+    private static String name(ZipEntry entry) {
+        return entry.getName().substring(0, entry.getName().length() - SUFFIX.length());
+    }
+
+    /**
+     * Discards everything written to it, keeping track of the size and crc
+     */
+    private static class CountingCrcStream extends OutputStream {
+        private final CRC32 crc = new CRC32();
+        private long count;
+
+        @Override
+        public void write(int b) {
+            crc.update(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            crc.update(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.cache.TadDescriptor;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.cache.CacheStats;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -69,6 +70,7 @@ public class DeviceTADManager extends BasicTADManager {
         TadDescriptor descriptor = new TadDescriptor(array, dimension);
 
         if (!tadCache.get(deviceId).containsKey(descriptor)) {
+            CacheStats.TAD.miss();
             log.trace("Creating new TAD...");
             //create the TAD with the shape information and corresponding offsets
             //note that we use native code to get access to the shape information.
@@ -110,9 +112,11 @@ public class DeviceTADManager extends BasicTADManager {
             if (buffers.getSecond() != null)
                 bytes.addAndGet(buffers.getSecond().length() * 8);
 
-            log.trace("Using TAD from cache...");
+            return buffers;
         }
 
+        log.trace("Using TAD from cache...");
+        CacheStats.TAD.hit();
         return tadCache.get(deviceId).get(descriptor);
     }
 }
@@ -19,6 +19,7 @@ import org.nd4j.linalg.jcublas.buffer.CudaFloatDataBuffer;
 import org.nd4j.linalg.jcublas.buffer.CudaHalfDataBuffer;
 import org.nd4j.linalg.jcublas.buffer.CudaIntDataBuffer;
 import org.nd4j.linalg.jcublas.context.CudaContext;
+import org.nd4j.linalg.cache.CacheStats;
 import org.nd4j.nativeblas.NativeOps;
 import org.nd4j.nativeblas.NativeOpsHolder;
 import org.slf4j.Logger;
@@ -284,6 +285,7 @@ public class ProtectedCudaConstantHandler implements ConstantHandler {
         ensureMaps(deviceId);
 
         if (!buffersCache.get(deviceId).containsKey(descriptor)) {
+            CacheStats.CONSTANT.miss();
             // we create new databuffer
             //logger.info("Creating new constant buffer...");
             DataBuffer buffer = Nd4j.createBufferDetached(array);
@@ -300,6 +302,7 @@ public class ProtectedCudaConstantHandler implements ConstantHandler {
             return buffer;
         } //else logger.info("Reusing constant buffer...");
 
+        CacheStats.CONSTANT.hit();
         return buffersCache.get(deviceId).get(descriptor);
     }
 
@@ -321,6 +324,7 @@ public class ProtectedCudaConstantHandler implements ConstantHandler {
         ensureMaps(deviceId);
 
         if (!buffersCache.get(deviceId).containsKey(descriptor)) {
+            CacheStats.CONSTANT.miss();
             // we create new databuffer
                  //logger.info("Creating new constant buffer...");
             DataBuffer buffer = Nd4j.createBufferDetached(array);
@@ -337,6 +341,7 @@ public class ProtectedCudaConstantHandler implements ConstantHandler {
             return buffer;
         } // else logger.info("Reusing constant buffer...");
 
+        CacheStats.CONSTANT.hit();
         return buffersCache.get(deviceId).get(descriptor);
     }
 
@@ -358,6 +363,7 @@ public class ProtectedCudaConstantHandler implements ConstantHandler {
         ensureMaps(deviceId);
 
         if (!buffersCache.get(deviceId).containsKey(descriptor)) {
+            CacheStats.CONSTANT.miss();
             // we create new databuffer
             //logger.info("Creating new constant buffer...");
             DataBuffer buffer = Nd4j.createBufferDetached(array);
@@ -374,6 +380,7 @@ public class ProtectedCudaConstantHandler implements ConstantHandler {
             return buffer;
         } //else logger.info("Reusing constant buffer...");
 
+        CacheStats.CONSTANT.hit();
         return buffersCache.get(deviceId).get(descriptor);
     }
 
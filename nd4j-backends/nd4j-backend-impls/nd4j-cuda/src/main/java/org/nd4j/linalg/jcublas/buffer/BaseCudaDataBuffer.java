@@ -774,6 +774,12 @@ public abstract class BaseCudaDataBuffer extends BaseDataBuffer implements JCuda
         super.write(out);
     }
 
+    @Override
+    public ByteBuffer writeBulkHeader(DataOutputStream out) throws IOException {
+        allocator.synchronizeHostData(this);
+        return super.writeBulkHeader(out);
+    }
+
     @Override
     public void write(OutputStream dos) {
         allocator.synchronizeHostData(this);
@@ -838,13 +844,20 @@ public abstract class BaseCudaDataBuffer extends BaseDataBuffer implements JCuda
         try {
             //            log.info("Restoring CUDA databuffer");
             // skip allocationMode
-            s.readUTF();
+            ByteOrder order = null;
+            if (BULK_HEADER.equals(s.readUTF())) {
+                order = readBulkHeader(s);
+                s.readUTF();
+            }
             allocationMode = AllocationMode.JAVACPP;
             int locLength = s.readInt();
             boolean reallocate = locLength != length || indexer == null;
             length = locLength;
 
             Type t = Type.valueOf(s.readUTF());
+            // contents are parsed with the big endian reads below
+            if (order != null)
+                s = asBigEndian(s, t, order);
             //                  log.info("Restoring buffer ["+t+"] of length ["+ length+"]");
             if (globalType == null && Nd4j.dataType() != null) {
                 globalType = Nd4j.dataType();
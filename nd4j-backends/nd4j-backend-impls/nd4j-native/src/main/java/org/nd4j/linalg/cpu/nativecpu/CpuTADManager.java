@@ -13,6 +13,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.cache.ConstantHandler;
 import org.nd4j.linalg.cache.TADManager;
 import org.nd4j.linalg.cache.TadDescriptor;
+import org.nd4j.linalg.cache.CacheStats;
 import org.nd4j.nativeblas.LongPointerWrapper;
 import org.nd4j.nativeblas.NativeOps;
 
@@ -61,6 +62,7 @@ public class CpuTADManager implements TADManager {
             TadDescriptor descriptor = new TadDescriptor(array, dimension);
 
             if (!cache.containsKey(descriptor)) {
+                CacheStats.TAD.miss();
                 int dimensionLength = dimension.length;
 
                 // FIXME: this is fast triage, remove it later
@@ -99,6 +101,7 @@ public class CpuTADManager implements TADManager {
                 return pair;
             }
 
+            CacheStats.TAD.hit();
             return cache.get(descriptor);
         }
     }
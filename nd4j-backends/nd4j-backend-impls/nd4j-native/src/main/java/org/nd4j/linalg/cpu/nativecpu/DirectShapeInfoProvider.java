@@ -5,6 +5,7 @@ import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.BaseShapeInfoProvider;
 import org.nd4j.linalg.api.shape.ShapeDescriptor;
+import org.nd4j.linalg.cache.CacheStats;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,6 +28,7 @@ public class DirectShapeInfoProvider extends BaseShapeInfoProvider {
 
         ShapeDescriptor descriptor = new ShapeDescriptor(shape, stride, offset, elementWiseStride, order);
         if (!shapeCache.containsKey(descriptor)) {
+            CacheStats.SHAPE_INFO.miss();
             if (counter.get() < MAX_ENTRIES) {
                 synchronized (this) {
                     if (!shapeCache.containsKey(descriptor)) {
@@ -46,6 +48,7 @@ public class DirectShapeInfoProvider extends BaseShapeInfoProvider {
             }
         }
 
+        CacheStats.SHAPE_INFO.hit();
         return shapeCache.get(descriptor);
     }
 
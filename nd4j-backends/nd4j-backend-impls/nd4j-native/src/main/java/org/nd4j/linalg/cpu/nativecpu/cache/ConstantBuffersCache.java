@@ -4,6 +4,7 @@ import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.cache.ArrayDescriptor;
 import org.nd4j.linalg.cache.BasicConstantHandler;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.cache.CacheStats;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -24,6 +25,7 @@ public class ConstantBuffersCache extends BasicConstantHandler {
         ArrayDescriptor descriptor = new ArrayDescriptor(array);
 
         if (!buffersCache.containsKey(descriptor)) {
+            CacheStats.CONSTANT.miss();
             DataBuffer buffer = Nd4j.createBufferDetached(array);
 
             // we always allow int arrays with length < 3. 99.9% it's just dimension array. we don't want to recreate them over and over
@@ -35,6 +37,7 @@ public class ConstantBuffersCache extends BasicConstantHandler {
             return buffer;
         }
 
+        CacheStats.CONSTANT.hit();
         return buffersCache.get(descriptor);
     }
 
@@ -51,6 +54,7 @@ public class ConstantBuffersCache extends BasicConstantHandler {
         ArrayDescriptor descriptor = new ArrayDescriptor(array);
 
         if (!buffersCache.containsKey(descriptor)) {
+            CacheStats.CONSTANT.miss();
             DataBuffer buffer = Nd4j.createBufferDetached(array);
 
             if (counter.get() < MAX_ENTRIES) {
@@ -62,6 +66,7 @@ public class ConstantBuffersCache extends BasicConstantHandler {
             return buffer;
         }
 
+        CacheStats.CONSTANT.hit();
         return buffersCache.get(descriptor);
     }
 
@@ -70,6 +75,7 @@ public class ConstantBuffersCache extends BasicConstantHandler {
         ArrayDescriptor descriptor = new ArrayDescriptor(array);
 
         if (!buffersCache.containsKey(descriptor)) {
+            CacheStats.CONSTANT.miss();
             DataBuffer buffer = Nd4j.createBufferDetached(array);
 
             if (counter.get() < MAX_ENTRIES) {
@@ -81,6 +87,7 @@ public class ConstantBuffersCache extends BasicConstantHandler {
             return buffer;
         }
 
+        CacheStats.CONSTANT.hit();
         return buffersCache.get(descriptor);
     }
 
@@ -0,0 +1,120 @@
+package org.nd4j.linalg.aggregates;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
+import org.nd4j.linalg.api.ops.aggregates.AggregateBatchScheduler;
+import org.nd4j.linalg.api.ops.aggregates.impl.AggregateAxpy;
+import org.nd4j.linalg.api.ops.aggregates.impl.AggregateSkipGram;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class AggregateBatchSchedulerTest extends BaseNd4jTest {
+
+    public AggregateBatchSchedulerTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testManyProducers() throws Exception {
+        final int numProducers = 4;
+        final int perProducer = 300;
+        final INDArray[] targets = new INDArray[numProducers * perProducer];
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = Nd4j.zeros(10);
+
+        try (final AggregateBatchScheduler scheduler = new AggregateBatchScheduler(3, 64, 5)) {
+            Thread[] producers = new Thread[numProducers];
+            for (int p = 0; p < numProducers; p++) {
+                final int producer = p;
+                producers[p] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < perProducer; i++) {
+                            INDArray y = targets[producer * perProducer + i];
+                            scheduler.submit(new AggregateAxpy(Nd4j.ones(10), y, producer + 1));
+                        }
+                    }
+                });
+                producers[p].start();
+            }
+            for (Thread producer : producers)
+                producer.join();
+
+            scheduler.flush();
+
+            assertEquals(targets.length, scheduler.getSubmitted());
+            assertEquals(targets.length, scheduler.getExecuted());
+            assertTrue(scheduler.fillRate() > 0.0 && scheduler.fillRate() <= 1.0);
+            assertTrue(scheduler.aggregatesPerSecond() > 0.0);
+        }
+
+        for (int p = 0; p < numProducers; p++)
+            for (int i = 0; i < perProducer; i++)
+                assertEquals(Nd4j.valueArrayOf(10, p + 1.0), targets[p * perProducer + i]);
+    }
+
+    @Test
+    public void testTimeBoundedBatch() throws Exception {
+        INDArray y = Nd4j.zeros(10);
+        try (AggregateBatchScheduler scheduler = new AggregateBatchScheduler(2, 512, 10)) {
+            scheduler.submit(new AggregateAxpy(Nd4j.ones(10), y, 1.0));
+            scheduler.submit(new AggregateAxpy(Nd4j.ones(10), y, 1.0));
+
+            //batch is far from full, so it's the delay that dispatches it
+            long start = System.currentTimeMillis();
+            while (scheduler.getExecuted() < 2 && System.currentTimeMillis() - start < 5000)
+                Thread.sleep(5);
+
+            assertEquals(2, scheduler.getExecuted());
+            assertEquals(1, scheduler.getBatchesExecuted());
+        }
+        assertEquals(Nd4j.valueArrayOf(10, 2.0), y);
+    }
+
+    @Test
+    public void testSkipGramMatchesDirectExecution() throws Exception {
+        INDArray syn0 = Nd4j.rand(new int[] {20, 10}, 119).subi(0.5).divi(10);
+        INDArray syn1 = Nd4j.rand(new int[] {20, 10}, 120).subi(0.5).divi(10);
+        INDArray syn1Neg = Nd4j.zeros(20, 10);
+        INDArray expTable = Nd4j.linspace(0.01, 0.99, 1000);
+
+        INDArray syn0Exp = syn0.dup();
+        INDArray syn1Exp = syn1.dup();
+
+        //every op touches its own syn0 and syn1 rows, so there are no races and the order doesn't matter
+        List<Aggregate> direct = new ArrayList<>();
+        List<Aggregate> scheduled = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            direct.add(new AggregateSkipGram(syn0Exp, syn1Exp, syn1Neg, expTable, null, i, new int[] {10 + i},
+                            new int[] {i % 2}, 0, 0, 10, 0.025, 1L, 20));
+            scheduled.add(new AggregateSkipGram(syn0, syn1, syn1Neg, expTable, null, i, new int[] {10 + i},
+                            new int[] {i % 2}, 0, 0, 10, 0.025, 1L, 20));
+        }
+        Nd4j.getExecutioner().exec(direct);
+
+        try (AggregateBatchScheduler scheduler = new AggregateBatchScheduler(4, 3, 100)) {
+            scheduler.submit(scheduled);
+            scheduler.flush();
+            assertEquals(10, scheduler.getExecuted());
+        }
+
+        assertEquals(syn0Exp, syn0);
+        assertEquals(syn1Exp, syn1);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -0,0 +1,106 @@
+package org.nd4j.linalg.api.indexing;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.IndexPlan;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.indexing.SpecifiedIndex;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class IndexPlanTest extends BaseNd4jTest {
+
+    public IndexPlanTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testPlanMatchesGet() {
+        INDArrayIndex[][] patterns = new INDArrayIndex[][] {
+                        {NDArrayIndex.all(), NDArrayIndex.interval(1, 3)},
+                        {NDArrayIndex.point(1), NDArrayIndex.all()},
+                        {NDArrayIndex.all(), NDArrayIndex.point(2)},
+                        {NDArrayIndex.interval(0, 2), NDArrayIndex.interval(1, 4)},
+                        {NDArrayIndex.all()}};
+
+        for (INDArrayIndex[] pattern : patterns) {
+            IndexPlan plan = IndexPlan.compile(new int[] {4, 5}, 'c', pattern);
+            for (int i = 0; i < 3; i++) {
+                INDArray arr = Nd4j.rand('c', new int[] {4, 5});
+                INDArray viaGet = arr.get(pattern);
+                INDArray viaPlan = plan.apply(arr);
+                assertArrayEquals(viaGet.shape(), viaPlan.shape());
+                assertEquals(viaGet, viaPlan);
+            }
+        }
+    }
+
+    @Test
+    public void testPlanRank3() {
+        INDArray arr = Nd4j.linspace(1, 60, 60).reshape('c', 3, 4, 5);
+        INDArrayIndex[] pattern = {NDArrayIndex.point(1), NDArrayIndex.all(), NDArrayIndex.interval(0, 2)};
+        IndexPlan plan = IndexPlan.compile(arr, pattern);
+
+        INDArray viaPlan = plan.apply(arr);
+        assertEquals(arr.get(pattern), viaPlan);
+
+        //the result is a view, writes go through to the original array
+        viaPlan.assign(0.0);
+        assertEquals(0.0, arr.get(pattern).sumNumber().doubleValue(), 0.0);
+    }
+
+    @Test
+    public void testPlanOnView() {
+        INDArray base = Nd4j.linspace(1, 100, 100).reshape('c', 10, 10);
+        INDArray first = base.get(NDArrayIndex.interval(0, 4), NDArrayIndex.interval(0, 6));
+        INDArray second = base.get(NDArrayIndex.interval(5, 9), NDArrayIndex.interval(2, 8));
+
+        INDArrayIndex[] pattern = {NDArrayIndex.interval(1, 3), NDArrayIndex.all()};
+        IndexPlan plan = IndexPlan.compile(first, pattern);
+        assertTrue(plan.isCompatible(second));
+        assertEquals(first.get(pattern), plan.apply(first));
+        assertEquals(second.get(pattern), plan.apply(second));
+    }
+
+    @Test
+    public void testSpecifiedIndexCopies() {
+        INDArray arr = Nd4j.linspace(1, 20, 20).reshape('c', 4, 5);
+        INDArray expected = arr.get(NDArrayIndex.all(), new SpecifiedIndex(0, 2));
+        IndexPlan plan = IndexPlan.compile(arr, NDArrayIndex.all(), new SpecifiedIndex(0, 2));
+        assertFalse(plan.isView());
+        assertEquals(expected, plan.apply(arr));
+    }
+
+    @Test
+    public void testPlanCopiesIndexes() {
+        INDArray arr = Nd4j.linspace(1, 20, 20).reshape('c', 4, 5);
+        INDArrayIndex[] pattern = {NDArrayIndex.all(), new SpecifiedIndex(0, 2)};
+        IndexPlan plan = IndexPlan.compile(arr, pattern);
+        INDArray expected = plan.apply(arr);
+
+        //changing the caller's array or the returned ones doesn't change the plan
+        pattern[1] = new SpecifiedIndex(1, 3);
+        plan.getIndexes()[1] = new SpecifiedIndex(4);
+        plan.getInputShape()[0] = 7;
+        assertEquals(expected, plan.apply(arr));
+        assertArrayEquals(new int[] {4, 5}, plan.getInputShape());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompatibleShape() {
+        IndexPlan plan = IndexPlan.compile(new int[] {4, 5}, 'c', NDArrayIndex.all(), NDArrayIndex.point(1));
+        plan.apply(Nd4j.create(5, 4));
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
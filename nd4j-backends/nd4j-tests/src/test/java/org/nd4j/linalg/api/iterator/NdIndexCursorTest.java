@@ -0,0 +1,76 @@
+package org.nd4j.linalg.api.iterator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
+import org.nd4j.linalg.api.iter.NdIndexIterator;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class NdIndexCursorTest extends BaseNd4jTest {
+
+    public NdIndexCursorTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testMatchesIterator() {
+        for (char order : new char[] {'c', 'f'}) {
+            int[] shape = {3, 4, 2};
+            NdIndexIterator iter = new NdIndexIterator(order, shape);
+            NdIndexCursor cursor = new NdIndexCursor(order, shape);
+            int count = 0;
+            while (cursor.advance()) {
+                assertTrue(iter.hasNext());
+                assertArrayEquals(iter.next(), cursor.coordinates());
+                assertEquals(count++, cursor.index());
+            }
+            assertFalse(iter.hasNext());
+            assertEquals(24, count);
+            assertFalse(cursor.advance());
+        }
+    }
+
+    @Test
+    public void testCoordinatesReused() {
+        NdIndexCursor cursor = new NdIndexCursor(2, 2);
+        assertTrue(cursor.advance());
+        int[] first = cursor.coordinates();
+        assertTrue(cursor.advance());
+        assertSame(first, cursor.coordinates());
+        assertArrayEquals(new long[] {0, 1}, cursor.longCoordinates());
+    }
+
+    @Test
+    public void testOffsetsOnView() {
+        INDArray base = Nd4j.linspace(1, 120, 120).reshape('c', 4, 5, 6);
+        INDArray[] views = {base.get(NDArrayIndex.interval(1, 3), NDArrayIndex.all(), NDArrayIndex.interval(2, 5)),
+                        base.permute(2, 0, 1), base.tensorAlongDimension(1, 0, 2)};
+
+        for (INDArray view : views) {
+            NdIndexCursor cursor = new NdIndexCursor(view);
+            int count = 0;
+            while (cursor.advance()) {
+                assertEquals(view.getDouble(cursor.coordinates()), view.data().getDouble(cursor.offset()), 0.0);
+                count++;
+            }
+            assertEquals(view.length(), count);
+
+            cursor.reset();
+            assertTrue(cursor.advance());
+            assertEquals(0, cursor.index());
+        }
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
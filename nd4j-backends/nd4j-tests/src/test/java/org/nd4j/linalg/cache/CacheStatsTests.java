@@ -0,0 +1,84 @@
+package org.nd4j.linalg.cache;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class CacheStatsTests extends BaseNd4jTest {
+
+    public CacheStatsTests(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @After
+    public void tearDown() {
+        CacheStats.setEnabled(false);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        CacheStats stats = new CacheStats("test");
+        CacheStats.setEnabled(false);
+
+        stats.hit();
+        stats.miss();
+
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(0.0, stats.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testHitMissCounting() {
+        CacheStats stats = new CacheStats("test");
+        CacheStats.setEnabled(true);
+
+        stats.miss();
+        for (int i = 0; i < 3; i++)
+            stats.hit();
+
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.75, stats.getHitRate(), 1e-9);
+
+        stats.reset();
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getMisses());
+    }
+
+    @Test
+    public void testTadLookupsCountedOnce() {
+        CacheStats.setEnabled(true);
+        TADManager manager = Nd4j.getExecutioner().getTADManager();
+        INDArray array = Nd4j.create(7, 13);
+
+        long hits = CacheStats.TAD.getHits();
+        long misses = CacheStats.TAD.getMisses();
+        manager.getTADOnlyShapeInfo(array, new int[] {1});
+
+        // first lookup is either a miss or, if another test built this TAD already, a hit - never both
+        assertEquals(1, CacheStats.TAD.getHits() - hits + CacheStats.TAD.getMisses() - misses);
+
+        hits = CacheStats.TAD.getHits();
+        misses = CacheStats.TAD.getMisses();
+        manager.getTADOnlyShapeInfo(array, new int[] {1});
+
+        assertEquals(1, CacheStats.TAD.getHits() - hits);
+        assertEquals(0, CacheStats.TAD.getMisses() - misses);
+        assertTrue(CacheStats.TAD.getHitRate() > 0.0);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
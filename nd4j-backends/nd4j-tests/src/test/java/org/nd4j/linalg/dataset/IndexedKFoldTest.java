@@ -0,0 +1,142 @@
+package org.nd4j.linalg.dataset;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.IndexedDataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.IndexedKFold;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class IndexedKFoldTest extends BaseNd4jTest {
+
+    public IndexedKFoldTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testFoldsPartitionExamples() {
+        DataSet data = dataSet(103, 3);
+        IndexedKFold kFold = new IndexedKFold(data, 5, 119);
+        int[] timesTested = new int[103];
+        for (int fold = 0; fold < 5; fold++) {
+            int[] test = kFold.testIndices(fold);
+            int[] train = kFold.trainIndices(fold);
+            //103 = 3 * 21 + 2 * 20
+            assertEquals(fold < 3 ? 21 : 20, test.length);
+            assertEquals(103, test.length + train.length);
+
+            boolean[] seen = new boolean[103];
+            for (int i : test) {
+                timesTested[i]++;
+                seen[i] = true;
+            }
+            for (int i : train) {
+                assertFalse(seen[i]);
+                seen[i] = true;
+            }
+        }
+        for (int count : timesTested)
+            assertEquals(1, count);
+    }
+
+    @Test
+    public void testIteratorGathersRows() {
+        DataSet data = dataSet(50, 4);
+        IndexedKFold kFold = new IndexedKFold(data, 3, 119);
+        int[] train = kFold.trainIndices(1);
+
+        DataSetIterator iter = kFold.trainIterator(1, 8);
+        assertEquals(train.length, iter.totalExamples());
+        int position = 0;
+        while (iter.hasNext()) {
+            DataSet batch = iter.next();
+            assertTrue(batch.numExamples() <= 8);
+            for (int i = 0; i < batch.numExamples(); i++) {
+                assertEquals(data.getFeatures().getRow(train[position]), batch.getFeatures().getRow(i));
+                assertEquals(data.getLabels().getRow(train[position]), batch.getLabels().getRow(i));
+                position++;
+            }
+        }
+        assertEquals(train.length, position);
+
+        iter.reset();
+        assertTrue(iter.hasNext());
+        assertEquals(data.getFeatures().getRow(train[0]), iter.next().getFeatures().getRow(0));
+    }
+
+    @Test
+    public void testGatherTimeSeriesWithMasks() {
+        INDArray features = Nd4j.rand(new int[] {6, 3, 5}, 119);
+        INDArray labels = Nd4j.rand(new int[] {6, 2, 5}, 120);
+        INDArray mask = Nd4j.rand(6, 5);
+        DataSet data = new DataSet(features, labels, mask, mask);
+
+        int[] indices = {4, 0, 5};
+        DataSet gathered = IndexedDataSetIterator.gather(data, indices);
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals(features.slice(indices[i]), gathered.getFeatures().slice(i));
+            assertEquals(labels.slice(indices[i]), gathered.getLabels().slice(i));
+            assertEquals(mask.getRow(indices[i]), gathered.getFeaturesMaskArray().getRow(i));
+            assertEquals(mask.getRow(indices[i]), gathered.getLabelsMaskArray().getRow(i));
+        }
+    }
+
+    @Test
+    public void testStratified() {
+        //90% class 0, 10% class 1
+        int n = 1000;
+        int[] classes = new int[n];
+        for (int i = 0; i < n; i++)
+            classes[i] = i % 10 == 0 ? 1 : 0;
+        INDArray labels = Nd4j.zeros(n, 2);
+        for (int i = 0; i < n; i++)
+            labels.putScalar(i, classes[i], 1.0);
+        DataSet data = new DataSet(Nd4j.rand(n, 3), labels);
+
+        IndexedKFold kFold = new IndexedKFold(data, 10, 119, true);
+        for (int fold = 0; fold < 10; fold++) {
+            int minority = 0;
+            for (int i : kFold.testIndices(fold))
+                minority += classes[i];
+            //exactly 10 of 100 up to the random offset of the class
+            assertTrue("Fold " + fold + " has " + minority, Math.abs(minority - 10) <= 1);
+        }
+
+        int[][] split = IndexedKFold.trainTestIndices(data, 0.8, 119, true);
+        assertEquals(800, split[0].length);
+        assertEquals(200, split[1].length);
+        int minority = 0;
+        for (int i : split[1])
+            minority += classes[i];
+        assertTrue(Math.abs(minority - 20) <= 1);
+
+        //still a permutation
+        int[] permutation = IndexedKFold.stratifiedPermutation(classes, new Random(12345));
+        boolean[] seen = new boolean[n];
+        for (int i : permutation) {
+            assertFalse(seen[i]);
+            seen[i] = true;
+        }
+    }
+
+    private static DataSet dataSet(int numExamples, int numClasses) {
+        INDArray labels = Nd4j.zeros(numExamples, numClasses);
+        for (int i = 0; i < numExamples; i++)
+            labels.putScalar(i, i % numClasses, 1.0);
+        return new DataSet(Nd4j.linspace(1, numExamples * 4, numExamples * 4).reshape(numExamples, 4), labels);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -12,8 +12,10 @@ import org.nd4j.linalg.api.ops.impl.transforms.comparison.CompareAndSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 import org.nd4j.linalg.indexing.conditions.AbsValueGreaterThan;
+import org.nd4j.linalg.indexing.conditions.And;
 import org.nd4j.linalg.indexing.conditions.Condition;
 import org.nd4j.linalg.indexing.conditions.Conditions;
+import org.nd4j.linalg.indexing.conditions.Or;
 import org.nd4j.linalg.indexing.functions.Value;
 
 import java.util.Arrays;
@@ -506,6 +508,131 @@ public class BooleanIndexingTest extends BaseNd4jTest {
         assertEquals(2, numZeroes);
     }
 
+    @Test
+    public void testAndOrAlongDimensionDynamicMatchesNative() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray array = Nd4j.rand('c', new int[] {50, 40, 30}).subi(0.5);
+
+        Condition[] conditions = {Conditions.greaterThan(-0.45), Conditions.lessThan(0.45),
+                        Conditions.absLessThan(0.499)};
+        int[][] dimensions = {{0}, {1}, {2}, {1, 2}, {0, 2}};
+
+        for (Condition condition : conditions) {
+            //And with a single condition isn't a BaseCondition, so it takes the java path
+            Condition dynamic = new And(condition);
+            for (int[] dimension : dimensions) {
+                boolean[] expAnd = referenceAlongDimension(array, condition, true, dimension);
+                boolean[] expOr = referenceAlongDimension(array, condition, false, dimension);
+
+                assertArrayEquals(expAnd, BooleanIndexing.and(array, condition, dimension));
+                assertArrayEquals(expAnd, BooleanIndexing.and(array, dynamic, dimension));
+                assertArrayEquals(expOr, BooleanIndexing.or(array, condition, dimension));
+                assertArrayEquals(expOr, BooleanIndexing.or(array, dynamic, dimension));
+            }
+        }
+    }
+
+    @Test
+    public void testAndOrAlongDimensionDynamicOnView() {
+        INDArray array = Nd4j.linspace(1, 400, 400).reshape('c', 20, 20).get(NDArrayIndex.interval(2, 18),
+                        NDArrayIndex.interval(0, 2, 20));
+        Condition dynamic = new Or(Conditions.lessThan(60), Conditions.greaterThan(300));
+
+        for (int dimension = 0; dimension < 2; dimension++) {
+            assertArrayEquals(referenceAlongDimension(array, dynamic, true, dimension),
+                            BooleanIndexing.and(array, dynamic, dimension));
+            assertArrayEquals(referenceAlongDimension(array, dynamic, false, dimension),
+                            BooleanIndexing.or(array, dynamic, dimension));
+        }
+    }
+
+    @Test
+    public void testAndOrAlongDimensionDynamicEveryRow() {
+        //rows: 1..5, 6..10, 11..15, 16..20
+        INDArray array = Nd4j.linspace(1, 20, 20).reshape('c', 4, 5);
+
+        assertArrayEquals(new boolean[] {false, false, true, true},
+                        BooleanIndexing.and(array, new And(Conditions.greaterThan(7)), 1));
+        assertArrayEquals(new boolean[] {false, true, true, true},
+                        BooleanIndexing.or(array, new And(Conditions.greaterThan(7)), 1));
+        assertArrayEquals(new boolean[] {false, false, true, true, true},
+                        BooleanIndexing.and(array, new And(Conditions.greaterThan(2)), 0));
+        assertArrayEquals(new boolean[] {true, true, false, false, false},
+                        BooleanIndexing.or(array, new And(Conditions.lessThan(3)), 0));
+
+        //large enough to be split across the fork join pool: only row 1000 matches
+        INDArray big = Nd4j.zeros(2000, 50);
+        big.getRow(1000).assign(1.0);
+        boolean[] any = BooleanIndexing.or(big, new And(Conditions.greaterThan(0.5)), 1);
+        boolean[] all = BooleanIndexing.and(big, new And(Conditions.greaterThan(0.5)), 1);
+        for (int i = 0; i < any.length; i++) {
+            assertEquals("row " + i, i == 1000, any[i]);
+            assertEquals("row " + i, i == 1000, all[i]);
+        }
+    }
+
+    @Test
+    public void testDynamicConditionsOnOffsetView() {
+        INDArray base = Nd4j.linspace(1, 48, 48).reshape('c', 6, 8);
+        INDArrayIndex[] region = {NDArrayIndex.interval(2, 5), NDArrayIndex.interval(1, 7)};
+        //rows 2..4, columns 1..6: 18..23, 26..31, 34..39
+        INDArray view = base.get(region);
+        assertTrue(view.offset() > 0);
+
+        assertTrue(BooleanIndexing.and(view, new And(Conditions.greaterThan(17))));
+        assertFalse(BooleanIndexing.and(view, new And(Conditions.greaterThan(18))));
+        assertTrue(BooleanIndexing.or(view, new And(Conditions.greaterThan(38))));
+        assertFalse(BooleanIndexing.or(view, new And(Conditions.greaterThan(39))));
+
+        Condition condition = new And(Conditions.greaterThan(30));
+
+        INDArray arr = base.dup();
+        BooleanIndexing.applyWhere(arr.get(region), condition, new Value(-1));
+        assertEquals(referenceApplyWhere(base, region, 30, -1, Double.NaN), arr);
+
+        arr = base.dup();
+        BooleanIndexing.applyWhere(arr.get(region), condition, -2);
+        assertEquals(referenceApplyWhere(base, region, 30, -2, Double.NaN), arr);
+
+        arr = base.dup();
+        BooleanIndexing.applyWhere(arr.get(region), condition, new Value(-3), new Value(-4));
+        assertEquals(referenceApplyWhere(base, region, 30, -3, -4), arr);
+    }
+
+    /**
+     * Copy of base where elements of the region greater than threshold are set to value,
+     * the others of the region to alternative (unless NaN)
+     */
+    private static INDArray referenceApplyWhere(INDArray base, INDArrayIndex[] region, double threshold,
+                    double value, double alternative) {
+        INDArray ret = base.dup();
+        INDArray view = ret.get(region);
+        for (int i = 0; i < view.rows(); i++) {
+            for (int j = 0; j < view.columns(); j++) {
+                if (view.getDouble(i, j) > threshold)
+                    view.putScalar(i, j, value);
+                else if (!Double.isNaN(alternative))
+                    view.putScalar(i, j, alternative);
+            }
+        }
+        return ret;
+    }
+
+    private static boolean[] referenceAlongDimension(INDArray array, Condition condition, boolean all,
+                    int... dimension) {
+        boolean[] ret = new boolean[array.tensorssAlongDimension(dimension)];
+        for (int i = 0; i < ret.length; i++) {
+            INDArray tad = array.tensorAlongDimension(i, dimension);
+            boolean result = all;
+            for (int j = 0; j < tad.length(); j++) {
+                boolean matched = condition.apply(tad.getDouble(j));
+                result = all ? result && matched : result || matched;
+            }
+            ret[i] = result;
+        }
+        return ret;
+    }
+
     @Override
     public char ordering() {
         return 'c';
@@ -0,0 +1,221 @@
+package org.nd4j.linalg.knn;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.nd4j.linalg.util.Sorting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class KnnIndexTest extends BaseNd4jTest {
+
+    public KnnIndexTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testExactMatchesTransforms() {
+        INDArray data = Nd4j.rand(new int[] {300, 8}, 119);
+        INDArray queries = Nd4j.rand(new int[] {20, 8}, 120);
+
+        for (Distance distance : Distance.values()) {
+            //small blocks so the per block top k merging is exercised
+            ExactKnnIndex index = new ExactKnnIndex(distance, 64);
+            index.add(data);
+            assertEquals(300, index.size());
+            KnnResult result = index.search(queries, 5);
+            assertArrayEquals(new int[] {20, 5}, result.getIndices().shape());
+
+            INDArray all;
+            switch (distance) {
+                case EUCLIDEAN:
+                    all = Transforms.allEuclideanDistances(queries, data, 1);
+                    break;
+                case COSINE:
+                    all = Transforms.allCosineDistances(queries, data, 1);
+                    break;
+                default:
+                    all = Transforms.allManhattanDistances(queries, data, 1);
+                    break;
+            }
+            INDArray[] expected = Sorting.topK(all, 5, 1, false);
+            assertEquals(distance.name(), expected[0], result.getIndices());
+            assertEquals(distance.name(), expected[1], result.getDistances());
+        }
+    }
+
+    @Test
+    public void testExactMultiQueryBruteForce() {
+        int n = 250, dims = 5, numQueries = 12, k = 7;
+        Random r = new Random(119);
+        double[][] data = new double[n][dims];
+        double[][] queries = new double[numQueries][dims];
+        for (double[] row : data)
+            for (int i = 0; i < dims; i++)
+                row[i] = r.nextDouble();
+        for (double[] row : queries)
+            for (int i = 0; i < dims; i++)
+                row[i] = r.nextDouble();
+
+        for (Distance distance : Distance.values()) {
+            //blocks of 40 rows: every query row merges the top k of several blocks
+            ExactKnnIndex index = new ExactKnnIndex(distance, 40);
+            index.add(Nd4j.create(data));
+            KnnResult result = index.search(Nd4j.create(queries), k);
+
+            for (int q = 0; q < numQueries; q++) {
+                double[] all = new double[n];
+                for (int i = 0; i < n; i++)
+                    all[i] = bruteForce(distance, queries[q], data[i]);
+                double[] sorted = all.clone();
+                Arrays.sort(sorted);
+
+                for (int j = 0; j < k; j++) {
+                    String msg = distance + " query " + q + " neighbour " + j;
+                    double reported = result.getDistances().getDouble(q, j);
+                    assertEquals(msg, sorted[j], reported, 1e-4);
+                    assertEquals(msg, all[result.getIndices().getInt(q, j)], reported, 1e-4);
+                }
+            }
+        }
+    }
+
+    private static double bruteForce(Distance distance, double[] a, double[] b) {
+        double sum = 0, dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            double d = a[i] - b[i];
+            sum += distance == Distance.MANHATTAN ? Math.abs(d) : d * d;
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        switch (distance) {
+            case EUCLIDEAN:
+                return Math.sqrt(sum);
+            case COSINE:
+                return 1.0 - dot / Math.sqrt(normA * normB);
+            default:
+                return sum;
+        }
+    }
+
+    @Test
+    public void testExactIncrementalAdd() {
+        INDArray data = Nd4j.rand(new int[] {100, 6}, 119);
+        INDArray queries = Nd4j.rand(new int[] {10, 6}, 120);
+
+        ExactKnnIndex all = new ExactKnnIndex(Distance.EUCLIDEAN, 32);
+        all.add(data);
+
+        ExactKnnIndex incremental = new ExactKnnIndex(Distance.EUCLIDEAN, 32);
+        for (int i = 0; i < 100; i += 7)
+            incremental.add(data.get(NDArrayIndex.interval(i, Math.min(100, i + 7)), NDArrayIndex.all()));
+        assertEquals(100, incremental.size());
+
+        assertEquals(all.search(queries, 10).getIndices(), incremental.search(queries, 10).getIndices());
+
+        //a stored vector is its own nearest neighbour
+        KnnResult self = all.search(data.getRow(42), 1);
+        assertEquals(42, self.getIndices().getInt(0, 0));
+        assertEquals(0.0, self.getDistances().getDouble(0, 0), 1e-3);
+    }
+
+    @Test
+    public void testHnswRecall() {
+        INDArray data = Nd4j.rand(new int[] {3000, 16}, 119);
+        INDArray queries = Nd4j.rand(new int[] {100, 16}, 120);
+
+        for (Distance distance : Distance.values()) {
+            ExactKnnIndex exact = new ExactKnnIndex(distance);
+            exact.add(data);
+            HnswIndex hnsw = new HnswIndex(distance);
+            //incremental inserts in batches of different sizes
+            hnsw.add(data.get(NDArrayIndex.interval(0, 1), NDArrayIndex.all()));
+            hnsw.add(data.get(NDArrayIndex.interval(1, 1000), NDArrayIndex.all()));
+            hnsw.add(data.get(NDArrayIndex.interval(1000, 3000), NDArrayIndex.all()));
+            assertEquals(3000, hnsw.size());
+
+            KnnResult expected = exact.search(queries, 10);
+            KnnResult actual = hnsw.search(queries, 10);
+            double recall = actual.recall(expected);
+            assertTrue(distance + " recall " + recall, recall >= 0.9);
+
+            //distances are consistent with the exact ones
+            for (int q = 0; q < 100; q++) {
+                if (actual.getIndices().getInt(q, 0) == expected.getIndices().getInt(q, 0))
+                    assertEquals(expected.getDistances().getDouble(q, 0), actual.getDistances().getDouble(q, 0),
+                                    1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void testHnswSmall() {
+        HnswIndex hnsw = new HnswIndex(Distance.EUCLIDEAN);
+        hnsw.add(Nd4j.create(new double[][] {{0, 0}, {1, 0}, {0, 2}}));
+        KnnResult result = hnsw.search(Nd4j.create(new double[] {0.9, 0.1}), 10);
+        //only 3 vectors in the index
+        assertArrayEquals(new int[] {1, 3}, result.getIndices().shape());
+        assertArrayEquals(new int[] {1, 0, 2}, result.indicesOf(0));
+        assertEquals(Math.sqrt(0.01 + 0.01), result.getDistances().getDouble(0, 0), 1e-6);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        INDArray data = Nd4j.rand(new int[] {500, 8}, 119);
+        INDArray queries = Nd4j.rand(new int[] {20, 8}, 120);
+
+        HnswIndex hnsw = new HnswIndex(Distance.COSINE);
+        hnsw.add(data);
+        hnsw.setEfSearch(100);
+        ExactKnnIndex exact = new ExactKnnIndex(Distance.COSINE, 128);
+        exact.add(data);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        hnsw.write(dos);
+        exact.write(dos);
+        dos.flush();
+
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        HnswIndex hnsw2 = HnswIndex.read(dis);
+        ExactKnnIndex exact2 = ExactKnnIndex.read(dis);
+
+        assertEquals(100, hnsw2.getEfSearch());
+        assertEquals(500, hnsw2.size());
+        assertEquals(hnsw.search(queries, 5).getIndices(), hnsw2.search(queries, 5).getIndices());
+        assertEquals(exact.search(queries, 5).getIndices(), exact2.search(queries, 5).getIndices());
+
+        //both still take inserts after loading
+        hnsw2.add(queries);
+        exact2.add(queries);
+        assertEquals(500, hnsw2.search(queries.getRow(0), 1).getIndices().getInt(0, 0));
+        assertEquals(500, exact2.search(queries.getRow(0), 1).getIndices().getInt(0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongDimension() {
+        ExactKnnIndex index = new ExactKnnIndex(Distance.EUCLIDEAN);
+        index.add(Nd4j.rand(10, 4));
+        index.search(Nd4j.rand(2, 5), 3);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
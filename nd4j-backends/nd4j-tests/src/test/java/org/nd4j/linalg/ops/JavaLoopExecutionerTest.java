@@ -0,0 +1,216 @@
+package org.nd4j.linalg.ops;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.Accumulation;
+import org.nd4j.linalg.api.ops.executioner.DefaultOpExecutioner;
+import org.nd4j.linalg.api.ops.executioner.JavaLoopExecutioner;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.api.ops.impl.accum.Max;
+import org.nd4j.linalg.api.ops.impl.accum.Mean;
+import org.nd4j.linalg.api.ops.impl.accum.Norm2;
+import org.nd4j.linalg.api.ops.impl.accum.Sum;
+import org.nd4j.linalg.api.ops.impl.scalar.ScalarAdd;
+import org.nd4j.linalg.api.ops.impl.scalar.ScalarMultiplication;
+import org.nd4j.linalg.api.ops.impl.transforms.RationalTanh;
+import org.nd4j.linalg.api.ops.impl.transforms.Tanh;
+import org.nd4j.linalg.api.ops.impl.transforms.Xor;
+import org.nd4j.linalg.api.ops.impl.transforms.comparison.CompareAndSet;
+import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.AddOp;
+import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.MulOp;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the java loop executioner against the default backend
+ * over c, f and strided inputs.
+ */
+@RunWith(Parameterized.class)
+public class JavaLoopExecutionerTest extends BaseNd4jTest {
+
+    public JavaLoopExecutionerTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testCoalesceDimensions() {
+        //c ordered 2x3x4: one run of 24
+        int[] shape = {2, 3, 4};
+        int[] strides = {12, 4, 1};
+        long[] offsets = {0};
+        assertEquals(1, Shape.coalesceDimensions(shape, offsets, strides));
+        assertEquals(24, shape[0]);
+        assertEquals(1, strides[0]);
+
+        //columns 0..1 of a 3x4 c array: rows can't be merged
+        shape = new int[] {3, 2};
+        strides = new int[] {4, 1};
+        assertEquals(2, Shape.coalesceDimensions(shape, offsets, strides));
+        assertArrayEquals(new int[] {3, 2}, shape);
+
+        //c result, f input: ordered by the result, input strided
+        shape = new int[] {2, 3};
+        int[] cStrides = {3, 1};
+        int[] fStrides = {1, 2};
+        long[] two = {0, 0};
+        assertEquals(2, Shape.coalesceDimensions(shape, two, cStrides, fStrides));
+        assertArrayEquals(new int[] {2, 3}, shape);
+        assertArrayEquals(new int[] {1, 2}, fStrides);
+    }
+
+    @Test
+    public void testPairwiseAndScalar() {
+        for (INDArray[] xy : inputs()) {
+            INDArray x = xy[0];
+            INDArray y = xy[1];
+
+            INDArray z = Nd4j.create(x.shape(), 'c');
+            JavaLoopExecutioner.exec(new AddOp(x, y, z));
+            assertEquals(x.add(y), z);
+
+            z = Nd4j.create(x.shape(), 'f');
+            JavaLoopExecutioner.exec(new MulOp(x, y, z));
+            assertEquals(x.mul(y), z);
+
+            z = Nd4j.create(x.shape(), 'c');
+            JavaLoopExecutioner.exec(new ScalarAdd(x, null, z, x.length(), 2.5));
+            assertEquals(x.add(2.5), z);
+
+            z = Nd4j.create(x.shape(), 'c');
+            JavaLoopExecutioner.exec(new ScalarMultiplication(x, null, z, x.length(), -3.0));
+            assertEquals(x.mul(-3.0), z);
+
+            z = Nd4j.create(x.shape(), 'f');
+            JavaLoopExecutioner.exec(new Tanh(x, z));
+            assertEquals(Nd4j.getExecutioner().execAndReturn(new Tanh(x.dup())), z);
+        }
+    }
+
+    @Test
+    public void testInPlaceView() {
+        INDArray arr = Nd4j.linspace(1, 48, 48).reshape(6, 8);
+        INDArray expected = arr.dup();
+        expected.get(NDArrayIndex.interval(1, 4), NDArrayIndex.interval(2, 7)).muli(2.0);
+
+        INDArray view = arr.get(NDArrayIndex.interval(1, 4), NDArrayIndex.interval(2, 7));
+        JavaLoopExecutioner.exec(new ScalarMultiplication(view, null, view, view.length(), 2.0));
+        assertEquals(expected, arr);
+    }
+
+    @Test
+    public void testFullReductions() {
+        for (INDArray[] xy : inputs()) {
+            INDArray x = xy[0];
+            assertReduce(new Sum(x), x.sumNumber().doubleValue());
+            assertReduce(new Mean(x), x.meanNumber().doubleValue());
+            assertReduce(new Max(x), x.maxNumber().doubleValue());
+            assertReduce(new Norm2(x), x.norm2Number().doubleValue());
+        }
+    }
+
+    @Test
+    public void testDimensionReductions() {
+        for (INDArray[] xy : inputs()) {
+            INDArray x = xy[0];
+            for (int dim = 0; dim < 2; dim++) {
+                assertEquals(x.sum(dim), JavaLoopExecutioner.exec(new Sum(x), dim));
+                assertEquals(x.mean(dim), JavaLoopExecutioner.exec(new Mean(x), dim));
+                assertEquals(x.max(dim), JavaLoopExecutioner.exec(new Max(x), dim));
+                assertEquals(x.norm2(dim), JavaLoopExecutioner.exec(new Norm2(x), dim));
+            }
+        }
+    }
+
+    @Test
+    public void testStubOpsRejected() {
+        INDArray x = Nd4j.rand(5, 7);
+        //these ops are only implemented natively, their java bodies return constants
+        assertFalse(JavaLoopExecutioner.canExec(new RationalTanh(x, x.dup())));
+        assertFalse(JavaLoopExecutioner.canExec(new Xor(x, x.dup(), x.dup())));
+        assertFalse(JavaLoopExecutioner.canExec(new CompareAndSet(x.dup(), 1.0, 0.0, 1e-5)));
+        assertTrue(JavaLoopExecutioner.canExec(new Tanh(x, x.dup())));
+
+        try {
+            JavaLoopExecutioner.exec(new RationalTanh(x, x.dup()));
+            fail("Stub op must not run in java");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        //java mode of the default executioner keeps throwing rather than writing zeros
+        DefaultOpExecutioner executioner = new DefaultOpExecutioner();
+        executioner.setExecutionMode(OpExecutioner.ExecutionMode.JAVA);
+        INDArray z = Nd4j.ones(5, 7);
+        try {
+            executioner.exec(new RationalTanh(x, z));
+            fail("Stub op must not run in java");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        assertEquals(Nd4j.ones(5, 7), z);
+    }
+
+    @Test
+    public void testDefaultExecutionerJavaMode() {
+        DefaultOpExecutioner executioner = new DefaultOpExecutioner();
+        executioner.setExecutionMode(OpExecutioner.ExecutionMode.JAVA);
+
+        for (INDArray[] xy : inputs()) {
+            INDArray x = xy[0];
+            INDArray y = xy[1];
+
+            INDArray z = Nd4j.create(x.shape(), 'c');
+            executioner.exec(new AddOp(x, y, z));
+            assertEquals(x.add(y), z);
+
+            z = Nd4j.create(x.shape(), 'f');
+            executioner.exec(new Tanh(x, z));
+            assertEquals(Nd4j.getExecutioner().execAndReturn(new Tanh(x.dup())), z);
+
+            //a scalar op along a dimension is the same as over the whole array
+            z = Nd4j.create(x.shape(), 'c');
+            executioner.exec(new ScalarAdd(x, null, z, x.length(), 2.5), 1);
+            assertEquals(x.add(2.5), z);
+
+            assertEquals(x.sumNumber().doubleValue(),
+                            executioner.execAndReturn(new Sum(x)).getFinalResult().doubleValue(),
+                            1e-6 * Math.max(1.0, Math.abs(x.sumNumber().doubleValue())));
+            for (int dim = 0; dim < 2; dim++)
+                assertEquals(x.mean(dim), executioner.exec(new Mean(x), dim));
+        }
+    }
+
+    private static void assertReduce(Accumulation op, double expected) {
+        JavaLoopExecutioner.exec(op);
+        assertEquals(expected, op.getFinalResult().doubleValue(), 1e-6 * Math.max(1.0, Math.abs(expected)));
+    }
+
+    /**
+     * Small and large (split across threads) inputs in c order, f order and as strided views
+     */
+    private static INDArray[][] inputs() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray c = Nd4j.rand('c', new int[] {5, 7});
+        INDArray f = Nd4j.rand('f', new int[] {5, 7});
+        INDArray bigC = Nd4j.rand('c', new int[] {300, 400});
+        INDArray bigF = Nd4j.rand('f', new int[] {300, 400});
+        INDArray view = Nd4j.rand('c', new int[] {10, 12}).get(NDArrayIndex.interval(1, 6),
+                        NDArrayIndex.interval(3, 10));
+        INDArray bigView = Nd4j.rand('f', new int[] {400, 500}).get(NDArrayIndex.interval(50, 350),
+                        NDArrayIndex.interval(20, 420));
+        return new INDArray[][] {{c, f}, {f, c}, {view, c}, {c, view}, {bigC, bigF}, {bigF, bigView},
+                        {bigView, bigC}};
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -13,10 +13,14 @@ import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.data.LogLinearHistogram;
+import org.nd4j.linalg.profiler.data.OpHistogramAggregator;
 
 import java.util.Arrays;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -285,4 +289,121 @@ public class OperationProfilerTests {
         a.muli(3f);
     }
 
+
+    @Test
+    public void testHistograms1() throws Exception {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.HISTOGRAMS);
+
+        final INDArray array = Nd4j.createUninitialized(100);
+        for (int i = 0; i < 10; i++)
+            array.addi(1f);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    INDArray local = Nd4j.create(100);
+                    for (int i = 0; i < 100; i++)
+                        local.addi(1f);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        OpHistogramAggregator aggregator = OpProfiler.getInstance().getHistogramAggregator();
+        Map<String, LogLinearHistogram> histograms = aggregator.getHistograms();
+        assertFalse(histograms.isEmpty());
+        assertEquals(410, aggregator.getTotal().getCount());
+
+        // HISTOGRAMS mode doesn't touch shared counters
+        assertEquals(0, OpProfiler.getInstance().getInvocationsCount());
+
+        OpProfiler.getInstance().printOutHistograms();
+    }
+
+    @Test
+    public void testHistogramsReset1() throws Exception {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.HISTOGRAMS);
+        OpHistogramAggregator aggregator = OpProfiler.getInstance().getHistogramAggregator();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                INDArray local = Nd4j.create(100);
+                for (int i = 0; i < 20; i++)
+                    local.addi(1f);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        INDArray array = Nd4j.create(100);
+        for (int i = 0; i < 5; i++)
+            array.addi(1f);
+
+        // samples of the dead thread are kept until reset
+        assertEquals(25, aggregator.getTotal().getCount());
+        assertEquals(25, aggregator.getTotal().getCount());
+
+        OpProfiler.getInstance().reset();
+        assertEquals(0, aggregator.getTotal().getCount());
+
+        array.addi(1f);
+        assertEquals(1, aggregator.getTotal().getCount());
+
+        // scalar access isn't tracked in this mode
+        array.putScalar(0, 1.0);
+        array.getDouble(0);
+        assertEquals(0, OpProfiler.getInstance().getInvocationsCount());
+    }
+
+    @Test
+    public void testHistogramsSampling1() throws Exception {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.HISTOGRAMS);
+        OpHistogramAggregator aggregator = OpProfiler.getInstance().getHistogramAggregator();
+        aggregator.setSamplingRate(0.01);
+        try {
+            INDArray array = Nd4j.create(100);
+            for (int i = 0; i < 1000; i++)
+                array.addi(1f);
+
+            assertEquals(10, aggregator.getTotal().getCount());
+        } finally {
+            aggregator.setSamplingRate(1.0);
+        }
+    }
+
+    @Test
+    public void testLogLinearHistogram1() throws Exception {
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123456789L, (1L << 40) - 1}) {
+            int index = LogLinearHistogram.bucketIndex(value);
+            assertTrue(LogLinearHistogram.bucketLowerBound(index) <= value);
+            assertTrue(LogLinearHistogram.bucketUpperBound(index) >= value);
+            // relative error stays below 1/16
+            assertTrue(LogLinearHistogram.bucketUpperBound(index) - LogLinearHistogram.bucketLowerBound(index) <= value
+                            / 16);
+        }
+
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 1e-5);
+        assertEquals(500, histogram.getPercentile(50), 500 / 16);
+        assertEquals(990, histogram.getPercentile(99), 990 / 16);
+        assertEquals(1000, histogram.getPercentile(100));
+
+        LogLinearHistogram merged = new LogLinearHistogram();
+        merged.add(histogram);
+        merged.add(histogram);
+        assertEquals(2000, merged.getCount());
+        assertEquals(histogram.getPercentile(50), merged.getPercentile(50));
+    }
+
 }
@@ -0,0 +1,136 @@
+package org.nd4j.linalg.rng;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.rng.CounterBasedRandom;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class CounterBasedRandomTest extends BaseNd4jTest {
+
+    public CounterBasedRandomTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testPhiloxKnownAnswers() {
+        // known answer tests from the Random123 distribution
+        int[] out = new int[4];
+        CounterBasedRandom.philox(0L, 0L, 0L, out);
+        assertArrayEquals(new int[] {0x6627e8d5, 0xe169c58d, 0xbc57ac4c, 0x9b00dbd8}, out);
+
+        CounterBasedRandom.philox(-1L, -1L, -1L, out);
+        assertArrayEquals(new int[] {0x408f276d, 0x41c83b0e, 0xa20bc7c6, 0x6d5451fd}, out);
+
+        CounterBasedRandom.philox(0x85a308d3243f6a88L, 0x0370734413198a2eL, 0x299f31d0a4093822L, out);
+        assertArrayEquals(new int[] {0xd16cfe09, 0x94fdcceb, 0x5001e420, 0x24126ea1}, out);
+    }
+
+    @Test
+    public void testSameSeedSameSequence() {
+        CounterBasedRandom first = new CounterBasedRandom(119);
+        CounterBasedRandom second = new CounterBasedRandom(119);
+        for (int i = 0; i < 1000; i++)
+            assertEquals(first.nextLong(), second.nextLong());
+
+        first.setSeed(119);
+        second.setSeed(120);
+        assertNotEquals(first.nextLong(), second.nextLong());
+    }
+
+    @Test
+    public void testSplitIndependentOfDrawnNumbers() {
+        CounterBasedRandom root = new CounterBasedRandom(119);
+        CounterBasedRandom a = root.split(3);
+        for (int i = 0; i < 100; i++)
+            root.nextDouble();
+        CounterBasedRandom b = root.split(3);
+        CounterBasedRandom c = root.split(4);
+
+        assertEquals(a.getStream(), b.getStream());
+        assertNotEquals(a.getStream(), c.getStream());
+        assertEquals(a.nextLong(), b.nextLong());
+    }
+
+    @Test
+    public void testParallelStreamsReproducible() throws Exception {
+        final int threads = 8;
+        long[][] first = drawFromThreads(threads);
+        long[][] second = drawFromThreads(threads);
+        for (int i = 0; i < threads; i++)
+            assertArrayEquals(first[i], second[i]);
+    }
+
+    private static long[][] drawFromThreads(int threads) throws Exception {
+        final CounterBasedRandom root = new CounterBasedRandom(42);
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int streamId = t;
+            futures.add(service.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() throws Exception {
+                    CounterBasedRandom rng = root.split(streamId);
+                    long[] ret = new long[10000];
+                    for (int i = 0; i < ret.length; i++)
+                        ret[i] = rng.nextLong();
+                    return ret;
+                }
+            }));
+        }
+
+        long[][] ret = new long[threads][];
+        for (int t = 0; t < threads; t++)
+            ret[t] = futures.get(t).get();
+        service.shutdown();
+        return ret;
+    }
+
+    @Test
+    public void testArrayFillDeterministic() {
+        // large enough to be split over the fork join pool
+        INDArray first = new CounterBasedRandom(119).nextGaussian(Nd4j.create(500, 1000), 0.0, 1.0);
+        INDArray second = new CounterBasedRandom(119).nextGaussian(Nd4j.create(500, 1000), 0.0, 1.0);
+        assertEquals(first, second);
+
+        assertEquals(0.0, first.meanNumber().doubleValue(), 0.01);
+        assertEquals(1.0, first.stdNumber().doubleValue(), 0.01);
+    }
+
+    @Test
+    public void testArrayFillOnView() {
+        CounterBasedRandom rng = new CounterBasedRandom(119);
+        INDArray base = Nd4j.zeros(10, 10);
+        INDArray column = base.getColumn(3);
+        rng.nextUniform(column, 5.0, 6.0);
+
+        assertEquals(column.sumNumber().doubleValue(), base.sumNumber().doubleValue(), 1e-5);
+        assertTrue(column.minNumber().doubleValue() >= 5.0);
+        assertTrue(column.maxNumber().doubleValue() < 6.0);
+    }
+
+    @Test
+    public void testBernoulli() {
+        INDArray mask = new CounterBasedRandom(119).nextBernoulli(Nd4j.create(100000), 0.3);
+        assertEquals(0.3, mask.meanNumber().doubleValue(), 0.01);
+        assertEquals(mask.length(), mask.eq(0.0).add(mask.eq(1.0)).sumNumber().intValue());
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
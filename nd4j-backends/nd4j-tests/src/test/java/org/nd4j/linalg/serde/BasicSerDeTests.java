@@ -5,15 +5,25 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.BaseDataBuffer;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Created by raver119 on 21.12.16.
@@ -53,6 +63,105 @@ public class BasicSerDeTests extends BaseNd4jTest {
         Nd4j.setDataType(initialType);
     }
 
+    @Test
+    public void testBulkRoundTrip() throws Exception {
+        INDArray array = Nd4j.rand(new int[] {300, 500}, 119);
+        INDArray view = array.get(NDArrayIndex.interval(10, 20), NDArrayIndex.all());
+
+        for (INDArray arr : new INDArray[] {array, view, Nd4j.scalar(3.0)}) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            Nd4j.write(bos, arr);
+            assertEquals(arr, Nd4j.read(new ByteArrayInputStream(bos.toByteArray())));
+        }
+
+        DataBuffer ints = Nd4j.createBuffer(new int[] {1, -2, 3, Integer.MAX_VALUE});
+        assertEquals(ints, roundTrip(ints));
+    }
+
+    @Test
+    public void testReadLegacyStream() throws Exception {
+        float[] data = new float[] {1.5f, -2, 3, 4, 5e10f};
+
+        //layout written before the bulk header existed: big endian, element by element
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeUTF(DataBuffer.AllocationMode.JAVACPP.name());
+        dos.writeInt(data.length);
+        dos.writeUTF(DataBuffer.Type.FLOAT.name());
+        for (float f : data)
+            dos.writeFloat(f);
+
+        DataBuffer restored = Nd4j.createBuffer(data.length);
+        restored.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        assertEquals(Nd4j.createBuffer(data), restored);
+    }
+
+    @Test
+    public void testReadOtherByteOrder() throws Exception {
+        double[] data = new double[] {1.5, -2, 3, 4, 5e100};
+        ByteOrder other = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN
+                        : ByteOrder.BIG_ENDIAN;
+
+        ByteBuffer contents = ByteBuffer.allocate(data.length * 8).order(other);
+        contents.asDoubleBuffer().put(data);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeUTF(BaseDataBuffer.BULK_HEADER);
+        dos.writeByte(BaseDataBuffer.BULK_VERSION);
+        dos.writeUTF(other.toString());
+        dos.writeUTF(DataBuffer.AllocationMode.JAVACPP.name());
+        dos.writeInt(data.length);
+        dos.writeUTF(DataBuffer.Type.DOUBLE.name());
+        dos.write(contents.array());
+
+        DataBuffer.Type initialType = Nd4j.dataType();
+        try {
+            for (DataBuffer.Type type : new DataBuffer.Type[] {DataBuffer.Type.DOUBLE, DataBuffer.Type.FLOAT}) {
+                Nd4j.setDataType(type);
+                DataBuffer restored = Nd4j.createBuffer(data.length);
+                restored.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+                assertEquals(type, restored.dataType());
+                for (int i = 0; i < data.length; i++)
+                    assertEquals(data[i], restored.getDouble(i), Math.abs(data[i]) * 1e-6);
+            }
+        } finally {
+            Nd4j.setDataType(initialType);
+        }
+    }
+
+    @Test
+    public void testReadUnknownVersion() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeUTF(BaseDataBuffer.BULK_HEADER);
+        dos.writeByte(BaseDataBuffer.BULK_VERSION + 1);
+        dos.writeUTF(ByteOrder.nativeOrder().toString());
+        dos.writeUTF(DataBuffer.AllocationMode.JAVACPP.name());
+        dos.writeInt(1);
+        dos.writeUTF(DataBuffer.Type.FLOAT.name());
+        dos.writeFloat(1.0f);
+
+        try {
+            Nd4j.createBuffer(1).read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+            fail("Expected the unknown layout version to be rejected");
+        } catch (RuntimeException e) {
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof IllegalStateException))
+                cause = cause.getCause();
+            assertNotNull(cause);
+            assertTrue(cause.getMessage().contains("version"));
+        }
+    }
+
+    private static DataBuffer roundTrip(DataBuffer buffer) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        buffer.write(new DataOutputStream(bos));
+        DataBuffer restored = Nd4j.createBuffer(buffer.length());
+        restored.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        return restored;
+    }
+
     @Override
     public char ordering() {
         return 'f';
@@ -0,0 +1,152 @@
+package org.nd4j.linalg.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class SortingTest extends BaseNd4jTest {
+
+    public SortingTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testArgsortPrimitive() {
+        Random r = new Random(12345);
+        for (int length : new int[] {0, 1, 5, 17, 1000}) {
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++)
+                values[i] = r.nextInt(50);
+
+            for (boolean ascending : new boolean[] {true, false}) {
+                int[] indices = Sorting.argsort(values, ascending);
+                boolean[] seen = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    assertFalse(seen[indices[i]]);
+                    seen[indices[i]] = true;
+                    if (i > 0) {
+                        double prev = values[indices[i - 1]];
+                        double curr = values[indices[i]];
+                        assertTrue(ascending ? prev <= curr : prev >= curr);
+                        //ties keep the original order
+                        if (prev == curr)
+                            assertTrue(indices[i - 1] < indices[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSortWithIndicesTieOrder() {
+        INDArray ascending = Nd4j.create(new double[] {2, 1, 2, 1, 3});
+        INDArray[] sorted = Nd4j.sortWithIndices(ascending, 1, true);
+        assertEquals(Nd4j.create(new double[] {1, 3, 0, 2, 4}), sorted[0]);
+        assertEquals(Nd4j.create(new double[] {1, 1, 2, 2, 3}), sorted[1]);
+
+        //descending is the exact reverse of ascending: equal values highest index first
+        INDArray descending = Nd4j.create(new double[] {2, 1, 2, 1, 3});
+        sorted = Nd4j.sortWithIndices(descending, 1, false);
+        assertEquals(Nd4j.create(new double[] {4, 2, 0, 3, 1}), sorted[0]);
+        assertEquals(Nd4j.create(new double[] {3, 2, 2, 1, 1}), sorted[1]);
+    }
+
+    @Test
+    public void testTopKPrimitive() {
+        Random r = new Random(12345);
+        //large enough to go through the chunked parallel selection
+        double[] values = new double[1000000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = r.nextGaussian();
+
+        int[] sorted = Sorting.argsort(values, false);
+        for (int k : new int[] {1, 10, 1000}) {
+            assertArrayEquals(Arrays.copyOf(sorted, k), Sorting.topK(values, k, true));
+        }
+
+        int[] ascending = Sorting.argsort(values, true);
+        assertArrayEquals(Arrays.copyOf(ascending, 50), Sorting.topK(values, 50, false));
+
+        assertArrayEquals(new int[] {1, 2, 0}, Sorting.topK(new double[] {1, 3, 2}, 5, true));
+    }
+
+    @Test
+    public void testArgsortAlongDimension() {
+        INDArray arr = Nd4j.rand(new int[] {4, 7, 5}, 119);
+        for (int dimension = 0; dimension < 3; dimension++) {
+            INDArray[] sorted = Sorting.argsort(arr, dimension, true);
+            INDArray expected = Nd4j.sort(arr.dup(), dimension, true);
+            assertEquals(expected, sorted[1]);
+
+            for (int i = 0; i < arr.tensorssAlongDimension(dimension); i++) {
+                INDArray original = arr.tensorAlongDimension(i, dimension);
+                INDArray indices = sorted[0].tensorAlongDimension(i, dimension);
+                INDArray values = sorted[1].tensorAlongDimension(i, dimension);
+                for (int j = 0; j < original.length(); j++)
+                    assertEquals(original.getDouble(indices.getInt(j)), values.getDouble(j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testTopKAlongDimension() {
+        INDArray arr = Nd4j.rand(new int[] {30, 200}, 119);
+        INDArray[] top = Nd4j.topK(arr, 5, 1);
+        assertArrayEquals(new int[] {30, 5}, top[0].shape());
+        assertArrayEquals(new int[] {30, 5}, top[1].shape());
+
+        INDArray[] sorted = Nd4j.argsort(arr, 1, false);
+        assertEquals(sorted[0].get(NDArrayIndex.all(), NDArrayIndex.interval(0, 5)), top[0]);
+        assertEquals(sorted[1].get(NDArrayIndex.all(), NDArrayIndex.interval(0, 5)), top[1]);
+
+        //every row (each one a tad with its own offset) against a plain sort of its copy
+        for (int i = 0; i < arr.rows(); i++) {
+            double[] row = arr.getRow(i).dup().data().asDouble();
+            double[] rowSorted = row.clone();
+            Arrays.sort(rowSorted);
+            for (int j = 0; j < 5; j++) {
+                double expected = rowSorted[rowSorted.length - 1 - j];
+                assertEquals(expected, top[1].getDouble(i, j), 0.0);
+                assertEquals(expected, row[top[0].getInt(i, j)], 0.0);
+            }
+        }
+
+        //preallocated outputs, smallest along the rows
+        INDArray indices = Nd4j.create(3, 200);
+        INDArray values = Nd4j.create(3, 200);
+        Sorting.topK(arr, 3, 0, false, indices, values);
+        INDArray[] ascending = Nd4j.argsort(arr, 0, true);
+        assertEquals(ascending[0].get(NDArrayIndex.interval(0, 3), NDArrayIndex.all()), indices);
+        assertEquals(ascending[1].get(NDArrayIndex.interval(0, 3), NDArrayIndex.all()), values);
+    }
+
+    @Test
+    public void testTopKView() {
+        INDArray arr = Nd4j.linspace(1, 100, 100).reshape(10, 10);
+        INDArray view = arr.get(NDArrayIndex.interval(2, 5), NDArrayIndex.interval(0, 2, 10));
+        INDArray[] top = Nd4j.topK(view, 2, 1);
+        assertEquals(Nd4j.create(new double[][] {{29, 27}, {39, 37}, {49, 47}}), top[1]);
+        assertEquals(Nd4j.create(new double[][] {{4, 3}, {4, 3}, {4, 3}}), top[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongOutputShape() {
+        Sorting.topK(Nd4j.rand(3, 4), 2, 1, true, Nd4j.create(3, 3), null);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
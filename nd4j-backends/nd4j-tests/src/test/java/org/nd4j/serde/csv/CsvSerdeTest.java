@@ -0,0 +1,97 @@
+package org.nd4j.serde.csv;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+
+public class CsvSerdeTest {
+
+    @Test
+    public void testParseDouble() {
+        String[] values = {"0", "1", "-1", "+2.5", "3.", ".5", "0.1", "-0.0", "1e10", "1.5E-7", "123456789.123456789",
+                        "0.30000000000000004", "1e-400", "4.9e-324", "1.7976931348623157e308", "NaN", "-Infinity",
+                        "12345678901234567890123"};
+        for (String value : values) {
+            ByteBuffer buffer = ByteBuffer.wrap((" " + value + " ").getBytes(StandardCharsets.US_ASCII));
+            assertEquals(value, Double.parseDouble(value), CsvSerde.parseDouble(buffer, 1, value.length() + 1),
+                            0.0);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseGarbage() {
+        CsvSerde.parseDouble(ByteBuffer.wrap("1.2x".getBytes(StandardCharsets.US_ASCII)), 0, 4);
+    }
+
+    @Test
+    public void testAppendFixed() {
+        double[] values = {0, 1, -1, 0.125, -0.004, 3.14159, 1e20, -2.5e-10};
+        String[] expected = {"0.00", "1.00", "-1.00", "0.13", "0.00", "3.14", "100000000000000000000.00", "0.00"};
+        for (int i = 0; i < values.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            CsvSerde.appendFixed(sb, values[i], 2);
+            assertEquals(expected[i], sb.toString());
+        }
+        StringBuilder sb = new StringBuilder();
+        CsvSerde.appendFixed(sb, 2.5, 0);
+        assertEquals("3", sb.toString());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = File.createTempFile("csvserde", ".csv");
+        file.deleteOnExit();
+        //large enough to be split into several chunks
+        INDArray arr = Nd4j.randn(new int[] {20000, 20}, 119);
+        CsvSerde.write(arr, file, ',');
+        INDArray read = CsvSerde.read(file, ',');
+        assertArrayEquals(arr.shape(), read.shape());
+        assertEquals(arr, read);
+
+        //an offset view split into several row blocks, each block being a view with its own offset
+        INDArray offsetView = arr.get(NDArrayIndex.interval(1, 19999), NDArrayIndex.interval(1, 19));
+        CsvSerde.write(offsetView, file, ',');
+        assertEquals(offsetView, CsvSerde.read(file, ','));
+
+        //views and f ordered arrays are written in logical order
+        INDArray view = arr.get(NDArrayIndex.interval(5, 15), NDArrayIndex.interval(2, 7)).dup('f');
+        CsvSerde.write(view, file, '\t', 4);
+        INDArray numpy = Nd4j.readNumpy(file.getAbsolutePath(), "\t");
+        assertArrayEquals(view.shape(), numpy.shape());
+        assertEquals(numpy, CsvSerde.read(file, '\t'));
+    }
+
+    @Test
+    public void testReadFormats() throws Exception {
+        File file = File.createTempFile("csvserde", ".csv");
+        file.deleteOnExit();
+        INDArray expected = Nd4j.create(new double[][] {{1, 2.5, -3}, {4e2, 0.5, 6}});
+
+        FileUtils.writeStringToFile(file, "a,b,c\r\n1, 2.5 ,-3\r\n\r\n4e2,.5,6");
+        assertEquals(expected, CsvSerde.read(file, ',', 1));
+
+        FileUtils.writeStringToFile(file, "  1\t2.5  -3\n4e2 0.5\t\t6   \n\n");
+        assertEquals(expected, CsvSerde.read(file, ' '));
+        assertEquals(expected, CsvSerde.read(file, '\t'));
+
+        FileUtils.writeStringToFile(file, "1;2.5;-3\n400;0.5;6\n");
+        assertEquals(expected, Nd4j.readCsv(file.getAbsolutePath(), ';'));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInconsistentColumns() throws Exception {
+        File file = File.createTempFile("csvserde", ".csv");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "1,2,3\n4,5\n");
+        CsvSerde.read(file, ',');
+    }
+}
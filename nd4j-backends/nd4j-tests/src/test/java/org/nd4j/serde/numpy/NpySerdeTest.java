@@ -0,0 +1,133 @@
+package org.nd4j.serde.numpy;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NpySerdeTest {
+
+    @Test
+    public void testReadNumpyFiles() throws Exception {
+        //written by numpy.save
+        INDArray arr = NpySerde.read(new ClassPathResource("test.npy").getFile());
+        assertEquals(Nd4j.create(new double[][] {{1, 2}, {3, 4}}), arr);
+
+        INDArray rank3 = NpySerde.read(new ClassPathResource("rank3.npy").getFile());
+        assertArrayEquals(new int[] {2, 2, 2}, rank3.shape());
+        assertEquals(Nd4j.linspace(1, 8, 8).reshape('c', 2, 2, 2), rank3);
+    }
+
+    @Test
+    public void testHeader() {
+        byte[] header = NpySerde.header("<f8", false, new int[] {2, 3});
+        assertEquals(0, header.length % 64);
+        String dict = new String(header, 10, header.length - 10, StandardCharsets.US_ASCII);
+        assertTrue(dict.startsWith("{'descr': '<f8', 'fortran_order': False, 'shape': (2, 3), }"));
+        assertTrue(dict.endsWith(" \n"));
+        assertEquals(header.length - 10, (header[8] & 0xFF) | ((header[9] & 0xFF) << 8));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        INDArray c = Nd4j.rand(new int[] {3, 4, 5}, 119);
+        INDArray f = c.dup('f');
+        INDArray view = c.get(NDArrayIndex.interval(1, 3), NDArrayIndex.all(), NDArrayIndex.interval(0, 2, 5));
+        //dense views with an offset, written straight from the buffer memory
+        INDArray denseC = c.get(NDArrayIndex.interval(1, 3), NDArrayIndex.all(), NDArrayIndex.all());
+        INDArray denseF = f.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.interval(2, 4));
+        assertTrue(denseC.offset() > 0 && denseF.offset() > 0);
+        for (INDArray arr : new INDArray[] {c, f, view, denseC, denseF, Nd4j.scalar(3.0), Nd4j.linspace(1, 10, 10)}) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            NpySerde.write(arr, bos);
+            INDArray read = NpySerde.read(new ByteArrayInputStream(bos.toByteArray()));
+            assertArrayEquals(arr.shape(), read.shape());
+            assertEquals(arr, read);
+        }
+
+        //fortran ordered data stays fortran ordered
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        NpySerde.write(f, bos);
+        assertEquals('f', NpySerde.read(new ByteArrayInputStream(bos.toByteArray())).ordering());
+    }
+
+    @Test
+    public void testConvertTypeAndByteOrder() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(NpySerde.header(">i8", false, new int[] {2, 3}));
+        ByteBuffer data = ByteBuffer.allocate(6 * 8).order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < 6; i++)
+            data.putLong(i - 2);
+        bos.write(data.array());
+
+        INDArray read = NpySerde.read(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(Nd4j.create(new double[][] {{-2, -1, 0}, {1, 2, 3}}), read);
+    }
+
+    @Test
+    public void testMmap() throws Exception {
+        File file = File.createTempFile("npyserde", ".npy");
+        file.deleteOnExit();
+        INDArray arr = Nd4j.rand(new int[] {50, 40}, 119);
+        NpySerde.write(arr, file);
+        byte[] before = Files.readAllBytes(file.toPath());
+
+        INDArray mapped = NpySerde.mmap(file);
+        assertEquals(arr, mapped);
+        assertEquals(arr.sum(1), mapped.sum(1));
+
+        //writes stay private to the process
+        mapped.addi(1.0);
+        assertEquals(arr.add(1.0), mapped);
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+        assertEquals(arr, Nd4j.readNpy(file, false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMmapWrongType() throws Exception {
+        File file = File.createTempFile("npyserde", ".npy");
+        file.deleteOnExit();
+        String descr = NpySerde.descr(Nd4j.dataType() == DataBuffer.Type.DOUBLE ? DataBuffer.Type.FLOAT
+                        : DataBuffer.Type.DOUBLE, ByteOrder.nativeOrder());
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(NpySerde.header(descr, false, new int[] {2, 2}));
+            fos.write(new byte[32]);
+        }
+        NpySerde.mmap(file);
+    }
+
+    @Test
+    public void testNpz() throws Exception {
+        File file = File.createTempFile("npzserde", ".npz");
+        file.deleteOnExit();
+        Map<String, INDArray> arrays = new LinkedHashMap<>();
+        arrays.put("features", Nd4j.rand(new int[] {100, 20}, 119));
+        arrays.put("labels", Nd4j.rand(new int[] {100, 3}, 120).dup('f'));
+        arrays.put("weights", Nd4j.linspace(1, 5, 5));
+
+        for (boolean compressed : new boolean[] {false, true}) {
+            NpzSerde.write(arrays, file, compressed);
+            assertEquals(Arrays.asList("features", "labels", "weights"), NpzSerde.names(file));
+            Map<String, INDArray> read = NpzSerde.read(file);
+            assertEquals(arrays, read);
+            assertEquals(arrays.get("labels"), NpzSerde.read(file, "labels"));
+            assertNull(NpzSerde.read(file, "missing"));
+        }
+    }
+}
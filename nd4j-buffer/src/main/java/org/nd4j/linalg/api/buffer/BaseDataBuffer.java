@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
@@ -77,6 +78,24 @@ public abstract class BaseDataBuffer implements DataBuffer {
 
     protected transient boolean constant = false;
 
+    /**
+     * Marks a stream written by {@link #write(DataOutputStream)} with the contents
+     * dumped as raw bytes. It takes the place of the allocation mode of the
+     * legacy layout and is followed by the {@link #BULK_VERSION} byte and the
+     * {@link ByteOrder} of the contents.
+     * Streams without it are read element by element (big endian) as before.
+     *
+     * Note that this is a one way change: nd4j versions predating the marker
+     * can't read these streams (they fail parsing the allocation mode).
+     */
+    public static final String BULK_HEADER = "BULK";
+    /**
+     * Version of the layout following {@link #BULK_HEADER}.
+     * Streams with any other version are rejected on read.
+     */
+    public static final byte BULK_VERSION = 1;
+    protected static final int BULK_CHUNK_BYTES = 1 << 20;
+
     private static Logger log = LoggerFactory.getLogger(BaseDataBuffer.class);
 
     public BaseDataBuffer() {}
@@ -1293,7 +1312,13 @@ public abstract class BaseDataBuffer implements DataBuffer {
     public void read(DataInputStream s) {
         try {
             //referencing = Collections.synchronizedSet(new HashSet<String>());
-            allocationMode = AllocationMode.valueOf(s.readUTF());
+            String header = s.readUTF();
+            ByteOrder order = null;
+            if (BULK_HEADER.equals(header)) {
+                order = readBulkHeader(s);
+                header = s.readUTF();
+            }
+            allocationMode = AllocationMode.valueOf(header);
             length = s.readInt();
             Type currentType = Type.valueOf(s.readUTF());
             if (currentType != Type.COMPRESSED)
@@ -1316,8 +1341,12 @@ public abstract class BaseDataBuffer implements DataBuffer {
             }
             pointerIndexerByGlobalType(currentType);
 
-            if (currentType != Type.COMPRESSED)
-                readContent(s, currentType, DataTypeUtil.getDtypeFromContext());
+            if (currentType != Type.COMPRESSED) {
+                if (order != null)
+                    readBulkContent(s, currentType, order, DataTypeUtil.getDtypeFromContext());
+                else
+                    readContent(s, currentType, DataTypeUtil.getDtypeFromContext());
+            }
 
             //wrappedBuffer = pointer().asByteBuffer();
 
@@ -1344,9 +1373,7 @@ public abstract class BaseDataBuffer implements DataBuffer {
 
                 // special case here. We should collect bytes, wrap them into pointer, and then decompress
                 byte[] temp = new byte[(int) compressedLength];
-                for (int i = 0; i < compressedLength; i++) {
-                    temp[i] = s.readByte();
-                }
+                s.readFully(temp);
                 pointer = new BytePointer(temp);
                 type = Type.COMPRESSED;
 
@@ -1364,10 +1391,132 @@ public abstract class BaseDataBuffer implements DataBuffer {
         }
     }
 
+    /**
+     * Read the contents written by the bulk path of {@link #write(DataOutputStream)}.
+     * When the stored type matches the type of this buffer the bytes are copied
+     * straight into the buffer's memory (swapping bytes in bulk if the stream
+     * was written on a machine with a different byte order),
+     * otherwise the elements are converted one by one.
+     */
+    protected void readBulkContent(DataInputStream s, Type currentType, ByteOrder order, Type globalType)
+                    throws IOException {
+        int srcElementSize = sizeOf(currentType);
+        byte[] chunk = new byte[(int) Math.min(BULK_CHUNK_BYTES, Math.max(srcElementSize, length() * srcElementSize))];
+
+        ByteBuffer target = currentType == dataType() ? contentBuffer() : null;
+        if (target != null) {
+            if (order == target.order()) {
+                while (target.hasRemaining()) {
+                    int n = Math.min(chunk.length, target.remaining());
+                    s.readFully(chunk, 0, n);
+                    target.put(chunk, 0, n);
+                }
+            } else {
+                while (target.hasRemaining()) {
+                    int n = Math.min(chunk.length, target.remaining());
+                    s.readFully(chunk, 0, n);
+                    ByteBuffer source = ByteBuffer.wrap(chunk, 0, n).order(order);
+                    switch (currentType) {
+                        case DOUBLE:
+                            target.asDoubleBuffer().put(source.asDoubleBuffer());
+                            break;
+                        case LONG:
+                            target.asLongBuffer().put(source.asLongBuffer());
+                            break;
+                        case HALF:
+                            target.asShortBuffer().put(source.asShortBuffer());
+                            break;
+                        case INT:
+                            target.asIntBuffer().put(source.asIntBuffer());
+                            break;
+                        default:
+                            target.asFloatBuffer().put(source.asFloatBuffer());
+                            break;
+                    }
+                    target.position(target.position() + n);
+                }
+            }
+            return;
+        }
+
+        // different type (or no direct access to the memory): convert element by element
+        ByteBuffer source = ByteBuffer.wrap(chunk).order(order);
+        source.limit(0);
+        for (long i = 0; i < length(); i++) {
+            if (!source.hasRemaining()) {
+                int n = (int) Math.min(chunk.length, (length() - i) * srcElementSize);
+                s.readFully(chunk, 0, n);
+                source.position(0);
+                source.limit(n);
+            }
+
+            switch (currentType) {
+                case DOUBLE:
+                    putByGlobalType(i, source.getDouble(), globalType);
+                    break;
+                case LONG:
+                    putByGlobalType(i, source.getLong(), globalType);
+                    break;
+                case HALF:
+                    putByGlobalType(i, toFloat(source.getShort()), globalType);
+                    break;
+                case INT:
+                    putByGlobalType(i, source.getInt(), globalType);
+                    break;
+                default:
+                    putByGlobalType(i, source.getFloat(), globalType);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Write the buffer to the given stream.
+     *
+     * The contents are dumped as raw bytes in native byte order,
+     * with the byte order recorded in the header (see {@link #BULK_HEADER}).
+     * Buffers whose memory can't be viewed as a single {@link ByteBuffer}
+     * (2GB and up) are written in the legacy element by element layout.
+     */
     @Override
     public void write(DataOutputStream out) throws IOException {
         if (length() >= Integer.MAX_VALUE)
             throw new IllegalArgumentException("Length of data buffer can not be >= Integer.MAX_VALUE on output");
+
+        ByteBuffer content = writeBulkHeader(out);
+        if (content == null) {
+            writeLegacy(out);
+            return;
+        }
+
+        byte[] chunk = new byte[Math.max(1, Math.min(BULK_CHUNK_BYTES, content.remaining()))];
+        while (content.hasRemaining()) {
+            int n = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, n);
+            out.write(chunk, 0, n);
+        }
+    }
+
+    @Override
+    public ByteBuffer writeBulkHeader(DataOutputStream out) throws IOException {
+        ByteBuffer content = contentBuffer();
+        if (content == null)
+            return null;
+
+        out.writeUTF(BULK_HEADER);
+        out.writeByte(BULK_VERSION);
+        out.writeUTF(content.order().toString());
+        out.writeUTF(allocationMode.name());
+        out.writeInt((int) length());
+        out.writeUTF(dataType().name());
+        return content;
+    }
+
+    /**
+     * Write the buffer element by element (big endian),
+     * the layout used before {@link #BULK_HEADER} was introduced
+     */
+    protected void writeLegacy(DataOutputStream out) throws IOException {
         //        log.info("Saving dType: {}", dataType().name());
         out.writeUTF(allocationMode.name());
         out.writeInt((int) length());
@@ -1389,6 +1538,113 @@ public abstract class BaseDataBuffer implements DataBuffer {
         }
     }
 
+    /**
+     * A native order view of exactly the memory backing this buffer
+     * (from {@link #offset()}, {@link #length()} elements long),
+     * or null if there is no such view
+     */
+    protected ByteBuffer contentBuffer() {
+        if (pointer() == null || dataType() == Type.COMPRESSED)
+            return null;
+
+        long start = offset() * getElementSize();
+        long end = start + length() * getElementSize();
+        if (end > Integer.MAX_VALUE)
+            return null;
+
+        ByteBuffer buffer = wrappedBuffer();
+        if (buffer == null || buffer.capacity() < end)
+            return null;
+
+        buffer = buffer.duplicate();
+        buffer.limit((int) end);
+        buffer.position((int) start);
+        // slice() resets the order to big endian
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Read the rest of the bulk header: the layout version and the byte order of the contents
+     * @param s the stream, positioned right after {@link #BULK_HEADER}
+     * @return the byte order of the contents
+     * @throws IllegalStateException if the stream was written with an unknown layout version
+     */
+    protected static ByteOrder readBulkHeader(DataInputStream s) throws IOException {
+        byte version = s.readByte();
+        if (version != BULK_VERSION)
+            throw new IllegalStateException("Unsupported data buffer layout version " + version + ", this version of"
+                            + " nd4j reads version " + BULK_VERSION + ". Was the buffer written by a newer nd4j?");
+
+        String order = s.readUTF();
+        if (ByteOrder.BIG_ENDIAN.toString().equals(order))
+            return ByteOrder.BIG_ENDIAN;
+        else if (ByteOrder.LITTLE_ENDIAN.toString().equals(order))
+            return ByteOrder.LITTLE_ENDIAN;
+        throw new IllegalStateException("Unknown byte order " + order);
+    }
+
+    /**
+     * Wraps a stream positioned at bulk contents so that the contents
+     * can be read with the big endian reads of the legacy layout.
+     * Meant for buffer implementations that parse the stream themselves.
+     * @param s the stream, positioned right after the header
+     * @param currentType the type the contents were written with
+     * @param order the byte order of the contents
+     * @return a stream producing the contents in big endian order
+     */
+    protected static DataInputStream asBigEndian(DataInputStream s, Type currentType, ByteOrder order) {
+        if (order == ByteOrder.BIG_ENDIAN || sizeOf(currentType) == 1)
+            return s;
+        return new DataInputStream(new ByteSwappingInputStream(s, sizeOf(currentType)));
+    }
+
+    protected static int sizeOf(Type type) {
+        switch (type) {
+            case DOUBLE:
+            case LONG:
+                return 8;
+            case HALF:
+                return 2;
+            case COMPRESSED:
+                return 1;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Reverses the bytes of every element of the given size
+     */
+    private static class ByteSwappingInputStream extends InputStream {
+        private final DataInputStream in;
+        private final byte[] element;
+        private int position;
+
+        private ByteSwappingInputStream(DataInputStream in, int elementSize) {
+            this.in = in;
+            this.element = new byte[elementSize];
+            this.position = elementSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == element.length) {
+                try {
+                    in.readFully(element);
+                } catch (EOFException e) {
+                    return -1;
+                }
+                for (int i = 0; i < element.length / 2; i++) {
+                    byte b = element[i];
+                    element[i] = element[element.length - 1 - i];
+                    element[element.length - 1 - i] = b;
+                }
+                position = 0;
+            }
+            return element[position++] & 0xFF;
+        }
+    }
+
     public float toFloat(int hbits) {
         int mant = hbits & 0x03ff; // 10 bits mantissa
         int exp = hbits & 0x7c00; // 5 bits exponent
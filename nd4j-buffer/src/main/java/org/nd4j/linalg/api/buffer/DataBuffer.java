@@ -100,6 +100,16 @@ public interface DataBuffer extends Serializable {
 
     void write(DataOutputStream out) throws IOException;
 
+    /**
+     * Write the header {@link #write(DataOutputStream)} puts in front of
+     * the raw contents, for writers streaming the contents themselves
+     * @param out the stream to write the header to
+     * @return the contents following the header, as raw bytes in the byte order recorded in the header,
+     * or null if this buffer isn't written as raw bytes: nothing is written then,
+     * use {@link #write(DataOutputStream)} instead
+     */
+    ByteBuffer writeBulkHeader(DataOutputStream out) throws IOException;
+
     /**
      * Returns the backing array
      * of this buffer (if there is one)
@@ -22,6 +22,7 @@ package org.nd4j.instrumentation.server;
 import io.dropwizard.Application;
 import io.dropwizard.setup.Environment;
 import org.apache.commons.io.IOUtils;
+import org.nd4j.linalg.cache.CacheStats;
 import org.nd4j.linalg.io.ClassPathResource;
 
 import java.io.BufferedOutputStream;
@@ -49,6 +50,9 @@ public class InstrumentationApplication extends Application<Nd4jInstrumentationC
     public void run(Nd4jInstrumentationConfiguration nd4jInstrumentationConfiguration, Environment environment)
                     throws Exception {
         environment.jersey().register(new InstrumentationResource());
+        environment.jersey().register(new MetricsResource());
+        // cache counters are only kept while someone can read them
+        CacheStats.setEnabled(true);
         this.env = environment;
     }
 
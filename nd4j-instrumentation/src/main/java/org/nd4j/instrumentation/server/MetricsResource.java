@@ -0,0 +1,28 @@
+package org.nd4j.instrumentation.server;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Pull based metrics for memory, caches and ops, see {@link Nd4jMetrics}
+ */
+@Path("/metrics")
+public class MetricsResource {
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getPrometheus() {
+        return Response.ok(Nd4jMetrics.collect().toPrometheus()).type(PROMETHEUS_CONTENT_TYPE).build();
+    }
+
+    @GET
+    @Path("/json")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getJson() {
+        return Response.ok(Nd4jMetrics.collect().getSamples()).build();
+    }
+}
@@ -0,0 +1,250 @@
+package org.nd4j.instrumentation.server;
+
+import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
+import org.nd4j.linalg.cache.CacheStats;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.BasicMemoryManager;
+import org.nd4j.linalg.memory.MemoryManager;
+import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
+import org.nd4j.linalg.memory.provider.BasicWorkspaceManager;
+import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.data.LogLinearHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point in time snapshot of nd4j memory and op metrics:
+ * off-heap bytes, workspaces, TAD/constant/shape info caches,
+ * GC calls issued by the memory manager and op latency histograms
+ * (recorded with ProfilingMode.HISTOGRAMS only).
+ * Cache hits and misses are counted only once {@link CacheStats#setEnabled(boolean)} was called,
+ * which the instrumentation server does on startup.
+ *
+ * Rendered either in Prometheus text exposition format or as a list of samples for JSON.
+ */
+public class Nd4jMetrics {
+    private static final Logger log = LoggerFactory.getLogger(Nd4jMetrics.class);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * A single metric value
+     */
+    public static class Sample {
+        private final String family;
+        private final String name;
+        private final String type;
+        private final String help;
+        private final Map<String, String> labels;
+        private final double value;
+
+        public Sample(String family, String name, String type, String help, Map<String, String> labels,
+                        double value) {
+            this.family = family;
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.labels = labels;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public Map<String, String> getLabels() {
+            return labels;
+        }
+
+        public double getValue() {
+            return value;
+        }
+    }
+
+    private final List<Sample> samples = new ArrayList<>();
+
+    private Nd4jMetrics() {}
+
+    /**
+     * Collect all metrics
+     * @return the snapshot
+     */
+    public static Nd4jMetrics collect() {
+        Nd4jMetrics metrics = new Nd4jMetrics();
+        metrics.collectMemory();
+        metrics.collectWorkspaces();
+        metrics.collectCaches();
+        metrics.collectOps();
+        return metrics;
+    }
+
+    public List<Sample> getSamples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    /**
+     * Render the snapshot in Prometheus text format, version 0.0.4
+     * @return the metrics as text
+     */
+    public String toPrometheus() {
+        Map<String, List<Sample>> families = new LinkedHashMap<>();
+        for (Sample sample : samples) {
+            List<Sample> family = families.get(sample.family);
+            if (family == null) {
+                family = new ArrayList<>();
+                families.put(sample.family, family);
+            }
+            family.add(sample);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, List<Sample>> entry : families.entrySet()) {
+            Sample first = entry.getValue().get(0);
+            builder.append("# HELP ").append(entry.getKey()).append(' ').append(first.help).append('\n');
+            builder.append("# TYPE ").append(entry.getKey()).append(' ').append(first.type).append('\n');
+            for (Sample sample : entry.getValue()) {
+                builder.append(sample.name);
+                if (!sample.labels.isEmpty()) {
+                    builder.append('{');
+                    boolean firstLabel = true;
+                    for (Map.Entry<String, String> label : sample.labels.entrySet()) {
+                        if (!firstLabel)
+                            builder.append(',');
+                        builder.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+                        firstLabel = false;
+                    }
+                    builder.append('}');
+                }
+                builder.append(' ').append(format(sample.value)).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private void collectMemory() {
+        gauge("nd4j_offheap_bytes", "Off-heap memory allocated via JavaCPP", Pointer.totalBytes());
+        gauge("nd4j_offheap_max_bytes", "Off-heap memory limit of JavaCPP", Pointer.maxBytes());
+
+        MemoryManager memoryManager = Nd4j.getMemoryManager();
+        if (memoryManager instanceof BasicMemoryManager) {
+            BasicMemoryManager manager = (BasicMemoryManager) memoryManager;
+            add("nd4j_gc_invocations_total", "nd4j_gc_invocations_total", "counter",
+                            "System.gc() calls issued by nd4j memory manager", labels(), manager.getGcCount());
+            gauge("nd4j_gc_last_time_ms", "Time of the last System.gc() call issued by nd4j, epoch millis",
+                            manager.getLastGcTime());
+        }
+    }
+
+    private void collectWorkspaces() {
+        MemoryWorkspaceManager workspaceManager = Nd4j.getWorkspaceManager();
+        if (!(workspaceManager instanceof BasicWorkspaceManager))
+            return;
+
+        for (MemoryWorkspace workspace : ((BasicWorkspaceManager) workspaceManager).getAllWorkspaces()) {
+            Map<String, String> labels = labels("workspace", workspace.getId(), "thread",
+                            String.valueOf(workspace.getThreadId()));
+            add("nd4j_workspace_size_bytes", "nd4j_workspace_size_bytes", "gauge", "Workspace size", labels,
+                            workspace.getCurrentSize());
+
+            if (workspace instanceof Nd4jWorkspace) {
+                Nd4jWorkspace nd4jWorkspace = (Nd4jWorkspace) workspace;
+                add("nd4j_workspace_spilled_bytes", "nd4j_workspace_spilled_bytes", "gauge",
+                                "Workspace allocations spilled out of workspace", labels,
+                                nd4jWorkspace.getSpilledSize());
+                add("nd4j_workspace_pinned_bytes", "nd4j_workspace_pinned_bytes", "gauge",
+                                "Workspace allocations pinned out of workspace", labels,
+                                nd4jWorkspace.getPinnedSize());
+                add("nd4j_workspace_cycles_total", "nd4j_workspace_cycles_total", "counter",
+                                "Workspace cycles", labels, nd4jWorkspace.getCyclesCount());
+            }
+        }
+    }
+
+    private void collectCaches() {
+        for (CacheStats stats : new CacheStats[] {CacheStats.TAD, CacheStats.CONSTANT, CacheStats.SHAPE_INFO}) {
+            Map<String, String> labels = labels("cache", stats.getName());
+            add("nd4j_cache_hits_total", "nd4j_cache_hits_total", "counter", "Cache hits", labels,
+                            stats.getHits());
+            add("nd4j_cache_misses_total", "nd4j_cache_misses_total", "counter", "Cache misses", labels,
+                            stats.getMisses());
+            add("nd4j_cache_hit_ratio", "nd4j_cache_hit_ratio", "gauge", "Cache hit ratio", labels,
+                            stats.getHitRate());
+        }
+
+        try {
+            add("nd4j_cache_bytes", "nd4j_cache_bytes", "gauge", "Memory used by cache", labels("cache", "tad"),
+                            Nd4j.getExecutioner().getTADManager().getCachedBytes());
+        } catch (Exception e) {
+            // not every executioner has TAD manager
+            log.trace("TAD cache size isn't available", e);
+        }
+        add("nd4j_cache_bytes", "nd4j_cache_bytes", "gauge", "Memory used by cache", labels("cache", "constant"),
+                        Nd4j.getConstantHandler().getCachedBytes());
+        add("nd4j_cache_bytes", "nd4j_cache_bytes", "gauge", "Memory used by cache",
+                        labels("cache", "shape_info"), Nd4j.getShapeInfoProvider().getCachedBytes());
+    }
+
+    private void collectOps() {
+        String family = "nd4j_op_latency_nanoseconds";
+        String help = "Op latency, sampled with ProfilingMode.HISTOGRAMS";
+        Map<String, LogLinearHistogram> histograms = OpProfiler.getInstance().getHistogramAggregator().getHistograms();
+        for (Map.Entry<String, LogLinearHistogram> entry : histograms.entrySet()) {
+            LogLinearHistogram histogram = entry.getValue();
+            for (double quantile : QUANTILES)
+                add(family, family, "summary", help,
+                                labels("op", entry.getKey(), "quantile", String.valueOf(quantile)),
+                                histogram.getPercentile(quantile * 100));
+
+            add(family, family + "_sum", "summary", help, labels("op", entry.getKey()), histogram.getTotal());
+            add(family, family + "_count", "summary", help, labels("op", entry.getKey()), histogram.getCount());
+        }
+    }
+
+    private void gauge(String name, String help, double value) {
+        add(name, name, "gauge", help, labels(), value);
+    }
+
+    private void add(String family, String name, String type, String help, Map<String, String> labels,
+                    double value) {
+        samples.add(new Sample(family, name, type, help, labels, value));
+    }
+
+    private static Map<String, String> labels(String... keysAndValues) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+            labels.put(keysAndValues[i], keysAndValues[i + 1]);
+        return labels;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Prometheus number format: integral values without fraction, infinities as +Inf/-Inf
+     */
+    static String format(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return String.valueOf((long) value);
+        return String.valueOf(value);
+    }
+}
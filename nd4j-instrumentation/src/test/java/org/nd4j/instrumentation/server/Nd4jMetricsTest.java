@@ -0,0 +1,102 @@
+package org.nd4j.instrumentation.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.cache.CacheStats;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Nd4jMetricsTest {
+    private static final Pattern SAMPLE_LINE = Pattern.compile(
+                    "[a-zA-Z_:][a-zA-Z0-9_:]*(\\{([a-zA-Z_][a-zA-Z0-9_]*=\"[^\"]*\",?)+\\})? "
+                                    + "(-?[0-9]+(\\.[0-9]+)?([eE]-?[0-9]+)?|\\+Inf|-Inf|NaN)");
+
+    @Before
+    public void setUp() {
+        CacheStats.setEnabled(true);
+        CacheStats.TAD.reset();
+    }
+
+    @After
+    public void tearDown() {
+        CacheStats.setEnabled(false);
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("42", Nd4jMetrics.format(42.0));
+        assertEquals("0.25", Nd4jMetrics.format(0.25));
+        assertEquals("+Inf", Nd4jMetrics.format(Double.POSITIVE_INFINITY));
+        assertEquals("-Inf", Nd4jMetrics.format(Double.NEGATIVE_INFINITY));
+        assertEquals("NaN", Nd4jMetrics.format(Double.NaN));
+    }
+
+    @Test
+    public void testPrometheusExposition() {
+        CacheStats.TAD.miss();
+        CacheStats.TAD.hit();
+        CacheStats.TAD.hit();
+
+        String text = Nd4jMetrics.collect().toPrometheus();
+
+        assertTrue(text.endsWith("\n"));
+        assertFalse(text.contains("Infinity"));
+        assertTrue(text.contains("# TYPE nd4j_cache_hits_total counter\n"));
+        assertTrue(text.contains("# TYPE nd4j_cache_hit_ratio gauge\n"));
+        assertTrue(text.contains("nd4j_cache_hits_total{cache=\"tad\"} 2\n"));
+        assertTrue(text.contains("nd4j_cache_misses_total{cache=\"tad\"} 1\n"));
+
+        String family = null;
+        for (String line : text.split("\n")) {
+            if (line.startsWith("# HELP ")) {
+                family = line.split(" ")[2];
+            } else if (line.startsWith("# TYPE ")) {
+                assertEquals(family, line.split(" ")[2]);
+            } else {
+                assertTrue(line, SAMPLE_LINE.matcher(line).matches());
+                assertTrue(line, line.startsWith(family));
+            }
+        }
+    }
+
+    @Test
+    public void testJsonSamples() throws Exception {
+        CacheStats.TAD.miss();
+        CacheStats.TAD.hit();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode samples = mapper.readTree(mapper.writeValueAsString(Nd4jMetrics.collect().getSamples()));
+
+        assertTrue(samples.isArray());
+        boolean found = false;
+        for (JsonNode sample : samples) {
+            assertTrue(sample.has("name"));
+            assertTrue(sample.has("type"));
+            assertTrue(sample.has("help"));
+            assertTrue(sample.get("labels").isObject());
+            if (sample.get("name").asText().equals("nd4j_cache_hit_ratio")
+                            && sample.get("labels").get("cache").asText().equals("tad")) {
+                assertEquals(0.5, sample.get("value").asDouble(), 1e-9);
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void testWorkspaceLabels() {
+        Nd4j.getWorkspaceManager().getAndActivateWorkspace("METRICS_WS").close();
+
+        String text = Nd4jMetrics.collect().toPrometheus();
+
+        assertTrue(text.contains("nd4j_workspace_size_bytes{workspace=\"METRICS_WS\",thread=\""));
+    }
+}
@@ -0,0 +1,91 @@
+/*-
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ *
+ */
+
+package org.nd4j.jdbc.loader.api;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Streaming and bulk operations on top of {@link JDBCNDArrayIO}.
+ * Kept separate so existing {@link JDBCNDArrayIO} implementations don't break.
+ *
+ * {@link #close()} releases the threads used by the asynchronous methods.
+ */
+public interface BulkJDBCNDArrayIO extends JDBCNDArrayIO, Closeable {
+
+    /**
+     * Load the ndarray for the given id.
+     * The array is read straight from the result set's
+     * binary stream, without going through a {@link java.sql.Blob}
+     *
+     * @param id the id to load
+     * @return the ndarray, or null if there is no row for the given id
+     */
+    INDArray load(String id) throws SQLException, IOException;
+
+    /**
+     * Create a select statement for loading
+     * the given number of ids at once.
+     * This should be a templated query with one question mark per id.
+     *
+     * @param numIds the number of ids to load
+     * @return a new select statement
+     */
+    String loadAllStatement(int numIds);
+
+    /**
+     * Save all of the given ndarrays using batched inserts
+     * in a single transaction
+     *
+     * @param arrays the ndarrays to save, keyed by id
+     */
+    void saveAll(Map<String, INDArray> arrays) throws SQLException, IOException;
+
+    /**
+     * Load all of the ndarrays for the given ids.
+     *
+     * @param ids the ids to load
+     * @return the loaded ndarrays keyed by id, in the iteration order of the ids.
+     * Ids that aren't present in the table are missing from the result
+     */
+    Map<String, INDArray> loadAll(Collection<String> ids) throws SQLException, IOException;
+
+    /**
+     * Asynchronous version of {@link #saveAll(Map)}
+     *
+     * @param arrays the ndarrays to save, keyed by id
+     * @return a future completing when all of the arrays are committed
+     */
+    Future<Void> saveAllAsync(Map<String, INDArray> arrays);
+
+    /**
+     * Asynchronous version of {@link #loadAll(Collection)}
+     *
+     * @param ids the ids to load
+     * @return a future for the loaded ndarrays
+     */
+    Future<Map<String, INDArray>> loadAllAsync(Collection<String> ids);
+}
@@ -21,28 +21,55 @@ package org.nd4j.jdbc.loader.impl;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 import org.nd4j.jdbc.driverfinder.DriverFinder;
-import org.nd4j.jdbc.loader.api.JDBCNDArrayIO;
+import org.nd4j.jdbc.loader.api.BulkJDBCNDArrayIO;
 import org.nd4j.linalg.api.complex.IComplexNDArray;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+
 import javax.sql.DataSource;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base class for loading ndarrays via org.nd4j.jdbc
  *
+ * Arrays are streamed to the database with
+ * {@link PreparedStatement#setBinaryStream(int, InputStream, long)}
+ * (see {@link NDArrayBlobInputStream}) rather than serialized
+ * into an intermediate byte array first.
+ * Bulk writes ({@link #saveAll(Map)}) use batched inserts in one transaction,
+ * bulk reads ({@link #loadAll(Collection)}) fetch the rows with IN queries
+ * on parallel connections, streaming each array out of its result set.
+ *
+ * The asynchronous methods and parallel loads run on an io executor:
+ * either the one passed to {@link #setIoExecutor(ExecutorService)}, which is left to the caller to shut down,
+ * or a cached pool of daemon threads created on first use and shut down by {@link #close()}.
+ *
  * @author Adam Gibson
  */
 
-public abstract class BaseLoader implements JDBCNDArrayIO {
+public abstract class BaseLoader implements BulkJDBCNDArrayIO {
 
     protected String tableName, columnName, idColumnName, jdbcUrl;
     protected DataSource dataSource;
+    /**
+     * Number of rows per executeBatch call in {@link #saveAll(Map)}
+     */
+    protected int batchSize = 1000;
+    /**
+     * Maximum number of ids per select in {@link #loadAll(Collection)}
+     */
+    protected int loadBatchSize = 500;
+
+    private ExecutorService ioExecutor;
+    //true if ioExecutor was created here and has to be shut down by close()
+    private boolean ownsIoExecutor;
 
     protected BaseLoader(DataSource dataSource, String jdbcUrl, String tableName, String idColumnName,
                     String columnName) throws Exception {
@@ -130,8 +157,9 @@ public abstract class BaseLoader implements JDBCNDArrayIO {
     public INDArray load(Blob blob) throws SQLException, IOException {
         if (blob == null)
             return null;
-        DataInputStream dis = new DataInputStream(blob.getBinaryStream());
-        return Nd4j.read(dis);
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(blob.getBinaryStream()))) {
+            return Nd4j.read(dis);
+        }
     }
 
     /**
@@ -169,25 +197,256 @@ public abstract class BaseLoader implements JDBCNDArrayIO {
 
 
     private void doSave(INDArray save, String id) throws SQLException, IOException {
-        Connection c = dataSource.getConnection();
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        DataOutputStream dos = new DataOutputStream(bos);
+        try (Connection c = dataSource.getConnection();
+                        PreparedStatement preparedStatement = c.prepareStatement(insertStatement())) {
+            bind(preparedStatement, save, id);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Set the id and the array on an insert statement
+     */
+    private void bind(PreparedStatement preparedStatement, INDArray save, String id) throws SQLException, IOException {
+        preparedStatement.setString(1, id);
         if (save instanceof IComplexNDArray) {
-            IComplexNDArray c2 = (IComplexNDArray) save;
-            Nd4j.writeComplex(c2, dos);
-        } else
-            Nd4j.write(save, dos);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
+            Nd4j.writeComplex((IComplexNDArray) save, dos);
+            preparedStatement.setBytes(2, bos.toByteArray());
+        } else {
+            NDArrayBlobInputStream stream = new NDArrayBlobInputStream(save);
+            preparedStatement.setBinaryStream(2, stream, stream.length());
+        }
+    }
 
-        byte[] bytes = bos.toByteArray();
+    /**
+     * Save all of the given ndarrays using batched inserts.
+     * Everything is written in a single transaction:
+     * either all of the arrays are saved or none of them are.
+     *
+     * @param arrays the ndarrays to save, keyed by id
+     */
+    @Override
+    public void saveAll(Map<String, INDArray> arrays) throws SQLException, IOException {
+        if (arrays.isEmpty())
+            return;
+
+        try (Connection c = dataSource.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = c.prepareStatement(insertStatement())) {
+                int count = 0;
+                for (Map.Entry<String, INDArray> entry : arrays.entrySet()) {
+                    bind(preparedStatement, entry.getValue(), entry.getKey());
+                    preparedStatement.addBatch();
+                    if (++count % batchSize == 0)
+                        preparedStatement.executeBatch();
+                }
+
+                if (count % batchSize != 0)
+                    preparedStatement.executeBatch();
+                c.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        }
+    }
 
-        PreparedStatement preparedStatement = c.prepareStatement(insertStatement());
-        preparedStatement.setString(1, id);
-        preparedStatement.setBytes(2, bytes);
-        preparedStatement.executeUpdate();
-        preparedStatement.close();
-        c.close();
+    /**
+     * Load all of the ndarrays for the given ids.
+     * Rows are fetched {@link #loadBatchSize} ids at a time.
+     * Batches are loaded in parallel, each on its own connection,
+     * and every array is read straight from its row's binary stream.
+     *
+     * @param ids the ids to load
+     * @return the loaded ndarrays keyed by id, in the iteration order of the ids.
+     * Ids that aren't present in the table are missing from the result
+     */
+    @Override
+    public Map<String, INDArray> loadAll(Collection<String> ids) throws SQLException, IOException {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        final List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += loadBatchSize)
+            chunks.add(distinct.subList(from, Math.min(distinct.size(), from + loadBatchSize)));
+
+        final Map<String, INDArray> loaded = new ConcurrentHashMap<>();
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(chunks.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                // chunks are claimed one at a time: helpers queued behind a busy executor
+                // find nothing left to do instead of being waited on
+                int i;
+                while ((i = next.getAndIncrement()) < chunks.size()) {
+                    try {
+                        if (failure.get() == null)
+                            loadChunk(chunks.get(i), loaded);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(chunks.size() - 1, Runtime.getRuntime().availableProcessors());
+        for (int i = 0; i < helpers; i++)
+            ioExecutor().execute(worker);
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading arrays", e);
+        }
 
+        Exception e = failure.get();
+        if (e instanceof SQLException)
+            throw (SQLException) e;
+        if (e instanceof IOException)
+            throw (IOException) e;
+        if (e != null)
+            throw new IOException("Unable to load arrays", e);
+
+        Map<String, INDArray> ret = new LinkedHashMap<>();
+        for (String id : distinct) {
+            INDArray arr = loaded.get(id);
+            if (arr != null)
+                ret.put(id, arr);
+        }
 
+        return ret;
+    }
+
+    /**
+     * Select the given ids and read every array from the row's binary stream
+     */
+    private void loadChunk(List<String> chunk, Map<String, INDArray> loaded) throws SQLException, IOException {
+        try (Connection c = dataSource.getConnection();
+                        PreparedStatement preparedStatement = c.prepareStatement(loadAllStatement(chunk.size()))) {
+            for (int i = 0; i < chunk.size(); i++)
+                preparedStatement.setString(i + 1, chunk.get(i));
+
+            try (ResultSet r = preparedStatement.executeQuery()) {
+                while (r.next()) {
+                    InputStream is = r.getBinaryStream(2);
+                    if (is == null)
+                        continue;
+                    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(is))) {
+                        loaded.put(r.getString(1), Nd4j.read(dis));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #saveAll(Map)}.
+     * The database work is done on a separate io thread.
+     *
+     * @param arrays the ndarrays to save, keyed by id
+     * @return a future completing when all of the arrays are committed
+     */
+    @Override
+    public Future<Void> saveAllAsync(final Map<String, INDArray> arrays) {
+        return ioExecutor().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                saveAll(arrays);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #loadAll(Collection)}.
+     * The database work is done on a separate io thread.
+     *
+     * @param ids the ids to load
+     * @return a future for the loaded ndarrays
+     */
+    @Override
+    public Future<Map<String, INDArray>> loadAllAsync(final Collection<String> ids) {
+        return ioExecutor().submit(new Callable<Map<String, INDArray>>() {
+            @Override
+            public Map<String, INDArray> call() throws Exception {
+                return loadAll(ids);
+            }
+        });
+    }
+
+    /**
+     * Threads waiting on the database are kept off of
+     * {@link ExecutorServiceProvider#getExecutorService()}
+     */
+    private synchronized ExecutorService ioExecutor() {
+        if (ioExecutor == null) {
+            ownsIoExecutor = true;
+            ioExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setName("nd4j-jdbc-" + t.getName());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return ioExecutor;
+    }
+
+    /**
+     * Use the given executor for the asynchronous methods and parallel loads.
+     * The executor is not shut down by {@link #close()}.
+     *
+     * @param ioExecutor the executor to use
+     */
+    public synchronized void setIoExecutor(ExecutorService ioExecutor) {
+        if (ownsIoExecutor)
+            this.ioExecutor.shutdown();
+        this.ioExecutor = ioExecutor;
+        this.ownsIoExecutor = false;
+    }
+
+    /**
+     * Shut down the io threads created by this loader, if any.
+     * Pending asynchronous operations still complete.
+     */
+    @Override
+    public synchronized void close() {
+        if (ownsIoExecutor) {
+            ioExecutor.shutdown();
+            ioExecutor = null;
+            ownsIoExecutor = false;
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    public int getLoadBatchSize() {
+        return loadBatchSize;
+    }
+
+    public void setLoadBatchSize(int loadBatchSize) {
+        if (loadBatchSize < 1)
+            throw new IllegalArgumentException("Load batch size must be positive");
+        this.loadBatchSize = loadBatchSize;
     }
 
 
@@ -220,6 +479,32 @@ public abstract class BaseLoader implements JDBCNDArrayIO {
 
     }
 
+    /**
+     * Load the ndarray for the given id.
+     * The array is read straight from the result set's
+     * binary stream while the connection is still open
+     *
+     * @param id the id to load
+     * @return the ndarray, or null if there is no row for the given id
+     */
+    @Override
+    public INDArray load(String id) throws SQLException, IOException {
+        try (Connection c = dataSource.getConnection();
+                        PreparedStatement preparedStatement = c.prepareStatement(loadStatement())) {
+            preparedStatement.setString(1, id);
+            try (ResultSet r = preparedStatement.executeQuery()) {
+                if (!r.next())
+                    return null;
+                InputStream is = r.getBinaryStream(2);
+                if (is == null)
+                    return null;
+                try (DataInputStream dis = new DataInputStream(new BufferedInputStream(is))) {
+                    return Nd4j.read(dis);
+                }
+            }
+        }
+    }
+
     /**
      * Delete the given ndarray
      *
@@ -232,6 +517,7 @@ public abstract class BaseLoader implements JDBCNDArrayIO {
         p.setString(1, id);
         p.execute();
         p.close();
+        c.close();
 
     }
 }
@@ -0,0 +1,119 @@
+/*-
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ *
+ */
+
+package org.nd4j.jdbc.loader.impl;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream producing the {@link Nd4j#write(INDArray, DataOutputStream)}
+ * representation of an array on demand.
+ *
+ * Only the (small) shape information and the data buffer header are serialized up front,
+ * see {@link DataBuffer#writeBulkHeader(DataOutputStream)}: the raw contents are then read straight
+ * from the buffer's memory, so handing this to
+ * {@link java.sql.PreparedStatement#setBinaryStream(int, InputStream, long)}
+ * doesn't need an in memory copy of the whole serialized array.
+ */
+public class NDArrayBlobInputStream extends InputStream {
+    private final byte[] header;
+    //kept so the memory backing the contents stays reachable while streaming
+    private final DataBuffer data;
+    private final ByteBuffer content;
+    private final long length;
+
+    private int headerPosition = 0;
+
+    /**
+     * @param arr the array to stream (views are dup'ed, same as {@link Nd4j#write(INDArray, DataOutputStream)})
+     */
+    public NDArrayBlobInputStream(INDArray arr) throws IOException {
+        if (arr.isView())
+            arr = arr.dup();
+
+        DataBuffer data = arr.data();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        arr.shapeInfoDataBuffer().write(dos);
+
+        ByteBuffer content = data.writeBulkHeader(dos);
+        if (content == null) {
+            // not written as raw bytes (compressed, or too large for a single view): serialize it whole
+            data.write(dos);
+        }
+        dos.flush();
+
+        this.header = bos.toByteArray();
+        this.data = data;
+        this.content = content;
+        this.length = header.length + (content == null ? 0 : content.remaining());
+    }
+
+    /**
+     * The total number of bytes this stream produces
+     */
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (headerPosition < header.length)
+            return header[headerPosition++] & 0xFF;
+
+        if (content == null || !content.hasRemaining())
+            return -1;
+        return content.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+
+        int read = 0;
+        if (headerPosition < header.length) {
+            int n = Math.min(len, header.length - headerPosition);
+            System.arraycopy(header, headerPosition, b, off, n);
+            headerPosition += n;
+            read += n;
+        }
+
+        if (read < len && content != null && content.hasRemaining()) {
+            int n = Math.min(len - read, content.remaining());
+            content.get(b, off + read, n);
+            read += n;
+        }
+
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (header.length - headerPosition) + (content == null ? 0 : content.remaining());
+    }
+}
@@ -57,6 +57,25 @@ public class MysqlLoader extends BaseLoader {
 
     }
 
+    /**
+     * Create a select statement for the given number of ids.
+     * One question mark per id, we will take care of setting the proper values.
+     *
+     * @param numIds the number of ids to load
+     * @return a new select statement
+     */
+    @Override
+    public String loadAllStatement(int numIds) {
+        StringBuilder sb = new StringBuilder("SELECT * FROM ").append(tableName).append(" WHERE ")
+                        .append(this.idColumnName).append(" IN (");
+        for (int i = 0; i < numIds; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
     /**
      * Create an delete statement
      *
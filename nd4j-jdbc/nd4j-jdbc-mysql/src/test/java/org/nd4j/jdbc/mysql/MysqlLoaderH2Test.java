@@ -0,0 +1,186 @@
+/*-
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ *
+ */
+
+package org.nd4j.jdbc.mysql;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.jdbc.loader.impl.NDArrayBlobInputStream;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link MysqlLoader} against an in memory H2 database in MySQL mode
+ * as a local stand in for a real database server.
+ */
+public class MysqlLoaderH2Test {
+    private JdbcDataSource dataSource;
+    private Connection keepAlive;
+    private MysqlLoader loader;
+
+    @Before
+    public void before() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        //the in memory database lives as long as a connection is open
+        keepAlive = dataSource.getConnection();
+        try (Statement s = keepAlive.createStatement()) {
+            s.execute("CREATE TABLE ndarrays (id VARCHAR(255) PRIMARY KEY, arr BLOB)");
+        }
+        loader = new MysqlLoader(dataSource, null, "ndarrays", "arr");
+    }
+
+    @After
+    public void after() throws Exception {
+        loader.close();
+        try (Statement s = keepAlive.createStatement()) {
+            s.execute("SHUTDOWN");
+        }
+        keepAlive.close();
+    }
+
+    @Test
+    public void testStreamMatchesNd4jWrite() throws Exception {
+        INDArray[] arrays = {Nd4j.linspace(1, 24, 24).reshape(2, 3, 4),
+                        Nd4j.linspace(1, 24, 24).reshape(4, 6).get(NDArrayIndex.interval(1, 3),
+                                        NDArrayIndex.interval(0, 2, 6)),
+                        Nd4j.create(new double[] {1, 2, 3}), Nd4j.scalar(5.0)};
+
+        for (INDArray arr : arrays) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            Nd4j.write(arr, new DataOutputStream(bos));
+            byte[] expected = bos.toByteArray();
+
+            NDArrayBlobInputStream stream = new NDArrayBlobInputStream(arr);
+            assertEquals(expected.length, stream.length());
+
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int n;
+            while ((n = stream.read(buffer, 0, buffer.length)) > 0)
+                actual.write(buffer, 0, n);
+            assertArrayEquals(expected, actual.toByteArray());
+            assertEquals(arr, Nd4j.read(new DataInputStream(new ByteArrayInputStream(actual.toByteArray()))));
+        }
+    }
+
+    @Test
+    public void testSaveLoad() throws Exception {
+        INDArray arr = Nd4j.linspace(1, 100000, 100000).reshape(100, 1000);
+        loader.save(arr, "1");
+        assertEquals(arr, loader.load("1"));
+
+        INDArray view = arr.get(NDArrayIndex.interval(10, 20), NDArrayIndex.all());
+        loader.save(view, "2");
+        assertEquals(view, loader.load("2"));
+
+        loader.delete("1");
+        assertNull(loader.load("1"));
+    }
+
+    @Test
+    public void testSaveAllLoadAll() throws Exception {
+        loader.setBatchSize(7);
+        loader.setLoadBatchSize(5);
+
+        Map<String, INDArray> arrays = new LinkedHashMap<>();
+        for (int i = 0; i < 23; i++)
+            arrays.put(String.valueOf(i), Nd4j.rand(new int[] {3, 1 + i}, 12345 + i));
+        loader.saveAll(arrays);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 22; i >= 0; i--)
+            ids.add(String.valueOf(i));
+        ids.add("missing");
+
+        Map<String, INDArray> loaded = loader.loadAll(ids);
+        assertEquals(arrays.size(), loaded.size());
+        assertEquals(ids.subList(0, 23), new ArrayList<>(loaded.keySet()));
+        for (Map.Entry<String, INDArray> entry : arrays.entrySet())
+            assertEquals(entry.getValue(), loaded.get(entry.getKey()));
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        Map<String, INDArray> arrays = new HashMap<>();
+        for (int i = 0; i < 10; i++)
+            arrays.put("a" + i, Nd4j.rand(new int[] {10, 10}, i));
+
+        loader.saveAllAsync(arrays).get();
+        Map<String, INDArray> loaded = loader.loadAllAsync(arrays.keySet()).get();
+        assertEquals(arrays, loaded);
+    }
+
+    @Test
+    public void testInjectedSingleThreadExecutor() throws Exception {
+        //the async load itself holds the only thread: chunks must still get loaded
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            loader.setIoExecutor(executor);
+            loader.setLoadBatchSize(2);
+
+            Map<String, INDArray> arrays = new HashMap<>();
+            for (int i = 0; i < 9; i++)
+                arrays.put("a" + i, Nd4j.rand(new int[] {4, 4}, i));
+
+            loader.saveAllAsync(arrays).get();
+            assertEquals(arrays, loader.loadAllAsync(arrays.keySet()).get(30, TimeUnit.SECONDS));
+
+            loader.close();
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSaveAllRollsBack() throws Exception {
+        loader.save(Nd4j.ones(5), "dup");
+
+        Map<String, INDArray> arrays = new LinkedHashMap<>();
+        arrays.put("new", Nd4j.zeros(5));
+        arrays.put("dup", Nd4j.zeros(5));
+        try {
+            loader.saveAll(arrays);
+            fail("Expected a duplicate key failure");
+        } catch (SQLException e) {
+            //expected
+        }
+
+        assertNull(loader.load("new"));
+        assertEquals(Nd4j.ones(5), loader.load("dup"));
+    }
+}
@@ -30,6 +30,10 @@ import java.util.concurrent.atomic.AtomicReference;
  * getArray() is used for retrieving the master ndarray's current
  * state from the parameter server.
  *
+ * pushUpdate() sends updates threshold encoded
+ * when a {@link ResidualThresholdEncoder} is set,
+ * keeping whatever is below the threshold for later updates.
+ *
  * @author Adam Gibson
  */
 @Data
@@ -57,6 +61,8 @@ public class ParameterServerClient implements NDArrayCallback {
     private ObjectMapper objectMapper = new ObjectMapper();
     private Aeron aeron;
     private boolean compressArray = true;
+    //when set, updates pushed with pushUpdate are sent threshold encoded
+    private ResidualThresholdEncoder thresholdEncoder;
 
     /**
      * Tracks number of
@@ -163,6 +169,10 @@ public class ParameterServerClient implements NDArrayCallback {
      * @param message the array to send
      */
     public void pushNDArrayMessage(NDArrayMessage message) {
+        publish(message, isCompressArray());
+    }
+
+    private void publish(NDArrayMessage message, boolean compress) {
         //start a subscriber that can send us ndarrays
         if (subscriber == null) {
             running = new AtomicBoolean(true);
@@ -177,7 +187,7 @@ public class ParameterServerClient implements NDArrayCallback {
         String channel = AeronUtil.aeronChannel(split[0], port);
         log.debug("Parameter server client publishing to " + ndarraySendUrl);
         try (AeronNDArrayPublisher publisher = AeronNDArrayPublisher.builder().streamId(streamToPublish)
-                        .compress(isCompressArray()).aeron(aeron).channel(channel).build()) {
+                        .compress(compress).aeron(aeron).channel(channel).build()) {
             publisher.publish(message);
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -197,6 +207,32 @@ public class ParameterServerClient implements NDArrayCallback {
         pushNDArrayMessage(NDArrayMessage.wholeArrayUpdate(arr));
     }
 
+    /**
+     * Push an update (ie a gradient) to the
+     * ndarray send url.
+     * If the client has a {@link ResidualThresholdEncoder}
+     * the update is added to its residual and only the threshold
+     * encoded part is sent (see {@link NDArrayMessage#thresholdEncodedUpdate(INDArray)}),
+     * nothing is sent when none of the residual is above the threshold.
+     * Without an encoder the update is sent as a whole array,
+     * the same as {@link #pushNDArray(INDArray)}.
+     * @param update the update to send
+     * @return true if anything was sent
+     */
+    public boolean pushUpdate(INDArray update) {
+        if (thresholdEncoder == null) {
+            pushNDArray(update);
+            return true;
+        }
+
+        INDArray encoded = thresholdEncoder.encode(update);
+        if (encoded == null)
+            return false;
+        //the encoded indices don't gzip well, send them as they are
+        publish(NDArrayMessage.thresholdEncodedUpdate(encoded), false);
+        return true;
+    }
+
 
     /**
      * Get the connection url for the subscriber
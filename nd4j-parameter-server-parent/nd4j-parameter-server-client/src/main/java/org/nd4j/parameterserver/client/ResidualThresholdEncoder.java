@@ -0,0 +1,162 @@
+package org.nd4j.parameterserver.client;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+
+/**
+ * Client side state for sharing
+ * updates (ie gradients) as threshold encoded
+ * sparse arrays instead of dense ones.
+ *
+ * Every update is added to a residual buffer,
+ * the elements of the residual with an absolute value
+ * of at least the threshold are encoded
+ * with {@link org.nd4j.linalg.api.ops.executioner.OpExecutioner#thresholdEncode(INDArray, double)}
+ * (which subtracts the encoded amount from the residual)
+ * and everything below the threshold stays in the residual
+ * until it has accumulated enough to be sent. Nothing is lost,
+ * the sum of the decoded updates plus the residual is always
+ * the sum of the original updates.
+ *
+ * The threshold is adapted after every update
+ * so the fraction of elements sent stays around the target sparsity:
+ * it is multiplied by the step when more than twice the target was sent
+ * and divided by it (down to the minimum threshold) when less than half was sent.
+ *
+ * The encoder also keeps track of the number of bytes
+ * sent compared to sending the updates as dense arrays.
+ */
+@Slf4j
+public class ResidualThresholdEncoder {
+    public final static double DEFAULT_THRESHOLD = 1e-3;
+    public final static double DEFAULT_MIN_THRESHOLD = 1e-5;
+    public final static double DEFAULT_TARGET_SPARSITY = 1e-3;
+    public final static double DEFAULT_STEP = 1.1;
+    //thresholdEncode stores the count, length, threshold and format in the first 4 ints
+    private final static int HEADER_LENGTH = 4;
+
+    @Getter
+    private double threshold;
+    @Getter
+    private final double minThreshold;
+    @Getter
+    private final double targetSparsity;
+    @Getter
+    private final double step;
+    @Getter
+    private INDArray residual;
+    @Getter
+    private long encodedBytes;
+    @Getter
+    private long denseBytes;
+    @Getter
+    private long numUpdates;
+    @Getter
+    private long numElementsSent;
+
+    /**
+     * Encoder with the default threshold,
+     * minimum threshold, target sparsity and step
+     */
+    public ResidualThresholdEncoder() {
+        this(DEFAULT_THRESHOLD, DEFAULT_MIN_THRESHOLD, DEFAULT_TARGET_SPARSITY, DEFAULT_STEP);
+    }
+
+    /**
+     *
+     * @param threshold the initial threshold
+     * @param minThreshold the threshold is never decreased below this
+     * @param targetSparsity the fraction of elements to send per update
+     * @param step the factor to adapt the threshold by, use 1.0 for a fixed threshold
+     */
+    public ResidualThresholdEncoder(double threshold, double minThreshold, double targetSparsity, double step) {
+        if (threshold <= 0 || minThreshold <= 0 || minThreshold > threshold)
+            throw new IllegalArgumentException("Threshold and minimum threshold must be positive "
+                            + "with the minimum no larger than the threshold");
+        if (targetSparsity <= 0 || targetSparsity > 1)
+            throw new IllegalArgumentException("Target sparsity must be in (0, 1], got " + targetSparsity);
+        if (step < 1)
+            throw new IllegalArgumentException("Step must be at least 1, got " + step);
+        this.threshold = threshold;
+        this.minThreshold = minThreshold;
+        this.targetSparsity = targetSparsity;
+        this.step = step;
+    }
+
+    /**
+     * Add the update to the residual
+     * and encode the part of the residual above the threshold.
+     * @param update the update, the same length every time
+     * @return the encoded update as a row vector of ints
+     * ready to be sent, or null if not enough of the residual is above the threshold yet
+     */
+    public synchronized INDArray encode(INDArray update) {
+        if (residual == null) {
+            residual = Nd4j.create(update.shape(), 'c');
+        } else if (residual.length() != update.length()) {
+            throw new IllegalArgumentException("Update length " + update.length()
+                            + " doesn't match the length of the previous updates " + residual.length());
+        }
+
+        residual.addi(Arrays.equals(update.shape(), residual.shape()) ? update : update.reshape(residual.shape()));
+        numUpdates++;
+        denseBytes += residual.length() * Nd4j.sizeOfDataType(residual.data().dataType());
+
+        INDArray encoded = Nd4j.getExecutioner().thresholdEncode(residual, threshold);
+        int sent = encoded == null ? 0 : encoded.data().getInt(0);
+        adapt(sent);
+        if (encoded == null)
+            return null;
+
+        numElementsSent += sent;
+        //the encoded buffer comes with the shape of the residual: give it the shape of its own length
+        DataBuffer buffer = encoded.data();
+        encodedBytes += buffer.length() * 4;
+        return Nd4j.create(buffer, new int[] {1, (int) buffer.length()});
+    }
+
+    private void adapt(int sent) {
+        double sparsity = sent / (double) residual.length();
+        if (sparsity > 2 * targetSparsity) {
+            threshold *= step;
+        } else if (sparsity < targetSparsity / 2) {
+            threshold = Math.max(minThreshold, threshold / step);
+        }
+        log.trace("Sent {} of {} elements, threshold is now {}", sent, residual.length(), threshold);
+    }
+
+    /**
+     * The number of elements in an encoded update
+     * @param encoded an array returned by {@link #encode(INDArray)}
+     * @return the number of elements in the update
+     */
+    public static int encodedLength(INDArray encoded) {
+        return (int) encoded.data().length() - HEADER_LENGTH;
+    }
+
+    /**
+     * The ratio of the bytes the dense updates would
+     * have needed to the bytes sent so far
+     * @return the compression ratio, or 0 if nothing was sent yet
+     */
+    public synchronized double compressionRatio() {
+        return encodedBytes == 0 ? 0 : denseBytes / (double) encodedBytes;
+    }
+
+    /**
+     * Throw away the residual
+     * and the bandwidth statistics
+     */
+    public synchronized void reset() {
+        residual = null;
+        encodedBytes = 0;
+        denseBytes = 0;
+        numUpdates = 0;
+        numElementsSent = 0;
+    }
+}
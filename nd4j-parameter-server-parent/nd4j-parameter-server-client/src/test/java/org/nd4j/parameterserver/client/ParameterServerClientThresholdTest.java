@@ -0,0 +1,140 @@
+package org.nd4j.parameterserver.client;
+
+import io.aeron.Aeron;
+import io.aeron.driver.MediaDriver;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.nd4j.aeron.ipc.AeronUtil;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.parameterserver.ParameterServerListener;
+import org.nd4j.parameterserver.ParameterServerSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Threshold encoded updates
+ * with a residual, sent through
+ * an embedded media driver.
+ */
+public class ParameterServerClientThresholdTest {
+    private static MediaDriver mediaDriver;
+    private static Logger log = LoggerFactory.getLogger(ParameterServerClientThresholdTest.class);
+    private static Aeron aeron;
+    private static ParameterServerSubscriber masterNode, slaveNode;
+    private static int parameterLength = 100000;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        mediaDriver = MediaDriver.launchEmbedded(AeronUtil.getMediaDriverContext(parameterLength));
+        System.setProperty("play.server.dir", "/tmp");
+        aeron = Aeron.connect(getContext());
+        masterNode = new ParameterServerSubscriber(mediaDriver);
+        masterNode.setAeron(aeron);
+        int masterPort = 44323 + new java.util.Random().nextInt(3000);
+        masterNode.run(new String[] {"-m", "true", "-s", "1," + String.valueOf(parameterLength), "-p",
+                        String.valueOf(masterPort), "-h", "localhost", "-id", "11", "-md",
+                        mediaDriver.aeronDirectoryName(), "-sp", "33100", "-u", String.valueOf(1)});
+        assertTrue(masterNode.isMaster());
+
+        slaveNode = new ParameterServerSubscriber(mediaDriver);
+        slaveNode.setAeron(aeron);
+        slaveNode.run(new String[] {"-p", String.valueOf(masterPort + 100), "-h", "localhost", "-id", "10", "-pm",
+                        masterNode.getSubscriber().connectionUrl(), "-md", mediaDriver.aeronDirectoryName(), "-sp",
+                        "31100", "-u", String.valueOf(1)});
+        assertFalse(slaveNode.isMaster());
+
+        if (!masterNode.subscriberLaunched() && !slaveNode.subscriberLaunched()) {
+            throw new IllegalStateException("Failed to start master and slave node");
+        }
+
+        log.info("Using media driver directory " + mediaDriver.aeronDirectoryName());
+    }
+
+    @Test
+    public void testResidualIsKept() {
+        ResidualThresholdEncoder encoder = new ResidualThresholdEncoder(1e-2, 1e-4, 0.01, 1.0);
+        INDArray update = Nd4j.create(new double[] {0.5, -0.5, 3e-3, -3e-3, 0.0, 0.25});
+        INDArray decoded = Nd4j.create(update.shape());
+
+        //fixed threshold: the small elements only get sent once they add up to the threshold
+        INDArray total = Nd4j.create(update.shape());
+        for (int i = 0; i < 4; i++) {
+            total.addi(update);
+            INDArray encoded = encoder.encode(update);
+            assertNotNull(encoded);
+            assertEquals(1, encoded.rows());
+            Nd4j.getExecutioner().thresholdDecode(encoded, decoded);
+            assertEquals(total, decoded.add(encoder.getResidual()));
+        }
+        //4 * 3e-3 crossed the threshold on the last update
+        assertEquals(0.012 - 0.01, encoder.getResidual().getDouble(2), 1e-6);
+        assertEquals(4, encoder.getNumUpdates());
+    }
+
+    @Test
+    public void testAdaptiveThreshold() {
+        int length = 100000;
+        ResidualThresholdEncoder encoder = new ResidualThresholdEncoder(1e-5, 1e-6, 1e-3, 1.5);
+        for (int i = 0; i < 50; i++) {
+            INDArray update = Nd4j.randn(new int[] {1, length}, 119 + i).muli(1e-3);
+            encoder.encode(update);
+        }
+
+        //every element is way above 1e-5, the threshold has to go up to send ~1e-3 of them
+        assertTrue(encoder.getThreshold() > 1e-4);
+        double sentPerUpdate = encoder.getNumElementsSent() / (double) encoder.getNumUpdates();
+        log.info("Threshold {}, sent {} elements per update, compression ratio {}", encoder.getThreshold(),
+                        sentPerUpdate, encoder.compressionRatio());
+        assertTrue(encoder.compressionRatio() > 1.0);
+    }
+
+    @Test
+    public void testEncodedUpdates() throws Exception {
+        int subscriberPort = 40725 + new java.util.Random().nextInt(100);
+        ResidualThresholdEncoder encoder = new ResidualThresholdEncoder(2.5e-2, 1e-4, 1e-2, 1.2);
+        ParameterServerClient client = ParameterServerClient.builder().aeron(aeron)
+                        .ndarrayRetrieveUrl(masterNode.getResponder().connectionUrl())
+                        .ndarraySendUrl(slaveNode.getSubscriber().connectionUrl()).subscriberHost("localhost")
+                        .subscriberPort(subscriberPort).subscriberStream(12).thresholdEncoder(encoder).build();
+
+        //2.5 standard deviations: about 1% of the elements per update
+        INDArray total = Nd4j.create(1, parameterLength);
+        int sent = 0;
+        for (int i = 0; i < 5; i++) {
+            INDArray update = Nd4j.randn(new int[] {1, parameterLength}, 119 + i).muli(1e-2);
+            total.addi(update);
+            if (client.pushUpdate(update))
+                sent++;
+        }
+        Thread.sleep(30000);
+
+        ParameterServerListener listener = (ParameterServerListener) masterNode.getCallback();
+        assertEquals(sent, listener.getUpdater().numUpdates());
+        //the master has everything but the residual
+        INDArray master = listener.getUpdater().ndArrayHolder().get();
+        assertEquals(total.sub(encoder.getResidual()), master.reshape(1, parameterLength));
+
+        long denseMessageBytes = sent * (long) NDArrayMessage
+                        .byteBufferSizeForMessage(NDArrayMessage.wholeArrayUpdate(Nd4j.create(1, parameterLength)));
+        log.info("Sent {} encoded bytes for {} dense bytes ({} as whole array messages), compression ratio {}",
+                        encoder.getEncodedBytes(), encoder.getDenseBytes(), denseMessageBytes,
+                        encoder.compressionRatio());
+        assertTrue(encoder.getEncodedBytes() < denseMessageBytes);
+    }
+
+
+    private static Aeron.Context getContext() {
+        return new Aeron.Context().publicationConnectionTimeout(-1)
+                        .availableImageHandler(AeronUtil::printAvailableImage)
+                        .unavailableImageHandler(AeronUtil::printUnavailableImage)
+                        .aeronDirectoryName(mediaDriver.aeronDirectoryName()).keepAliveInterval(1000)
+                        .errorHandler(e -> log.error(e.toString(), e));
+    }
+}
@@ -24,7 +24,6 @@ import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -56,13 +55,20 @@ public abstract class BaseTransport implements Transport {
     protected FragmentAssembler messageHandlerForShards;
     protected FragmentAssembler messageHandlerForClients;
 
-    protected LinkedBlockingQueue<VoidMessage> messages = new LinkedBlockingQueue<>();
+    protected RingMessageQueue messages = new RingMessageQueue();
+    // number of incoming messages that didn't fit into the ring buffer of their lane
+    protected AtomicLong ringOverflows = new AtomicLong(0);
 
     protected Map<Long, MeaningfulMessage> completed = new ConcurrentHashMap<>();
 
     protected AtomicBoolean runner = new AtomicBoolean(true);
 
-    // service threads where poll will happen
+    /**
+     * Service threads where poll will happen, one per Aeron subscription: a Subscription can't be polled
+     * concurrently, so these stay dedicated threads. They only copy incoming bytes into the RingMessageQueue.
+     * Dispatch to multiple threads happens there: messages go to lanes by key hash,
+     * and every consumer thread calling takeMessage() serves its own home lane first.
+     */
     protected Thread threadA;
     protected Thread threadB;
 
@@ -213,7 +219,7 @@ public abstract class BaseTransport implements Transport {
         if (message.getMessageType() == 7) {
             // if that's vector request message - it's special case, we don't send it to other shards yet
             //log.info("Shortcut for vector request");
-            messages.add(message);
+            messages.offer(message);
         } else {
             // and send it away to other Shards
             publicationForShards.offer(buffer, offset, length);
@@ -232,12 +238,18 @@ public abstract class BaseTransport implements Transport {
         /**
          * All incoming internal messages are either op commands, or aggregation messages that are tied to commands
          */
-        byte[] data = new byte[length];
-        buffer.getBytes(offset, data);
-
-        VoidMessage message = VoidMessage.fromBytes(data);
-
-        messages.add(message);
+        // we don't deserialize message here: it's done by consumer thread, so Aeron polling thread isn't blocked
+        if (!messages.offer(header == null ? 0 : header.sessionId(), buffer, offset, length)) {
+            // lane is full: consumers are behind. we don't park the polling thread, the message goes to the
+            // unbounded object path instead, and we report it
+            if (ringOverflows.incrementAndGet() % 1000 == 1)
+                log.warn("Incoming message queue is full, {} messages deserialized on the polling thread so far",
+                                ringOverflows.get());
+
+            byte[] data = new byte[length];
+            buffer.getBytes(offset, data);
+            messages.offer(VoidMessage.fromBytes(data));
+        }
 
         //    log.info("internalMessageHandler message request incoming: {}", message.getClass().getSimpleName());
     }
@@ -433,12 +445,8 @@ public abstract class BaseTransport implements Transport {
      */
     @Override
     public void receiveMessage(VoidMessage message) {
-        try {
-            log.info("Message received, saving...");
-            messages.put(message);
-        } catch (Exception e) {
-            // do nothing
-        }
+        log.info("Message received, saving...");
+        messages.offer(message);
     }
 
     /**
@@ -449,14 +457,8 @@ public abstract class BaseTransport implements Transport {
     @Override
     public VoidMessage takeMessage() {
         if (threadingModel != ThreadingModel.SAME_THREAD) {
-            try {
-                return messages.take();
-            } catch (InterruptedException e) {
-                // probably we don't want to do anything here
-                return null;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            // null is returned if thread was interrupted
+            return messages.take();
         } else {
             /**
              * PLEASE NOTE: This branch is suitable for debugging only, should never be used in wild life
@@ -478,7 +480,7 @@ public abstract class BaseTransport implements Transport {
      */
     @Override
     public void putMessage(@NonNull VoidMessage message) {
-        messages.add(message);
+        messages.offer(message);
     }
 
     /**
@@ -493,6 +495,15 @@ public abstract class BaseTransport implements Transport {
         return messages.peek();
     }
 
+    /**
+     * This method returns time spent by incoming messages in queue, per message type
+     *
+     * @return
+     */
+    public Map<Integer, RingMessageQueue.LatencyHistogram> getQueueLatencies() {
+        return messages.getLatencies();
+    }
+
     /**
      * This command is possible to issue only from Client
      *
@@ -503,7 +514,7 @@ public abstract class BaseTransport implements Transport {
         // TODO: we want LocalTransport to be used in such cases
         if (nodeRole == NodeRole.SHARD) {
             message.setTargetId(shardIndex);
-            messages.add(message);
+            messages.offer(message);
             return;
         }
 
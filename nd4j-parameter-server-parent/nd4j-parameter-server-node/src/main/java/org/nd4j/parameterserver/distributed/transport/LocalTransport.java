@@ -7,12 +7,18 @@ import org.nd4j.parameterserver.distributed.logic.completion.Clipboard;
 import org.nd4j.parameterserver.distributed.messages.MeaningfulMessage;
 import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 
+import java.util.Map;
+
 /**
+ * In-process Transport: every message sent goes straight into the incoming queue of this instance,
+ * without serialization. Suitable for tests and single-node setups.
  *
  * @author raver119@gmail.com
  */
 @Deprecated
 public class LocalTransport implements Transport {
+    protected RingMessageQueue messages = new RingMessageQueue();
+
     /**
      * This method does initialization of Transport instance
      *
@@ -33,7 +39,7 @@ public class LocalTransport implements Transport {
      */
     @Override
     public void sendMessage(VoidMessage message) {
-
+        messages.offer(message);
     }
 
     @Override
@@ -61,7 +67,7 @@ public class LocalTransport implements Transport {
      */
     @Override
     public void receiveMessage(VoidMessage message) {
-
+        messages.offer(message);
     }
 
     /**
@@ -71,7 +77,7 @@ public class LocalTransport implements Transport {
      */
     @Override
     public VoidMessage takeMessage() {
-        return null;
+        return messages.take();
     }
 
     /**
@@ -80,8 +86,8 @@ public class LocalTransport implements Transport {
      * @param message
      */
     @Override
-    public void putMessage(VoidMessage message) {
-
+    public void putMessage(@NonNull VoidMessage message) {
+        messages.offer(message);
     }
 
     /**
@@ -93,7 +99,16 @@ public class LocalTransport implements Transport {
      */
     @Override
     public VoidMessage peekMessage() {
-        return null;
+        return messages.peek();
+    }
+
+    /**
+     * This method returns time spent by incoming messages in queue, per message type
+     *
+     * @return
+     */
+    public Map<Integer, RingMessageQueue.LatencyHistogram> getQueueLatencies() {
+        return messages.getLatencies();
     }
 
     /**
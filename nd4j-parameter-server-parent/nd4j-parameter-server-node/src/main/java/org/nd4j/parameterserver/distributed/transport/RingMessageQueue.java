@@ -0,0 +1,380 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free queue for incoming messages, used by BaseTransport instead of LinkedBlockingQueue.
+ *
+ * Messages are spread over a number of lanes by key hash: the Aeron session id for serialized messages,
+ * message type and originator for message objects. Every lane has an Agrona ManyToOneRingBuffer
+ * for messages that arrive serialized (ie straight from Aeron, so polling thread only copies bytes once,
+ * straight into the ring, and deserialization happens on the consumer side), and a lock-free queue for messages
+ * that are objects already (ie local delivery, which doesn't need serialization at all).
+ *
+ * Consumer threads (the dispatch threads calling take()/poll()/peek()) are bound to a home lane round robin,
+ * and serve their home lane first. They only take messages from other lanes when their own is empty,
+ * so lanes never starve when there are fewer consumers than lanes.
+ *
+ * The ring buffer of a lane has single reader at a time: a consumer that finds nothing ready claims the lane,
+ * deserializes up to drainLimit messages into the lane's ready queue and releases the lane.
+ * Ready messages are shared, so any number of threads can call take()/poll()/peek(),
+ * and a message drained by one thread can be taken by any other.
+ *
+ * Time spent in queue is recorded per message type, see {@link #getLatencies()}.
+ * Serialized messages carry their enqueue time in the ring record type, at microsecond resolution.
+ */
+@Slf4j
+public class RingMessageQueue {
+    public static final int DEFAULT_LANES = 4;
+    public static final int DEFAULT_LANE_CAPACITY = 4 * 1024 * 1024;
+    public static final int DEFAULT_DRAIN_LIMIT = 64;
+
+    // enqueue time of serialized messages is kept in the record type: microseconds, wrapping every ~18 minutes
+    private static final int TIMESTAMP_SHIFT = 10;
+    private static final int TIMESTAMP_MASK = 0x3FFFFFFF;
+
+    private final Lane[] lanes;
+    private final int drainLimit;
+    private final AtomicInteger consumerCounter = new AtomicInteger(0);
+    private final Map<Integer, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Consumer> consumers = new ThreadLocal<Consumer>() {
+        @Override
+        protected Consumer initialValue() {
+            return new Consumer(consumerCounter.getAndIncrement() % lanes.length);
+        }
+    };
+
+    public RingMessageQueue() {
+        this(DEFAULT_LANES, DEFAULT_LANE_CAPACITY, DEFAULT_DRAIN_LIMIT);
+    }
+
+    /**
+     * @param numLanes number of independent lanes
+     * @param laneCapacity capacity of each lane ring buffer in bytes, power of 2
+     * @param drainLimit max number of messages a consumer takes from a lane at once
+     */
+    public RingMessageQueue(int numLanes, int laneCapacity, int drainLimit) {
+        if (numLanes < 1 || drainLimit < 1)
+            throw new IllegalArgumentException("Number of lanes and drain limit should be positive");
+        if (!BitUtil.isPowerOfTwo(laneCapacity))
+            throw new IllegalArgumentException("Lane capacity should be power of 2");
+
+        this.drainLimit = drainLimit;
+        this.lanes = new Lane[numLanes];
+        for (int i = 0; i < numLanes; i++)
+            lanes[i] = new Lane(laneCapacity);
+    }
+
+    /**
+     * This method puts message object into the queue
+     *
+     * @param message
+     */
+    public void offer(@NonNull VoidMessage message) {
+        Lane lane = lane(31L * message.getMessageType() + message.getOriginatorId());
+        lane.objects.add(new Envelope(message, System.nanoTime()));
+    }
+
+    /**
+     * This method puts serialized message into the queue. Bytes are copied straight into the ring buffer,
+     * so buffer can be reused once this method returns.
+     * This method never blocks: if the ring buffer of the lane is full, nothing is queued and false is returned,
+     * so the caller decides how to handle backpressure.
+     *
+     * @param key messages with the same key go to the same lane, ie Aeron session id
+     * @param buffer
+     * @param offset
+     * @param length
+     * @return true if the message was queued, false if the lane is full
+     */
+    public boolean offer(int key, @NonNull DirectBuffer buffer, int offset, int length) {
+        Lane lane = lane(key);
+        if (length > lane.ring.maxMsgLength()) {
+            // too large for the ring, we just go for object path
+            byte[] data = new byte[length];
+            buffer.getBytes(offset, data);
+            offer(VoidMessage.fromBytes(data));
+            return true;
+        }
+
+        return lane.ring.write(timestamp(), buffer, offset, length);
+    }
+
+    /**
+     * This method returns next message, or null if queue is empty
+     *
+     * @return
+     */
+    public VoidMessage poll() {
+        return next(consumers.get(), true);
+    }
+
+    /**
+     * This method returns next message, blocking if queue is empty. Returns null if current thread was interrupted.
+     *
+     * @return
+     */
+    public VoidMessage take() {
+        Consumer consumer = consumers.get();
+        VoidMessage message;
+        while ((message = poll()) == null) {
+            if (Thread.interrupted())
+                return null;
+
+            consumer.idler.idle();
+        }
+        consumer.idler.reset();
+        return message;
+    }
+
+    /**
+     * This method returns next message, waiting up to given timeout if queue is empty
+     *
+     * @param timeout
+     * @param unit
+     * @return next message, or null if timeout has elapsed
+     * @throws InterruptedException
+     */
+    public VoidMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Consumer consumer = consumers.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        VoidMessage message;
+        while ((message = poll()) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (System.nanoTime() - deadline >= 0)
+                break;
+
+            consumer.idler.idle();
+        }
+        consumer.idler.reset();
+        return message;
+    }
+
+    /**
+     * This method returns next message without removing it, or null if queue is empty.
+     * The message stays available to every consumer.
+     *
+     * PLEASE NOTE: with several consumers, another thread may take the message before this thread does.
+     *
+     * @return
+     */
+    public VoidMessage peek() {
+        return next(consumers.get(), false);
+    }
+
+    /**
+     * This method returns time spent in queue, per message type
+     *
+     * @return
+     */
+    public Map<Integer, LatencyHistogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    private Lane lane(long key) {
+        int hash = (int) (key ^ (key >>> 32));
+        hash ^= (hash >>> 16);
+        return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    /**
+     * Returns the first message, serving the home lane of the consumer first:
+     * other lanes are only looked at when the home lane has nothing ready and nothing left in its ring
+     */
+    private VoidMessage next(Consumer consumer, boolean remove) {
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = lanes[(consumer.home + i) % lanes.length];
+            VoidMessage message = lane.next(remove);
+            if (message == null && lane.drain())
+                message = lane.next(remove);
+            if (message != null)
+                return message;
+        }
+        return null;
+    }
+
+    /**
+     * Current time as ring record type: always positive, as Agrona requires
+     */
+    private static int timestamp() {
+        return (int) ((System.nanoTime() >>> TIMESTAMP_SHIFT) & TIMESTAMP_MASK) + 1;
+    }
+
+    private void record(int messageType, long enqueuedNanos) {
+        recordNanos(messageType, System.nanoTime() - enqueuedNanos);
+    }
+
+    private void recordNanos(int messageType, long nanos) {
+        LatencyHistogram histogram = latencies.get(messageType);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = latencies.putIfAbsent(messageType, created);
+            if (histogram == null)
+                histogram = created;
+        }
+        histogram.record(nanos);
+    }
+
+    private class Lane implements MessageHandler {
+        private final ManyToOneRingBuffer ring;
+        private final ConcurrentLinkedQueue<Envelope> objects = new ConcurrentLinkedQueue<>();
+        // messages already read from the ring, available to every consumer
+        private final ConcurrentLinkedQueue<VoidMessage> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private Lane(int capacity) {
+            this.ring = new ManyToOneRingBuffer(new UnsafeBuffer(
+                            ByteBuffer.allocateDirect(capacity + RingBufferDescriptor.TRAILER_LENGTH)));
+        }
+
+        private VoidMessage next(boolean remove) {
+            VoidMessage message = remove ? ready.poll() : ready.peek();
+            if (message != null)
+                return message;
+
+            Envelope envelope = remove ? objects.poll() : objects.peek();
+            if (envelope == null)
+                return null;
+            if (remove)
+                record(envelope.message.getMessageType(), envelope.nanos);
+            return envelope.message;
+        }
+
+        /**
+         * Moves serialized messages into the ready queue, unless another consumer is doing so already
+         *
+         * @return true if anything was moved
+         */
+        private boolean drain() {
+            if (!claimed.compareAndSet(false, true))
+                return false;
+
+            try {
+                return ring.read(this, drainLimit) > 0;
+            } finally {
+                claimed.set(false);
+            }
+        }
+
+        @Override
+        public void onMessage(int msgTypeId, MutableDirectBuffer buffer, int index, int length) {
+            long elapsed = ((long) (timestamp() - msgTypeId) & TIMESTAMP_MASK) << TIMESTAMP_SHIFT;
+            byte[] data = new byte[length];
+            buffer.getBytes(index, data);
+
+            try {
+                VoidMessage message = VoidMessage.fromBytes(data);
+                recordNanos(message.getMessageType(), elapsed);
+                ready.add(message);
+            } catch (Exception e) {
+                log.error("Unable to deserialize message, skipping it", e);
+            }
+        }
+    }
+
+    private static class Envelope {
+        private final VoidMessage message;
+        private final long nanos;
+
+        private Envelope(VoidMessage message, long nanos) {
+            this.message = message;
+            this.nanos = nanos;
+        }
+    }
+
+    private static class Consumer {
+        private final int home;
+        private final IdleStrategy idler = new BackoffIdleStrategy(100, 10, 1000, 1000000);
+
+        private Consumer(int home) {
+            this.home = home;
+        }
+    }
+
+    /**
+     * Histogram with power-of-2 buckets: bucket i holds values in [2^i, 2^(i + 1)) nanoseconds
+     */
+    public static class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final AtomicLong count = new AtomicLong(0);
+        private final AtomicLong total = new AtomicLong(0);
+        private final AtomicLong max = new AtomicLong(0);
+
+        public void record(long nanos) {
+            if (nanos < 0)
+                nanos = 0;
+
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+
+            long current;
+            while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos));
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getMaxNanos() {
+            return max.get();
+        }
+
+        public double getMeanNanos() {
+            long cnt = count.get();
+            return cnt == 0 ? 0.0 : total.get() / (double) cnt;
+        }
+
+        /**
+         * This method returns upper bound of the bucket holding given percentile
+         *
+         * @param percentile in range [0, 100]
+         * @return
+         */
+        public long getPercentileNanos(double percentile) {
+            long cnt = count.get();
+            if (cnt == 0)
+                return 0;
+
+            long threshold = (long) Math.ceil(cnt * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= threshold && seen > 0)
+                    return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+            return max.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count: %d; mean: %.0f ns; p50: %d ns; p99: %d ns; max: %d ns", getCount(),
+                            getMeanNanos(), getPercentileNanos(50), getPercentileNanos(99), getMaxNanos());
+        }
+    }
+}
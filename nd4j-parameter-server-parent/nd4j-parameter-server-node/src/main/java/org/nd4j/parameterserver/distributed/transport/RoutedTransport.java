@@ -24,7 +24,6 @@ import org.nd4j.parameterserver.distributed.logic.routing.InterleavedRouter;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
@@ -56,7 +55,7 @@ public class RoutedTransport extends BaseTransport {
         this.clipboard = clipboard;
         this.voidConfiguration = voidConfiguration;
         this.shardIndex = shardIndex;
-        this.messages = new LinkedBlockingQueue<>();
+        this.messages = new RingMessageQueue();
         //shutdown hook
         super.init(voidConfiguration, clipboard, role, localIp, localPort, shardIndex);
         setProperty("aeron.client.liveness.timeout", "30000000000");
@@ -261,12 +260,8 @@ public class RoutedTransport extends BaseTransport {
 
         // if we're the only shard - we just put message into the queue
         if (nodeRole == NodeRole.SHARD && voidConfiguration.getNumberOfShards() == 1) {
-            try {
-                messages.put(message);
-                return;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
+            return;
         }
 
         final DirectBuffer buffer = message.asUnsafeBuffer();
@@ -280,11 +275,7 @@ public class RoutedTransport extends BaseTransport {
             long address = HashUtil.getLongHash(rc.getIp() + ":" + rc.getPort());
             if (originatorId == address) {
                 // this is local delivery
-                try {
-                    messages.put(message);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+                messages.offer(message);
                 return;
             }
 
@@ -444,11 +435,7 @@ public class RoutedTransport extends BaseTransport {
             router.setOriginator(message);
             message.setTargetId(getShardIndex());
 
-            try {
-                messages.put(message);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
             return;
         }
 
@@ -530,45 +517,15 @@ public class RoutedTransport extends BaseTransport {
             MeaningfulMessage msg = (MeaningfulMessage) message;
             completed.put(message.getTaskId(), msg);
         } else if (message instanceof RequestMessage) {
-            try {
-                messages.put((RequestMessage) message);
-            } catch (InterruptedException e) {
-                // do nothing
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
         } else if (message instanceof DistributedMessage) {
-            try {
-                messages.put((DistributedMessage) message);
-            } catch (InterruptedException e) {
-                // do nothing
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
         } else if (message instanceof TrainingMessage) {
-            try {
-                messages.put((TrainingMessage) message);
-            } catch (InterruptedException e) {
-                // do nothing
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
         } else if (message instanceof VoidAggregation) {
-            try {
-                messages.put((VoidAggregation) message);
-            } catch (InterruptedException e) {
-                // do nothing
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
         } else if (message instanceof Frame) {
-            try {
-                messages.put((Frame) message);
-            } catch (InterruptedException e) {
-                // do nothing
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            messages.offer(message);
         } else {
             log.info("Unknown message: {}", message.getClass().getSimpleName());
         }
@@ -0,0 +1,185 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.messages.requests.ShutdownRequestMessage;
+import org.nd4j.parameterserver.distributed.messages.requests.VectorRequestMessage;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class LocalTransportTest {
+
+    @Test
+    public void testPutTake() throws Exception {
+        LocalTransport transport = new LocalTransport();
+
+        assertNull(transport.peekMessage());
+
+        transport.putMessage(new VectorRequestMessage(12));
+        VoidMessage peeked = transport.peekMessage();
+        assertNotNull(peeked);
+        assertSame(peeked, transport.takeMessage());
+        assertNull(transport.peekMessage());
+    }
+
+    @Test
+    public void testManyProducersManyConsumers() throws Exception {
+        final LocalTransport transport = new LocalTransport();
+        final int numProducers = 4;
+        final int numConsumers = 3;
+        final int perProducer = 5000;
+        final int total = numProducers * perProducer;
+        final AtomicIntegerArray delivered = new AtomicIntegerArray(total);
+        final AtomicInteger received = new AtomicInteger(0);
+
+        Thread[] consumers = new Thread[numConsumers];
+        for (int c = 0; c < numConsumers; c++) {
+            consumers[c] = new Thread(() -> {
+                while (received.get() < total) {
+                    VoidMessage message = transport.takeMessage();
+                    if (message == null)
+                        return;
+
+                    delivered.incrementAndGet((int) message.getTaskId());
+                    received.incrementAndGet();
+                }
+            });
+            consumers[c].start();
+        }
+
+        Thread[] producers = new Thread[numProducers];
+        for (int p = 0; p < numProducers; p++) {
+            final int producer = p;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    VectorRequestMessage message = new VectorRequestMessage(producer * perProducer + i);
+                    message.setOriginatorId(producer);
+                    transport.putMessage(message);
+                }
+            });
+            producers[p].start();
+        }
+
+        for (Thread producer : producers)
+            producer.join();
+
+        long time = System.currentTimeMillis();
+        while (received.get() < total && System.currentTimeMillis() - time < 30000)
+            Thread.sleep(10);
+
+        for (Thread consumer : consumers) {
+            consumer.interrupt();
+            consumer.join();
+        }
+
+        assertEquals(total, received.get());
+        for (int i = 0; i < total; i++)
+            assertEquals("Message " + i + " was delivered wrong number of times", 1, delivered.get(i));
+
+        RingMessageQueue.LatencyHistogram histogram = transport.getQueueLatencies().get(7);
+        assertNotNull(histogram);
+        assertEquals(total, histogram.getCount());
+        log.info("Queue latency: {}", histogram);
+    }
+
+    @Test
+    public void testSerializedMessages() throws Exception {
+        RingMessageQueue queue = new RingMessageQueue(2, 64 * 1024, 16);
+
+        for (int i = 0; i < 100; i++) {
+            VoidMessage message = i % 10 == 0 ? new ShutdownRequestMessage() : new VectorRequestMessage(i);
+            UnsafeBuffer buffer = message.asUnsafeBuffer();
+            assertTrue(queue.offer(i % 3, buffer, 0, buffer.capacity()));
+        }
+
+        int requests = 0;
+        int shutdowns = 0;
+        VoidMessage message;
+        while ((message = queue.poll(100, TimeUnit.MILLISECONDS)) != null) {
+            if (message instanceof ShutdownRequestMessage) {
+                shutdowns++;
+            } else {
+                assertTrue(message instanceof VectorRequestMessage);
+                assertNotEquals(0, ((VectorRequestMessage) message).getRowIndex() % 10);
+                requests++;
+            }
+        }
+
+        assertEquals(90, requests);
+        assertEquals(10, shutdowns);
+
+        Map<Integer, RingMessageQueue.LatencyHistogram> latencies = queue.getLatencies();
+        assertEquals(90, latencies.get(7).getCount());
+        assertEquals(10, latencies.get(8).getCount());
+        assertTrue(latencies.get(7).getPercentileNanos(50) <= latencies.get(7).getPercentileNanos(99));
+    }
+
+    @Test
+    public void testPeekDoesNotConsume() throws Exception {
+        final RingMessageQueue queue = new RingMessageQueue(2, 64 * 1024, 16);
+        for (int i = 0; i < 3; i++) {
+            UnsafeBuffer buffer = new VectorRequestMessage(i).asUnsafeBuffer();
+            queue.offer(i, buffer, 0, buffer.capacity());
+        }
+
+        // peek drains the ring, the messages must still be visible to other threads
+        assertNotNull(queue.peek());
+
+        final AtomicInteger taken = new AtomicInteger(0);
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (queue.poll() != null)
+                    taken.incrementAndGet();
+            }
+        });
+        consumer.start();
+        consumer.join();
+
+        assertEquals(3, taken.get());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void testFullLaneReportsBackpressure() throws Exception {
+        RingMessageQueue queue = new RingMessageQueue(1, 64 * 1024, 16);
+        UnsafeBuffer buffer = new VectorRequestMessage(1).asUnsafeBuffer();
+
+        // nobody consumes, so the lane fills up and offer gives up instead of blocking
+        int accepted = 0;
+        while (queue.offer(0, buffer, 0, buffer.capacity())) {
+            accepted++;
+            assertTrue("Lane never filled up", accepted < 64 * 1024);
+        }
+        assertTrue(accepted > 0);
+
+        int taken = 0;
+        while (queue.poll() != null)
+            taken++;
+        assertEquals(accepted, taken);
+
+        // consumers made room again
+        assertTrue(queue.offer(0, buffer, 0, buffer.capacity()));
+    }
+
+    @Test
+    public void testOversizedSerializedMessage() throws Exception {
+        // ring capacity of 1 KB allows messages up to 128 bytes, so this one goes through object path
+        RingMessageQueue queue = new RingMessageQueue(1, 1024, 16);
+        UnsafeBuffer buffer = new VectorRequestMessage(5).asUnsafeBuffer();
+        assertTrue(buffer.capacity() > 128);
+
+        queue.offer(0, buffer, 0, buffer.capacity());
+        VoidMessage message = queue.poll();
+        assertNotNull(message);
+        assertEquals(5, message.getTaskId());
+    }
+}
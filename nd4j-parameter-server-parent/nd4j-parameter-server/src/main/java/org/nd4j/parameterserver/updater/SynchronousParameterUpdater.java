@@ -3,6 +3,7 @@ package org.nd4j.parameterserver.updater;
 import org.nd4j.aeron.ipc.NDArrayHolder;
 import org.nd4j.aeron.ipc.NDArrayMessage;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.parameterserver.updater.storage.UpdateStorage;
 import org.nd4j.shade.jackson.core.JsonProcessingException;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
@@ -14,6 +15,9 @@ import java.util.Map;
  * Adds the 2 arrays together,
  * synchronizing when
  * all updates have been collected.
+ * Threshold encoded updates
+ * (see {@link NDArrayMessage#thresholdEncodedUpdate(INDArray)})
+ * are decoded straight in to the master array.
  *
  * @author Adam Gibson
  */
@@ -128,6 +132,12 @@ public class SynchronousParameterUpdater extends BaseParameterUpdater {
     public void update(NDArrayMessage message) {
         updateStorage.addUpdate(message);
         INDArray arr = message.getArr();
+        if (NDArrayMessage.isThresholdEncoded(message)) {
+            //decoding adds the sparse update in place
+            Nd4j.getExecutioner().thresholdDecode(arr, ndArrayHolder.get());
+            return;
+        }
+
         //of note for ndarrays
         int[] dimensions = message.getDimensions();
         boolean whole = dimensions.length == 1 && dimensions[0] == -1;
@@ -0,0 +1,13 @@
+package org.nd4j.linalg.benchmark.accum;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+public class JavaLoopSumBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public JavaLoopSumBenchmarkPerformer(int nTimes) {
+        super(new JavaLoopSumOpRunner(), nTimes);
+    }
+
+
+
+}
@@ -0,0 +1,23 @@
+package org.nd4j.linalg.benchmark.accum;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.JavaLoopExecutioner;
+import org.nd4j.linalg.api.ops.impl.accum.Sum;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Full sum through the java loop executioner, same input as {@link SumOpRunner}
+ */
+public class JavaLoopSumOpRunner implements OpRunner {
+    INDArray arr = Nd4j.create(100000);
+
+
+    @Override
+    public void runOp() {
+        JavaLoopExecutioner.exec(new Sum(arr));
+    }
+
+
+
+}
@@ -0,0 +1,13 @@
+package org.nd4j.linalg.benchmark.elementwise;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+public class JavaLoopAddBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public JavaLoopAddBenchmarkPerformer(int nTimes) {
+        super(new JavaLoopAddOpRunner(), nTimes);
+    }
+
+
+
+}
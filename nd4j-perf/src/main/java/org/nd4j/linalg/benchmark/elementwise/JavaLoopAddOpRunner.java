@@ -0,0 +1,25 @@
+package org.nd4j.linalg.benchmark.elementwise;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.JavaLoopExecutioner;
+import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.AddOp;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Pairwise add of 1M elements through the java loop executioner
+ */
+public class JavaLoopAddOpRunner implements OpRunner {
+    INDArray x = Nd4j.rand(1000, 1000);
+    INDArray y = Nd4j.rand(1000, 1000);
+    INDArray z = Nd4j.create(1000, 1000);
+
+
+    @Override
+    public void runOp() {
+        JavaLoopExecutioner.exec(new AddOp(x, y, z));
+    }
+
+
+
+}
@@ -0,0 +1,16 @@
+package org.nd4j.linalg.benchmark.indexing;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * View creation through a pre compiled {@link org.nd4j.linalg.indexing.IndexPlan}.
+ * Each trial creates {@link IndexPlanOpRunner#VIEWS_PER_OP} views,
+ * compare with {@link org.nd4j.linalg.benchmark.indexing.get.GetIndexBenchmarkPerformer}.
+ */
+public class IndexPlanBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public IndexPlanBenchmarkPerformer(int nTimes) {
+        super(new IndexPlanOpRunner(), nTimes);
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.nd4j.linalg.benchmark.indexing;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.IndexPlan;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+public class IndexPlanOpRunner implements OpRunner {
+    public final static int VIEWS_PER_OP = 10000;
+
+    INDArray arr = Nd4j.create(32, 100, 50);
+    IndexPlan plan = IndexPlan.compile(arr, NDArrayIndex.point(3), NDArrayIndex.all(),
+                    NDArrayIndex.interval(10, 20));
+
+    @Override
+    public void runOp() {
+        for (int i = 0; i < VIEWS_PER_OP; i++)
+            plan.apply(arr);
+    }
+}
@@ -0,0 +1,15 @@
+package org.nd4j.linalg.benchmark.indexing.get;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * View creation through {@link org.nd4j.linalg.api.ndarray.INDArray#get(org.nd4j.linalg.indexing.INDArrayIndex...)},
+ * the baseline for {@link org.nd4j.linalg.benchmark.indexing.IndexPlanBenchmarkPerformer}.
+ */
+public class GetIndexBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public GetIndexBenchmarkPerformer(int nTimes) {
+        super(new GetIndexOpRunner(), nTimes);
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.nd4j.linalg.benchmark.indexing.get;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.benchmark.indexing.IndexPlanOpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+public class GetIndexOpRunner implements OpRunner {
+    INDArray arr = Nd4j.create(32, 100, 50);
+
+    @Override
+    public void runOp() {
+        for (int i = 0; i < IndexPlanOpRunner.VIEWS_PER_OP; i++)
+            arr.get(NDArrayIndex.point(3), NDArrayIndex.all(), NDArrayIndex.interval(10, 20));
+    }
+}
@@ -0,0 +1,16 @@
+package org.nd4j.linalg.benchmark.iteration;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Element wise iteration over a 10M element non contiguous view
+ * using {@link org.nd4j.linalg.api.iter.NdIndexCursor},
+ * compare with {@link org.nd4j.linalg.benchmark.iteration.iterator.NdIndexIteratorBenchmarkPerformer}.
+ */
+public class NdIndexCursorBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public NdIndexCursorBenchmarkPerformer(int nTimes) {
+        super(new NdIndexCursorOpRunner(), nTimes);
+    }
+
+}
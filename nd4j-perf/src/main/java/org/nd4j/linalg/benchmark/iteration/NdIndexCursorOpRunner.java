@@ -0,0 +1,25 @@
+package org.nd4j.linalg.benchmark.iteration;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.iter.NdIndexCursor;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+public class NdIndexCursorOpRunner implements OpRunner {
+    //every other column of a 2000 x 10000 matrix: 10M elements, not contiguous
+    INDArray arr = Nd4j.create(new int[] {2000, 10000}, 'c').get(NDArrayIndex.all(),
+                    NDArrayIndex.interval(0, 2, 10000));
+    double sum;
+
+    @Override
+    public void runOp() {
+        NdIndexCursor cursor = new NdIndexCursor(arr);
+        DataBuffer data = arr.data();
+        double sum = 0;
+        while (cursor.advance())
+            sum += data.getDouble(cursor.offset());
+        this.sum = sum;
+    }
+}
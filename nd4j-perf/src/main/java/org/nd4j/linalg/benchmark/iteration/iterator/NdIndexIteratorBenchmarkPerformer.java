@@ -0,0 +1,16 @@
+package org.nd4j.linalg.benchmark.iteration.iterator;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Element wise iteration over a 10M element non contiguous view
+ * using {@link org.nd4j.linalg.api.iter.NdIndexIterator} and getDouble,
+ * the baseline for {@link org.nd4j.linalg.benchmark.iteration.NdIndexCursorBenchmarkPerformer}.
+ */
+public class NdIndexIteratorBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public NdIndexIteratorBenchmarkPerformer(int nTimes) {
+        super(new NdIndexIteratorOpRunner(), nTimes);
+    }
+
+}
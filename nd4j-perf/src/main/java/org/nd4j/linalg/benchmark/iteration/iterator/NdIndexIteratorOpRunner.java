@@ -0,0 +1,22 @@
+package org.nd4j.linalg.benchmark.iteration.iterator;
+
+import org.nd4j.linalg.api.iter.NdIndexIterator;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+public class NdIndexIteratorOpRunner implements OpRunner {
+    INDArray arr = Nd4j.create(new int[] {2000, 10000}, 'c').get(NDArrayIndex.all(),
+                    NDArrayIndex.interval(0, 2, 10000));
+    double sum;
+
+    @Override
+    public void runOp() {
+        NdIndexIterator iter = new NdIndexIterator(arr.shape());
+        double sum = 0;
+        while (iter.hasNext())
+            sum += arr.getDouble(iter.next());
+        this.sum = sum;
+    }
+}
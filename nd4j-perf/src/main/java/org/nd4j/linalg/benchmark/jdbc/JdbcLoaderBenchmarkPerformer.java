@@ -0,0 +1,56 @@
+package org.nd4j.linalg.benchmark.jdbc;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+/**
+ * Save and load throughput of the JDBC loader against an embedded H2 database,
+ * one row at a time vs batched saveAll/parallel loadAll,
+ * for many small and a few large arrays.
+ * Prints rows/sec and MB/sec for every case, the returned average
+ * is the one for the last case.
+ */
+public class JdbcLoaderBenchmarkPerformer extends BaseBenchmarkPerformer {
+    //{number of arrays, array length}
+    private static final int[][] CASES = {{1000, 256}, {16, 1 << 20}};
+
+    public JdbcLoaderBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        for (int[] testCase : CASES) {
+            for (boolean bulk : new boolean[] {false, true}) {
+                JdbcLoaderOpRunner runner = new JdbcLoaderOpRunner(testCase[0], testCase[1], bulk);
+                averageTime = 0;
+                for (int i = 0; i < nTimes; i++) {
+                    stopWatch.start();
+                    runner.runOp();
+                    stopWatch.stop();
+                    averageTime += stopWatch.getNanoTime();
+                    stopWatch.reset();
+                }
+
+                averageTime /= nTimes;
+                double mb = (double) testCase[0] * testCase[1] * Nd4j.sizeOfDataType() / (1 << 20);
+                double writeSec = runner.drainWriteTime() / 1e9 / nTimes;
+                double readSec = runner.drainReadTime() / 1e9 / nTimes;
+                runner.cleanup();
+                System.out.println((bulk ? "Bulk" : "Single row") + ", " + testCase[0] + " arrays of length "
+                                + testCase[1] + ": average time " + averageTime + "(ns), save "
+                                + String.format("%.1f", testCase[0] / writeSec) + " rows/sec "
+                                + String.format("%.2f", mb / writeSec) + "MB/sec, load "
+                                + String.format("%.1f", testCase[0] / readSec) + " rows/sec "
+                                + String.format("%.2f", mb / readSec) + "MB/sec");
+            }
+        }
+
+        return averageTime;
+    }
+
+}
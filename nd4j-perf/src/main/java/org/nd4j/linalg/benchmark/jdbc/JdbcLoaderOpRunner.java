@@ -0,0 +1,122 @@
+package org.nd4j.linalg.benchmark.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.nd4j.jdbc.mysql.MysqlLoader;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Saves and loads a set of arrays with a {@link MysqlLoader}
+ * against an in memory H2 database in MySQL mode, the local stand in
+ * for a real database server.
+ *
+ * Bulk runs use saveAll/loadAll, the others save and load one row at a time.
+ * The table is emptied after each run, outside of the measured time.
+ */
+public class JdbcLoaderOpRunner implements OpRunner {
+    private final Map<String, INDArray> arrays = new LinkedHashMap<>();
+    private final List<String> ids;
+    private final boolean bulk;
+    private final Connection keepAlive;
+    private final MysqlLoader loader;
+    private long writeTime;
+    private long readTime;
+
+    /**
+     * @param numArrays the number of arrays saved and loaded per run
+     * @param arrayLength the length of each array
+     * @param bulk whether to use saveAll/loadAll rather than one row at a time
+     */
+    public JdbcLoaderOpRunner(int numArrays, int arrayLength, boolean bulk) {
+        this.bulk = bulk;
+        for (int i = 0; i < numArrays; i++)
+            arrays.put(String.valueOf(i), Nd4j.rand(1, arrayLength));
+        this.ids = new ArrayList<>(arrays.keySet());
+
+        try {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            //the in memory database lives as long as a connection is open
+            this.keepAlive = dataSource.getConnection();
+            try (Statement s = keepAlive.createStatement()) {
+                s.execute("CREATE TABLE ndarrays (id VARCHAR(255) PRIMARY KEY, arr BLOB)");
+            }
+            this.loader = new MysqlLoader(dataSource, null, "ndarrays", "arr");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void runOp() {
+        try {
+            long start = System.nanoTime();
+            if (bulk) {
+                loader.saveAll(arrays);
+            } else {
+                for (Map.Entry<String, INDArray> entry : arrays.entrySet())
+                    loader.save(entry.getValue(), entry.getKey());
+            }
+            long written = System.nanoTime();
+
+            int loaded = 0;
+            if (bulk) {
+                loaded = loader.loadAll(ids).size();
+            } else {
+                for (String id : ids)
+                    if (loader.load(id) != null)
+                        loaded++;
+            }
+            long read = System.nanoTime();
+            if (loaded != ids.size())
+                throw new IllegalStateException("Loaded " + loaded + " of " + ids.size() + " arrays");
+
+            writeTime += written - start;
+            readTime += read - written;
+
+            try (Statement s = keepAlive.createStatement()) {
+                s.execute("DELETE FROM ndarrays");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Total time spent saving since the last call, in nanoseconds
+     */
+    public long drainWriteTime() {
+        long ret = writeTime;
+        writeTime = 0;
+        return ret;
+    }
+
+    /**
+     * Total time spent loading since the last call, in nanoseconds
+     */
+    public long drainReadTime() {
+        long ret = readTime;
+        readTime = 0;
+        return ret;
+    }
+
+    public void cleanup() {
+        loader.close();
+        try (Statement s = keepAlive.createStatement()) {
+            s.execute("SHUTDOWN");
+            keepAlive.close();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.nd4j.linalg.benchmark.knn;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.knn.Distance;
+import org.nd4j.linalg.knn.ExactKnnIndex;
+import org.nd4j.linalg.knn.HnswIndex;
+import org.nd4j.linalg.knn.KnnResult;
+
+/**
+ * Latency and recall@10 of {@link HnswIndex} for a range of efSearch values,
+ * against the blocked brute force search of {@link ExactKnnIndex}
+ * over 100k random 128 dimensional vectors and a batch of 1000 queries.
+ * The returned average is the one of the exact search.
+ */
+public class KnnBenchmarkPerformer extends BaseBenchmarkPerformer {
+    public final static int NUM_VECTORS = 100000;
+    public final static int NUM_QUERIES = 1000;
+    public final static int DIMENSION = 128;
+    public final static int K = 10;
+    private static final int[] EF_SEARCH = {16, 32, 64, 128, 256};
+
+    public KnnBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        INDArray data = Nd4j.rand(new int[] {NUM_VECTORS, DIMENSION}, 119);
+        INDArray queries = Nd4j.rand(new int[] {NUM_QUERIES, DIMENSION}, 120);
+
+        ExactKnnIndex exact = new ExactKnnIndex(Distance.EUCLIDEAN);
+        exact.add(data);
+        KnnOpRunner exactRunner = new KnnOpRunner(exact, queries, K);
+        long exactTime = time(exactRunner);
+        KnnResult truth = exactRunner.getLastResult();
+        System.out.println("Exact: " + exactTime / NUM_QUERIES + "(ns) per query");
+
+        HnswIndex hnsw = new HnswIndex(Distance.EUCLIDEAN);
+        stopWatch.start();
+        hnsw.add(data);
+        stopWatch.stop();
+        System.out.println("Hnsw build took " + stopWatch.getNanoTime() / 1000000 + "(ms)");
+        stopWatch.reset();
+
+        for (int ef : EF_SEARCH) {
+            hnsw.setEfSearch(ef);
+            KnnOpRunner runner = new KnnOpRunner(hnsw, queries, K);
+            long time = time(runner);
+            System.out.println("Hnsw efSearch " + ef + ": " + time / NUM_QUERIES + "(ns) per query, recall@" + K
+                            + " " + String.format("%.4f", runner.getLastResult().recall(truth)));
+        }
+
+        averageTime = exactTime;
+        return averageTime;
+    }
+
+    private long time(KnnOpRunner runner) {
+        long total = 0;
+        for (int i = 0; i < nTimes; i++) {
+            stopWatch.start();
+            runner.runOp();
+            stopWatch.stop();
+            total += stopWatch.getNanoTime();
+            stopWatch.reset();
+        }
+        return total / nTimes;
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.nd4j.linalg.benchmark.knn;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.knn.KnnIndex;
+import org.nd4j.linalg.knn.KnnResult;
+
+/**
+ * One batched k nearest neighbour query against an index,
+ * keeping the last result around for recall measurements.
+ */
+public class KnnOpRunner implements OpRunner {
+    private final KnnIndex index;
+    private final INDArray queries;
+    private final int k;
+    private KnnResult lastResult;
+
+    public KnnOpRunner(KnnIndex index, INDArray queries, int k) {
+        this.index = index;
+        this.queries = queries;
+        this.k = k;
+    }
+
+    @Override
+    public void runOp() {
+        lastResult = index.search(queries, k);
+    }
+
+    public KnnResult getLastResult() {
+        return lastResult;
+    }
+}
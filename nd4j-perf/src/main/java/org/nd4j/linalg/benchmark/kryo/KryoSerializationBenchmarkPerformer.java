@@ -0,0 +1,61 @@
+package org.nd4j.linalg.benchmark.kryo;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+/**
+ * Shuffle size and throughput of the raw Kryo serializers
+ * compared to the stream based formats, for a 1000x1000 array
+ * and a data set with a features mask.
+ * Prints the serialized size and MB/sec for every case, the returned average
+ * is the one for the last case.
+ */
+public class KryoSerializationBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public KryoSerializationBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        INDArray arr = Nd4j.rand(1000, 1000);
+        DataSet ds = new DataSet(Nd4j.rand(new int[] {64, 100, 50}), Nd4j.rand(new int[] {64, 10, 50}),
+                        Nd4j.ones(64, 50), null);
+        long dataSetBytes = (ds.getFeatures().length() + ds.getLabels().length()
+                        + ds.getFeaturesMaskArray().length()) * Nd4j.sizeOfDataType();
+
+        Object[] values = {arr, ds};
+        long[] bytes = {arr.length() * Nd4j.sizeOfDataType(), dataSetBytes};
+        for (int v = 0; v < values.length; v++) {
+            for (boolean kryo : new boolean[] {false, true}) {
+                KryoSerializationOpRunner runner = new KryoSerializationOpRunner(values[v], kryo);
+                averageTime = 0;
+                for (int i = 0; i < nTimes; i++) {
+                    stopWatch.start();
+                    runner.runOp();
+                    stopWatch.stop();
+                    averageTime += stopWatch.getNanoTime();
+                    stopWatch.reset();
+                }
+
+                averageTime /= nTimes;
+                double mb = (double) bytes[v] / (1 << 20);
+                double writeSec = runner.drainWriteTime() / 1e9 / nTimes;
+                double readSec = runner.drainReadTime() / 1e9 / nTimes;
+                System.out.println(values[v].getClass().getSimpleName() + (kryo ? ", raw Kryo" : ", stream")
+                                + ": " + runner.getSerializedSize() + " bytes, average time " + averageTime
+                                + "(ns), write " + String.format("%.2f", mb / writeSec) + "MB/sec, read "
+                                + String.format("%.2f", mb / readSec) + "MB/sec");
+            }
+        }
+
+        return averageTime;
+    }
+
+}
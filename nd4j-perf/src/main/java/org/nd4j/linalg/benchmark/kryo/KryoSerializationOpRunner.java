@@ -0,0 +1,107 @@
+package org.nd4j.linalg.benchmark.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.nd4j.DataSetSerializer;
+import org.nd4j.Nd4jSerializer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes and reads back an array or a {@link DataSet} either with the raw
+ * Kryo serializers (what a Spark shuffle does) or with the stream based
+ * {@link Nd4j#write(INDArray, DataOutputStream)}/{@link DataSet#save(java.io.OutputStream)}
+ * formats the serializers replaced.
+ *
+ * The serializers are registered directly rather than through the Spark
+ * registrator, so Spark isn't needed on the class path.
+ */
+public class KryoSerializationOpRunner implements OpRunner {
+    private final Object value;
+    private final boolean kryo;
+    private final Kryo serializer;
+    private final Output output = new Output(1 << 20, -1);
+    private final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    private int serializedSize;
+    private long writeTime;
+    private long readTime;
+
+    /**
+     * @param value the array or data set to serialize
+     * @param kryo whether to use the raw Kryo serializers rather than the stream formats
+     */
+    public KryoSerializationOpRunner(Object value, boolean kryo) {
+        this.value = value;
+        this.kryo = kryo;
+        this.serializer = new Kryo();
+        serializer.register(Nd4j.getBackend().getNDArrayClass(), new Nd4jSerializer());
+        serializer.register(DataSet.class, new DataSetSerializer());
+    }
+
+    @Override
+    public void runOp() {
+        try {
+            long start = System.nanoTime();
+            if (kryo) {
+                output.clear();
+                serializer.writeObject(output, value);
+                serializedSize = output.position();
+            } else {
+                bos.reset();
+                if (value instanceof DataSet)
+                    ((DataSet) value).save(bos);
+                else
+                    Nd4j.write((INDArray) value, new DataOutputStream(bos));
+                serializedSize = bos.size();
+            }
+            long written = System.nanoTime();
+
+            if (kryo) {
+                serializer.readObject(new Input(output.getBuffer(), 0, serializedSize), value.getClass());
+            } else if (value instanceof DataSet) {
+                new DataSet().load(new ByteArrayInputStream(bos.toByteArray()));
+            } else {
+                Nd4j.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+            }
+
+            writeTime += written - start;
+            readTime += System.nanoTime() - written;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Size of the last serialized value, in bytes
+     */
+    public int getSerializedSize() {
+        return serializedSize;
+    }
+
+    /**
+     * Total time spent writing since the last call, in nanoseconds
+     */
+    public long drainWriteTime() {
+        long ret = writeTime;
+        writeTime = 0;
+        return ret;
+    }
+
+    /**
+     * Total time spent reading since the last call, in nanoseconds
+     */
+    public long drainReadTime() {
+        long ret = readTime;
+        readTime = 0;
+        return ret;
+    }
+}
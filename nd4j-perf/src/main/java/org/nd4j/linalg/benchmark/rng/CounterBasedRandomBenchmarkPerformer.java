@@ -0,0 +1,47 @@
+package org.nd4j.linalg.benchmark.rng;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+/**
+ * Throughput of {@link org.nd4j.linalg.api.rng.CounterBasedRandom}
+ * with 1 to 32 threads sampling from their own streams.
+ * Prints samples/sec for every thread count, the returned average
+ * is the one for the largest thread count.
+ */
+public class CounterBasedRandomBenchmarkPerformer extends BaseBenchmarkPerformer {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+    public CounterBasedRandomBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        for (int threads : THREADS) {
+            CounterBasedRandomOpRunner runner = new CounterBasedRandomOpRunner(threads);
+            averageTime = 0;
+            for (int i = 0; i < nTimes; i++) {
+                stopWatch.start();
+                runner.runOp();
+                stopWatch.stop();
+                averageTime += stopWatch.getNanoTime();
+                stopWatch.reset();
+            }
+            runner.shutdown();
+
+            averageTime /= nTimes;
+            double samplesPerSec = (double) threads * CounterBasedRandomOpRunner.SAMPLES_PER_THREAD
+                            / (averageTime / 1e9);
+            System.out.println("Threads: " + threads + " average time " + averageTime + "(ns), "
+                            + String.format("%.2f", samplesPerSec / 1e6) + "M samples/sec");
+        }
+
+        return averageTime;
+    }
+
+}
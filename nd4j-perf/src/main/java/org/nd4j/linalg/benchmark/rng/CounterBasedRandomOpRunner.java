@@ -0,0 +1,61 @@
+package org.nd4j.linalg.benchmark.rng;
+
+import org.nd4j.linalg.api.rng.CounterBasedRandom;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Draws {@link #SAMPLES_PER_THREAD} gaussians on each of nThreads threads,
+ * every thread using its own split stream.
+ */
+public class CounterBasedRandomOpRunner implements OpRunner {
+    public final static int SAMPLES_PER_THREAD = 1000000;
+
+    private final CounterBasedRandom root = new CounterBasedRandom(119);
+    private final int nThreads;
+    private final ExecutorService service;
+    private double sink;
+
+    public CounterBasedRandomOpRunner(int nThreads) {
+        this.nThreads = nThreads;
+        this.service = Executors.newFixedThreadPool(nThreads);
+    }
+
+    public int getNumThreads() {
+        return nThreads;
+    }
+
+    @Override
+    public void runOp() {
+        List<Future<Double>> futures = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            final CounterBasedRandom rng = root.split(t);
+            futures.add(service.submit(new Callable<Double>() {
+                @Override
+                public Double call() throws Exception {
+                    double sum = 0;
+                    for (int i = 0; i < SAMPLES_PER_THREAD; i++)
+                        sum += rng.nextGaussian();
+                    return sum;
+                }
+            }));
+        }
+
+        try {
+            for (Future<Double> future : futures)
+                sink += future.get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void shutdown() {
+        service.shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+package org.nd4j.linalg.benchmark.samediff;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+/**
+ * Fused vs unfused inference sessions for the LSTM cell gates and a two layer MLP.
+ * Prints the fused regions and ops, the time per exec of both sessions and the speedup.
+ * The returned average is the fused one for the last graph.
+ */
+public class ElementwiseFusionBenchmarkPerformer extends BaseBenchmarkPerformer {
+    private static final String[] GRAPHS = {ElementwiseFusionOpRunner.LSTM, ElementwiseFusionOpRunner.MLP};
+    private static final int BATCH_SIZE = 64;
+    private static final int SIZE = 256;
+
+    public ElementwiseFusionBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        for (String graph : GRAPHS) {
+            long unfusedTime = 0;
+            for (boolean fuse : new boolean[] {false, true}) {
+                ElementwiseFusionOpRunner runner = new ElementwiseFusionOpRunner(graph, BATCH_SIZE, SIZE, fuse);
+                //warm up, the first calls allocate the session arrays
+                for (int i = 0; i < 5; i++)
+                    runner.runOp();
+
+                averageTime = 0;
+                for (int i = 0; i < nTimes; i++) {
+                    stopWatch.start();
+                    runner.runOp();
+                    stopWatch.stop();
+                    averageTime += stopWatch.getNanoTime();
+                    stopWatch.reset();
+                }
+
+                averageTime /= nTimes;
+                if (fuse) {
+                    System.out.println(graph + ": " + runner.getFusion().getNumRegions() + " fused regions, "
+                                    + runner.getFusion().getNumFusedOps() + " of "
+                                    + runner.getFusion().getProgram().size() + " ops fused, unfused " + unfusedTime
+                                    + "(ns), fused " + averageTime + "(ns), speedup "
+                                    + String.format("%.2f", (double) unfusedTime / averageTime));
+                } else {
+                    unfusedTime = averageTime;
+                }
+            }
+        }
+
+        return averageTime;
+    }
+
+}
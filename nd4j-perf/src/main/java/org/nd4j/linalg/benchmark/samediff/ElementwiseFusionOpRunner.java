@@ -0,0 +1,77 @@
+package org.nd4j.linalg.benchmark.samediff;
+
+import org.nd4j.autodiff.samediff.ElementwiseFusion;
+import org.nd4j.autodiff.samediff.InferenceSession;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.impl.SDVariable;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs an {@link InferenceSession} over either the LSTM cell gates or a two layer MLP,
+ * with or without elementwise fusion.
+ */
+public class ElementwiseFusionOpRunner implements OpRunner {
+    public static final String LSTM = "lstm";
+    public static final String MLP = "mlp";
+
+    private final Map<String, INDArray> inputs = new HashMap<>();
+    private final InferenceSession session;
+    private final String output;
+
+    /**
+     * @param graph {@link #LSTM} or {@link #MLP}
+     * @param batchSize rows of every input
+     * @param size columns of the LSTM gates, hidden layer size of the MLP
+     * @param fuse whether to fuse trees of elementwise ops
+     */
+    public ElementwiseFusionOpRunner(String graph, int batchSize, int size, boolean fuse) {
+        SameDiff sameDiff = SameDiff.create();
+        SDVariable out;
+        if (LSTM.equals(graph)) {
+            for (String name : new String[] {"f", "i", "g", "o", "c"})
+                inputs.put(name, Nd4j.rand(batchSize, size).subi(0.5));
+            SDVariable f = sameDiff.var("f", inputs.get("f"));
+            SDVariable i = sameDiff.var("i", inputs.get("i"));
+            SDVariable g = sameDiff.var("g", inputs.get("g"));
+            SDVariable o = sameDiff.var("o", inputs.get("o"));
+            SDVariable c = sameDiff.var("c", inputs.get("c"));
+            SDVariable cell = sameDiff.sigmoid(f).mul(c).add(sameDiff.sigmoid(i).mul(sameDiff.tanh(g)));
+            out = sameDiff.sigmoid(o).mul(sameDiff.tanh(cell));
+        } else if (MLP.equals(graph)) {
+            inputs.put("x", Nd4j.rand(batchSize, size).subi(0.5));
+            inputs.put("w1", Nd4j.rand(size, size).subi(0.5));
+            inputs.put("b1", Nd4j.rand(batchSize, size).subi(0.5));
+            inputs.put("w2", Nd4j.rand(size, size).subi(0.5));
+            inputs.put("b2", Nd4j.rand(batchSize, size).subi(0.5));
+            SDVariable x = sameDiff.var("x", inputs.get("x"));
+            SDVariable w1 = sameDiff.var("w1", inputs.get("w1"));
+            SDVariable b1 = sameDiff.var("b1", inputs.get("b1"));
+            SDVariable w2 = sameDiff.var("w2", inputs.get("w2"));
+            SDVariable b2 = sameDiff.var("b2", inputs.get("b2"));
+            SDVariable hidden = sameDiff.sigmoid(sameDiff.mmul(x, w1).add(b1));
+            out = sameDiff.tanh(sameDiff.mmul(hidden, w2).add(b2));
+        } else {
+            throw new IllegalArgumentException("Unknown graph " + graph);
+        }
+
+        this.output = out.getVarName();
+        this.session = sameDiff.inferenceSession(null, fuse);
+    }
+
+    @Override
+    public void runOp() {
+        session.exec(inputs, output);
+    }
+
+    /**
+     * The fusion of the session, or null if it isn't fused
+     */
+    public ElementwiseFusion getFusion() {
+        return session.getFusion();
+    }
+}
@@ -0,0 +1,56 @@
+package org.nd4j.linalg.benchmark.samediff;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+/**
+ * Per call overhead of {@link org.nd4j.autodiff.samediff.SameDiff#exec()} on a 1000 node graph:
+ * each case runs the graph through SameDiff and then the same ops directly,
+ * and prints the time per exec call and the overhead per node.
+ * Small arrays show the overhead, large ones how much of the call it is.
+ * The returned average is the SameDiff one for the last case.
+ */
+public class SameDiffExecBenchmarkPerformer extends BaseBenchmarkPerformer {
+    private static final int NUM_NODES = 1000;
+    private static final int[] LENGTHS = {16, 1 << 14};
+
+    public SameDiffExecBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        for (int length : LENGTHS) {
+            long sameDiffTime = 0;
+            for (boolean direct : new boolean[] {false, true}) {
+                SameDiffExecOpRunner runner = new SameDiffExecOpRunner(NUM_NODES, length, direct);
+                averageTime = 0;
+                for (int i = 0; i < nTimes; i++) {
+                    stopWatch.start();
+                    runner.runOp();
+                    stopWatch.stop();
+                    averageTime += stopWatch.getNanoTime();
+                    stopWatch.reset();
+                }
+
+                averageTime /= nTimes;
+                if (direct) {
+                    System.out.println(NUM_NODES + " nodes, length " + length + ": first exec "
+                                    + runner.getCompileTime() + "(ns), SameDiff exec " + sameDiffTime
+                                    + "(ns), direct " + averageTime + "(ns), overhead per node "
+                                    + (sameDiffTime - averageTime) / runner.numOps() + "(ns)");
+                    averageTime = sameDiffTime;
+                } else {
+                    sameDiffTime = averageTime;
+                }
+            }
+        }
+
+        return averageTime;
+    }
+
+}
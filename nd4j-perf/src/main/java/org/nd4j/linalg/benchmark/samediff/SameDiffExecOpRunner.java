@@ -0,0 +1,63 @@
+package org.nd4j.linalg.benchmark.samediff;
+
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.impl.SDVariable;
+import org.nd4j.linalg.api.ops.Op;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+
+/**
+ * Executes a chain of sigmoids either through {@link SameDiff#exec()}
+ * or by handing the very same ops straight to the op executioner,
+ * so the difference between the two is the per call overhead of SameDiff.
+ */
+public class SameDiffExecOpRunner implements OpRunner {
+    private final SameDiff sameDiff;
+    private final boolean direct;
+    private final List<Op> ops;
+    private final long compileTime;
+
+    /**
+     * @param numNodes number of vertices in the graph, including the input
+     * @param length length of the input array
+     * @param direct whether to execute the ops directly rather than through SameDiff
+     */
+    public SameDiffExecOpRunner(int numNodes, int length, boolean direct) {
+        this.direct = direct;
+        this.sameDiff = SameDiff.create();
+        SDVariable curr = sameDiff.var("x", Nd4j.rand(1, length));
+        for (int i = 1; i < numNodes; i++)
+            curr = sameDiff.sigmoid(curr);
+
+        //first call compiles the graph and creates the ops, later calls reuse them
+        long start = System.nanoTime();
+        this.ops = sameDiff.exec().getRight();
+        this.compileTime = System.nanoTime() - start;
+    }
+
+    @Override
+    public void runOp() {
+        if (direct) {
+            for (Op op : ops)
+                Nd4j.getExecutioner().exec(op);
+        } else {
+            sameDiff.exec();
+        }
+    }
+
+    /**
+     * Number of ops executed per call
+     */
+    public int numOps() {
+        return ops.size();
+    }
+
+    /**
+     * Time of the first exec call, which compiles the graph, in nanoseconds
+     */
+    public long getCompileTime() {
+        return compileTime;
+    }
+}
@@ -0,0 +1,94 @@
+package org.nd4j.linalg.benchmark.samediff;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Repeated gradients of a 50 sigmoid chain, with and without the cyclic exec workspace.
+ * Prints gradients/sec, the heap allocated per gradient and per second (where the JVM reports it)
+ * and the collections and collection time of all garbage collectors during the run.
+ * The returned average is the one with the workspace.
+ */
+public class SameDiffGradientBenchmarkPerformer extends BaseBenchmarkPerformer {
+    private static final int DEPTH = 50;
+    private static final int ROWS = 128;
+    private static final int COLUMNS = 256;
+
+    public SameDiffGradientBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        for (boolean workspace : new boolean[] {false, true}) {
+            SameDiffGradientOpRunner runner = new SameDiffGradientOpRunner(DEPTH, ROWS, COLUMNS, workspace);
+            //warm up, the first call compiles the graph and sizes the workspace
+            for (int i = 0; i < 5; i++)
+                runner.runOp();
+
+            long gcCount = gcCount();
+            long gcTime = gcTime();
+            long allocated = allocatedBytes();
+            averageTime = 0;
+            for (int i = 0; i < nTimes; i++) {
+                stopWatch.start();
+                runner.runOp();
+                stopWatch.stop();
+                averageTime += stopWatch.getNanoTime();
+                stopWatch.reset();
+            }
+            long totalTime = averageTime;
+            averageTime /= nTimes;
+
+            String heap = "heap allocations n/a";
+            if (allocated >= 0) {
+                allocated = allocatedBytes() - allocated;
+                heap = "heap allocations " + allocated / nTimes + " bytes per gradient, "
+                                + String.format("%.2f", allocated / (double) (1 << 20) / (totalTime / 1e9))
+                                + "MB/sec";
+            }
+            System.out.println((workspace ? "Cyclic workspace" : "No workspace") + ": average time " + averageTime
+                            + "(ns), " + String.format("%.1f", nTimes / (totalTime / 1e9)) + " gradients/sec, "
+                            + heap + ", " + (gcCount() - gcCount) + " collections, " + (gcTime() - gcTime)
+                            + "(ms) in GC");
+        }
+
+        return averageTime;
+    }
+
+    private static long gcCount() {
+        long ret = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+            ret += Math.max(0, bean.getCollectionCount());
+        return ret;
+    }
+
+    private static long gcTime() {
+        long ret = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+            ret += Math.max(0, bean.getCollectionTime());
+        return ret;
+    }
+
+    /**
+     * Heap bytes allocated by the current thread, or -1 if the JVM doesn't report it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled())
+            return -1;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
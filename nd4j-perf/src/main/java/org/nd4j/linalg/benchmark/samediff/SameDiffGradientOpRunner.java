@@ -0,0 +1,35 @@
+package org.nd4j.linalg.benchmark.samediff;
+
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.impl.SDVariable;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Computes the gradient of a chain of sigmoids with {@link SameDiff#execBackwardAndEndResult()},
+ * with or without the cyclic exec workspace.
+ */
+public class SameDiffGradientOpRunner implements OpRunner {
+    private final SameDiff sameDiff;
+
+    /**
+     * @param depth number of sigmoids in the chain
+     * @param rows rows of the input
+     * @param columns columns of the input
+     * @param workspace whether to use {@link SameDiff#cyclicExecWorkspaceConfiguration()}
+     */
+    public SameDiffGradientOpRunner(int depth, int rows, int columns, boolean workspace) {
+        this.sameDiff = SameDiff.create();
+        SDVariable curr = sameDiff.var("x", Nd4j.rand(rows, columns));
+        for (int i = 0; i < depth; i++)
+            curr = sameDiff.sigmoid(curr);
+        sameDiff.sum(curr, Integer.MAX_VALUE);
+        if (workspace)
+            sameDiff.setExecWorkspaceConfiguration(SameDiff.cyclicExecWorkspaceConfiguration());
+    }
+
+    @Override
+    public void runOp() {
+        sameDiff.execBackwardAndEndResult();
+    }
+}
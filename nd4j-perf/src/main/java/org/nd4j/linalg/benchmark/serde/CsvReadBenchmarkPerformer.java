@@ -0,0 +1,16 @@
+package org.nd4j.linalg.benchmark.serde;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Parallel delimited text reading with {@link org.nd4j.serde.csv.CsvSerde},
+ * compared to {@link org.nd4j.linalg.factory.Nd4j#readNumpy(String, String)} in
+ * {@link org.nd4j.linalg.benchmark.serde.readnumpy.ReadNumpyBenchmarkPerformer}.
+ */
+public class CsvReadBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public CsvReadBenchmarkPerformer(int nTimes) {
+        super(new CsvReadOpRunner(), nTimes);
+    }
+
+}
@@ -0,0 +1,44 @@
+package org.nd4j.linalg.benchmark.serde;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.serde.csv.CsvSerde;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Parallel read of a 200k x 100 tab separated file with {@link CsvSerde}.
+ */
+public class CsvReadOpRunner implements OpRunner {
+    public final static int ROWS = 200000;
+    public final static int COLUMNS = 100;
+    private static File file;
+
+    /**
+     * The shared benchmark file, written on first use
+     */
+    public static synchronized File file() {
+        if (file == null) {
+            try {
+                file = File.createTempFile("csvread", ".tsv");
+                file.deleteOnExit();
+                INDArray arr = Nd4j.rand(new int[] {ROWS, COLUMNS}, 119);
+                CsvSerde.write(arr, file, '\t');
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return file;
+    }
+
+    @Override
+    public void runOp() {
+        try {
+            CsvSerde.read(file(), '\t');
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.nd4j.linalg.benchmark.serde;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+/**
+ * Write and read throughput of {@link org.nd4j.linalg.api.buffer.DataBuffer}
+ * serialization through a file, for buffers from 1MB to 1GB.
+ * Prints MB/sec for every size, the returned average
+ * is the one for the largest size.
+ */
+public class DataBufferSerDeBenchmarkPerformer extends BaseBenchmarkPerformer {
+    private static final long[] SIZES = {1L << 20, 16L << 20, 256L << 20, 1L << 30};
+
+    public DataBufferSerDeBenchmarkPerformer(int nTimes) {
+        super(nTimes);
+    }
+
+    @Override
+    public long run(Nd4jBackend backend) {
+        Nd4j nd4j = new Nd4j();
+        nd4j.initWithBackend(backend);
+
+        for (long bytes : SIZES) {
+            DataBufferSerDeOpRunner runner = new DataBufferSerDeOpRunner(bytes);
+            averageTime = 0;
+            for (int i = 0; i < nTimes; i++) {
+                stopWatch.start();
+                runner.runOp();
+                stopWatch.stop();
+                averageTime += stopWatch.getNanoTime();
+                stopWatch.reset();
+            }
+            runner.cleanup();
+
+            averageTime /= nTimes;
+            double mb = (double) bytes / (1 << 20);
+            double writeSec = runner.drainWriteTime() / 1e9 / nTimes;
+            double readSec = runner.drainReadTime() / 1e9 / nTimes;
+            System.out.println("Size: " + (long) mb + "MB average time " + averageTime + "(ns), write "
+                            + String.format("%.2f", mb / writeSec) + "MB/sec, read "
+                            + String.format("%.2f", mb / readSec) + "MB/sec");
+        }
+
+        return averageTime;
+    }
+
+}
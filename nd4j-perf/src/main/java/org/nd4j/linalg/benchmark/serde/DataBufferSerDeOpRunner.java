@@ -0,0 +1,79 @@
+package org.nd4j.linalg.benchmark.serde;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+
+/**
+ * Writes a data buffer of the given size to a temporary file
+ * with {@link DataBuffer#write(DataOutputStream)} and reads it back
+ * with {@link DataBuffer#read(DataInputStream)}.
+ */
+public class DataBufferSerDeOpRunner implements OpRunner {
+    private final DataBuffer buffer;
+    private final DataBuffer restored;
+    private final File file;
+    private long writeTime;
+    private long readTime;
+
+    /**
+     * @param bytes the size of the buffer in bytes
+     */
+    public DataBufferSerDeOpRunner(long bytes) {
+        long length = bytes / Nd4j.sizeOfDataType();
+        this.buffer = Nd4j.rand(new int[] {1, (int) length}).data();
+        this.restored = Nd4j.createBuffer(length);
+        try {
+            this.file = File.createTempFile("databuffer", ".bin");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.file.deleteOnExit();
+    }
+
+    @Override
+    public void runOp() {
+        try {
+            long start = System.nanoTime();
+            try (DataOutputStream dos = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+                buffer.write(dos);
+            }
+            long written = System.nanoTime();
+
+            try (DataInputStream dis = new DataInputStream(
+                            new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+                restored.read(dis);
+            }
+
+            writeTime += written - start;
+            readTime += System.nanoTime() - written;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Total time spent writing since the last call, in nanoseconds
+     */
+    public long drainWriteTime() {
+        long ret = writeTime;
+        writeTime = 0;
+        return ret;
+    }
+
+    /**
+     * Total time spent reading since the last call, in nanoseconds
+     */
+    public long drainReadTime() {
+        long ret = readTime;
+        readTime = 0;
+        return ret;
+    }
+
+    public void cleanup() {
+        file.delete();
+    }
+}
@@ -0,0 +1,16 @@
+package org.nd4j.linalg.benchmark.serde;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Binary .npy exchange with {@link org.nd4j.serde.numpy.NpySerde}, compared to the
+ * text based {@link org.nd4j.linalg.factory.Nd4j#writeNumpy(org.nd4j.linalg.api.ndarray.INDArray, String, String)}
+ * in {@link org.nd4j.linalg.benchmark.serde.writenumpy.WriteNumpyBenchmarkPerformer}.
+ */
+public class NpyWriteBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public NpyWriteBenchmarkPerformer(int nTimes) {
+        super(new NpyWriteOpRunner(), nTimes);
+    }
+
+}
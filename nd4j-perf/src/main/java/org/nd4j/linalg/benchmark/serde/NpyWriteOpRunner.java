@@ -0,0 +1,39 @@
+package org.nd4j.linalg.benchmark.serde;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.serde.numpy.NpySerde;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes a 2000 x 1000 array as .npy with {@link NpySerde} and maps it back.
+ */
+public class NpyWriteOpRunner implements OpRunner {
+    public final static int ROWS = 2000;
+    public final static int COLUMNS = 1000;
+
+    INDArray arr = Nd4j.rand(ROWS, COLUMNS);
+    File file;
+
+    public NpyWriteOpRunner() {
+        try {
+            file = File.createTempFile("npywrite", ".npy");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        file.deleteOnExit();
+    }
+
+    @Override
+    public void runOp() {
+        try {
+            NpySerde.write(arr, file);
+            NpySerde.mmap(file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.nd4j.linalg.benchmark.serde.readnumpy;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Baseline for {@link org.nd4j.linalg.benchmark.serde.CsvReadBenchmarkPerformer}.
+ */
+public class ReadNumpyBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public ReadNumpyBenchmarkPerformer(int nTimes) {
+        super(new ReadNumpyOpRunner(), nTimes);
+    }
+
+}
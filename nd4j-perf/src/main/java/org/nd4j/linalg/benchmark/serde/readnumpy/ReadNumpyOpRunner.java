@@ -0,0 +1,22 @@
+package org.nd4j.linalg.benchmark.serde.readnumpy;
+
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.benchmark.serde.CsvReadOpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.IOException;
+
+/**
+ * Single threaded read of the same file as {@link CsvReadOpRunner}.
+ */
+public class ReadNumpyOpRunner implements OpRunner {
+
+    @Override
+    public void runOp() {
+        try {
+            Nd4j.readNumpy(CsvReadOpRunner.file().getAbsolutePath(), "\t");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
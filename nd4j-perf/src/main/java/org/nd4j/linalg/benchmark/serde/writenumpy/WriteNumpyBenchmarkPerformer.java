@@ -0,0 +1,14 @@
+package org.nd4j.linalg.benchmark.serde.writenumpy;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Baseline for {@link org.nd4j.linalg.benchmark.serde.NpyWriteBenchmarkPerformer}.
+ */
+public class WriteNumpyBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public WriteNumpyBenchmarkPerformer(int nTimes) {
+        super(new WriteNumpyOpRunner(), nTimes);
+    }
+
+}
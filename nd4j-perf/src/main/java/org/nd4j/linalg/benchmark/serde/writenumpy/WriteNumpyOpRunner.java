@@ -0,0 +1,36 @@
+package org.nd4j.linalg.benchmark.serde.writenumpy;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.benchmark.serde.NpyWriteOpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Text round trip of an array of the same size as in {@link NpyWriteOpRunner}.
+ */
+public class WriteNumpyOpRunner implements OpRunner {
+    INDArray arr = Nd4j.rand(NpyWriteOpRunner.ROWS, NpyWriteOpRunner.COLUMNS);
+    File file;
+
+    public WriteNumpyOpRunner() {
+        try {
+            file = File.createTempFile("writenumpy", ".txt");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        file.deleteOnExit();
+    }
+
+    @Override
+    public void runOp() {
+        try {
+            Nd4j.writeNumpy(arr, file.getAbsolutePath(), "\t");
+            Nd4j.readNumpy(file.getAbsolutePath(), "\t");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.nd4j.linalg.benchmark.sort;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Top k selection over a single long vector with {@link org.nd4j.linalg.util.Sorting#topK},
+ * compared to a full sort in
+ * {@link org.nd4j.linalg.benchmark.sort.sortwithindices.SortWithIndicesBenchmarkPerformer}.
+ */
+public class TopKBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public TopKBenchmarkPerformer(int nTimes) {
+        super(new TopKOpRunner(), nTimes);
+    }
+
+}
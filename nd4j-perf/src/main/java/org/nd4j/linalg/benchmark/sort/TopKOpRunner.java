@@ -0,0 +1,23 @@
+package org.nd4j.linalg.benchmark.sort;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.Sorting;
+
+/**
+ * Top 100 of a 1M element score vector into preallocated outputs.
+ */
+public class TopKOpRunner implements OpRunner {
+    public final static int LENGTH = 1000000;
+    public final static int K = 100;
+
+    INDArray scores = Nd4j.rand(1, LENGTH);
+    INDArray indices = Nd4j.create(1, K);
+    INDArray values = Nd4j.create(1, K);
+
+    @Override
+    public void runOp() {
+        Sorting.topK(scores, K, 1, true, indices, values);
+    }
+}
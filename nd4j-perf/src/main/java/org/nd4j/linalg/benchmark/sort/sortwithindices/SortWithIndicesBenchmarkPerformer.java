@@ -0,0 +1,15 @@
+package org.nd4j.linalg.benchmark.sort.sortwithindices;
+
+import org.nd4j.linalg.benchmark.api.BaseBenchmarkPerformer;
+
+/**
+ * Full sort with indices, the baseline for
+ * {@link org.nd4j.linalg.benchmark.sort.TopKBenchmarkPerformer}.
+ */
+public class SortWithIndicesBenchmarkPerformer extends BaseBenchmarkPerformer {
+
+    public SortWithIndicesBenchmarkPerformer(int nTimes) {
+        super(new SortWithIndicesOpRunner(), nTimes);
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.nd4j.linalg.benchmark.sort.sortwithindices;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.benchmark.api.OpRunner;
+import org.nd4j.linalg.benchmark.sort.TopKOpRunner;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Full descending sort with indices of the same vector as {@link TopKOpRunner}.
+ */
+public class SortWithIndicesOpRunner implements OpRunner {
+    INDArray scores = Nd4j.rand(1, TopKOpRunner.LENGTH);
+
+    @Override
+    public void runOp() {
+        Nd4j.sortWithIndices(scores.dup(), 1, false);
+    }
+}
@@ -51,6 +51,8 @@ public class NDArrayMessage implements Serializable {
     private static int[] WHOLE_ARRAY_UPDATE = {-1};
     //represents the constant for indicating using the whole array for an update (-1)
     private static int WHOLE_ARRAY_INDEX = -1;
+    //a 1 length array of -2 means the array is a threshold encoded update of the whole array
+    private static int[] THRESHOLD_ENCODED_UPDATE = {-2};
 
     public enum MessageValidity {
         VALID, NULL_VALUE, INCONSISTENT_DIMENSIONS
@@ -109,6 +111,33 @@ public class NDArrayMessage implements Serializable {
                         .sent(getCurrentTimeUtc()).build();
     }
 
+    /**
+     * Prepare a threshold encoded update
+     * of the whole array: the encoded array is the int array
+     * returned by {@link org.nd4j.linalg.api.ops.executioner.OpExecutioner#thresholdEncode(INDArray, double)}
+     * and is meant to be decoded (added) in to the target with
+     * {@link org.nd4j.linalg.api.ops.executioner.OpExecutioner#thresholdDecode(INDArray, INDArray)}.
+     * The dimensions are a 1 length int array with -2 as its only element.
+     * @param encoded the encoded update
+     * @return the message for the encoded update
+     */
+    public static NDArrayMessage thresholdEncodedUpdate(INDArray encoded) {
+        return NDArrayMessage.builder().arr(encoded).dimensions(THRESHOLD_ENCODED_UPDATE).index(WHOLE_ARRAY_INDEX)
+                        .sent(getCurrentTimeUtc()).build();
+    }
+
+    /**
+     * Returns true if the message is
+     * a threshold encoded update
+     * (see {@link #thresholdEncodedUpdate(INDArray)})
+     * @param message the message to check
+     * @return true if the array of the message is threshold encoded
+     */
+    public static boolean isThresholdEncoded(NDArrayMessage message) {
+        int[] dimensions = message.getDimensions();
+        return dimensions != null && dimensions.length == 1 && dimensions[0] == THRESHOLD_ENCODED_UPDATE[0];
+    }
+
     /**
      * Factory method for creating an array
      * to send now (uses now in utc for the timestamp).
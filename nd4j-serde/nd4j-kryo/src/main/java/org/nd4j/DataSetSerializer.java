@@ -0,0 +1,97 @@
+package org.nd4j;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kryo serializer for {@link DataSet}.
+ * The arrays are written with {@link Nd4jSerializer},
+ * labels that are the same array as the features are only written once.
+ * Label names, column names and example meta data are written with Kryo's
+ * default serializers.
+ */
+public class DataSetSerializer extends Serializer<DataSet> {
+    private static final byte FEATURES_PRESENT = 1;
+    private static final byte LABELS_PRESENT = 1 << 1;
+    private static final byte LABELS_SAME_AS_FEATURES = 1 << 2;
+    private static final byte FEATURES_MASK_PRESENT = 1 << 3;
+    private static final byte LABELS_MASK_PRESENT = 1 << 4;
+
+    private final Nd4jSerializer arraySerializer = new Nd4jSerializer();
+
+    @Override
+    public void write(Kryo kryo, Output output, DataSet object) {
+        INDArray features = object.getFeatures();
+        INDArray labels = object.getLabels();
+        INDArray featuresMask = object.getFeaturesMaskArray();
+        INDArray labelsMask = object.getLabelsMaskArray();
+        boolean labelsSameAsFeatures = labels != null && labels == features;
+
+        byte included = 0;
+        if (features != null)
+            included |= FEATURES_PRESENT;
+        if (labelsSameAsFeatures)
+            included |= LABELS_SAME_AS_FEATURES;
+        else if (labels != null)
+            included |= LABELS_PRESENT;
+        if (featuresMask != null)
+            included |= FEATURES_MASK_PRESENT;
+        if (labelsMask != null)
+            included |= LABELS_MASK_PRESENT;
+
+        output.writeByte(included);
+        if (features != null)
+            arraySerializer.write(kryo, output, features);
+        if (!labelsSameAsFeatures && labels != null)
+            arraySerializer.write(kryo, output, labels);
+        if (featuresMask != null)
+            arraySerializer.write(kryo, output, featuresMask);
+        if (labelsMask != null)
+            arraySerializer.write(kryo, output, labelsMask);
+
+        kryo.writeClassAndObject(output, nullIfEmpty(object.getLabelNamesList()));
+        kryo.writeClassAndObject(output, nullIfEmpty(object.getColumnNames()));
+        kryo.writeClassAndObject(output, object.getExampleMetaData());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataSet read(Kryo kryo, Input input, Class<DataSet> type) {
+        byte included = input.readByte();
+
+        INDArray features = (included & FEATURES_PRESENT) != 0 ? arraySerializer.read(kryo, input, INDArray.class)
+                        : null;
+        INDArray labels = null;
+        if ((included & LABELS_SAME_AS_FEATURES) != 0)
+            labels = features;
+        else if ((included & LABELS_PRESENT) != 0)
+            labels = arraySerializer.read(kryo, input, INDArray.class);
+        INDArray featuresMask = (included & FEATURES_MASK_PRESENT) != 0
+                        ? arraySerializer.read(kryo, input, INDArray.class) : null;
+        INDArray labelsMask = (included & LABELS_MASK_PRESENT) != 0
+                        ? arraySerializer.read(kryo, input, INDArray.class) : null;
+
+        DataSet ret = new DataSet(features, labels, featuresMask, labelsMask);
+
+        List<String> labelNames = (List<String>) kryo.readClassAndObject(input);
+        if (labelNames != null)
+            ret.setLabelNames(labelNames);
+        List<String> columnNames = (List<String>) kryo.readClassAndObject(input);
+        if (columnNames != null)
+            ret.setColumnNames(columnNames);
+        ret.setExampleMetaData((List<? extends Serializable>) kryo.readClassAndObject(input));
+        return ret;
+    }
+
+    private static List<String> nullIfEmpty(List<String> list) {
+        return list == null || list.isEmpty() ? null : new ArrayList<>(list);
+    }
+}
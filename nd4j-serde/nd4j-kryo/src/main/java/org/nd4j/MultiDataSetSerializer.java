@@ -0,0 +1,73 @@
+package org.nd4j;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.MultiDataSet;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Kryo serializer for {@link MultiDataSet}.
+ * The arrays are written with {@link Nd4jSerializer},
+ * example meta data with Kryo's default serializers.
+ * Null arrays (and null entries of the mask arrays) are preserved.
+ */
+public class MultiDataSetSerializer extends Serializer<MultiDataSet> {
+    private final Nd4jSerializer arraySerializer = new Nd4jSerializer();
+
+    @Override
+    public void write(Kryo kryo, Output output, MultiDataSet object) {
+        writeArrays(kryo, output, object.getFeatures());
+        writeArrays(kryo, output, object.getLabels());
+        writeArrays(kryo, output, object.getFeaturesMaskArrays());
+        writeArrays(kryo, output, object.getLabelsMaskArrays());
+        kryo.writeClassAndObject(output, object.getExampleMetaData());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MultiDataSet read(Kryo kryo, Input input, Class<MultiDataSet> type) {
+        INDArray[] features = readArrays(kryo, input);
+        INDArray[] labels = readArrays(kryo, input);
+        INDArray[] featuresMasks = readArrays(kryo, input);
+        INDArray[] labelsMasks = readArrays(kryo, input);
+
+        MultiDataSet ret = new MultiDataSet(features, labels, featuresMasks, labelsMasks);
+        ret.setExampleMetaData((List<? extends Serializable>) kryo.readClassAndObject(input));
+        return ret;
+    }
+
+    /**
+     * Array count + 1 (0 for a null array), followed by a presence byte and the array for every entry
+     */
+    private void writeArrays(Kryo kryo, Output output, INDArray[] arrays) {
+        if (arrays == null) {
+            output.writeInt(0, true);
+            return;
+        }
+
+        output.writeInt(arrays.length + 1, true);
+        for (INDArray arr : arrays) {
+            output.writeBoolean(arr != null);
+            if (arr != null)
+                arraySerializer.write(kryo, output, arr);
+        }
+    }
+
+    private INDArray[] readArrays(Kryo kryo, Input input) {
+        int length = input.readInt(true);
+        if (length == 0)
+            return null;
+
+        INDArray[] ret = new INDArray[length - 1];
+        for (int i = 0; i < ret.length; i++) {
+            if (input.readBoolean())
+                ret[i] = arraySerializer.read(kryo, input, INDArray.class);
+        }
+        return ret;
+    }
+}
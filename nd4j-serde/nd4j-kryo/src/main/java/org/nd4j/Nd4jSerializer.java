@@ -4,17 +4,47 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.complex.IComplexNDArray;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
+ * Kryo serializer for ndarrays.
+ *
+ * Real valued float, double and int arrays are written as a compact header
+ * (data type, byte order, ordering and shape) followed by the raw bytes
+ * of the buffer, copied out of (and back into) native memory in bulk.
+ * On read the array is allocated with {@link Nd4j#createUninitialized(int[], char)},
+ * so it ends up in the current workspace if there is one.
+ * Everything else (complex arrays, half precision) goes through {@link Nd4j#write(INDArray, DataOutputStream)}.
+ *
+ * Both sides of the (de)serialization are expected to run the same nd4j version,
+ * as is the case for a Spark shuffle.
+ *
  * Created by agibsonccc on 5/22/16.
  */
 public class Nd4jSerializer extends Serializer<INDArray> {
+    private static final byte FORMAT_STREAM = 0;
+    private static final byte FORMAT_RAW = 1;
+
+    private static final byte TYPE_DOUBLE = 0;
+    private static final byte TYPE_FLOAT = 1;
+    private static final byte TYPE_INT = 2;
+
+    private static final byte BIG_ENDIAN = 0;
+    private static final byte LITTLE_ENDIAN = 1;
+
+    private static final int CHUNK_BYTES = 1 << 16;
+
     /**
      * Writes the bytes for the object to the output.
      * <p>
@@ -27,13 +57,67 @@ public class Nd4jSerializer extends Serializer<INDArray> {
      */
     @Override
     public void write(Kryo kryo, Output output, INDArray object) {
-        DataOutputStream dos = new DataOutputStream(output);
-        try {
-            Nd4j.write(object, dos);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        Nd4j.getCompressor().autoDecompress(object);
+        byte type = typeCode(object);
+        if (object instanceof IComplexNDArray || type < 0) {
+            output.writeByte(FORMAT_STREAM);
+            DataOutputStream dos = new DataOutputStream(output);
+            try {
+                Nd4j.write(object, dos);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            //Note: output should NOT be closed manually here - may be needed elsewhere (and closing here will cause serialization to fail)
+            return;
+        }
+
+        INDArray arr = isDense(object) ? object : object.dup(object.ordering());
+        Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+
+        int[] shape = arr.shape();
+        output.writeByte(FORMAT_RAW);
+        output.writeByte(type);
+        output.writeByte(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN);
+        output.writeByte(arr.ordering());
+        output.writeInt(shape.length, true);
+        for (int s : shape)
+            output.writeInt(s, true);
+
+        DataBuffer data = arr.data();
+        int elementSize = data.getElementSize();
+        long bytes = arr.length() * elementSize;
+        ByteBuffer content = contentBuffer(data, bytes);
+        byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_BYTES, bytes))];
+
+        if (content != null) {
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                output.writeBytes(chunk, 0, n);
+            }
+        } else {
+            //no direct view of the memory, go element by element through a native order scratch buffer
+            ByteBuffer scratch = ByteBuffer.wrap(chunk).order(ByteOrder.nativeOrder());
+            long length = arr.length();
+            for (long i = 0; i < length; i++) {
+                if (scratch.remaining() < elementSize) {
+                    output.writeBytes(chunk, 0, scratch.position());
+                    scratch.clear();
+                }
+                switch (type) {
+                    case TYPE_DOUBLE:
+                        scratch.putDouble(data.getDouble(i));
+                        break;
+                    case TYPE_FLOAT:
+                        scratch.putFloat(data.getFloat(i));
+                        break;
+                    default:
+                        scratch.putInt(data.getInt(i));
+                        break;
+                }
+            }
+            output.writeBytes(chunk, 0, scratch.position());
         }
-        //Note: output should NOT be closed manually here - may be needed elsewhere (and closing here will cause serialization to fail)
     }
 
     /**
@@ -53,15 +137,120 @@ public class Nd4jSerializer extends Serializer<INDArray> {
      */
     @Override
     public INDArray read(Kryo kryo, Input input, Class<INDArray> type) {
-        DataInputStream dis = new DataInputStream(input);
-        try {
-            return Nd4j.read(dis);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        byte format = input.readByte();
+        if (format == FORMAT_STREAM) {
+            DataInputStream dis = new DataInputStream(input);
+            try {
+                return Nd4j.read(dis);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            //Note: input should NOT be closed manually here - may be needed elsewhere (and closing here will cause serialization to fail)
+        } else if (format != FORMAT_RAW) {
+            throw new IllegalStateException("Unknown ndarray format " + format);
+        }
+
+        byte dataType = input.readByte();
+        ByteOrder byteOrder = input.readByte() == BIG_ENDIAN ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        char ordering = (char) input.readByte();
+        int[] shape = new int[input.readInt(true)];
+        for (int i = 0; i < shape.length; i++)
+            shape[i] = input.readInt(true);
+
+        INDArray ret = dataType == TYPE_INT ? Nd4j.create(Nd4j.createBuffer(new int[ArrayUtil.prod(shape)]), shape,
+                        Nd4j.getStrides(shape, ordering), 0, ordering) : Nd4j.createUninitialized(shape, ordering);
+        DataBuffer data = ret.data();
+
+        int srcElementSize = dataType == TYPE_DOUBLE ? 8 : 4;
+        long length = ret.length();
+        long bytes = length * srcElementSize;
+        byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_BYTES, bytes))];
+
+        ByteBuffer content = typeCode(ret) == dataType && byteOrder == ByteOrder.nativeOrder()
+                        ? contentBuffer(data, bytes) : null;
+        if (content != null) {
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                input.readBytes(chunk, 0, n);
+                content.put(chunk, 0, n);
+            }
+        } else {
+            //different type or byte order: convert element by element
+            ByteBuffer scratch = ByteBuffer.wrap(chunk).order(byteOrder);
+            scratch.limit(0);
+            for (long i = 0; i < length; i++) {
+                if (!scratch.hasRemaining()) {
+                    int n = (int) Math.min(chunk.length, (length - i) * srcElementSize);
+                    input.readBytes(chunk, 0, n);
+                    scratch.position(0);
+                    scratch.limit(n);
+                }
+                switch (dataType) {
+                    case TYPE_DOUBLE:
+                        data.put(i, scratch.getDouble());
+                        break;
+                    case TYPE_FLOAT:
+                        data.put(i, scratch.getFloat());
+                        break;
+                    default:
+                        data.put(i, scratch.getInt());
+                        break;
+                }
+            }
         }
-        //Note: input should NOT be closed manually here - may be needed elsewhere (and closing here will cause serialization to fail)
+
+        Nd4j.getAffinityManager().tagLocation(ret, AffinityManager.Location.HOST);
+        return ret;
     }
 
+    /**
+     * The format code for the given array's data type,
+     * or -1 if the raw format doesn't cover it
+     */
+    private static byte typeCode(INDArray arr) {
+        switch (arr.data().dataType()) {
+            case DOUBLE:
+                return TYPE_DOUBLE;
+            case FLOAT:
+                return TYPE_FLOAT;
+            case INT:
+                return TYPE_INT;
+            default:
+                return -1;
+        }
+    }
 
+    /**
+     * Returns true if the array's elements are exactly its buffer,
+     * laid out with the standard strides for its ordering
+     */
+    private static boolean isDense(INDArray arr) {
+        if (arr.isView() || arr.offset() != 0 || arr.data().length() != arr.length())
+            return false;
 
+        int[] shape = arr.shape();
+        int[] stride = arr.stride();
+        int[] expected = Nd4j.getStrides(shape, arr.ordering());
+        for (int i = 0; i < shape.length; i++) {
+            if (shape[i] > 1 && stride[i] != expected[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * A native order view of the first bytes of the given buffer,
+     * or null if the buffer memory can't be viewed directly
+     */
+    private static ByteBuffer contentBuffer(DataBuffer data, long bytes) {
+        if (bytes > Integer.MAX_VALUE || data.offset() != 0)
+            return null;
+        ByteBuffer buffer = data.asNio();
+        if (buffer == null || buffer.capacity() < bytes)
+            return null;
+        buffer = buffer.duplicate();
+        buffer.position(0);
+        buffer.limit((int) bytes);
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
 }
@@ -1,5 +1,8 @@
 package org.nd4j;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import lombok.AllArgsConstructor;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaRDD;
@@ -10,13 +13,17 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.MultiDataSet;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import scala.Tuple2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * Created by Alex on 04/07/2016.
@@ -55,6 +62,81 @@ public class TestNd4jKryoSerialization {
         rdd.foreach(new AssertFn(b));
     }
 
+    @Test
+    public void testArrayRoundTrip() {
+        Kryo kryo = kryo();
+
+        INDArray c = Nd4j.linspace(1, 60, 60).reshape('c', 3, 4, 5);
+        INDArray f = Nd4j.linspace(1, 60, 60).reshape('f', 3, 4, 5).dup('f');
+        INDArray view = c.get(NDArrayIndex.point(1), NDArrayIndex.interval(1, 3), NDArrayIndex.all());
+        INDArray permuted = c.permute(2, 0, 1);
+
+        for (INDArray arr : new INDArray[] {c, f, view, permuted, Nd4j.scalar(2.0), Nd4j.ones(1, 10)}) {
+            INDArray restored = roundTrip(kryo, arr, arr.getClass());
+            assertArrayEquals(arr.shape(), restored.shape());
+            assertEquals(arr, restored);
+        }
+    }
+
+    @Test
+    public void testDataSetRoundTrip() {
+        Kryo kryo = kryo();
+
+        DataSet ds = new DataSet(Nd4j.rand(new int[] {4, 3, 5}, 12345), Nd4j.rand(new int[] {4, 2, 5}, 123),
+                        Nd4j.ones(4, 5), null);
+        ds.setLabelNames(Arrays.asList("a", "b"));
+        DataSet restored = roundTrip(kryo, ds, DataSet.class);
+        assertEquals(ds.getFeatures(), restored.getFeatures());
+        assertEquals(ds.getLabels(), restored.getLabels());
+        assertEquals(ds.getFeaturesMaskArray(), restored.getFeaturesMaskArray());
+        assertNull(restored.getLabelsMaskArray());
+        assertEquals(ds.getLabelNamesList(), restored.getLabelNamesList());
+
+        INDArray same = Nd4j.rand(3, 3);
+        restored = roundTrip(kryo, new DataSet(same, same), DataSet.class);
+        assertSame(restored.getFeatures(), restored.getLabels());
+        assertEquals(same, restored.getFeatures());
+    }
+
+    @Test
+    public void testMultiDataSetRoundTrip() {
+        Kryo kryo = kryo();
+
+        MultiDataSet mds = new MultiDataSet(new INDArray[] {Nd4j.rand(2, 3), Nd4j.rand(2, 4)},
+                        new INDArray[] {Nd4j.rand(2, 5)}, new INDArray[] {null, Nd4j.ones(2, 4)}, null);
+        MultiDataSet restored = roundTrip(kryo, mds, MultiDataSet.class);
+        assertArrayEquals(mds.getFeatures(), restored.getFeatures());
+        assertArrayEquals(mds.getLabels(), restored.getLabels());
+        assertArrayEquals(mds.getFeaturesMaskArrays(), restored.getFeaturesMaskArrays());
+        assertNull(restored.getLabelsMaskArrays());
+    }
+
+    @Test
+    public void testDataSetRDD() {
+        List<DataSet> list = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            list.add(new DataSet(Nd4j.ones(2, 3).muli(i), Nd4j.zeros(2, 1)));
+
+        List<DataSet> collected = sc.parallelize(list, 4).repartition(3).collect();
+        double sum = 0;
+        for (DataSet ds : collected)
+            sum += ds.getFeatures().sumNumber().doubleValue();
+        assertEquals(6 * 190, sum, 1e-6);
+    }
+
+    private static Kryo kryo() {
+        Kryo kryo = new Kryo();
+        new Nd4jRegistrator().registerClasses(kryo);
+        return kryo;
+    }
+
+    private static <T> T roundTrip(Kryo kryo, T o, Class<? extends T> clazz) {
+        Output output = new Output(1024, -1);
+        kryo.writeObject(output, o);
+        output.flush();
+        Input input = new Input(output.toBytes());
+        return kryo.readObject(input, clazz);
+    }
 
     @After
     public void after() {
@@ -0,0 +1,28 @@
+package org.nd4j.autodiff.gradcheck;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Summary of a gradient check
+ * run by {@link GradCheckUtil#checkGradientsParallel}
+ */
+@Data
+@AllArgsConstructor
+public class GradCheckResult {
+    //parameters available for checking
+    private long numParams;
+    //parameters actually checked, less than numParams when sub sampling
+    private int numChecked;
+    private int numFailed;
+    private double maxRelativeError;
+    private double meanRelativeError;
+    private long timeMs;
+
+    /**
+     * @return true if no checked parameter failed
+     */
+    public boolean passed() {
+        return numFailed == 0;
+    }
+}
@@ -1,6 +1,7 @@
 package org.nd4j.autodiff.gradcheck;
 
 import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.InferenceSession;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.autodiff.samediff.SDGraph;
 import org.nd4j.autodiff.samediff.impl.SDVariable;
@@ -9,8 +10,10 @@ import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Gradient check utility
@@ -126,4 +129,208 @@ public class GradCheckUtil {
 
         return totalNFailures == 0;
     }
+
+    /**
+     * Parallel finite difference gradient check.
+     * Analytic gradients are obtained with {@link SameDiff#execBackwards()}.
+     * See {@link #checkGradientsParallel(SameDiff, String, Map, Map, double, double, double, int, long, int)}.
+     */
+    public static GradCheckResult checkGradientsParallel(SameDiff sameDiff,
+                                                         String output,
+                                                         Map<String,INDArray> inputParameters,
+                                                         double epsilon,
+                                                         double maxRelError,
+                                                         double minAbsError,
+                                                         int maxParamsToCheck,
+                                                         long seed,
+                                                         int numThreads) {
+        sameDiff.execBackwards();
+        Map<String,INDArray> gradients = new HashMap<>();
+        for(String name : inputParameters.keySet()) {
+            SDVariable grad = sameDiff.grad(name);
+            if(grad == null || grad.getArr() == null)
+                throw new IllegalStateException("No gradient found for " + name);
+            gradients.put(name,grad.getArr().dup());
+        }
+
+        return checkGradientsParallel(sameDiff,output,inputParameters,gradients,epsilon,maxRelError,minAbsError,
+                maxParamsToCheck,seed,numThreads);
+    }
+
+    /**
+     * Parallel finite difference gradient check of the sum of the given output.
+     *
+     * Each checked parameter is perturbed by +/- epsilon and the graph re run
+     * (central differences). Parameters are split across a pool of threads,
+     * each with its own {@link InferenceSession} and its own copy of the parameters,
+     * so the {@link SameDiff} instance isn't modified or cloned.
+     *
+     * When there are more than maxParamsToCheck parameters, a random
+     * sample of that size (without replacement) is checked.
+     *
+     * A parameter fails when its relative error |a - n| / (|a| + |n|) exceeds maxRelError
+     * and its absolute error |a - n| exceeds minAbsError.
+     * @param sameDiff the graph
+     * @param output the name of the variable to differentiate
+     * @param inputParameters the values of the graph inputs to check, by variable name
+     * @param analyticGradients the gradients to check, by variable name
+     * @param epsilon the perturbation, usually 1e-6 or so
+     * @param maxRelError the maximum relative error
+     * @param minAbsError absolute errors below this never fail, e.g. 1e-8
+     * @param maxParamsToCheck the number of parameters to sample, <= 0 for all of them
+     * @param seed the seed for sub sampling
+     * @param numThreads the number of threads
+     * @return the check summary
+     */
+    public static GradCheckResult checkGradientsParallel(SameDiff sameDiff,
+                                                         String output,
+                                                         Map<String,INDArray> inputParameters,
+                                                         Map<String,INDArray> analyticGradients,
+                                                         double epsilon,
+                                                         double maxRelError,
+                                                         double minAbsError,
+                                                         int maxParamsToCheck,
+                                                         long seed,
+                                                         int numThreads) {
+        if (epsilon <= 0.0 || epsilon > 0.1)
+            throw new IllegalArgumentException("Invalid epsilon: expect epsilon in range (0,0.1], usually 1e-4 or so");
+        if (maxRelError <= 0.0 || maxRelError > 0.25)
+            throw new IllegalArgumentException("Invalid maxRelativeError: " + maxRelError);
+        if (numThreads < 1)
+            throw new IllegalArgumentException("Invalid number of threads: " + numThreads);
+
+        DataBuffer.Type dataType = DataTypeUtil.getDtypeFromContext();
+        if (dataType != DataBuffer.Type.DOUBLE) {
+            throw new IllegalStateException("Cannot perform gradient check: Datatype is not set to double precision ("
+                    + "is: " + dataType + "). Double precision must be used for gradient checks. Set "
+                    + "DataTypeUtil.setDTypeForContext(DataBuffer.Type.DOUBLE); before using GradientCheckUtil");
+        }
+
+        long start = System.currentTimeMillis();
+        //flat index space over all parameters, in name order
+        final List<String> names = new ArrayList<>(new TreeSet<>(inputParameters.keySet()));
+        final long[] offsets = new long[names.size() + 1];
+        for(int i = 0; i < names.size(); i++) {
+            INDArray params = inputParameters.get(names.get(i));
+            INDArray grad = analyticGradients.get(names.get(i));
+            if(grad == null || grad.length() != params.length())
+                throw new IllegalArgumentException("Gradient for " + names.get(i) + " missing or of the wrong length");
+            offsets[i + 1] = offsets[i] + params.length();
+        }
+        long numParams = offsets[names.size()];
+
+        final long[] sample = sample(numParams,maxParamsToCheck,seed);
+        final double[] relErrors = new double[sample.length];
+        final boolean[] failed = new boolean[sample.length];
+
+        int numTasks = (int) Math.min(numThreads,Math.max(1,sample.length));
+        //sessions compile the graph: created here rather than racing in the workers
+        final InferenceSession[] sessions = new InferenceSession[numTasks];
+        for(int t = 0; t < numTasks; t++)
+            sessions[t] = sameDiff.inferenceSession();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(numTasks);
+        try {
+            List<Future<?>> futures = new ArrayList<>(numTasks);
+            for(int t = 0; t < numTasks; t++) {
+                final int task = t;
+                final int numWorkers = numTasks;
+                futures.add(executorService.submit(() -> {
+                    Map<String,INDArray> params = new HashMap<>();
+                    for(Map.Entry<String,INDArray> entry : inputParameters.entrySet())
+                        params.put(entry.getKey(),entry.getValue().dup());
+
+                    for(int k = task; k < sample.length; k += numWorkers) {
+                        //the array whose range holds the flat index
+                        int paramIdx = 0;
+                        while(offsets[paramIdx + 1] <= sample[k])
+                            paramIdx++;
+                        String name = names.get(paramIdx);
+                        int i = (int) (sample[k] - offsets[paramIdx]);
+
+                        INDArray perturbed = params.get(name);
+                        double origValue = perturbed.getDouble(i);
+                        perturbed.putScalar(i,origValue + epsilon);
+                        double scorePlus = score(sessions[task],params,output);
+                        perturbed.putScalar(i,origValue - epsilon);
+                        double scoreMinus = score(sessions[task],params,output);
+                        perturbed.putScalar(i,origValue);
+
+                        double numerical = (scorePlus - scoreMinus) / (2 * epsilon);
+                        double analytic = analyticGradients.get(name).getDouble(i);
+                        double absError = Math.abs(analytic - numerical);
+                        double relError = absError == 0.0 ? 0.0
+                                : absError / (Math.abs(analytic) + Math.abs(numerical));
+                        relErrors[k] = relError;
+                        failed[k] = relError > maxRelError && absError > minAbsError;
+                        if(failed[k])
+                            log.info("Param " + name + "[" + i + "] FAILED: analytic=" + analytic + ", numerical="
+                                    + numerical + ", relError=" + relError);
+                    }
+                    return null;
+                }));
+            }
+
+            for(Future<?> future : futures)
+                future.get();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+
+        int numFailed = 0;
+        double maxError = 0.0;
+        double sumError = 0.0;
+        for(int k = 0; k < sample.length; k++) {
+            if(failed[k])
+                numFailed++;
+            maxError = Math.max(maxError,relErrors[k]);
+            sumError += relErrors[k];
+        }
+
+        GradCheckResult result = new GradCheckResult(numParams,sample.length,numFailed,maxError,
+                sample.length == 0 ? 0.0 : sumError / sample.length,System.currentTimeMillis() - start);
+        log.info("GradCheckUtil.checkGradientsParallel(): " + result);
+        return result;
+    }
+
+    private static double score(InferenceSession session,Map<String,INDArray> params,String output) {
+        return session.exec(params,output).get(output).sumNumber().doubleValue();
+    }
+
+    /**
+     * Sorted random sample of flat parameter indices,
+     * or all of them if there are at most maxParamsToCheck
+     */
+    private static long[] sample(long numParams,int maxParamsToCheck,long seed) {
+        if(maxParamsToCheck <= 0 || numParams <= maxParamsToCheck) {
+            long[] ret = new long[(int) numParams];
+            for(int i = 0; i < ret.length; i++)
+                ret[i] = i;
+            return ret;
+        }
+
+        //Floyd's algorithm: k distinct indices without materializing the full index range
+        Random random = new Random(seed);
+        Set<Long> chosen = new HashSet<>();
+        for(long j = numParams - maxParamsToCheck; j < numParams; j++) {
+            long t = (long) (random.nextDouble() * (j + 1));
+            if(!chosen.add(t))
+                chosen.add(j);
+        }
+
+        long[] ret = new long[chosen.size()];
+        int i = 0;
+        for(Long idx : chosen)
+            ret[i++] = idx;
+        Arrays.sort(ret);
+        return ret;
+    }
 }
@@ -53,6 +53,8 @@ public class Graph<V, E> extends BaseGraph<V, E> {
     private Edge<E> lastEdgeAdded;
     private Edge<E> lastEdgeBeforeLastAdded;
     private Vertex<V> lastVertexAdded;
+    //bumped on every structural change, so compiled views of the graph know when they're stale
+    private transient int modificationCount;
 
     public Graph() {
         this(true);
@@ -107,8 +109,10 @@ public class Graph<V, E> extends BaseGraph<V, E> {
             log.trace("Adding to another graph instead " + vVertex);
             graphApply.addVertex(vVertex);
         }
-        else
+        else {
             this.vertices.put(vVertex.getIdx(),vVertex);
+            modificationCount++;
+        }
 
         //track the last vertex added
         lastVertexAdded = vVertex;
@@ -134,6 +138,16 @@ public class Graph<V, E> extends BaseGraph<V, E> {
     }
 
 
+    /**
+     * Mark the graph as structurally changed.
+     * Needed only when the edge or vertex maps
+     * are modified directly, {@link #addVertex(Vertex)}
+     * and {@link #addEdge(Edge)} do this already
+     */
+    public void markModified() {
+        modificationCount++;
+    }
+
     /**
      * Prevent items from being added to the graph
      */
@@ -206,6 +220,7 @@ public class Graph<V, E> extends BaseGraph<V, E> {
         }
 
         addEdgeHelper(edge, fromList);
+        modificationCount++;
         //track last 2 edges added
         if(lastEdgeAdded != null)
             lastEdgeBeforeLastAdded = lastEdgeAdded;
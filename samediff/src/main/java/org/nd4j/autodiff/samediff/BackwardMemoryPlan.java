@@ -0,0 +1,347 @@
+package org.nd4j.autodiff.samediff;
+
+import org.nd4j.autodiff.opstate.NDArrayInformation;
+import org.nd4j.autodiff.opstate.OpExecAction;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.Op;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.*;
+
+/**
+ * Memory aware execution of a forward + backward {@link SDProgram}
+ * (typically the "grad" function built by {@link SameDiff#execBackwards()}).
+ *
+ * Forward activations are the only arrays released early:
+ * <ul>
+ *     <li>liveness: an activation is dropped right after the last op reading it has run</li>
+ *     <li>checkpointing: when the planned peak exceeds the memory budget,
+ *     only every n-th long lived activation is kept (the checkpoints), the others are
+ *     dropped after each use and recomputed from the nearest checkpoint when needed again</li>
+ * </ul>
+ * The checkpoint interval is the smallest one whose simulated peak fits in the budget,
+ * or the one with the lowest peak if none does.
+ * Gradients, inputs and outputs are never dropped.
+ *
+ * Arrays are allocated as ops run, nothing is preallocated.
+ * Peak memory is estimated from array shapes and the current data type.
+ */
+public class BackwardMemoryPlan {
+    private final SDProgram program;
+    private final Map<String,INDArray> inputs;
+    private final Set<String> freeable;
+    private final long memoryBudget;
+
+    private final Map<String,int[]> shapes = new HashMap<>();
+    private final Map<String,Number> scalars = new HashMap<>();
+    //array id -> op writing it
+    private final Map<String,Integer> producer = new HashMap<>();
+    //array id -> index of the last op reading it
+    private final Map<String,Integer> lastUse = new HashMap<>();
+    //long lived activations, in production order
+    private final List<String> candidates = new ArrayList<>();
+
+    private final long peakBytesWithoutFreeing;
+    private final long livenessPeakBytes;
+    private int checkpointInterval;
+    private Set<String> dropped = Collections.emptySet();
+    private long peakBytes;
+    private long recomputedOps;
+
+    /**
+     * @param program the program to execute
+     * @param inputs arrays for the ids no op writes, by array id
+     * @param freeable ids of the forward activations that may be released early
+     * @param memoryBudget peak memory, in bytes, to aim for.
+     *                     {@link Long#MAX_VALUE} for liveness based freeing only
+     */
+    public BackwardMemoryPlan(SDProgram program, Map<String,INDArray> inputs, Set<String> freeable,
+                              long memoryBudget) {
+        this.program = program;
+        this.inputs = inputs;
+        this.memoryBudget = memoryBudget;
+
+        Map<String,Integer> writers = new HashMap<>();
+        Set<String> inPlace = new HashSet<>();
+        Map<String,Integer> firstUse = new HashMap<>();
+        for(int i = 0; i < program.size(); i++) {
+            OpExecAction action = program.getAction(i);
+            for(NDArrayInformation info : action.getInputs())
+                register(info);
+            register(action.getOutput());
+
+            for(String id : inputIds(i)) {
+                lastUse.put(id,i);
+                if(!firstUse.containsKey(id))
+                    firstUse.put(id,i);
+            }
+
+            String zId = program.getZId(i);
+            if(action.isInPlace())
+                inPlace.add(zId);
+            else
+                shapes.put(zId,action.getOutput().getShape());
+            if(!producer.containsKey(zId))
+                producer.put(zId,i);
+            writers.put(zId,writers.containsKey(zId) ? writers.get(zId) + 1 : 1);
+        }
+
+        //in place writes can't be recomputed or dropped safely
+        this.freeable = new HashSet<>();
+        for(String id : freeable)
+            if(producer.containsKey(id) && !inPlace.contains(id) && writers.get(id) == 1 && !inputs.containsKey(id))
+                this.freeable.add(id);
+
+        for(int i = 0; i < program.size(); i++) {
+            String zId = program.getZId(i);
+            //used beyond the next op: kept alive across the gap between forward and backward use
+            if(this.freeable.contains(zId) && producer.get(zId) == i && lastUse.containsKey(zId)
+                    && lastUse.get(zId) > firstUse.get(zId))
+                candidates.add(zId);
+        }
+
+        long total = 0;
+        for(String id : inputs.keySet())
+            total += bytes(id);
+        for(int i = 0; i < program.size(); i++)
+            if(producer.get(program.getZId(i)) == i && !inputs.containsKey(program.getZId(i)))
+                total += bytes(program.getZId(i));
+        peakBytesWithoutFreeing = total;
+
+        run(null,Collections.<String>emptySet());
+        livenessPeakBytes = peakBytes;
+        plan();
+    }
+
+    private void plan() {
+        checkpointInterval = 1;
+        if(peakBytes <= memoryBudget || candidates.isEmpty())
+            return;
+
+        int bestInterval = 1;
+        long bestPeak = peakBytes;
+        //intervals grow geometrically: every candidate interval costs a full simulation
+        for(int interval = 2; ; interval = Math.max(interval + 1, interval * 3 / 2)) {
+            int effective = Math.min(interval,candidates.size() + 1);
+            Set<String> drop = dropSet(effective);
+            run(null,drop);
+            if(peakBytes < bestPeak) {
+                bestPeak = peakBytes;
+                bestInterval = effective;
+            }
+            if(peakBytes <= memoryBudget || effective > candidates.size())
+                break;
+        }
+
+        checkpointInterval = bestInterval;
+        dropped = dropSet(bestInterval);
+        run(null,dropped);
+    }
+
+    private Set<String> dropSet(int interval) {
+        Set<String> ret = new HashSet<>();
+        for(int i = 0; i < candidates.size(); i++)
+            if(i % interval != 0)
+                ret.add(candidates.get(i));
+        return ret;
+    }
+
+    /**
+     * Execute the program with the planned
+     * freeing and recomputation
+     * @return all arrays alive at the end, by array id:
+     * inputs, gradients and outputs
+     */
+    public Map<String,INDArray> execute() {
+        Map<String,INDArray> arrays = new HashMap<>(inputs);
+        run(arrays,dropped);
+        return arrays;
+    }
+
+    /**
+     * Simulates (arrays == null) or executes the schedule
+     * tracking live bytes, peak and recompute count
+     */
+    private void run(Map<String,INDArray> arrays, Set<String> drop) {
+        Set<String> live = new HashSet<>(inputs.keySet());
+        long[] liveBytes = {0};
+        for(String id : live)
+            liveBytes[0] += bytes(id);
+        peakBytes = liveBytes[0];
+        recomputedOps = 0;
+
+        for(int i = 0; i < program.size(); i++) {
+            for(String id : inputIds(i))
+                ensure(id,i,live,liveBytes,arrays,drop);
+            compute(i,i,live,liveBytes,arrays,drop);
+        }
+    }
+
+    private void ensure(String id, int current, Set<String> live, long[] liveBytes,
+                        Map<String,INDArray> arrays, Set<String> drop) {
+        if(live.contains(id))
+            return;
+
+        Integer op = producer.get(id);
+        if(op == null)
+            throw new IllegalStateException("No array or producing op found for array " + id);
+
+        for(String input : inputIds(op))
+            ensure(input,current,live,liveBytes,arrays,drop);
+        compute(op,current,live,liveBytes,arrays,drop);
+        recomputedOps++;
+    }
+
+    private void compute(int i, int current, Set<String> live, long[] liveBytes,
+                         Map<String,INDArray> arrays, Set<String> drop) {
+        String zId = program.getZId(i);
+        if(!live.contains(zId)) {
+            live.add(zId);
+            liveBytes[0] += bytes(zId);
+            peakBytes = Math.max(peakBytes,liveBytes[0]);
+            if(arrays != null)
+                arrays.put(zId,newArray(zId));
+        }
+
+        if(arrays != null) {
+            OpExecAction action = program.getAction(i);
+            Op op = SameDiff.createOp(action.getOpState().getOpType(),action,arrays);
+            SameDiff.execOp(op,action);
+            //reductions along axes may hand back a new result array
+            arrays.put(zId,op.z());
+        }
+
+        for(String id : inputIds(i)) {
+            if(freeable.contains(id) && live.contains(id) && (drop.contains(id) || lastUse.get(id) <= current)) {
+                live.remove(id);
+                liveBytes[0] -= bytes(id);
+                if(arrays != null)
+                    arrays.remove(id);
+            }
+        }
+    }
+
+    private Set<String> inputIds(int i) {
+        Set<String> ret = new LinkedHashSet<>(2);
+        ret.add(program.getXId(i));
+        if(program.getYId(i) != null)
+            ret.add(program.getYId(i));
+        return ret;
+    }
+
+    private void register(NDArrayInformation info) {
+        if(info == null)
+            return;
+        if(!shapes.containsKey(info.getArrId()))
+            shapes.put(info.getArrId(),info.getShape());
+        if(info.getScalarValue() != null)
+            scalars.put(info.getArrId(),info.getScalarValue());
+    }
+
+    private long bytes(String id) {
+        INDArray input = inputs.get(id);
+        if(input != null)
+            return input.length() * Nd4j.sizeOfDataType(input.data().dataType());
+        int[] shape = shapes.get(id);
+        return shape == null ? 0 : ArrayUtil.prodLong(shape) * Nd4j.sizeOfDataType();
+    }
+
+    private INDArray newArray(String id) {
+        int[] shape = shapes.get(id);
+        Number scalar = scalars.get(id);
+        if(scalar != null && ArrayUtil.prod(shape) == 1)
+            return Nd4j.valueArrayOf(shape,scalar.doubleValue());
+        return Nd4j.zeros(shape);
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Estimated peak when every array is kept
+     * until the end, as {@link SameDiff#exec()} does
+     */
+    public long getPeakBytesWithoutFreeing() {
+        return peakBytesWithoutFreeing;
+    }
+
+    /**
+     * Estimated peak with liveness based
+     * freeing only, no recomputation
+     */
+    public long getLivenessPeakBytes() {
+        return livenessPeakBytes;
+    }
+
+    /**
+     * Estimated peak of the chosen plan
+     */
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Number of op executions
+     * repeated to recompute dropped activations
+     */
+    public long getRecomputedOps() {
+        return recomputedOps;
+    }
+
+    /**
+     * 1 when every activation is kept until its last use,
+     * n when only every n-th long lived activation is kept
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public int getNumCheckpoints() {
+        return candidates.size() - dropped.size();
+    }
+
+    public int getNumDropped() {
+        return dropped.size();
+    }
+
+    /**
+     * Ids of the forward activations
+     * released once no longer needed
+     */
+    public Set<String> getFreeable() {
+        return Collections.unmodifiableSet(freeable);
+    }
+
+    /**
+     * Ids of the long lived activations kept
+     * to recompute the dropped ones from
+     */
+    public Set<String> getCheckpoints() {
+        Set<String> ret = new LinkedHashSet<>(candidates);
+        ret.removeAll(dropped);
+        return ret;
+    }
+
+    /**
+     * Ids of the long lived activations dropped
+     * after each use and recomputed when needed again
+     */
+    public Set<String> getDropped() {
+        return Collections.unmodifiableSet(dropped);
+    }
+
+    @Override
+    public String toString() {
+        return "BackwardMemoryPlan{ops=" + program.size()
+                + ", budget=" + memoryBudget
+                + ", peakWithoutFreeing=" + peakBytesWithoutFreeing
+                + ", livenessPeak=" + livenessPeakBytes
+                + ", peak=" + peakBytes
+                + ", checkpointInterval=" + checkpointInterval
+                + ", checkpoints=" + getNumCheckpoints()
+                + ", dropped=" + getNumDropped()
+                + ", recomputedOps=" + recomputedOps + "}";
+    }
+}
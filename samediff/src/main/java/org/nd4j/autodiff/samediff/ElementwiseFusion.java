@@ -0,0 +1,320 @@
+package org.nd4j.autodiff.samediff;
+
+import org.nd4j.autodiff.opstate.NDArrayInformation;
+import org.nd4j.autodiff.opstate.OpExecAction;
+import org.nd4j.autodiff.opstate.OpState;
+
+import java.util.*;
+
+/**
+ * Fusion pass over an {@link SDProgram}: finds maximal trees of elementwise ops
+ * (transforms, pairwise and scalar ops, all of the same shape, no axes, not in place)
+ * and replaces each tree of 2 or more ops with one {@link FusedElementwiseOp}.
+ *
+ * An op is folded in to its consumer only if its result is read exactly once,
+ * by an op that is fused as well, and isn't one of the arrays to keep.
+ * Results folded away are never materialized.
+ *
+ * The result is a list of steps in execution order:
+ * either the index of an op of the program to run as is, or a fused op.
+ */
+public class ElementwiseFusion {
+    private static final Map<String,Integer> UNARY = new HashMap<>();
+    private static final Map<String,Integer> PAIRWISE = new HashMap<>();
+    private static final Map<String,Integer> SCALAR = new HashMap<>();
+
+    static {
+        UNARY.put("tanh", FusedElementwiseOp.TANH);
+        UNARY.put("sigmoid", FusedElementwiseOp.SIGMOID);
+        UNARY.put("exp", FusedElementwiseOp.EXP);
+        UNARY.put("log", FusedElementwiseOp.LOG);
+        UNARY.put("neg", FusedElementwiseOp.NEG);
+        UNARY.put("abs", FusedElementwiseOp.ABS);
+        UNARY.put("relu", FusedElementwiseOp.RELU);
+        UNARY.put("sqrt", FusedElementwiseOp.SQRT);
+        UNARY.put("softplus", FusedElementwiseOp.SOFTPLUS);
+        UNARY.put("sin", FusedElementwiseOp.SIN);
+        UNARY.put("cos", FusedElementwiseOp.COS);
+        UNARY.put("identity", FusedElementwiseOp.IDENTITY);
+
+        PAIRWISE.put("add", FusedElementwiseOp.ADD);
+        PAIRWISE.put("sub", FusedElementwiseOp.SUB);
+        PAIRWISE.put("mul", FusedElementwiseOp.MUL);
+        PAIRWISE.put("div", FusedElementwiseOp.DIV);
+        PAIRWISE.put("rsub", FusedElementwiseOp.RSUB);
+        PAIRWISE.put("rdiv", FusedElementwiseOp.RDIV);
+
+        SCALAR.put("add_scalar", FusedElementwiseOp.ADD_SCALAR);
+        SCALAR.put("sub_scalar", FusedElementwiseOp.SUB_SCALAR);
+        SCALAR.put("mul_scalar", FusedElementwiseOp.MUL_SCALAR);
+        SCALAR.put("div_scalar", FusedElementwiseOp.DIV_SCALAR);
+        SCALAR.put("rsub_scalar", FusedElementwiseOp.RSUB_SCALAR);
+        SCALAR.put("rdiv_scalar", FusedElementwiseOp.RDIV_SCALAR);
+        SCALAR.put("max_scalar", FusedElementwiseOp.MAX_SCALAR);
+    }
+
+    private final SDProgram program;
+    //op index when >= 0, -(fused index + 1) otherwise
+    private final int[] steps;
+    private final FusedElementwiseOp[] fused;
+    private final int numFusedOps;
+
+    private final int[] codeOf;
+    private final boolean[] inlined;
+    private final Map<String,Integer> producer = new HashMap<>();
+
+    private ElementwiseFusion(SDProgram program, Set<String> keep) {
+        this.program = program;
+        int n = program.size();
+
+        Set<String> inPlaceWritten = new HashSet<>();
+        Map<String,Integer> writers = new HashMap<>();
+        Map<String,Integer> reads = new HashMap<>();
+        Map<String,Integer> reader = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String zId = program.getZId(i);
+            if (program.getAction(i).isInPlace())
+                inPlaceWritten.add(zId);
+            writers.put(zId, writers.containsKey(zId) ? writers.get(zId) + 1 : 1);
+            producer.put(zId, i);
+            for (String id : inputIds(i)) {
+                reads.put(id, reads.containsKey(id) ? reads.get(id) + 1 : 1);
+                reader.put(id, i);
+            }
+        }
+
+        codeOf = new int[n];
+        for (int i = 0; i < n; i++)
+            codeOf[i] = fusibleCode(program.getAction(i), inPlaceWritten);
+
+        inlined = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            String zId = program.getZId(i);
+            if (codeOf[i] < 0 || keep.contains(zId) || writers.get(zId) != 1 || !reads.containsKey(zId)
+                            || reads.get(zId) != 1)
+                continue;
+            int consumer = reader.get(zId);
+            inlined[i] = codeOf[consumer] >= 0 && Arrays.equals(program.getAction(i).getOutput().getShape(),
+                            program.getAction(consumer).getOutput().getShape());
+        }
+
+        List<Integer> stepList = new ArrayList<>();
+        List<FusedElementwiseOp> fusedList = new ArrayList<>();
+        int fusedOps = 0;
+        for (int i = 0; i < n; i++) {
+            if (inlined[i])
+                continue;
+            if (codeOf[i] >= 0 && hasInlinedInput(i)) {
+                FusedElementwiseOp op = compile(i);
+                stepList.add(-(fusedList.size() + 1));
+                fusedList.add(op);
+                fusedOps += op.getNumOps();
+            } else
+                stepList.add(i);
+        }
+
+        steps = new int[stepList.size()];
+        for (int i = 0; i < steps.length; i++)
+            steps[i] = stepList.get(i);
+        fused = fusedList.toArray(new FusedElementwiseOp[fusedList.size()]);
+        numFusedOps = fusedOps;
+    }
+
+    /**
+     * Run the fusion pass
+     * @param program the program to fuse
+     * @param keep ids of arrays that must be materialized, e.g. the requested outputs
+     * @return the fused steps
+     */
+    public static ElementwiseFusion fuse(SDProgram program, Set<String> keep) {
+        return new ElementwiseFusion(program, keep);
+    }
+
+    public SDProgram getProgram() {
+        return program;
+    }
+
+    public int numSteps() {
+        return steps.length;
+    }
+
+    /**
+     * @return true if step i is a fused op
+     */
+    public boolean isFused(int step) {
+        return steps[step] < 0;
+    }
+
+    /**
+     * Index in the program of the op run at step i
+     */
+    public int getOpIndex(int step) {
+        if (steps[step] < 0)
+            throw new IllegalArgumentException("Step " + step + " is a fused op");
+        return steps[step];
+    }
+
+    public FusedElementwiseOp getFusedOp(int step) {
+        if (steps[step] >= 0)
+            throw new IllegalArgumentException("Step " + step + " isn't a fused op");
+        return fused[-steps[step] - 1];
+    }
+
+    /**
+     * Id of the array written by step i
+     */
+    public String getZId(int step) {
+        return isFused(step) ? getFusedOp(step).getZId() : program.getZId(steps[step]);
+    }
+
+    /**
+     * Number of fused regions
+     */
+    public int getNumRegions() {
+        return fused.length;
+    }
+
+    /**
+     * Number of program ops replaced by fused ops
+     */
+    public int getNumFusedOps() {
+        return numFusedOps;
+    }
+
+    @Override
+    public String toString() {
+        return "ElementwiseFusion{ops=" + program.size() + ", steps=" + steps.length + ", regions=" + fused.length
+                        + ", fusedOps=" + numFusedOps + "}";
+    }
+
+    private boolean hasInlinedInput(int i) {
+        for (String id : inputIds(i)) {
+            Integer p = producer.get(id);
+            if (p != null && inlined[p])
+                return true;
+        }
+        return false;
+    }
+
+    private FusedElementwiseOp compile(int root) {
+        Emitter emitter = new Emitter();
+        emitter.emit(root);
+        int size = emitter.codes.size();
+        int[] codes = new int[size];
+        int[] args = new int[size];
+        for (int k = 0; k < size; k++) {
+            codes[k] = emitter.codes.get(k);
+            args[k] = emitter.args.get(k);
+        }
+        double[] constants = new double[emitter.constants.size()];
+        for (int k = 0; k < constants.length; k++)
+            constants[k] = emitter.constants.get(k);
+
+        return new FusedElementwiseOp(emitter.leaves.toArray(new String[emitter.leaves.size()]),
+                        program.getZId(root), program.getAction(root).getOutput().getShape(), codes, args, constants,
+                        emitter.maxDepth, emitter.numOps);
+    }
+
+    /**
+     * Postfix code generation over the op tree
+     */
+    private class Emitter {
+        private final List<Integer> codes = new ArrayList<>();
+        private final List<Integer> args = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<String> leaves = new ArrayList<>();
+        private int depth;
+        private int maxDepth;
+        private int numOps;
+
+        private void emit(int i) {
+            for (String id : program.getAction(i).getInputsIds().length > 1
+                            ? new String[] {program.getXId(i), program.getYId(i)}
+                            : new String[] {program.getXId(i)}) {
+                Integer p = producer.get(id);
+                if (p != null && inlined[p]) {
+                    emit(p);
+                } else {
+                    int leaf = leaves.indexOf(id);
+                    if (leaf < 0) {
+                        leaf = leaves.size();
+                        leaves.add(id);
+                    }
+                    add(FusedElementwiseOp.LOAD, leaf);
+                    depth++;
+                    maxDepth = Math.max(maxDepth, depth);
+                }
+            }
+
+            OpState opState = program.getAction(i).getOpState();
+            int code = codeOf[i];
+            if (code >= FusedElementwiseOp.ADD_SCALAR) {
+                constants.add(scalarOf(opState).doubleValue());
+                add(code, constants.size() - 1);
+            } else {
+                add(code, 0);
+                if (code >= FusedElementwiseOp.ADD)
+                    depth--;
+            }
+            numOps++;
+        }
+
+        private void add(int code, int arg) {
+            codes.add(code);
+            args.add(arg);
+        }
+    }
+
+    private Set<String> inputIds(int i) {
+        Set<String> ret = new LinkedHashSet<>(2);
+        ret.add(program.getXId(i));
+        if (program.getYId(i) != null)
+            ret.add(program.getYId(i));
+        return ret;
+    }
+
+    /**
+     * Code of the fused kernel for the given action, or -1 if it can't be fused
+     */
+    private static int fusibleCode(OpExecAction action, Set<String> inPlaceWritten) {
+        OpState opState = action.getOpState();
+        if (opState == null || action.isInPlace() || opState.getAxes() != null || action.getOutput() == null)
+            return -1;
+
+        int[] shape = action.getOutput().getShape();
+        for (NDArrayInformation input : action.getInputs()) {
+            //arrays overwritten by in place ops may change between the fused ops
+            if (!Arrays.equals(shape, input.getShape()) || inPlaceWritten.contains(input.getArrId()))
+                return -1;
+        }
+
+        int numInputs = action.getInputsIds().length;
+        Integer code = null;
+        if (opState.getOpType() == OpState.OpType.TRANSFORM && onlyFlags(opState.getExtraArgs())) {
+            code = numInputs == 1 ? UNARY.get(opState.getOpName())
+                            : numInputs == 2 ? PAIRWISE.get(opState.getOpName()) : null;
+        } else if (opState.getOpType() == OpState.OpType.SCALAR_TRANSFORM && numInputs == 1
+                        && scalarOf(opState) != null) {
+            code = SCALAR.get(opState.getOpName());
+        }
+
+        return code == null ? -1 : code;
+    }
+
+    private static boolean onlyFlags(Object[] extraArgs) {
+        if (extraArgs == null)
+            return true;
+        for (Object arg : extraArgs)
+            if (arg != null && !(arg instanceof Boolean))
+                return false;
+        return true;
+    }
+
+    private static Number scalarOf(OpState opState) {
+        if (opState.getScalarValue() != null)
+            return opState.getScalarValue();
+        Object[] extraArgs = opState.getExtraArgs();
+        return extraArgs != null && extraArgs.length > 0 && extraArgs[0] instanceof Number ? (Number) extraArgs[0]
+                        : null;
+    }
+}
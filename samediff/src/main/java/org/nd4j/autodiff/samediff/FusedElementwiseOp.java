@@ -0,0 +1,320 @@
+package org.nd4j.autodiff.samediff;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Map;
+
+/**
+ * A tree of elementwise ops (transforms, pairwise and scalar ops of one shape)
+ * compiled by {@link ElementwiseFusion} to a postfix program
+ * that is evaluated in a single pass over the inputs.
+ *
+ * Evaluation goes block by block: every instruction runs over a block of
+ * {@link #BLOCK_SIZE} elements held in small on heap buffers, so intermediate
+ * results never leave the cache and are never written to memory as full arrays.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class FusedElementwiseOp {
+    public static final int BLOCK_SIZE = 1024;
+
+    static final int LOAD = 0;
+    //unary
+    static final int TANH = 1;
+    static final int SIGMOID = 2;
+    static final int EXP = 3;
+    static final int LOG = 4;
+    static final int NEG = 5;
+    static final int ABS = 6;
+    static final int RELU = 7;
+    static final int SQRT = 8;
+    static final int SOFTPLUS = 9;
+    static final int SIN = 10;
+    static final int COS = 11;
+    static final int IDENTITY = 12;
+    //pairwise
+    static final int ADD = 20;
+    static final int SUB = 21;
+    static final int MUL = 22;
+    static final int DIV = 23;
+    static final int RSUB = 24;
+    static final int RDIV = 25;
+    //scalar
+    static final int ADD_SCALAR = 30;
+    static final int SUB_SCALAR = 31;
+    static final int MUL_SCALAR = 32;
+    static final int DIV_SCALAR = 33;
+    static final int RSUB_SCALAR = 34;
+    static final int RDIV_SCALAR = 35;
+    static final int MAX_SCALAR = 36;
+
+    private final String[] inputIds;
+    private final String zId;
+    private final int[] shape;
+    private final int[] codes;
+    //leaf index for LOAD, constant index for scalar ops
+    private final int[] args;
+    private final double[] constants;
+    private final int maxDepth;
+    private final int numOps;
+
+    FusedElementwiseOp(String[] inputIds, String zId, int[] shape, int[] codes, int[] args, double[] constants,
+                       int maxDepth, int numOps) {
+        this.inputIds = inputIds;
+        this.zId = zId;
+        this.shape = shape;
+        this.codes = codes;
+        this.args = args;
+        this.constants = constants;
+        this.maxDepth = maxDepth;
+        this.numOps = numOps;
+    }
+
+    /**
+     * Ids of the arrays read, in leaf order
+     */
+    public String[] getInputIds() {
+        return inputIds.clone();
+    }
+
+    /**
+     * Id of the array written
+     */
+    public String getZId() {
+        return zId;
+    }
+
+    public int[] getShape() {
+        return shape.clone();
+    }
+
+    /**
+     * Number of graph ops replaced by this op
+     */
+    public int getNumOps() {
+        return numOps;
+    }
+
+    /**
+     * Evaluate the fused expression
+     * @param arrays arrays by id: all inputs and the result array must be present
+     */
+    public void exec(Map<String,INDArray> arrays) {
+        INDArray z = arrays.get(zId);
+        INDArray target = isDense(z) ? z : Nd4j.createUninitialized(shape, 'c');
+
+        Reader[] readers = new Reader[inputIds.length];
+        for (int i = 0; i < inputIds.length; i++) {
+            INDArray input = arrays.get(inputIds[i]);
+            readers[i] = new Reader(isDense(input) ? input : input.dup('c'));
+        }
+        Reader writer = new Reader(target);
+
+        long length = target.length();
+        double[][] stack = new double[maxDepth][BLOCK_SIZE];
+        for (long start = 0; start < length; start += BLOCK_SIZE) {
+            int len = (int) Math.min(BLOCK_SIZE, length - start);
+            int sp = 0;
+            for (int k = 0; k < codes.length; k++) {
+                int code = codes[k];
+                if (code == LOAD) {
+                    readers[args[k]].read(start, stack[sp++], len);
+                } else if (code < ADD) {
+                    unary(code, stack[sp - 1], len);
+                } else if (code < ADD_SCALAR) {
+                    double[] y = stack[--sp];
+                    pairwise(code, stack[sp - 1], y, len);
+                } else {
+                    scalar(code, stack[sp - 1], constants[args[k]], len);
+                }
+            }
+            writer.write(start, stack[0], len);
+        }
+
+        if (target != z)
+            z.assign(target);
+    }
+
+    private static boolean isDense(INDArray arr) {
+        return !arr.isView() && arr.ordering() == 'c' && arr.data().length() >= arr.length();
+    }
+
+    private static void unary(int code, double[] x, int len) {
+        switch (code) {
+            case TANH:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.tanh(x[i]);
+                break;
+            case SIGMOID:
+                for (int i = 0; i < len; i++)
+                    x[i] = 1.0 / (1.0 + Math.exp(-x[i]));
+                break;
+            case EXP:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.exp(x[i]);
+                break;
+            case LOG:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.log(x[i]);
+                break;
+            case NEG:
+                for (int i = 0; i < len; i++)
+                    x[i] = -x[i];
+                break;
+            case ABS:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.abs(x[i]);
+                break;
+            case RELU:
+                for (int i = 0; i < len; i++)
+                    x[i] = x[i] < 0.0 ? 0.0 : x[i];
+                break;
+            case SQRT:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.sqrt(x[i]);
+                break;
+            case SOFTPLUS:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.log(1.0 + Math.exp(x[i]));
+                break;
+            case SIN:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.sin(x[i]);
+                break;
+            case COS:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.cos(x[i]);
+                break;
+            case IDENTITY:
+                break;
+            default:
+                throw new IllegalStateException("Unknown unary op code " + code);
+        }
+    }
+
+    private static void pairwise(int code, double[] x, double[] y, int len) {
+        switch (code) {
+            case ADD:
+                for (int i = 0; i < len; i++)
+                    x[i] += y[i];
+                break;
+            case SUB:
+                for (int i = 0; i < len; i++)
+                    x[i] -= y[i];
+                break;
+            case MUL:
+                for (int i = 0; i < len; i++)
+                    x[i] *= y[i];
+                break;
+            case DIV:
+                for (int i = 0; i < len; i++)
+                    x[i] /= y[i];
+                break;
+            case RSUB:
+                for (int i = 0; i < len; i++)
+                    x[i] = y[i] - x[i];
+                break;
+            case RDIV:
+                for (int i = 0; i < len; i++)
+                    x[i] = y[i] / x[i];
+                break;
+            default:
+                throw new IllegalStateException("Unknown pairwise op code " + code);
+        }
+    }
+
+    private static void scalar(int code, double[] x, double s, int len) {
+        switch (code) {
+            case ADD_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] += s;
+                break;
+            case SUB_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] -= s;
+                break;
+            case MUL_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] *= s;
+                break;
+            case DIV_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] /= s;
+                break;
+            case RSUB_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] = s - x[i];
+                break;
+            case RDIV_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] = s / x[i];
+                break;
+            case MAX_SCALAR:
+                for (int i = 0; i < len; i++)
+                    x[i] = Math.max(x[i], s);
+                break;
+            default:
+                throw new IllegalStateException("Unknown scalar op code " + code);
+        }
+    }
+
+    /**
+     * Bulk access to a dense array: nio views for double and float buffers,
+     * element by element otherwise
+     */
+    private static class Reader {
+        private final INDArray arr;
+        private final DoubleBuffer doubles;
+        private final FloatBuffer floats;
+        private float[] floatBlock;
+
+        private Reader(INDArray arr) {
+            this.arr = arr;
+            DataBuffer.Type type = arr.data().dataType();
+            this.doubles = type == DataBuffer.Type.DOUBLE ? arr.data().asNioDouble().slice() : null;
+            this.floats = type == DataBuffer.Type.FLOAT ? arr.data().asNioFloat().slice() : null;
+        }
+
+        private void read(long start, double[] dst, int len) {
+            if (doubles != null) {
+                DoubleBuffer buffer = doubles.duplicate();
+                buffer.position((int) start);
+                buffer.get(dst, 0, len);
+            } else if (floats != null) {
+                FloatBuffer buffer = floats.duplicate();
+                buffer.position((int) start);
+                if (floatBlock == null)
+                    floatBlock = new float[BLOCK_SIZE];
+                buffer.get(floatBlock, 0, len);
+                for (int i = 0; i < len; i++)
+                    dst[i] = floatBlock[i];
+            } else {
+                for (int i = 0; i < len; i++)
+                    dst[i] = arr.getDouble((int) start + i);
+            }
+        }
+
+        private void write(long start, double[] src, int len) {
+            if (doubles != null) {
+                DoubleBuffer buffer = doubles.duplicate();
+                buffer.position((int) start);
+                buffer.put(src, 0, len);
+            } else if (floats != null) {
+                FloatBuffer buffer = floats.duplicate();
+                buffer.position((int) start);
+                if (floatBlock == null)
+                    floatBlock = new float[BLOCK_SIZE];
+                for (int i = 0; i < len; i++)
+                    floatBlock[i] = (float) src[i];
+                buffer.put(floatBlock, 0, len);
+            } else {
+                for (int i = 0; i < len; i++)
+                    arr.putScalar((int) start + i, src[i]);
+            }
+        }
+    }
+}
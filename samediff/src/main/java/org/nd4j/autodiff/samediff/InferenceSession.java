@@ -0,0 +1,275 @@
+package org.nd4j.autodiff.samediff;
+
+import org.nd4j.autodiff.opstate.NDArrayInformation;
+import org.nd4j.autodiff.opstate.OpExecAction;
+import org.nd4j.autodiff.samediff.impl.SDVariable;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.Op;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.*;
+
+/**
+ * Forward pass over a {@link SameDiff} graph
+ * that doesn't touch the {@link SameDiff} instance.
+ *
+ * The compiled {@link SDProgram} and the variable arrays
+ * (weights, constants) are shared between all sessions
+ * for the same graph and are only read.
+ * Each session holds its own inputs, intermediate and output arrays and its own ops,
+ * so a pool of threads can run the same graph concurrently
+ * with one session per thread (e.g. in a {@link ThreadLocal}),
+ * without cloning the {@link SameDiff} instance.
+ *
+ * A single session is NOT thread safe.
+ *
+ * When created with a {@link WorkspaceConfiguration},
+ * intermediate arrays are allocated in a workspace
+ * of the calling thread on every call and the returned outputs are detached from it.
+ * Otherwise they're allocated once and reused across calls.
+ *
+ * When created with elementwise fusion enabled, trees of elementwise ops
+ * are run as single {@link FusedElementwiseOp}s (see {@link ElementwiseFusion}).
+ * Intermediate results of a fused tree are never materialized,
+ * so only the default outputs and arrays read by unfused ops can be requested.
+ */
+public class InferenceSession {
+    private static final String WORKSPACE_PREFIX = "SD_INFERENCE_SESSION_";
+
+    private final SDProgram program;
+    //variable name -> array id
+    private final Map<String,String> arrIds = new HashMap<>();
+    //array id -> shape, for every array the session allocates or accepts as input
+    private final Map<String,int[]> shapes = new HashMap<>();
+    private final Map<String,Number> scalars = new HashMap<>();
+    //read only arrays of the graph inputs, shared with the SameDiff instance
+    private final Map<String,INDArray> shared = new HashMap<>();
+    //array ids written by some op
+    private final Set<String> written = new LinkedHashSet<>();
+    private final List<String> defaultOutputs = new ArrayList<>();
+    private final WorkspaceConfiguration workspaceConfiguration;
+    private final String workspaceId;
+
+    private final Map<String,INDArray> arrays = new HashMap<>();
+    private final Op[] ops;
+    private final ElementwiseFusion fusion;
+
+    /**
+     * Create a session for the current graph of the given {@link SameDiff}.
+     * Must not race with modifications of the graph.
+     * @param sameDiff the graph to execute
+     */
+    public InferenceSession(SameDiff sameDiff) {
+        this(sameDiff,null);
+    }
+
+    /**
+     * Create a session for the current graph of the given {@link SameDiff}.
+     * Must not race with modifications of the graph.
+     * @param sameDiff the graph to execute
+     * @param workspaceConfiguration the configuration for the per thread workspace
+     *                               intermediate arrays are allocated in, may be null
+     */
+    public InferenceSession(SameDiff sameDiff,WorkspaceConfiguration workspaceConfiguration) {
+        this(sameDiff,workspaceConfiguration,false);
+    }
+
+    /**
+     * Create a session for the current graph of the given {@link SameDiff}.
+     * Must not race with modifications of the graph.
+     * @param sameDiff the graph to execute
+     * @param workspaceConfiguration the configuration for the per thread workspace
+     *                               intermediate arrays are allocated in, may be null
+     * @param fuseElementwise whether to fuse trees of elementwise ops
+     */
+    public InferenceSession(SameDiff sameDiff,WorkspaceConfiguration workspaceConfiguration,boolean fuseElementwise) {
+        SDGraph graph = sameDiff.graph();
+        this.program = graph.compile();
+        this.workspaceConfiguration = workspaceConfiguration;
+        this.workspaceId = WORKSPACE_PREFIX + UUID.randomUUID().toString();
+        this.ops = new Op[program.size()];
+
+        for(Integer vertexId : graph.getVertices().keySet()) {
+            NDArrayInformation info = graph.getInformationFor(vertexId);
+            if(info.getId() != null)
+                arrIds.put(info.getId(),info.getArrId());
+            shapes.put(info.getArrId(),info.getShape());
+            if(info.getScalarValue() != null)
+                scalars.put(info.getArrId(),info.getScalarValue());
+        }
+
+        for(SDVariable variable : sameDiff.variables()) {
+            NDArrayInformation info = graph.getInformationFor(variable.getVertexId());
+            if(info != null)
+                arrIds.put(variable.getVarName(),info.getArrId());
+        }
+
+        for(NDArrayInformation info : graph.getInputs()) {
+            INDArray arr = sameDiff.getVertexToArray().get(info.getArrId());
+            if(arr == null)
+                arr = newArray(info.getArrId());
+            shared.put(info.getArrId(),arr);
+        }
+
+        Set<String> keep = new HashSet<>(shared.keySet());
+        for(NDArrayInformation info : graph.getOutputs()) {
+            keep.add(info.getArrId());
+            if(info.getId() != null)
+                defaultOutputs.add(info.getId());
+        }
+
+        this.fusion = fuseElementwise ? ElementwiseFusion.fuse(program,keep) : null;
+        if(fusion != null) {
+            for(int i = 0; i < fusion.numSteps(); i++)
+                written.add(fusion.getZId(i));
+        }
+        else {
+            for(int i = 0; i < program.size(); i++)
+                written.add(program.getZId(i));
+        }
+    }
+
+    /**
+     * Run the graph for the given inputs and return the graph outputs
+     * @param inputs input arrays by variable name,
+     *               variables that aren't given keep their current value
+     * @return the outputs by variable name
+     */
+    public Map<String,INDArray> exec(Map<String,INDArray> inputs) {
+        return exec(inputs,defaultOutputs.toArray(new String[defaultOutputs.size()]));
+    }
+
+    /**
+     * Run the graph for the given inputs
+     * @param inputs input arrays by variable name,
+     *               variables that aren't given keep their current value
+     * @param outputs the names of the variables to return
+     * @return the requested outputs by variable name
+     */
+    public Map<String,INDArray> exec(Map<String,INDArray> inputs,String... outputs) {
+        if(program.size() == 0)
+            throw new ND4JIllegalStateException("Unable to run inference session. No ops in graph");
+
+        MemoryWorkspace workspace = workspaceConfiguration == null ? null
+                : Nd4j.getWorkspaceManager().getAndActivateWorkspace(workspaceConfiguration,workspaceId);
+        try {
+            bind(inputs,workspace != null);
+
+            if(fusion != null) {
+                for(int i = 0; i < fusion.numSteps(); i++) {
+                    if(fusion.isFused(i))
+                        fusion.getFusedOp(i).exec(arrays);
+                    else
+                        execOp(fusion.getOpIndex(i));
+                }
+            }
+            else {
+                for(int i = 0; i < ops.length; i++)
+                    execOp(i);
+            }
+
+            Map<String,INDArray> ret = new LinkedHashMap<>();
+            for(String output : outputs) {
+                String arrId = arrIds.get(output);
+                if(arrId == null)
+                    throw new IllegalArgumentException("No variable found for output " + output);
+                INDArray arr = arrays.get(arrId);
+                if(arr == null)
+                    throw new IllegalArgumentException("Output " + output + " was fused away."
+                            + " Only the default outputs and arrays read by unfused ops are available");
+                ret.put(output,workspace != null ? arr.detach() : arr);
+            }
+
+            return ret;
+        }
+        finally {
+            if(workspace != null)
+                workspace.close();
+        }
+    }
+
+    private void execOp(int i) {
+        OpExecAction opExecAction = program.getAction(i);
+        Op op = ops[i];
+        if(op == null) {
+            op = SameDiff.createOp(opExecAction.getOpState().getOpType(),opExecAction,arrays);
+            ops[i] = op;
+        }
+        else
+            SameDiff.rebind(op,program,i,arrays);
+
+        SameDiff.execOp(op,opExecAction);
+        //reductions along axes may hand back a new result array
+        arrays.put(program.getZId(i),op.z());
+    }
+
+    /**
+     * The fusion pass applied to this session,
+     * null when elementwise fusion is disabled
+     */
+    public ElementwiseFusion getFusion() {
+        return fusion;
+    }
+
+    /**
+     * Names of the outputs returned
+     * by {@link #exec(Map)}
+     * @return
+     */
+    public List<String> getDefaultOutputs() {
+        return Collections.unmodifiableList(defaultOutputs);
+    }
+
+    private void bind(Map<String,INDArray> inputs,boolean perCall) {
+        Map<String,INDArray> sources = new HashMap<>(shared);
+        if(inputs != null) {
+            for(Map.Entry<String,INDArray> entry : inputs.entrySet()) {
+                String arrId = arrIds.get(entry.getKey());
+                if(arrId == null || !shared.containsKey(arrId))
+                    throw new IllegalArgumentException("No input variable found for name " + entry.getKey());
+                int[] shape = shapes.get(arrId);
+                if(shape != null && !Arrays.equals(shape,entry.getValue().shape()))
+                    throw new IllegalArgumentException("Illegal array specified for " + entry.getKey()
+                            + " must be of shape " + Arrays.toString(shape));
+                sources.put(arrId,entry.getValue());
+            }
+        }
+
+        if(perCall)
+            arrays.clear();
+
+        for(Map.Entry<String,INDArray> entry : sources.entrySet()) {
+            if(!written.contains(entry.getKey())) {
+                arrays.put(entry.getKey(),entry.getValue());
+            }
+            else {
+                //updated in place by some op: work on a private copy, so the source stays intact
+                INDArray arr = arrays.get(entry.getKey());
+                if(arr == null) {
+                    arr = entry.getValue().dup();
+                    arrays.put(entry.getKey(),arr);
+                }
+                else
+                    arr.assign(entry.getValue());
+            }
+        }
+
+        for(String arrId : written) {
+            if(!arrays.containsKey(arrId))
+                arrays.put(arrId,newArray(arrId));
+        }
+    }
+
+    private INDArray newArray(String arrId) {
+        int[] shape = shapes.get(arrId);
+        Number scalar = scalars.get(arrId);
+        //initialize value if it's actually a scalar constant (zero or 1 typically...)
+        if(scalar != null && ArrayUtil.prod(shape) == 1)
+            return Nd4j.valueArrayOf(shape,scalar.doubleValue());
+        return Nd4j.zeros(shape);
+    }
+}
@@ -1,6 +1,5 @@
 package org.nd4j.autodiff.samediff;
 
-import com.google.common.base.Preconditions;
 import com.rits.cloning.Cloner;
 import lombok.Builder;
 import lombok.Data;
@@ -25,6 +24,7 @@ import java.util.*;
 public class SDGraph extends Graph<NDArrayInformation,OpState> {
 
     protected SameDiff sameDiff;
+    private transient SDProgram program;
 
     public SDGraph(SDGraph gradGraph) {
         setEdges(gradGraph.getEdges());
@@ -122,59 +122,28 @@ public class SDGraph extends Graph<NDArrayInformation,OpState> {
 
 
     /**
-     *
+     * The op execution order,
+     * backed by the cached {@link #compile()} program
      * @return
      */
     public OpExecOrder getOpOrder() {
-        int[] order = topologicalSort();
-        List<OpExecAction> ret = new ArrayList<>();
-        //iterate over op execution order skipping
-        // nodes that are only inputs
-        //the goal is to get all of the needed op executions
-        for (int i = 0; i < order.length; i++) {
-            //skip vertices that are only inputs
-            if (getVertexInDegree(order[i]) < 1) {
-                continue;
-            }
-
-            int numInputs = Math.max(1, getVertexInDegree(order[i]));
-            int inputsCount = 0;
-            NDArrayInformation[] inputs = new NDArrayInformation[numInputs];
-            int[] inputIds = new int[numInputs];
-            List<Edge<OpState>> inputOpStates = getIncomingEdges().get(order[i]);
-            //get the inputs for this this output array
-            for (Edge<OpState> edge : inputOpStates) {
-                inputIds[inputsCount] = edge.getFrom();
-                Preconditions.checkNotNull(getInformationFor(edge.getFrom()));
-                inputs[inputsCount] = getInformationFor(edge.getFrom());
-                inputsCount++;
-            }
-
-            Preconditions.checkState(inputsCount == numInputs, "Not all inputs were filled.");
-            //add edges
-            Edge<OpState> opStateEdge = inputOpStates.get(0);
-            for(int j = 0; j < inputs.length; j++)
-                Preconditions.checkNotNull(inputs[j],"Input " + j + " of edge " + opStateEdge.getFrom() + " -> " + opStateEdge.getTo() + " was null.");
-
-            ret.add(OpExecAction.builder()
-                    .output(opStateEdge.getValue().getResult())
-                    .opState(opStateEdge.getValue())
-                    .inputs(inputs)
-                    .inputsIds(inputIds)
-                    .outputId(order[i])
-                    .build());
+        return OpExecOrder.builder().actions(compile().getActions()).build();
+    }
 
+    /**
+     * Compile this graph to an {@link SDProgram}.
+     * The program is cached and recompiled only
+     * after vertices or edges were added.
+     * @return the compiled program for the current graph
+     */
+    public SDProgram compile() {
+        SDProgram ret = program;
+        if(ret == null || !ret.isValidFor(this)) {
+            ret = SDProgram.compile(this);
+            program = ret;
         }
 
-
-        Collections.sort(ret, new Comparator<OpExecAction>() {
-            @Override
-            public int compare(OpExecAction o1, OpExecAction o2) {
-                return Integer.compare(o1.getOutputId(),o2.getOutputId());
-            }
-        });
-
-        return OpExecOrder.builder().actions(ret).build();
+        return ret;
     }
 
     /**
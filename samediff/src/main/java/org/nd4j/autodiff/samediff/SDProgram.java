@@ -0,0 +1,285 @@
+package org.nd4j.autodiff.samediff;
+
+import com.google.common.base.Preconditions;
+import org.nd4j.autodiff.graph.api.Edge;
+import org.nd4j.autodiff.opstate.NDArrayInformation;
+import org.nd4j.autodiff.opstate.OpExecAction;
+import org.nd4j.autodiff.opstate.OpState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, immutable view of an {@link SDGraph}:
+ * the adjacency in compressed sparse row form over primitive int arrays,
+ * a topological order computed once, and the resulting op program
+ * (one {@link OpExecAction} per op along with the array ids it reads and writes).
+ *
+ * A program is valid only for the graph and the graph modification count it was compiled for,
+ * see {@link #isValidFor(SDGraph)}. {@link SDGraph#compile()} caches it until the graph changes.
+ */
+public class SDProgram {
+    private final SDGraph graph;
+    private final int modificationCount;
+
+    // sorted vertex ids, dense index i <-> vertex id vertexIds[i]
+    private final int[] vertexIds;
+    // outgoing edges of dense vertex i are colIdx[rowPtr[i]..rowPtr[i + 1])
+    private final int[] rowPtr;
+    private final int[] colIdx;
+    // all vertices, dense indices in topological order
+    private final int[] order;
+
+    private final OpExecAction[] actions;
+    private final String[] xIds;
+    private final String[] yIds;
+    private final String[] zIds;
+
+    private SDProgram(SDGraph graph) {
+        this.graph = graph;
+        this.modificationCount = graph.getModificationCount();
+
+        Map<Integer, ?> vertices = graph.getVertices();
+        int numVertices = vertices.size();
+        vertexIds = new int[numVertices];
+        int cnt = 0;
+        for (Integer id : vertices.keySet())
+            vertexIds[cnt++] = id;
+        Arrays.sort(vertexIds);
+
+        int[] inDegree = new int[numVertices];
+        rowPtr = new int[numVertices + 1];
+        List<int[]> targets = new ArrayList<>(numVertices);
+        for (int i = 0; i < numVertices; i++) {
+            List<Edge<OpState>> edges = graph.getEdges().get(vertexIds[i]);
+            int[] to = new int[edges == null ? 0 : edges.size()];
+            int numTargets = 0;
+            for (int e = 0; e < to.length; e++) {
+                Edge<OpState> edge = edges.get(e);
+                if (edge.getFrom() != vertexIds[i])
+                    continue;
+                int target = Arrays.binarySearch(vertexIds, edge.getTo());
+                if (target < 0)
+                    continue;
+                // multiple edges between the same pair of vertices are a single dependency
+                boolean duplicate = false;
+                for (int j = 0; j < numTargets; j++)
+                    if (to[j] == target) {
+                        duplicate = true;
+                        break;
+                    }
+                if (duplicate)
+                    continue;
+                to[numTargets++] = target;
+                inDegree[target]++;
+            }
+            targets.add(Arrays.copyOf(to, numTargets));
+            rowPtr[i + 1] = rowPtr[i] + numTargets;
+        }
+
+        colIdx = new int[rowPtr[numVertices]];
+        for (int i = 0; i < numVertices; i++)
+            System.arraycopy(targets.get(i), 0, colIdx, rowPtr[i], rowPtr[i + 1] - rowPtr[i]);
+
+        order = topologicalSort(inDegree);
+
+        List<OpExecAction> ret = new ArrayList<>();
+        for (int i = 0; i < order.length; i++) {
+            OpExecAction action = actionFor(vertexIds[order[i]]);
+            if (action != null)
+                ret.add(action);
+        }
+
+        actions = ret.toArray(new OpExecAction[ret.size()]);
+        xIds = new String[actions.length];
+        yIds = new String[actions.length];
+        zIds = new String[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            OpExecAction action = actions[i];
+            xIds[i] = action.getInputs()[0].getArrId();
+            yIds[i] = action.getInputsIds().length > 1 ? action.getInputs()[1].getArrId() : null;
+            zIds[i] = action.isInPlace() ? xIds[i] : action.getOutput().getArrId();
+        }
+    }
+
+    /**
+     * Compile the given graph
+     * @param graph the graph to compile
+     * @return the compiled program
+     */
+    public static SDProgram compile(SDGraph graph) {
+        return new SDProgram(graph);
+    }
+
+    /**
+     * Whether this program still matches the given graph:
+     * same instance, and no vertices or edges added since compilation
+     * @param graph the graph to check
+     * @return true if the program can be reused for the graph
+     */
+    public boolean isValidFor(SDGraph graph) {
+        return this.graph == graph && modificationCount == graph.getModificationCount();
+    }
+
+    /**
+     * Number of ops in the program
+     * @return
+     */
+    public int size() {
+        return actions.length;
+    }
+
+    public OpExecAction getAction(int i) {
+        return actions[i];
+    }
+
+    /**
+     * Array id of the first input of op i
+     */
+    public String getXId(int i) {
+        return xIds[i];
+    }
+
+    /**
+     * Array id of the second input of op i, or null for single input ops
+     */
+    public String getYId(int i) {
+        return yIds[i];
+    }
+
+    /**
+     * Array id of the result of op i
+     */
+    public String getZId(int i) {
+        return zIds[i];
+    }
+
+    /**
+     * The op actions in execution order.
+     * The returned list is a copy.
+     * @return
+     */
+    public List<OpExecAction> getActions() {
+        return new ArrayList<>(Arrays.asList(actions));
+    }
+
+    /**
+     * All vertex ids in topological order
+     * @return
+     */
+    public int[] topologicalOrder() {
+        int[] ret = new int[order.length];
+        for (int i = 0; i < order.length; i++)
+            ret[i] = vertexIds[order[i]];
+        return ret;
+    }
+
+    public int numVertices() {
+        return vertexIds.length;
+    }
+
+    public int numEdges() {
+        return colIdx.length;
+    }
+
+    /**
+     * Kahn's algorithm over the CSR arrays.
+     * Ready vertices are taken lowest id first (binary heap),
+     * so the order matches vertex creation order whenever that order is valid.
+     */
+    private int[] topologicalSort(int[] inDegree) {
+        int n = vertexIds.length;
+        int[] remaining = Arrays.copyOf(inDegree, n);
+        int[] heap = new int[n];
+        int heapSize = 0;
+        for (int i = 0; i < n; i++)
+            if (remaining[i] == 0)
+                heapSize = push(heap, heapSize, i);
+
+        int[] ret = new int[n];
+        int outCounter = 0;
+        while (heapSize > 0) {
+            int next = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            ret[outCounter++] = next;
+            for (int e = rowPtr[next]; e < rowPtr[next + 1]; e++) {
+                int v = colIdx[e];
+                if (--remaining[v] == 0)
+                    heapSize = push(heap, heapSize, v);
+            }
+        }
+
+        if (outCounter != n)
+            throw new IllegalStateException("Graph has cycles");
+
+        return ret;
+    }
+
+    private static int push(int[] heap, int size, int value) {
+        int i = size;
+        heap[i] = value;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= heap[i])
+                break;
+            int tmp = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = tmp;
+            i = parent;
+        }
+        return size + 1;
+    }
+
+    private static void siftDown(int[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size)
+                return;
+            int smallest = left + 1 < size && heap[left + 1] < heap[left] ? left + 1 : left;
+            if (heap[i] <= heap[smallest])
+                return;
+            int tmp = heap[smallest];
+            heap[smallest] = heap[i];
+            heap[i] = tmp;
+            i = smallest;
+        }
+    }
+
+    private OpExecAction actionFor(int vertexId) {
+        //skip vertices that are only inputs
+        int numInputs = graph.getVertexInDegree(vertexId);
+        if (numInputs < 1)
+            return null;
+
+        List<Edge<OpState>> incoming = new ArrayList<>(numInputs);
+        for (Edge<OpState> edge : graph.getIncomingEdges().get(vertexId)) {
+            if (edge.getTo() == vertexId)
+                incoming.add(edge);
+        }
+        Preconditions.checkState(incoming.size() == numInputs, "Vertex " + vertexId + " has " + incoming.size()
+                        + " incoming edges, but in degree " + numInputs + ".");
+
+        NDArrayInformation[] inputs = new NDArrayInformation[numInputs];
+        int[] inputIds = new int[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            Edge<OpState> edge = incoming.get(i);
+            inputIds[i] = edge.getFrom();
+            inputs[i] = graph.getInformationFor(edge.getFrom());
+            Preconditions.checkNotNull(inputs[i], "Input " + i + " of edge " + edge.getFrom() + " -> "
+                            + edge.getTo() + " was null.");
+        }
+
+        Edge<OpState> opStateEdge = incoming.get(0);
+        return OpExecAction.builder()
+                        .output(opStateEdge.getValue().getResult())
+                        .opState(opStateEdge.getValue())
+                        .inputs(inputs)
+                        .inputsIds(inputIds)
+                        .outputId(vertexId)
+                        .build();
+    }
+}
@@ -22,6 +22,8 @@ import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
 import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.*;
 import org.nd4j.linalg.api.shape.Shape;
@@ -66,6 +68,14 @@ public class SameDiff {
     private Map<String,SameDiff> sameDiffFunctionInstances;
     private Map<Integer,DifferentialFunction> functionInstances;
     private Map<Integer,ArrayField> arrayFieldInstances;
+    //ops created for the last compiled program, re bound to new arrays rather than recreated
+    private transient SDProgram boundProgram;
+    private transient Op[] boundOps;
+    //workspace intermediate arrays of exec() are allocated in, if any
+    private WorkspaceConfiguration execWorkspaceConfiguration;
+    private transient String execWorkspaceId;
+    //vertex ids copied from the forward graph, set on the "grad" function when its backward graph is built
+    private Set<Integer> forwardVertexIds;
     private static Cloner cloner = new Cloner();
 
     private static Map<String,Method> opMethods;
@@ -236,6 +246,8 @@ public class SameDiff {
 
         }
 
+        //edges were copied straight in to the edge maps
+        sameDiff.graph().markModified();
         sameDiff.vertexToArray.putAll(vertexToArray);
         return sameDiff.variables().get(sameDiff.variables().size() - 1);
 
@@ -2707,25 +2719,25 @@ public class SameDiff {
     }
 
 
-    private INDArray getX(OpExecAction opExecAction) {
-        INDArray ret =  vertexToArray.get(opExecAction.getInputs()[0].getArrId());
+    private static INDArray getX(OpExecAction opExecAction,Map<String,INDArray> arrays) {
+        INDArray ret =  arrays.get(opExecAction.getInputs()[0].getArrId());
         return ret;
     }
 
-    private INDArray getY(OpExecAction opExecAction) {
+    private static INDArray getY(OpExecAction opExecAction,Map<String,INDArray> arrays) {
         if(opExecAction.getInputsIds().length > 1) {
             NDArrayInformation opId = opExecAction.getInputs()[1];
-            INDArray ret = vertexToArray.get(opId.getArrId());
+            INDArray ret = arrays.get(opId.getArrId());
             return ret;
         }
         return null;
     }
 
-    private INDArray getZ(OpExecAction opExecAction) {
+    private static INDArray getZ(OpExecAction opExecAction,Map<String,INDArray> arrays) {
         if(opExecAction.isInPlace())
-            return getX(opExecAction);
+            return getX(opExecAction,arrays);
         NDArrayInformation opId = opExecAction.getOutput();
-        INDArray ret =  vertexToArray.get(opId.getArrId());
+        INDArray ret =  arrays.get(opId.getArrId());
         return ret;
     }
 
@@ -2738,56 +2750,72 @@ public class SameDiff {
      */
     public Op createOp(OpState.OpType opType,
                        OpExecAction opExecAction) {
+        return createOp(opType,opExecAction,vertexToArray);
+    }
+
+    /**
+     * Create the op for the given action,
+     * reading its inputs and output
+     * from the given arrays rather than
+     * this instance's arrays
+     * @param opType the type of op
+     * @param opExecAction the action to create the op for
+     * @param arrays the arrays, by array id
+     * @return
+     */
+    public static Op createOp(OpState.OpType opType,
+                              OpExecAction opExecAction,
+                              Map<String,INDArray> arrays) {
         OpState opState = opExecAction.getOpState();
         switch (opType) {
             case GRADIENT:
                 return Nd4j.getOpFactory().createGradientOp(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getY(opExecAction),
-                        getZ(opExecAction));
+                        getX(opExecAction,arrays),
+                        getY(opExecAction,arrays),
+                        getZ(opExecAction,arrays));
             case SHAPE:
                 return Nd4j.getOpFactory().createShape(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getZ(opExecAction),
+                        getX(opExecAction,arrays),
+                        getZ(opExecAction,arrays),
                         opState.getExtraArgs());
             case SCALAR_TRANSFORM:
                 return Nd4j.getOpFactory().createScalarTransform(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getY(opExecAction),
-                        getZ(opExecAction),
+                        getX(opExecAction,arrays),
+                        getY(opExecAction,arrays),
+                        getZ(opExecAction,arrays),
                         opState.getExtraArgs(),
                         opState.getScalarValue().doubleValue());
             case ACCUMULATION:
                 return Nd4j.getOpFactory().createAccum(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getY(opExecAction),
-                        getZ(opExecAction),
+                        getX(opExecAction,arrays),
+                        getY(opExecAction,arrays),
+                        getZ(opExecAction,arrays),
                         opState.getExtraArgs());
             case TRANSFORM:
                 return Nd4j.getOpFactory().createTransform(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getY(opExecAction),
-                        getZ(opExecAction),
+                        getX(opExecAction,arrays),
+                        getY(opExecAction,arrays),
+                        getZ(opExecAction,arrays),
                         opState.getExtraArgs());
             case BROADCAST:
                 return Nd4j.getOpFactory().createBroadcastOp(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getY(opExecAction),
-                        getZ(opExecAction),
+                        getX(opExecAction,arrays),
+                        getY(opExecAction,arrays),
+                        getZ(opExecAction,arrays),
                         opState.getExtraArgs());
 
             case INDEX_ACCUMULATION:
                 return Nd4j.getOpFactory().createIndexAccum(
                         opState.getOpName(),
-                        getX(opExecAction),
-                        getY(opExecAction),
-                        getZ(opExecAction),
+                        getX(opExecAction,arrays),
+                        getY(opExecAction,arrays),
+                        getZ(opExecAction,arrays),
                         opState.getExtraArgs());
             case AGGREGATE: break;
         }
@@ -2810,7 +2838,13 @@ public class SameDiff {
      */
     public INDArray execAndEndResult() {
         List<Op> exec = exec().getRight();
-        return exec.get(exec.size() - 1).z();
+        return endResult(exec);
+    }
+
+    //results in the exec workspace are overwritten by the next exec call
+    private INDArray endResult(List<Op> ops) {
+        INDArray ret = ops.get(ops.size() - 1).z();
+        return execWorkspaceConfiguration != null ? ret.detach() : ret;
     }
 
 
@@ -2901,6 +2935,7 @@ public class SameDiff {
         if(!sameDiffFunctionInstances.containsKey(function)) {
             SameDiff sub = SameDiff.create();
             sub.setWorkspace(workspace);
+            sub.setExecWorkspaceConfiguration(execWorkspaceConfiguration);
             //setup subgraph
             //re execute to populate subgraph
             functionDefinition.define(sub,inputs);
@@ -2951,6 +2986,12 @@ public class SameDiff {
      * @return
      */
     public Pair<Map<SDVariable, Op>, List<Op>> execBackwards() {
+        defineGradFunction();
+        Pair<Map<SDVariable, Op>, List<Op>> forward = exec("grad");
+        return forward;
+    }
+
+    private void defineGradFunction() {
         SameDiff outer = this;
         if(getFunction("grad") == null)
             defineFunction("grad", new SameDiffFunctionDefinition() {
@@ -2961,6 +3002,7 @@ public class SameDiff {
                     //which wil also contain the backward
 
                     outer.invokeGraphOn(sameDiff);
+                    sameDiff.setForwardVertexIds(new HashSet<>(sameDiff.graph().getVertices().keySet()));
                     List<OpExecAction> opOrder = sameDiff.graph().getOpOrder().getActions();
                     Collections.reverse(opOrder);
                     //start with scalar backprop
@@ -2995,10 +3037,66 @@ public class SameDiff {
                             .build();
                 }
             });
+    }
 
+    /**
+     * Plan a memory aware backward pass:
+     * forward activations are released once no longer needed and,
+     * if that still doesn't fit in the given budget,
+     * recomputed from checkpoints instead of stored.
+     * See {@link BackwardMemoryPlan} for the peak memory and recompute cost of the plan.
+     * @param memoryBudget the peak memory to aim for, in bytes
+     * @return the plan for the "grad" function
+     */
+    public BackwardMemoryPlan planBackwards(long memoryBudget) {
+        defineGradFunction();
+        SameDiff grad = getFunction("grad");
+        Set<Integer> forwardVertexIds = grad.getForwardVertexIds();
+        SDProgram program = grad.graph().compile();
 
-        Pair<Map<SDVariable, Op>, List<Op>> forward = exec("grad");
-        return forward;
+        Set<String> written = new HashSet<>();
+        Set<String> freeable = new HashSet<>();
+        for(int i = 0; i < program.size(); i++) {
+            written.add(program.getZId(i));
+            if(forwardVertexIds.contains(program.getAction(i).getOutputId()))
+                freeable.add(program.getZId(i));
+        }
+
+        Map<String,INDArray> inputs = new HashMap<>();
+        for(int i = 0; i < program.size(); i++) {
+            for(NDArrayInformation info : program.getAction(i).getInputs()) {
+                if(written.contains(info.getArrId()) || inputs.containsKey(info.getArrId()))
+                    continue;
+                INDArray arr = grad.getVertexToArray().get(info.getArrId());
+                if(arr == null) {
+                    if(info.getScalarValue() != null && ArrayUtil.prod(info.getShape()) == 1)
+                        arr = Nd4j.valueArrayOf(info.getShape(),info.getScalarValue().doubleValue());
+                    else
+                        arr = Nd4j.zeros(info.getShape());
+                    grad.getVertexToArray().put(info.getArrId(),arr);
+                }
+                inputs.put(info.getArrId(),arr);
+            }
+        }
+
+        return new BackwardMemoryPlan(program,inputs,freeable,memoryBudget);
+    }
+
+    /**
+     * Memory aware variant of {@link #execBackwardAndEndResult()},
+     * see {@link #planBackwards(long)}.
+     * Gradients are available via {@link #grad(String)} afterwards,
+     * released forward activations are not.
+     * @param memoryBudget the peak memory to aim for, in bytes
+     * @return the end result
+     */
+    public INDArray execBackwardAndEndResult(long memoryBudget) {
+        BackwardMemoryPlan plan = planBackwards(memoryBudget);
+        Map<String,INDArray> arrays = plan.execute();
+        SameDiff grad = getFunction("grad");
+        grad.getVertexToArray().putAll(arrays);
+        SDProgram program = grad.graph().compile();
+        return arrays.get(program.getZId(program.size() - 1));
     }
 
 
@@ -3009,77 +3107,237 @@ public class SameDiff {
      */
     public INDArray execBackwardAndEndResult() {
         List<Op> backwards = execBackwards().getRight();
-        return backwards.get(backwards.size() - 1).z();
+        return getFunction("grad").endResult(backwards);
+    }
+
+    /**
+     * A cyclic workspace configuration for
+     * {@link #setExecWorkspaceConfiguration(WorkspaceConfiguration)}:
+     * sized on the first call, then reused from the start of the buffer on every call
+     * @return the configuration
+     */
+    public static WorkspaceConfiguration cyclicExecWorkspaceConfiguration() {
+        return WorkspaceConfiguration.builder()
+                .policyAllocation(AllocationPolicy.OVERALLOCATE)
+                .policyLearning(LearningPolicy.FIRST_LOOP)
+                .policyReset(ResetPolicy.BLOCK_LEFT)
+                .policySpill(SpillPolicy.REALLOCATE)
+                .build();
+    }
+
+    /**
+     * Allocate the arrays written by ops in {@link #exec()}
+     * in a workspace of the calling thread with the given configuration,
+     * rather than keeping one set of arrays per graph alive.
+     * Also applies to functions such as "grad",
+     * so repeated gradient computations reuse the same memory.
+     *
+     * Op results, and the arrays of the variables they're assigned to,
+     * are only valid until the next exec call:
+     * use {@link INDArray#detach()} for results that must survive.
+     * {@link #execAndEndResult()} and {@link #execBackwardAndEndResult()} detach their result.
+     * @param execWorkspaceConfiguration the workspace configuration,
+     *                                   null to allocate outside of any workspace
+     */
+    public void setExecWorkspaceConfiguration(WorkspaceConfiguration execWorkspaceConfiguration) {
+        this.execWorkspaceConfiguration = execWorkspaceConfiguration;
+        if(sameDiffFunctionInstances != null) {
+            for(SameDiff function : sameDiffFunctionInstances.values())
+                function.setExecWorkspaceConfiguration(execWorkspaceConfiguration);
+        }
     }
 
 
 
 
     /**
-     * Creates and executes a list of operations
+     * Create a new {@link InferenceSession}
+     * for the current graph.
+     * Use one session per thread.
+     * @return the new session
+     */
+    public InferenceSession inferenceSession() {
+        return new InferenceSession(this);
+    }
+
+    /**
+     * Create a new {@link InferenceSession}
+     * for the current graph, allocating intermediate arrays
+     * in a workspace of the calling thread.
+     * Use one session per thread.
+     * @param workspaceConfiguration the workspace configuration
+     * @return the new session
+     */
+    public InferenceSession inferenceSession(WorkspaceConfiguration workspaceConfiguration) {
+        return new InferenceSession(this,workspaceConfiguration);
+    }
+
+    /**
+     * Create a new {@link InferenceSession}
+     * for the current graph, optionally running trees of
+     * elementwise ops as single fused ops (see {@link ElementwiseFusion}).
+     * Use one session per thread.
+     * @param workspaceConfiguration the workspace configuration, may be null
+     * @param fuseElementwise whether to fuse elementwise ops
+     * @return the session
+     */
+    public InferenceSession inferenceSession(WorkspaceConfiguration workspaceConfiguration,boolean fuseElementwise) {
+        return new InferenceSession(this,workspaceConfiguration,fuseElementwise);
+    }
+
+    /**
+     * Creates and executes a list of operations.
+     *
+     * The op order comes from the graph's cached {@link SDProgram}
+     * and ops created on the first call are reused on later calls
+     * (re bound to the current arrays), until the graph changes.
      * @return
      */
     public Pair<Map<SDVariable,Op>,List<Op>> exec() {
         allocate();
-        List<Op> ops = new ArrayList<>();
-        List<OpExecAction> opExecActions = graph().getOpOrder().getActions();
+        SDProgram program = graph().compile();
+        if(program != boundProgram || boundOps == null) {
+            boundOps = new Op[program.size()];
+            boundProgram = program;
+        }
+
+        List<Op> ops = new ArrayList<>(program.size());
         Map<SDVariable,Op> opMap = new HashMap<>();
-        for(int i = 0; i < opExecActions.size(); i++) {
-            OpExecAction opExecAction = opExecActions.get(i);
-            Op op = createOp(
-                    opExecAction.getOpState().getOpType(),
-                    opExecAction);
+        MemoryWorkspace execWorkspace = activateExecWorkspace(program);
+        try {
+            for(int i = 0; i < program.size(); i++) {
+                OpExecAction opExecAction = program.getAction(i);
+                Op op = boundOps[i];
+                if(op == null) {
+                    op = createOp(
+                            opExecAction.getOpState().getOpType(),
+                            opExecAction);
+                    boundOps[i] = op;
+                }
+                else
+                    rebind(op,program,i,vertexToArray);
+
+                ops.add(op);
+                execOp(op,opExecAction);
+
+                SDVariable currVariable = getVertexIdToVariable().get(opExecAction.getOutputId());
+                if(currVariable ==  null) {
+                    //the vertex id is unique within the graph, so the name is stable across calls
+                    SDVariable add = SDVariable.builder()
+                            .differentialFunction(opExecAction.getOpState().getDifferentialFunction())
+                            .sameDiff(this)
+                            .varName(opExecAction.getOpState().getOpName() + "-" + opExecAction.getOutputId())
+                            .arr(op.z())
+                            .shape(op.z().shape())
+                            .vertexId(opExecAction.getOutputId())
+                            .build();
+                    addVariable(add);
+                    currVariable = add;
 
-            ops.add(op);
+                }
+                else
 
-            if(opExecAction.getOpState().getAxes() == null)
-                Nd4j.getExecutioner().exec(op);
+                    currVariable.setArr(op.z());
+                opMap.put(currVariable,op);
+            }
+        }
+        finally {
+            if(execWorkspace != null)
+                execWorkspace.close();
+        }
 
-            else {
-                int[] axes = opExecAction.getOpState().getAxes();
-                if(op instanceof Accumulation) {
-                    Accumulation accumulation = (Accumulation) op;
-                    Nd4j.getExecutioner().exec(accumulation,axes);
 
-                }
 
-                else if(op instanceof BroadcastOp) {
-                    BroadcastOp broadcastOp = (BroadcastOp) op;
-                    Nd4j.getExecutioner().exec(broadcastOp,axes);
-                }
-                else if(op instanceof GradientOp) {
-                    Nd4j.getExecutioner().exec(op);
-                }
-                else if(op instanceof IndexAccumulation) {
-                    IndexAccumulation indexAccumulation = (IndexAccumulation) op;
-                    Nd4j.getExecutioner().exec(indexAccumulation,axes);
+        return new Pair<>(opMap,ops);
+    }
 
-                }
-            }
+    /**
+     * Activate the exec workspace, if configured,
+     * and allocate the arrays written by ops in it.
+     * Arrays of graph inputs, including those updated in place, stay where they are.
+     * @return the activated workspace, or null
+     */
+    private MemoryWorkspace activateExecWorkspace(SDProgram program) {
+        if(execWorkspaceConfiguration == null)
+            return null;
 
-            SDVariable currVariable = getVertexIdToVariable().get(opExecAction.getOutputId());
-            if(currVariable ==  null) {
-                SDVariable add = SDVariable.builder()
-                        .differentialFunction(opExecAction.getOpState().getDifferentialFunction())
-                        .sameDiff(this)
-                        .varName(opExecAction.getOpState().getOpName() + "-" + UUID.randomUUID().toString())
-                        .arr(op.z())
-                        .shape(op.z().shape())
-                        .vertexId(opExecAction.getOutputId())
-                        .build();
-                addVariable(add);
-                currVariable = add;
+        Set<String> inputIds = new HashSet<>();
+        for(NDArrayInformation info : graph().getInputs())
+            inputIds.add(info.getArrId());
 
-            }
+        if(execWorkspaceId == null)
+            execWorkspaceId = "SD_EXEC_" + UUID.randomUUID().toString();
+        MemoryWorkspace ret = Nd4j.getWorkspaceManager()
+                .getAndActivateWorkspace(execWorkspaceConfiguration,execWorkspaceId);
+        for(int i = 0; i < program.size(); i++) {
+            NDArrayInformation info = program.getAction(i).getOutput();
+            if(inputIds.contains(info.getArrId()))
+                continue;
+            if(info.getScalarValue() != null && ArrayUtil.prod(info.getShape()) == 1)
+                vertexToArray.put(info.getArrId(),Nd4j.valueArrayOf(info.getShape(),
+                        info.getScalarValue().doubleValue()));
             else
+                vertexToArray.put(info.getArrId(),Nd4j.zeros(info.getShape()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Execute a created op,
+     * along the action's axes if any
+     * @param op the op to execute
+     * @param opExecAction the action the op was created for
+     */
+    static void execOp(Op op,OpExecAction opExecAction) {
+        if(opExecAction.getOpState().getAxes() == null)
+            Nd4j.getExecutioner().exec(op);
+
+        else {
+            int[] axes = opExecAction.getOpState().getAxes();
+            if(op instanceof Accumulation) {
+                Accumulation accumulation = (Accumulation) op;
+                Nd4j.getExecutioner().exec(accumulation,axes);
+
+            }
+
+            else if(op instanceof BroadcastOp) {
+                BroadcastOp broadcastOp = (BroadcastOp) op;
+                Nd4j.getExecutioner().exec(broadcastOp,axes);
+            }
+            else if(op instanceof GradientOp) {
+                Nd4j.getExecutioner().exec(op);
+            }
+            else if(op instanceof IndexAccumulation) {
+                IndexAccumulation indexAccumulation = (IndexAccumulation) op;
+                Nd4j.getExecutioner().exec(indexAccumulation,axes);
 
-                currVariable.setArr(op.z());
-            opMap.put(currVariable,op);
+            }
         }
+    }
 
+    /**
+     * Point an already created op at the
+     * arrays currently registered for its inputs and output.
+     * Only references that changed are replaced.
+     */
+    static void rebind(Op op,SDProgram program,int i,Map<String,INDArray> arrays) {
+        INDArray x = arrays.get(program.getXId(i));
+        if(op.x() != x) {
+            op.setX(x);
+            op.setN(x.length());
+        }
 
+        //scalar ops never had y set
+        if(program.getYId(i) != null && op.y() != null) {
+            INDArray y = arrays.get(program.getYId(i));
+            if(op.y() != y)
+                op.setY(y);
+        }
 
-        return new Pair<>(opMap,ops);
+        INDArray z = arrays.get(program.getZId(i));
+        if(op.z() != z)
+            op.setZ(z);
     }
 
 }
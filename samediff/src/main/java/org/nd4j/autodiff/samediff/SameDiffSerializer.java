@@ -0,0 +1,650 @@
+package org.nd4j.autodiff.samediff;
+
+import org.nd4j.autodiff.graph.api.Edge;
+import org.nd4j.autodiff.opstate.NDArrayInformation;
+import org.nd4j.autodiff.opstate.NDArrayVertex;
+import org.nd4j.autodiff.opstate.OpState;
+import org.nd4j.autodiff.samediff.impl.SDVariable;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Binary format for {@link SameDiff} graphs.
+ *
+ * Stores vertices, edges, {@link OpState}s, variables and the arrays of the graph inputs,
+ * so a graph can be loaded and executed without replaying
+ * the {@link org.nd4j.autodiff.functions.DifferentialFunctionFactory} calls that defined it.
+ * Loaded graphs are meant for forward execution ({@link SameDiff#exec()}, {@link InferenceSession}):
+ * differential functions aren't stored, so they can't be differentiated again.
+ *
+ * Layout:
+ * <pre>
+ * int magic, int version, long metadata length
+ * metadata (big endian, {@link DataOutputStream})
+ * array data: raw little endian values, every array starting at a 64 byte aligned file offset
+ * </pre>
+ * On {@link #load(File)} every array's region of the file is memory mapped on its own
+ * (in chunks of up to 1GB, with long offsets, so neither the file nor an array is limited to 2GB)
+ * and copied once, straight into the buffer of the new array.
+ */
+public class SameDiffSerializer {
+    public static final int MAGIC = 0x53444731;
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 64;
+    private static final int HEADER_LENGTH = 16;
+    private static final long MAP_CHUNK_BYTES = 1L << 30;
+    private static final int WRITE_CHUNK_BYTES = 1 << 20;
+
+    private static final byte TYPE_DOUBLE = 0;
+    private static final byte TYPE_FLOAT = 1;
+
+    private static final byte ARG_NULL = 0;
+    private static final byte ARG_DOUBLE = 1;
+    private static final byte ARG_FLOAT = 2;
+    private static final byte ARG_INT = 3;
+    private static final byte ARG_LONG = 4;
+    private static final byte ARG_BOOLEAN = 5;
+    private static final byte ARG_STRING = 6;
+
+    private SameDiffSerializer() {}
+
+    /**
+     * Write the given graph to a file
+     * @param sameDiff the graph to write
+     * @param file the file to write to
+     * @throws IOException
+     */
+    public static void save(SameDiff sameDiff, File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(sameDiff, outputStream);
+        }
+    }
+
+    /**
+     * Load a graph from a file written by {@link #save(SameDiff, File)}
+     * @param file the file to load
+     * @return the loaded graph
+     * @throws IOException
+     */
+    public static SameDiff load(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                        FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(channel, header, 0);
+            header.flip();
+            ByteBuffer metadata = ByteBuffer.allocate(metadataLength(header));
+            readFully(channel, metadata, HEADER_LENGTH);
+            return read(metadata.array(), new MappedSource(channel));
+        }
+    }
+
+    /**
+     * Serialize the given graph
+     * @param sameDiff the graph to serialize
+     * @return the serialized graph
+     */
+    public static byte[] toBytes(SameDiff sameDiff) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(sameDiff, outputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Load a graph from bytes written by {@link #toBytes(SameDiff)}
+     * @param bytes the serialized graph
+     * @return the loaded graph
+     */
+    public static SameDiff fromBytes(byte[] bytes) {
+        try {
+            return read(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serialize the given graph to a stream
+     * @param sameDiff the graph to serialize
+     * @param outputStream the stream to write to
+     * @throws IOException
+     */
+    public static void write(SameDiff sameDiff, OutputStream outputStream) throws IOException {
+        SDGraph graph = sameDiff.graph();
+        List<Integer> vertexIds = new ArrayList<>(graph.getVertices().keySet());
+        Collections.sort(vertexIds);
+
+        ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+        DataOutputStream metadata = new DataOutputStream(metadataBytes);
+
+        metadata.writeInt(vertexIds.size());
+        for (int vertexId : vertexIds) {
+            metadata.writeInt(vertexId);
+            writeInfo(metadata, graph.getInformationFor(vertexId));
+        }
+
+        //op states are shared between the edges of an op, store each once
+        Map<OpState, Integer> opStateIdx = new IdentityHashMap<>();
+        List<OpState> opStates = new ArrayList<>();
+        List<Edge<OpState>> edges = new ArrayList<>();
+        //incoming order is the input order of an op
+        for (int vertexId : vertexIds) {
+            List<Edge<OpState>> incoming = graph.getIncomingEdges().get(vertexId);
+            if (incoming == null)
+                continue;
+            for (Edge<OpState> edge : incoming) {
+                if (edge.getTo() != vertexId)
+                    continue;
+                edges.add(edge);
+                if (!opStateIdx.containsKey(edge.getValue())) {
+                    opStateIdx.put(edge.getValue(), opStates.size());
+                    opStates.add(edge.getValue());
+                }
+            }
+        }
+
+        metadata.writeInt(opStates.size());
+        for (OpState opState : opStates)
+            writeOpState(metadata, opState);
+
+        metadata.writeInt(edges.size());
+        for (Edge<OpState> edge : edges) {
+            metadata.writeInt(edge.getFrom());
+            metadata.writeInt(edge.getTo());
+            metadata.writeInt(opStateIdx.get(edge.getValue()));
+            metadata.writeBoolean(edge.isDirected());
+        }
+
+        List<SDVariable> variables = sameDiff.variables();
+        metadata.writeInt(variables.size());
+        for (SDVariable variable : variables) {
+            metadata.writeUTF(variable.getVarName());
+            metadata.writeInt(variable.getVertexId());
+            writeInts(metadata, variable.getShape());
+        }
+
+        //arrays of the graph inputs: variables and constants
+        List<String> arrIds = new ArrayList<>();
+        List<INDArray> arrays = new ArrayList<>();
+        for (NDArrayInformation info : graph.getInputs()) {
+            INDArray arr = sameDiff.getVertexToArray().get(info.getArrId());
+            if (arr == null || arrIds.contains(info.getArrId()))
+                continue;
+            arrIds.add(info.getArrId());
+            arrays.add(arr.isView() || arr.ordering() != 'c' ? arr.dup('c') : arr);
+        }
+
+        //array table: offsets depend on the metadata length, which doesn't depend on the offsets
+        int tableLength = 4;
+        for (int i = 0; i < arrIds.size(); i++)
+            tableLength += utfLength(arrIds.get(i)) + 1 + 4 + 4 * arrays.get(i).rank() + 8 + 8;
+
+        long offset = align(HEADER_LENGTH + metadata.size() + tableLength);
+        long[] offsets = new long[arrays.size()];
+        metadata.writeInt(arrays.size());
+        for (int i = 0; i < arrays.size(); i++) {
+            INDArray arr = arrays.get(i);
+            offsets[i] = offset;
+            metadata.writeUTF(arrIds.get(i));
+            metadata.writeByte(typeOf(arr));
+            writeInts(metadata, arr.shape());
+            metadata.writeLong(offset);
+            metadata.writeLong(arr.length());
+            offset = align(offset + arr.length() * bytesPerElement(typeOf(arr)));
+        }
+        metadata.flush();
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(metadata.size());
+        metadataBytes.writeTo(out);
+
+        long position = HEADER_LENGTH + metadata.size();
+        for (int i = 0; i < arrays.size(); i++) {
+            position = pad(out, position, offsets[i]);
+            INDArray arr = arrays.get(i);
+            byte type = typeOf(arr);
+            writeData(out, arr.data(), arr.length(), type);
+            position += arr.length() * bytesPerElement(type);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Load a graph from the given buffer
+     * @param buffer the serialized graph, starting at position 0
+     * @return the loaded graph
+     * @throws IOException
+     */
+    public static SameDiff read(ByteBuffer buffer) throws IOException {
+        ByteBuffer header = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        byte[] metadataBytes = new byte[metadataLength(header)];
+        header.get(metadataBytes);
+        return read(metadataBytes, new BufferSource(buffer));
+    }
+
+    private static SameDiff read(byte[] metadataBytes, ArraySource arraySource) throws IOException {
+        DataInputStream metadata = new DataInputStream(new ByteArrayInputStream(metadataBytes));
+
+        SameDiff sameDiff = SameDiff.create();
+        SDGraph graph = sameDiff.graph();
+
+        int numVertices = metadata.readInt();
+        for (int i = 0; i < numVertices; i++) {
+            int vertexId = metadata.readInt();
+            NDArrayInformation info = readInfo(metadata);
+            int nextVertexId = graph.nextVertexId();
+            if (nextVertexId != vertexId)
+                throw new IOException("Vertex ids must be contiguous, expected " + nextVertexId
+                                + " but got " + vertexId);
+            graph.addVertex(new NDArrayVertex(sameDiff, vertexId, info));
+            sameDiff.getVertexIdxToInfo().put(vertexId, info);
+        }
+
+        int numOpStates = metadata.readInt();
+        OpState[] opStates = new OpState[numOpStates];
+        for (int i = 0; i < numOpStates; i++)
+            opStates[i] = readOpState(metadata);
+
+        int numEdges = metadata.readInt();
+        for (int i = 0; i < numEdges; i++) {
+            int from = metadata.readInt();
+            int to = metadata.readInt();
+            OpState opState = opStates[metadata.readInt()];
+            graph.addEdge(new Edge<>(from, to, opState, metadata.readBoolean()));
+        }
+
+        int numVariables = metadata.readInt();
+        List<SDVariable> variables = new ArrayList<>(numVariables);
+        for (int i = 0; i < numVariables; i++) {
+            SDVariable variable = SDVariable.builder()
+                            .sameDiff(sameDiff)
+                            .varName(metadata.readUTF())
+                            .vertexId(metadata.readInt())
+                            .shape(readInts(metadata))
+                            .build();
+            variables.add(variable);
+        }
+
+        int numArrays = metadata.readInt();
+        for (int i = 0; i < numArrays; i++) {
+            String arrId = metadata.readUTF();
+            byte type = metadata.readByte();
+            int[] shape = readInts(metadata);
+            long offset = metadata.readLong();
+            long length = metadata.readLong();
+
+            INDArray arr = Nd4j.createUninitialized(shape, 'c');
+            if (arr.length() != length)
+                throw new IOException("Array " + arrId + " has " + length + " values for shape "
+                                + Arrays.toString(shape));
+            arraySource.copyTo(arr, type, offset);
+            sameDiff.getVertexToArray().put(arrId, arr);
+        }
+
+        //variables are registered directly: there's no differential function to resolve their vertex from
+        for (SDVariable variable : variables) {
+            NDArrayInformation info = graph.getInformationFor(variable.getVertexId());
+            if (info != null)
+                variable.setArr(sameDiff.getVertexToArray().get(info.getArrId()));
+            sameDiff.getVariableMap().put(variable.getVarName(), variable);
+            sameDiff.getVertexIdToVariable().put(variable.getVertexId(), variable);
+        }
+
+        return sameDiff;
+    }
+
+    /**
+     * Checks the magic number and version of the header, and returns the metadata length
+     */
+    private static int metadataLength(ByteBuffer header) throws IOException {
+        if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC)
+            throw new IOException("Not a serialized SameDiff graph");
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported SameDiff format version " + version);
+        long metadataLength = header.getLong();
+        if (metadataLength < 0 || metadataLength > Integer.MAX_VALUE)
+            throw new IOException("Invalid metadata length " + metadataLength);
+        return (int) metadataLength;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0)
+                throw new EOFException("Unexpected end of file at " + position);
+            position += read;
+        }
+    }
+
+    /**
+     * Copies the stored values of one array into the buffer of a new array
+     */
+    private interface ArraySource {
+        void copyTo(INDArray target, byte type, long offset) throws IOException;
+    }
+
+    private static class BufferSource implements ArraySource {
+        private final ByteBuffer buffer;
+
+        private BufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void copyTo(INDArray target, byte type, long offset) throws IOException {
+            long bytes = target.length() * bytesPerElement(type);
+            if (offset < 0 || offset + bytes > buffer.capacity())
+                throw new IOException("Array data out of bounds: offset " + offset + ", " + bytes + " bytes");
+            ByteBuffer data = buffer.duplicate();
+            data.limit((int) (offset + bytes));
+            data.position((int) offset);
+            copy(data.slice(), type, target, 0);
+        }
+    }
+
+    private static class MappedSource implements ArraySource {
+        private final FileChannel channel;
+
+        private MappedSource(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void copyTo(INDArray target, byte type, long offset) throws IOException {
+            int elementSize = bytesPerElement(type);
+            long bytes = target.length() * elementSize;
+            if (offset < 0 || offset + bytes > channel.size())
+                throw new IOException("Array data out of bounds: offset " + offset + ", " + bytes + " bytes");
+
+            long chunk = MAP_CHUNK_BYTES / elementSize * elementSize;
+            for (long done = 0; done < bytes; done += chunk) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset + done,
+                                Math.min(chunk, bytes - done));
+                copy(mapped, type, target, done / elementSize);
+            }
+        }
+    }
+
+    /**
+     * Copies little endian values into the target's buffer, starting at the given element.
+     * Bytes go straight into the buffer memory when the types and byte order match.
+     */
+    private static void copy(ByteBuffer source, byte type, INDArray target, long index) {
+        source.order(ByteOrder.LITTLE_ENDIAN);
+        DataBuffer data = target.data();
+        int count = source.remaining() / bytesPerElement(type);
+        if (typeOf(target) == type && data.getElementSize() == bytesPerElement(type)
+                        && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+            ByteBuffer memory = memory(data, index, source.remaining());
+            if (memory != null) {
+                memory.put(source);
+                return;
+            }
+        }
+
+        if (type == TYPE_DOUBLE) {
+            DoubleBuffer values = source.asDoubleBuffer();
+            for (int i = 0; i < count; i++)
+                data.put(index + i, values.get(i));
+        } else {
+            FloatBuffer values = source.asFloatBuffer();
+            for (int i = 0; i < count; i++)
+                data.put(index + i, values.get(i));
+        }
+    }
+
+    /**
+     * Writes the first length values of the buffer as little endian bytes, in chunks of up to 1MB.
+     * Chunks are read straight from the buffer memory when the types and byte order match,
+     * so the array is never copied as a whole.
+     */
+    private static void writeData(OutputStream out, DataBuffer data, long length, byte type) throws IOException {
+        int elementSize = bytesPerElement(type);
+        int chunkElements = WRITE_CHUNK_BYTES / elementSize;
+        byte[] chunk = new byte[(int) Math.min(length, chunkElements) * elementSize];
+        ByteBuffer values = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+        boolean raw = data.getElementSize() == elementSize && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+        for (long index = 0; index < length; index += chunkElements) {
+            int count = (int) Math.min(chunkElements, length - index);
+            int bytes = count * elementSize;
+            ByteBuffer memory = raw ? memory(data, index, bytes) : null;
+            if (memory != null) {
+                memory.get(chunk, 0, bytes);
+            } else {
+                values.clear();
+                for (int i = 0; i < count; i++) {
+                    if (type == TYPE_DOUBLE)
+                        values.putDouble(data.getDouble(index + i));
+                    else
+                        values.putFloat(data.getFloat(index + i));
+                }
+            }
+            out.write(chunk, 0, bytes);
+        }
+    }
+
+    /**
+     * A view of the given bytes of the buffer memory, starting at the given element,
+     * or null if the memory can't be viewed directly
+     */
+    private static ByteBuffer memory(DataBuffer data, long index, int bytes) {
+        long start = (data.offset() + index) * data.getElementSize();
+        if (start + bytes > Integer.MAX_VALUE)
+            return null;
+        ByteBuffer nio = data.asNio();
+        if (nio == null || nio.capacity() < start + bytes)
+            return null;
+        nio = nio.duplicate();
+        nio.limit((int) (start + bytes));
+        nio.position((int) start);
+        return nio.slice();
+    }
+
+    private static void writeInfo(DataOutputStream out, NDArrayInformation info) throws IOException {
+        out.writeBoolean(info != null);
+        if (info == null)
+            return;
+        writeInts(out, info.getShape());
+        writeString(out, info.getId());
+        writeArg(out, info.getScalarValue());
+        writeString(out, info.getArrId());
+    }
+
+    private static NDArrayInformation readInfo(DataInputStream in) throws IOException {
+        if (!in.readBoolean())
+            return null;
+        return NDArrayInformation.builder()
+                        .shape(readInts(in))
+                        .id(readString(in))
+                        .scalarValue((Number) readArg(in))
+                        .arrId(readString(in))
+                        .build();
+    }
+
+    private static void writeOpState(DataOutputStream out, OpState opState) throws IOException {
+        out.writeLong(opState.getN());
+        writeString(out, opState.getOpType() == null ? null : opState.getOpType().name());
+        writeString(out, opState.getOpName());
+        writeArg(out, opState.getScalarValue());
+        writeStrings(out, opState.getVertexIds());
+        writeString(out, opState.getId());
+        writeInts(out, opState.getAxes());
+        writeArgs(out, opState.getExtraArgs());
+        writeArgs(out, opState.getExtraArgsWithoutInPlace());
+        writeInfo(out, opState.getResult());
+        out.writeBoolean(opState.isInPlace());
+    }
+
+    private static OpState readOpState(DataInputStream in) throws IOException {
+        long n = in.readLong();
+        String opType = readString(in);
+        OpState opState = OpState.builder()
+                        .n(n)
+                        .opType(opType == null ? null : OpState.OpType.valueOf(opType))
+                        .opName(readString(in))
+                        .scalarValue((Number) readArg(in))
+                        .vertexIds(readStrings(in))
+                        .id(readString(in))
+                        .axes(readInts(in))
+                        .extraArgs(readArgs(in))
+                        .extraArgsWithoutInPlace(readArgs(in))
+                        .result(readInfo(in))
+                        .inPlace(in.readBoolean())
+                        .build();
+        if (opState.getResult() != null)
+            opState.getResult().setOwner(opState);
+        return opState;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values != null)
+            for (String value : values)
+                writeString(out, value);
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        String[] ret = new String[length];
+        for (int i = 0; i < length; i++)
+            ret[i] = readString(in);
+        return ret;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values != null)
+            for (int value : values)
+                out.writeInt(value);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        int[] ret = new int[length];
+        for (int i = 0; i < length; i++)
+            ret[i] = in.readInt();
+        return ret;
+    }
+
+    private static void writeArgs(DataOutputStream out, Object[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values != null)
+            for (Object value : values)
+                writeArg(out, value);
+    }
+
+    private static Object[] readArgs(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        Object[] ret = new Object[length];
+        for (int i = 0; i < length; i++)
+            ret[i] = readArg(in);
+        return ret;
+    }
+
+    private static void writeArg(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(ARG_NULL);
+        } else if (value instanceof Double) {
+            out.writeByte(ARG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(ARG_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(ARG_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(ARG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(ARG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            out.writeByte(ARG_STRING);
+            out.writeUTF((String) value);
+        } else
+            throw new IllegalArgumentException("Unable to serialize value of type " + value.getClass().getName());
+    }
+
+    private static Object readArg(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ARG_NULL:
+                return null;
+            case ARG_DOUBLE:
+                return in.readDouble();
+            case ARG_FLOAT:
+                return in.readFloat();
+            case ARG_INT:
+                return in.readInt();
+            case ARG_LONG:
+                return in.readLong();
+            case ARG_BOOLEAN:
+                return in.readBoolean();
+            case ARG_STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static byte typeOf(INDArray arr) {
+        return arr.data().dataType() == DataBuffer.Type.DOUBLE ? TYPE_DOUBLE : TYPE_FLOAT;
+    }
+
+    private static int bytesPerElement(byte type) {
+        return type == TYPE_DOUBLE ? 8 : 4;
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static long pad(DataOutputStream out, long position, long target) throws IOException {
+        while (position < target) {
+            out.writeByte(0);
+            position++;
+        }
+        return position;
+    }
+
+    //length of a string written by writeUTF
+    private static int utfLength(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(value);
+        return bytes.size();
+    }
+}
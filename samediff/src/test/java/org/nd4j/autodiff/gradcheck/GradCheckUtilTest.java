@@ -7,9 +7,14 @@ import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -32,4 +37,47 @@ public class GradCheckUtilTest {
 
     }
 
+    @Test
+    public void testParallelGradCheck() {
+        Nd4j.create(1);
+        DataTypeUtil.setDTypeForContext(DataBuffer.Type.DOUBLE);
+        Nd4j.getRandom().setSeed(12345);
+        INDArray x = Nd4j.rand(4,3);
+        INDArray w = Nd4j.rand(3,2).subi(0.5);
+        SameDiff sameDiff = SameDiff.create();
+        SDVariable xVar = sameDiff.var("x",x);
+        SDVariable wVar = sameDiff.var("w",w);
+        SDVariable output = sameDiff.sigmoid(sameDiff.mmul(xVar,wVar));
+
+        //d sum(sigmoid(x w)) / dw = x^T (s * (1 - s))
+        INDArray s = Transforms.sigmoid(x.mmul(w),true);
+        INDArray delta = s.mul(s.rsub(1.0));
+        Map<String,INDArray> gradients = new HashMap<>();
+        gradients.put("x",delta.mmul(w.transpose()));
+        gradients.put("w",x.transpose().mmul(delta));
+
+        Map<String,INDArray> params = new HashMap<>();
+        params.put("x",x);
+        params.put("w",w);
+
+        GradCheckResult all = GradCheckUtil.checkGradientsParallel(sameDiff,output.getVarName(),params,gradients,
+                1e-6,1e-5,1e-8,0,123,4);
+        assertTrue(all.toString(),all.passed());
+        assertEquals(18,all.getNumParams());
+        assertEquals(18,all.getNumChecked());
+
+        GradCheckResult sampled = GradCheckUtil.checkGradientsParallel(sameDiff,output.getVarName(),params,gradients,
+                1e-6,1e-5,1e-8,5,123,2);
+        assertTrue(sampled.passed());
+        assertEquals(5,sampled.getNumChecked());
+
+        gradients.put("w",gradients.get("w").mul(2.0));
+        GradCheckResult wrong = GradCheckUtil.checkGradientsParallel(sameDiff,output.getVarName(),params,gradients,
+                1e-6,1e-5,1e-8,0,123,4);
+        assertFalse(wrong.passed());
+        assertEquals(6,wrong.getNumFailed());
+        //inputs are left untouched
+        assertEquals(x,sameDiff.getVariableMap().get("x").getArr());
+    }
+
 }
@@ -2,19 +2,24 @@ package org.nd4j.autodiff.samediff;
 
 import org.junit.Test;
 import org.nd4j.autodiff.gradcheck.GradCheckUtil;
+import org.nd4j.autodiff.graph.api.Vertex;
+import org.nd4j.autodiff.opstate.NDArrayInformation;
 import org.nd4j.autodiff.opstate.OpExecOrder;
 import org.nd4j.autodiff.opstate.OpState;
 import org.nd4j.autodiff.samediff.impl.SDVariable;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.Op;
 import org.nd4j.linalg.api.ops.impl.transforms.*;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.ops.transforms.Transforms;
 import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.linalg.util.ArrayUtil;
 
+import java.io.File;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -904,5 +909,277 @@ public class SameDiffTests {
         assertEquals(28,output.getDouble(0),1e-1);
     }
 
+    @Test
+    public void testExecReusesCompiledProgram() {
+        SameDiff sameDiff = SameDiff.create();
+        SDVariable x = sameDiff.var("x", Nd4j.linspace(1, 4, 4));
+        SDVariable sigmoid = sameDiff.sigmoid(x);
+        SDVariable sum = sameDiff.sum(sigmoid, Integer.MAX_VALUE);
+
+        SDProgram program = sameDiff.graph().compile();
+        assertEquals(3, program.numVertices());
+        assertEquals(2, program.numEdges());
+        assertArrayEquals(sameDiff.graph().topologicalSort(), program.topologicalOrder());
+        assertSame(program, sameDiff.graph().compile());
+
+        List<Op> first = sameDiff.exec().getRight();
+        List<Op> second = sameDiff.exec().getRight();
+        assertEquals(2, second.size());
+        for (int i = 0; i < first.size(); i++)
+            assertSame(first.get(i), second.get(i));
+        assertEquals(Transforms.sigmoid(Nd4j.linspace(1, 4, 4)).sumNumber().doubleValue(),
+                second.get(1).z().getDouble(0), 1e-6);
+
+        //adding to the graph invalidates the program
+        sameDiff.sigmoid(sum);
+        assertNotSame(program, sameDiff.graph().compile());
+        assertEquals(3, sameDiff.exec().getRight().size());
+    }
+
+    @Test
+    public void testExecLargeGraph() {
+        SameDiff sameDiff = SameDiff.create();
+        SDVariable curr = sameDiff.var("x", Nd4j.linspace(1, 4, 4));
+        for (int i = 0; i < 999; i++)
+            curr = sameDiff.sigmoid(curr);
+
+        assertEquals(1000, sameDiff.graph().numVertices());
+        SDProgram program = sameDiff.graph().compile();
+        assertEquals(999, program.size());
+
+        INDArray expected = Nd4j.linspace(1, 4, 4);
+        for (int i = 0; i < 999; i++)
+            expected = Transforms.sigmoid(expected, true);
+
+        //repeated execs reuse the compiled program and give the same result
+        for (int i = 0; i < 3; i++) {
+            List<Op> ops = sameDiff.exec().getRight();
+            assertEquals(999, ops.size());
+            assertEquals(expected, ops.get(ops.size() - 1).z());
+            assertSame(program, sameDiff.graph().compile());
+        }
+    }
+
+    @Test
+    public void testInferenceSessionConcurrent() throws Exception {
+        SameDiff sameDiff = SameDiff.create();
+        INDArray arr = Nd4j.linspace(1, 4, 4);
+        SDVariable x = sameDiff.var("x", arr.dup());
+        SDVariable sigmoid = sameDiff.sigmoid(x);
+        String output = sigmoid.getVarName();
+
+        int numThreads = 4;
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int threadIdx = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    InferenceSession session = sameDiff.inferenceSession();
+                    for (int i = 0; i < 50; i++) {
+                        INDArray input = Nd4j.linspace(1, 4, 4).addi(threadIdx * 100 + i);
+                        Map<String, INDArray> result = session.exec(Collections.singletonMap("x", input), output);
+                        assertEquals(Transforms.sigmoid(input, true), result.get(output));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        //the graph's own arrays are untouched
+        assertEquals(arr, sameDiff.getVariableMap().get("x").getArr());
+        assertEquals(1, sameDiff.inferenceSession().getDefaultOutputs().size());
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        SameDiff sameDiff = SameDiff.create();
+        Map<String, INDArray> inputs = variablesForInput();
+        SDVariable x = sameDiff.var("x", inputs.get("x"));
+        SDVariable w = sameDiff.var("w", Nd4j.linspace(1, 3, 3).reshape(3, 1));
+        SDVariable preOutput = sameDiff.mmul(x, w);
+        SDVariable outputs = sameDiff.sigmoid(preOutput);
+        INDArray expected = sameDiff.execAndEndResult().dup();
+
+        SameDiff fromBytes = SameDiffSerializer.fromBytes(SameDiffSerializer.toBytes(sameDiff));
+        assertEquals(sameDiff.graph().numVertices(), fromBytes.graph().numVertices());
+        assertEquals(sameDiff.graph().getOpOrder().opNames(), fromBytes.graph().getOpOrder().opNames());
+        assertEquals(inputs.get("x"), fromBytes.getVariableMap().get("x").getArr());
+        assertEquals(expected, fromBytes.execAndEndResult());
+
+        File file = File.createTempFile("samediff", ".bin");
+        file.deleteOnExit();
+        SameDiffSerializer.save(sameDiff, file);
+        SameDiff fromFile = SameDiffSerializer.load(file);
+        assertEquals(expected, fromFile.execAndEndResult());
+
+        Map<String, INDArray> result = fromFile.inferenceSession()
+                .exec(Collections.singletonMap("x", inputs.get("x")), outputs.getVarName());
+        assertEquals(expected, result.get(outputs.getVarName()));
+    }
+
+    @Test
+    public void testSerializationMultipleChunks() throws Exception {
+        //larger than one 1MB write chunk, not a multiple of it, and a view of a larger array
+        INDArray arr = Nd4j.rand(3, 150001).get(NDArrayIndex.interval(1, 3), NDArrayIndex.all());
+        SameDiff sameDiff = SameDiff.create();
+        SDVariable x = sameDiff.var("x", arr);
+        sameDiff.sigmoid(x);
+
+        SameDiff fromBytes = SameDiffSerializer.fromBytes(SameDiffSerializer.toBytes(sameDiff));
+        assertEquals(arr, fromBytes.getVariableMap().get("x").getArr());
+
+        File file = File.createTempFile("samediff", ".bin");
+        file.deleteOnExit();
+        SameDiffSerializer.save(sameDiff, file);
+        assertEquals(arr, SameDiffSerializer.load(file).getVariableMap().get("x").getArr());
+    }
+
+    @Test
+    public void testMemoryAwareBackwards() {
+        SameDiff expectedDiff = sigmoidChain(20);
+        INDArray expected = expectedDiff.execBackwardAndEndResult();
+
+        SameDiff sameDiff = sigmoidChain(20);
+        BackwardMemoryPlan liveness = sameDiff.planBackwards(Long.MAX_VALUE);
+        assertEquals(1, liveness.getCheckpointInterval());
+        assertEquals(0, liveness.getRecomputedOps());
+        assertTrue(liveness.getLivenessPeakBytes() <= liveness.getPeakBytesWithoutFreeing());
+
+        //only forward activations are released, never gradients
+        Set<String> forwardIds = new HashSet<>();
+        for (Vertex<NDArrayInformation> vertex : sameDiff.graph().getVertices().values())
+            forwardIds.add(vertex.getValue().getArrId());
+        assertFalse(liveness.getFreeable().isEmpty());
+        assertTrue(forwardIds.containsAll(liveness.getFreeable()));
+        assertTrue(liveness.getDropped().isEmpty());
+        assertTrue(liveness.getFreeable().containsAll(liveness.getCheckpoints()));
+
+        //the sigmoid derivatives read the forward activations, so there are some to drop
+        BackwardMemoryPlan checkpointed = sameDiff.planBackwards(0);
+        assertEquals(liveness.getFreeable(), checkpointed.getFreeable());
+        assertFalse(checkpointed.getDropped().isEmpty());
+        assertTrue(checkpointed.getCheckpointInterval() > 1);
+        assertTrue(checkpointed.getRecomputedOps() > 0);
+        assertTrue(checkpointed.getPeakBytes() < liveness.getPeakBytes());
+        assertTrue(Collections.disjoint(checkpointed.getCheckpoints(), checkpointed.getDropped()));
+        Set<String> planned = new HashSet<>(checkpointed.getCheckpoints());
+        planned.addAll(checkpointed.getDropped());
+        assertEquals(liveness.getCheckpoints(), planned);
+
+        assertEquals(expected, sameDiff.execBackwardAndEndResult(0));
+    }
+
+    @Test
+    public void testExecWorkspaceRepeatedGradients() {
+        SameDiff plain = sigmoidChain(50);
+        INDArray expected = plain.execBackwardAndEndResult().dup();
+
+        SameDiff scoped = sigmoidChain(50);
+        scoped.setExecWorkspaceConfiguration(SameDiff.cyclicExecWorkspaceConfiguration());
+        INDArray first = scoped.execBackwardAndEndResult();
+        assertFalse(first.isAttached());
+        assertEquals(expected, first);
+        assertEquals(expected, scoped.execBackwardAndEndResult());
+        //the detached result survives later calls
+        assertEquals(expected, first);
+
+        //no workspace unless configured
+        assertNull(plain.getFunction("grad").getExecWorkspaceId());
+
+        String workspaceId = scoped.getFunction("grad").getExecWorkspaceId();
+        assertNotNull(workspaceId);
+        assertTrue(Nd4j.getWorkspaceManager().checkIfWorkspaceExists(workspaceId));
+        MemoryWorkspace workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceId);
+        long size = workspace.getCurrentSize();
+        assertTrue(size > 0);
+
+        //sized by the first call, later calls reuse the same memory rather than growing it
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected, scoped.execBackwardAndEndResult());
+            assertSame(workspace, Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceId));
+            assertEquals(size, workspace.getCurrentSize());
+            assertTrue(workspace.getLastCycleAllocations() <= size);
+        }
+    }
+
+    private SameDiff sigmoidChain(int depth) {
+        SameDiff sameDiff = SameDiff.create();
+        SDVariable curr = sameDiff.var("x", Nd4j.linspace(1, 4, 4).reshape(2, 2));
+        for (int i = 0; i < depth; i++)
+            curr = sameDiff.sigmoid(curr);
+        sameDiff.sum(curr, Integer.MAX_VALUE);
+        return sameDiff;
+    }
+
+    @Test
+    public void testElementwiseFusionLstmGates() {
+        SameDiff sameDiff = SameDiff.create();
+        Map<String, INDArray> inputs = new HashMap<>();
+        for (String name : new String[] {"f", "i", "g", "o", "c"})
+            inputs.put(name, Nd4j.rand(64, 256).subi(0.5));
+
+        SDVariable f = sameDiff.var("f", inputs.get("f"));
+        SDVariable i = sameDiff.var("i", inputs.get("i"));
+        SDVariable g = sameDiff.var("g", inputs.get("g"));
+        SDVariable o = sameDiff.var("o", inputs.get("o"));
+        SDVariable c = sameDiff.var("c", inputs.get("c"));
+        SDVariable cell = sameDiff.sigmoid(f).mul(c).add(sameDiff.sigmoid(i).mul(sameDiff.tanh(g)));
+        SDVariable h = sameDiff.sigmoid(o).mul(sameDiff.tanh(cell));
+        String output = h.getVarName();
+
+        INDArray cellExpected = Transforms.sigmoid(inputs.get("f"), true).mul(inputs.get("c"))
+                .add(Transforms.sigmoid(inputs.get("i"), true).mul(Transforms.tanh(inputs.get("g"), true)));
+        INDArray expected = Transforms.sigmoid(inputs.get("o"), true).mul(Transforms.tanh(cellExpected, true));
+
+        InferenceSession unfused = sameDiff.inferenceSession(null, false);
+        InferenceSession fused = sameDiff.inferenceSession(null, true);
+        ElementwiseFusion fusion = fused.getFusion();
+        assertEquals(1, fusion.getNumRegions());
+        assertEquals(sameDiff.graph().compile().size(), fusion.getNumFusedOps());
+        assertEquals(expected, unfused.exec(inputs, output).get(output));
+        assertEquals(expected, fused.exec(inputs, output).get(output));
+    }
+
+    @Test
+    public void testElementwiseFusionMlp() {
+        SameDiff sameDiff = SameDiff.create();
+        Map<String, INDArray> inputs = new HashMap<>();
+        inputs.put("x", Nd4j.rand(32, 64).subi(0.5));
+        inputs.put("w1", Nd4j.rand(64, 128).subi(0.5));
+        inputs.put("b1", Nd4j.rand(32, 128).subi(0.5));
+        inputs.put("w2", Nd4j.rand(128, 10).subi(0.5));
+        inputs.put("b2", Nd4j.rand(32, 10).subi(0.5));
+
+        SDVariable x = sameDiff.var("x", inputs.get("x"));
+        SDVariable w1 = sameDiff.var("w1", inputs.get("w1"));
+        SDVariable b1 = sameDiff.var("b1", inputs.get("b1"));
+        SDVariable w2 = sameDiff.var("w2", inputs.get("w2"));
+        SDVariable b2 = sameDiff.var("b2", inputs.get("b2"));
+        SDVariable hidden = sameDiff.sigmoid(sameDiff.mmul(x, w1).add(b1));
+        SDVariable out = sameDiff.tanh(sameDiff.mmul(hidden, w2).add(b2));
+        String output = out.getVarName();
+
+        INDArray hiddenExpected = Transforms.sigmoid(
+                inputs.get("x").mmul(inputs.get("w1")).addi(inputs.get("b1")), false);
+        INDArray expected = Transforms.tanh(hiddenExpected.mmul(inputs.get("w2")).addi(inputs.get("b2")), false);
+
+        InferenceSession unfused = sameDiff.inferenceSession(null, false);
+        InferenceSession fused = sameDiff.inferenceSession(null, true);
+        //one region per layer: bias add and activation, the matrix multiplies run as they are
+        ElementwiseFusion fusion = fused.getFusion();
+        assertEquals(2, fusion.getNumRegions());
+        assertEquals(4, fusion.getNumFusedOps());
+        assertEquals(sameDiff.graph().compile().size() - 4 + 2, fusion.numSteps());
+        assertEquals(expected, unfused.exec(inputs, output).get(output));
+        assertEquals(expected, fused.exec(inputs, output).get(output));
+    }
+
 }
 